@@ -0,0 +1,59 @@
+package drimer.drimain.api.download;
+
+import java.nio.file.Path;
+
+/**
+ * Opis treści do wysłania przez {@link DownloadWriter}: plik na dysku albo bajty z bazy (bytea).
+ * sha256 (jeśli znany) służy jako silny ETag; treść pod danym URL-em nigdy się nie zmienia,
+ * więc przy znanym sha256 odpowiedź jest oznaczana jako immutable (chyba że {@link #mustRevalidate()}).
+ */
+public final class DownloadSource {
+
+    private final Path file;
+    private final byte[] data;
+    private final String contentType;
+    private final String sha256;
+    private final String filename;
+    private final boolean attachment;
+    private final boolean revalidate;
+
+    private DownloadSource(Path file, byte[] data, String contentType, String sha256, String filename,
+                           boolean attachment, boolean revalidate) {
+        this.file = file;
+        this.data = data;
+        this.contentType = contentType;
+        this.sha256 = sha256;
+        this.filename = filename;
+        this.attachment = attachment;
+        this.revalidate = revalidate;
+    }
+
+    public static DownloadSource ofFile(Path file, String contentType, String sha256) {
+        return new DownloadSource(file, null, contentType, sha256, null, false, false);
+    }
+
+    public static DownloadSource ofBytes(byte[] data, String contentType, String sha256) {
+        return new DownloadSource(null, data, contentType, sha256, null, false, false);
+    }
+
+    /** Content-Disposition: attachment z podaną nazwą pliku. */
+    public DownloadSource asAttachment(String filename) {
+        return new DownloadSource(file, data, contentType, sha256, filename, true, revalidate);
+    }
+
+    /**
+     * Treść zastępcza, która zmieni się pod tym samym URL-em (np. oryginał zamiast niewygenerowanej
+     * miniatury) - Cache-Control: no-cache zamiast immutable, klient rewaliduje po ETag.
+     */
+    public DownloadSource mustRevalidate() {
+        return new DownloadSource(file, data, contentType, sha256, filename, attachment, true);
+    }
+
+    public Path getFile() { return file; }
+    public byte[] getData() { return data; }
+    public String getContentType() { return contentType; }
+    public String getSha256() { return sha256; }
+    public String getFilename() { return filename; }
+    public boolean isAttachment() { return attachment; }
+    public boolean isRevalidate() { return revalidate; }
+}
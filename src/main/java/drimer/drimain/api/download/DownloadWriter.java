@@ -0,0 +1,195 @@
+package drimer.drimain.api.download;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Wspólna ścieżka pobierania plików (załączniki zgłoszeń, instrukcji, zdjęcia raportów):
+ * - ETag = "sha256" (silny), If-None-Match -> 304
+ * - Range: bytes=a-b / a- / -n (jeden zakres; wiele zakresów -> pełna treść 200), If-Range po ETag
+ * - pliki: sendfile Tomcata, gdy dostępny; w przeciwnym razie FileChannel.transferTo
+ *   (bez kopiowania przez bufor na stercie)
+ */
+public final class DownloadWriter {
+
+    static final String IMMUTABLE_CACHE = "private, max-age=31536000, immutable";
+    static final String REVALIDATE_CACHE = "private, no-cache";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private DownloadWriter() {}
+
+    public static void write(HttpServletRequest request, HttpServletResponse response, DownloadSource source) throws IOException {
+        if (source.getFile() != null) {
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(source.getFile(), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+            }
+            try (channel) {
+                long length = channel.size();
+                long[] range = prepare(request, response, source, length);
+                if (range == null || isHead(request)) return;
+                long count = range[1] - range[0] + 1;
+                if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                    request.setAttribute(SENDFILE_FILENAME, source.getFile().toAbsolutePath().toString());
+                    request.setAttribute(SENDFILE_START, range[0]);
+                    request.setAttribute(SENDFILE_END, range[1] + 1);
+                    return;
+                }
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = range[0];
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, out);
+                    if (sent <= 0) break;
+                    position += sent;
+                    remaining -= sent;
+                }
+                response.flushBuffer();
+            }
+        } else {
+            byte[] data = source.getData() == null ? new byte[0] : source.getData();
+            long[] range = prepare(request, response, source, data.length);
+            if (range == null || isHead(request)) return;
+            response.getOutputStream().write(data, (int) range[0], (int) (range[1] - range[0] + 1));
+            response.flushBuffer();
+        }
+    }
+
+    /**
+     * Sprawdzenie If-None-Match przed załadowaniem treści (np. bytea z bazy).
+     * Zwraca true, jeśli wysłano 304 i nie trzeba niczego więcej robić.
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response, String sha256) {
+        return notModified(request, response, sha256, false);
+    }
+
+    /**
+     * Jak wyżej; revalidate = true dla treści zastępczej (patrz {@link DownloadSource#mustRevalidate()}).
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response, String sha256,
+                                      boolean revalidate) {
+        if (sha256 == null || sha256.isBlank()) return false;
+        String etag = "\"" + sha256 + "\"";
+        if (!matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) return false;
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, revalidate ? REVALIDATE_CACHE : IMMUTABLE_CACHE);
+        response.setStatus(HttpStatus.NOT_MODIFIED.value());
+        return true;
+    }
+
+    /**
+     * Ustawia status i nagłówki; zwraca zakres [start, end] (włącznie) do wysłania
+     * albo null, gdy odpowiedź nie ma treści (304 / 416).
+     */
+    private static long[] prepare(HttpServletRequest request, HttpServletResponse response,
+                                  DownloadSource source, long length) {
+        String etag = source.getSha256() != null && !source.getSha256().isBlank()
+                ? "\"" + source.getSha256() + "\"" : null;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                etag != null && !source.isRevalidate() ? IMMUTABLE_CACHE : REVALIDATE_CACHE);
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return null;
+            }
+        }
+
+        response.setContentType(source.getContentType() != null ? source.getContentType() : "application/octet-stream");
+        if (source.isAttachment()) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(source.getFilename() != null ? source.getFilename() : "download", StandardCharsets.UTF_8)
+                    .build().toString());
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rangeHeader != null && ifRange != null && (etag == null || !ifRange.trim().equals(etag))) {
+            rangeHeader = null; // zasób "zmieniony" (lub If-Range z datą) -> pełna treść
+        }
+
+        long[] range;
+        try {
+            range = parseRange(rangeHeader, length);
+        } catch (IllegalStateException unsatisfiable) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return null;
+        }
+
+        if (range == null) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentLengthLong(length);
+            return new long[]{0, length - 1};
+        }
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+        response.setContentLengthLong(range[1] - range[0] + 1);
+        return range;
+    }
+
+    /**
+     * Zwraca [start, end] albo null (brak/nieobsługiwany nagłówek -> cała treść).
+     * Zakres poza plikiem -> IllegalStateException (416).
+     */
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) return null;
+        String spec = header.substring(6).trim();
+        if (spec.isEmpty() || spec.contains(",")) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) throw new IllegalStateException("Unsatisfiable range");
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (start >= length || end < start) throw new IllegalStateException("Unsatisfiable range");
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) value = value.substring(2);
+            if (value.equals("*") || value.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isHead(HttpServletRequest request) {
+        return "HEAD".equalsIgnoreCase(request.getMethod());
+    }
+}
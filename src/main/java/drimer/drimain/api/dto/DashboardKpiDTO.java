@@ -44,6 +44,8 @@ public class DashboardKpiDTO {
     private Map<String, Long> topTypyZgloszen = new LinkedHashMap<>();
     private Map<String, Long> zgloszeniaByStatus = new LinkedHashMap<>();
     private Map<String, Long> raportyByStatus = new LinkedHashMap<>();
+    // nazwa działu -> liczba zgłoszeń w okresie (malejąco)
+    private Map<String, Long> zgloszeniaByDzial = new LinkedHashMap<>();
 
     private LocalDateTime lastUpdated;
 }
@@ -1,5 +1,6 @@
 package drimer.drimain.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import drimer.drimain.events.EventType;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,6 +11,9 @@ public class ZgloszenieEventDTO {
     private LocalDateTime eventTimestamp;
     private List<String> changedFields;
     private Long attachmentId;
+    // Stan zgłoszenia po zmianie - tylko dla subskrypcji z full=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ZgloszenieDTO zgloszenie;
     
     // For serialization
     public ZgloszenieEventDTO() {}
@@ -62,4 +66,12 @@ public class ZgloszenieEventDTO {
     public void setAttachmentId(Long attachmentId) {
         this.attachmentId = attachmentId;
     }
-}
\ No newline at end of file
+
+    public ZgloszenieDTO getZgloszenie() {
+        return zgloszenie;
+    }
+
+    public void setZgloszenie(ZgloszenieDTO zgloszenie) {
+        this.zgloszenie = zgloszenie;
+    }
+}
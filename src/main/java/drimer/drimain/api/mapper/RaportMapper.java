@@ -8,6 +8,7 @@ import drimer.drimain.model.enums.RaportStatus;
 import drimer.drimain.repository.MaszynaRepository;
 import drimer.drimain.repository.OsobaRepository;
 import drimer.drimain.repository.PartRepository;
+import drimer.drimain.service.RaportPhotoService;
 import drimer.drimain.util.RaportStatusMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -121,18 +122,7 @@ public class RaportMapper {
                 dto.setZdjecia(Collections.emptyList());
             } else {
                 var normalized = r.getZdjecia().stream()
-                        .map(path -> {
-                            if (path == null) return null;
-                            String value = path.trim();
-                            if (value.startsWith("inline:")) {
-                                int first = value.indexOf(':');
-                                int second = value.indexOf(':', first + 1);
-                                if (second > first + 1) {
-                                    return value.substring(first + 1, second);
-                                }
-                            }
-                            return value;
-                        })
+                        .map(RaportPhotoService::displayName)
                         .filter(v -> v != null && !v.isBlank())
                         .collect(Collectors.toList());
                 dto.setZdjecia(normalized);
@@ -11,6 +11,9 @@ public class AttachmentStorageConfig {
 
     private String basePath = "uploads/attachments";
     private long maxFileSizeBytes = 10 * 1024 * 1024; // 10MB
+    private long maxManualSizeBytes = 100L * 1024 * 1024; // 100MB - PDF manuals (instructions)
+    private long contentGcGraceMinutes = 60; // unreferenced blobs younger than this are kept (in-flight uploads)
+    private long contentGcIntervalMinutes = 360;
     private Set<String> allowedContentTypes = Set.of(
             "image/jpeg", "image/png", "image/gif", "image/webp",
             "application/pdf",
@@ -39,6 +42,30 @@ public class AttachmentStorageConfig {
         this.maxFileSizeBytes = maxFileSizeBytes;
     }
 
+    public long getMaxManualSizeBytes() {
+        return maxManualSizeBytes;
+    }
+
+    public void setMaxManualSizeBytes(long maxManualSizeBytes) {
+        this.maxManualSizeBytes = maxManualSizeBytes;
+    }
+
+    public long getContentGcGraceMinutes() {
+        return contentGcGraceMinutes;
+    }
+
+    public void setContentGcGraceMinutes(long contentGcGraceMinutes) {
+        this.contentGcGraceMinutes = contentGcGraceMinutes;
+    }
+
+    public long getContentGcIntervalMinutes() {
+        return contentGcIntervalMinutes;
+    }
+
+    public void setContentGcIntervalMinutes(long contentGcIntervalMinutes) {
+        this.contentGcIntervalMinutes = contentGcIntervalMinutes;
+    }
+
     public Set<String> getAllowedContentTypes() {
         return allowedContentTypes;
     }
@@ -0,0 +1,41 @@
+package drimer.drimain.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.events.cluster.ClusterEventBus;
+import drimer.drimain.events.cluster.LoopbackClusterEventBus;
+import drimer.drimain.events.cluster.PostgresClusterEventBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Wybór szyny zdarzeń klastra (app.cluster.bus): postgres / loopback / auto (wg bazy).
+ */
+@Configuration
+@Slf4j
+public class ClusterEventBusConfig {
+
+    @Bean
+    public ClusterEventBus clusterEventBus(ClusterProperties properties, DataSource dataSource,
+                                           JdbcTemplate jdbcTemplate, DatabaseDialect dialect,
+                                           ObjectMapper objectMapper) {
+        String mode = properties.getBus() == null ? "auto" : properties.getBus().trim().toLowerCase();
+        boolean postgres = switch (mode) {
+            case "postgres" -> true;
+            case "loopback" -> false;
+            default -> dialect.isPostgres();
+        };
+        if (!postgres) {
+            log.info("Cluster event bus: in-process loopback (single instance)");
+            return new LoopbackClusterEventBus();
+        }
+        PostgresClusterEventBus bus = new PostgresClusterEventBus(dataSource, jdbcTemplate, objectMapper, properties);
+        bus.start();
+        log.info("Cluster event bus: PostgreSQL LISTEN/NOTIFY on channel {}, node {}",
+                properties.getChannel(), properties.getNodeId());
+        return bus;
+    }
+}
@@ -0,0 +1,59 @@
+package drimer.drimain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.cluster")
+public class ClusterProperties {
+
+    // auto = PostgreSQL LISTEN/NOTIFY gdy baza to PostgreSQL, w przeciwnym razie loopback (jedna instancja)
+    private String bus = "auto";
+    private String channel = "drimain_events";
+    private String nodeId = UUID.randomUUID().toString();
+    // Oczekiwanie na powiadomienia w jednym wywołaniu i przerwa przed ponownym LISTEN po utracie połączenia
+    private int pollTimeoutMillis = 500;
+    private int reconnectDelaySeconds = 5;
+
+    public String getBus() {
+        return bus;
+    }
+
+    public void setBus(String bus) {
+        this.bus = bus;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public int getPollTimeoutMillis() {
+        return pollTimeoutMillis;
+    }
+
+    public void setPollTimeoutMillis(int pollTimeoutMillis) {
+        this.pollTimeoutMillis = pollTimeoutMillis;
+    }
+
+    public int getReconnectDelaySeconds() {
+        return reconnectDelaySeconds;
+    }
+
+    public void setReconnectDelaySeconds(int reconnectDelaySeconds) {
+        this.reconnectDelaySeconds = reconnectDelaySeconds;
+    }
+}
@@ -0,0 +1,30 @@
+package drimer.drimain.config;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rodzaj bazy ustalony raz z metadanych połączenia: PostgreSQL (Flyway, upserty ON CONFLICT, tsvector,
+ * LISTEN/NOTIFY) albo H2 (schemat z encji i db/h2/schema.sql, MERGE, n-gramy, szyna loopback).
+ */
+@Component
+public class DatabaseDialect {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public DatabaseDialect(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            detected = product != null && product.toLowerCase().contains("postgres");
+            postgres = detected;
+        }
+        return detected;
+    }
+}
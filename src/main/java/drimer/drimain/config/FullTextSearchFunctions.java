@@ -0,0 +1,40 @@
+package drimer.drimain.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Funkcje HQL/Criteria dla wyszukiwania po search_vector (PostgreSQL, V34__add_full_text_search.sql).
+ * Warunek tsvector trafia do tego samego SQL co pozostałe filtry, więc wynik nie jest obcinany
+ * do app.search.max-hits przed filtrowaniem. Rejestracja: META-INF/services (ServiceLoader Hibernate).
+ * Na H2 funkcje są zarejestrowane, ale nieużywane (brak kolumn search_vector).
+ */
+public class FullTextSearchFunctions implements FunctionContributor {
+
+    public static final String ZGLOSZENIA_MATCH = "fts_match_zgloszenia";
+    public static final String RAPORTY_MATCH = "fts_match_raporty";
+
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        BasicType<Boolean> booleanType = contributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        register(contributions, ZGLOSZENIA_MATCH, "zgloszenia", booleanType);
+        register(contributions, RAPORTY_MATCH, "raporty", booleanType);
+    }
+
+    /**
+     * name(id, tsquery) -> id IN (SELECT id FROM table WHERE search_vector @@ to_tsquery('simple', tsquery));
+     * półzłączenie korzysta z indeksu GIN.
+     */
+    private static void register(FunctionContributions contributions, String name, String table,
+                                 BasicType<Boolean> booleanType) {
+        contributions.getFunctionRegistry()
+                .patternDescriptorBuilder(name, "(?1 in (select fts.id from " + table + " fts " +
+                        "where fts.search_vector @@ to_tsquery('simple', ?2)))")
+                .setInvariantType(booleanType)
+                .setExactArgumentCount(2)
+                .register();
+    }
+}
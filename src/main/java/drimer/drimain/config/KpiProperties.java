@@ -0,0 +1,39 @@
+package drimer.drimain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.kpi")
+public class KpiProperties {
+
+    // false = dashboard liczy KPI bezpośrednio z tabel źródłowych (bez kpi_daily)
+    private boolean aggregatesEnabled = true;
+    // Nocne uzgodnienie kpi_daily ze źródłem (łapie zmiany z pominięciem zdarzeń)
+    private String reconcileCron = "0 30 2 * * *";
+    private int reconcileBatchSize = 2000;
+
+    public boolean isAggregatesEnabled() {
+        return aggregatesEnabled;
+    }
+
+    public void setAggregatesEnabled(boolean aggregatesEnabled) {
+        this.aggregatesEnabled = aggregatesEnabled;
+    }
+
+    public String getReconcileCron() {
+        return reconcileCron;
+    }
+
+    public void setReconcileCron(String reconcileCron) {
+        this.reconcileCron = reconcileCron;
+    }
+
+    public int getReconcileBatchSize() {
+        return reconcileBatchSize;
+    }
+
+    public void setReconcileBatchSize(int reconcileBatchSize) {
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+}
@@ -0,0 +1,69 @@
+package drimer.drimain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    // Odpytywanie tabeli event_outbox (zdarzenia z innych instancji, ponowienia); lokalny commit budzi od razu
+    private long pollIntervalMillis = 1000;
+    // Zdarzeń czytanych naraz przez jednego konsumenta
+    private int batchSize = 100;
+    private int workerThreads = 2;
+    // Próby jednego zdarzenia u konsumenta; potem zdarzenie jest logowane i pomijane
+    private int maxAttempts = 5;
+    // Przerwa przed ponowieniem (podwajana z każdą próbą, maks. minuta)
+    private long retryDelayMillis = 1000;
+    // Zdarzenia obsłużone przez wszystkich konsumentów są usuwane po tym czasie
+    private int retentionHours = 72;
+
+    public long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    public void setPollIntervalMillis(long pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    public int getRetentionHours() {
+        return retentionHours;
+    }
+
+    public void setRetentionHours(int retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+}
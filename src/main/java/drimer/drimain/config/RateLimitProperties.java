@@ -0,0 +1,65 @@
+package drimer.drimain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private int defaultRequests = 100; // per client (IP) for every /api/** request
+    private int defaultWindowSeconds = 60;
+    private long sweepIntervalSeconds = 60;
+    private String store = "memory"; // memory | jdbc (limit shared by all instances)
+    private long jdbcFlushIntervalMillis = 1000;
+
+    // Getters and setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDefaultRequests() {
+        return defaultRequests;
+    }
+
+    public void setDefaultRequests(int defaultRequests) {
+        this.defaultRequests = defaultRequests;
+    }
+
+    public int getDefaultWindowSeconds() {
+        return defaultWindowSeconds;
+    }
+
+    public void setDefaultWindowSeconds(int defaultWindowSeconds) {
+        this.defaultWindowSeconds = defaultWindowSeconds;
+    }
+
+    public long getSweepIntervalSeconds() {
+        return sweepIntervalSeconds;
+    }
+
+    public void setSweepIntervalSeconds(long sweepIntervalSeconds) {
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public long getJdbcFlushIntervalMillis() {
+        return jdbcFlushIntervalMillis;
+    }
+
+    public void setJdbcFlushIntervalMillis(long jdbcFlushIntervalMillis) {
+        this.jdbcFlushIntervalMillis = jdbcFlushIntervalMillis;
+    }
+}
@@ -0,0 +1,49 @@
+package drimer.drimain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    // auto | postgres | ngram | like
+    private String engine = "auto";
+    // Limit listy id z indeksu n-gramowego (więcej trafień -> filtr LIKE) i sortowania wg trafności
+    private int maxHits = 2000;
+    // Pełna przebudowa indeksu n-gramowego (fallback H2) - łapie zmiany z pominięciem zdarzeń
+    private long ngramRebuildIntervalMinutes = 15;
+    private int ngramLoadBatchSize = 5000;
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public int getMaxHits() {
+        return maxHits;
+    }
+
+    public void setMaxHits(int maxHits) {
+        this.maxHits = maxHits;
+    }
+
+    public long getNgramRebuildIntervalMinutes() {
+        return ngramRebuildIntervalMinutes;
+    }
+
+    public void setNgramRebuildIntervalMinutes(long ngramRebuildIntervalMinutes) {
+        this.ngramRebuildIntervalMinutes = ngramRebuildIntervalMinutes;
+    }
+
+    public int getNgramLoadBatchSize() {
+        return ngramLoadBatchSize;
+    }
+
+    public void setNgramLoadBatchSize(int ngramLoadBatchSize) {
+        this.ngramLoadBatchSize = ngramLoadBatchSize;
+    }
+}
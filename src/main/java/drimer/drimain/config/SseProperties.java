@@ -10,6 +10,21 @@ public class SseProperties {
     private int maxClients = 100;
     private long heartbeatIntervalSeconds = 30;
     private long clientTimeoutSeconds = 300; // 5 minutes
+    // Kolejka wysyłki per klient i pula wątków, która je opróżnia (wolny klient nie blokuje publikującego)
+    private int queueCapacity = 64;
+    private int senderThreads = 2;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+    // Ostatnie snapshoty zgłoszeń (routing po dziale/autorze, payload full=true)
+    private int snapshotCacheSize = 5000;
+    // Ostatnie zdarzenia do odtworzenia po ponownym połączeniu (Last-Event-ID)
+    private int replayBufferSize = 1000;
+
+    public enum OverflowPolicy {
+        // najstarsze zdarzenie w kolejce jest odrzucane, a klient dostaje RESYNC zamiast reszty kolejki
+        DROP_OLDEST,
+        // połączenie jest zamykane - klient łączy się ponownie i odświeża dane
+        DISCONNECT
+    }
     
     // Getters and setters
     public int getMaxClients() {
@@ -35,4 +50,44 @@ public class SseProperties {
     public void setClientTimeoutSeconds(long clientTimeoutSeconds) {
         this.clientTimeoutSeconds = clientTimeoutSeconds;
     }
-}
\ No newline at end of file
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getSnapshotCacheSize() {
+        return snapshotCacheSize;
+    }
+
+    public void setSnapshotCacheSize(int snapshotCacheSize) {
+        this.snapshotCacheSize = snapshotCacheSize;
+    }
+
+    public int getReplayBufferSize() {
+        return replayBufferSize;
+    }
+
+    public void setReplayBufferSize(int replayBufferSize) {
+        this.replayBufferSize = replayBufferSize;
+    }
+}
@@ -1,11 +1,16 @@
 package drimer.drimain.controller;
 
 import drimer.drimain.api.dto.*;
+import drimer.drimain.events.UserAccountChangedEvent;
 import drimer.drimain.model.*;
 import drimer.drimain.repository.*;
 import drimer.drimain.security.ModulesCatalog;
+import drimer.drimain.security.PrincipalCache;
+import drimer.drimain.service.ReferenceDataCache;
+import drimer.drimain.service.ReferenceDataCache.Kind;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -37,6 +43,9 @@ public class AdminRestController {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final ReferenceDataCache referenceDataCache;
+    private final ApplicationEventPublisher eventPublisher;
     // Nowe repozytoria do walidacji zależności maszyny
     private final RaportRepository raportRepository;
     private final HarmonogramRepository harmonogramRepository;
@@ -66,6 +75,7 @@ public class AdminRestController {
         Dzial dzial = new Dzial();
         dzial.setNazwa(req.getNazwa());
         dzialRepository.save(dzial);
+        referenceDataCache.invalidate(Kind.DZIALY);
         return toDzialDto(dzial);
     }
 
@@ -75,6 +85,8 @@ public class AdminRestController {
                 .orElseThrow(() -> new IllegalArgumentException("Dzial not found"));
         dzial.setNazwa(req.getNazwa());
         dzialRepository.save(dzial);
+        // nazwa działu jest w listach maszyn/sekcji i w filtrze dzialNazwa
+        referenceDataCache.invalidate(Kind.DZIALY, Kind.MASZYNY, Kind.SEKCJE, Kind.OSOBY);
         return toDzialDto(dzial);
     }
 
@@ -82,6 +94,7 @@ public class AdminRestController {
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteDzial(@PathVariable Long id) {
         dzialRepository.deleteById(id);
+        referenceDataCache.invalidate(Kind.DZIALY, Kind.MASZYNY, Kind.SEKCJE, Kind.OSOBY);
     }
 
     // ========== MASZYNY ==========
@@ -109,6 +122,7 @@ public class AdminRestController {
         applySekcje(maszyna, req.getSekcjaIds(), req.getSekcjaId());
         
         maszynaRepository.save(maszyna);
+        referenceDataCache.invalidate(Kind.MASZYNY);
         return toMaszynaDto(maszyna);
     }
 
@@ -130,6 +144,7 @@ public class AdminRestController {
         applySekcje(maszyna, req.getSekcjaIds(), req.getSekcjaId());
         
         maszynaRepository.save(maszyna);
+        referenceDataCache.invalidate(Kind.MASZYNY);
         return toMaszynaDto(maszyna);
     }
 
@@ -157,6 +172,7 @@ public class AdminRestController {
         sekcja.setNazwa(req.getNazwa().trim());
         sekcja.setDzial(dzial);
         sekcjaRepository.save(sekcja);
+        referenceDataCache.invalidate(Kind.SEKCJE);
         return toSekcjaDto(sekcja);
     }
 
@@ -169,6 +185,8 @@ public class AdminRestController {
         sekcja.setNazwa(req.getNazwa().trim());
         sekcja.setDzial(dzial);
         sekcjaRepository.save(sekcja);
+        // nazwa sekcji jest w listach maszyn
+        referenceDataCache.invalidate(Kind.SEKCJE, Kind.MASZYNY);
         return toSekcjaDto(sekcja);
     }
 
@@ -189,6 +207,7 @@ public class AdminRestController {
             maszynaRepository.saveAll(machinesMulti);
         }
         sekcjaRepository.delete(sekcja);
+        referenceDataCache.invalidate(Kind.SEKCJE, Kind.MASZYNY);
     }
 
     @DeleteMapping("/maszyny/{id}")
@@ -212,6 +231,7 @@ public class AdminRestController {
         }
         try {
             maszynaRepository.deleteById(id);
+            referenceDataCache.invalidate(Kind.MASZYNY);
             return ResponseEntity.noContent().build();
         } catch (DataIntegrityViolationException ex) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -244,6 +264,7 @@ public class AdminRestController {
             osoba.setDzial(dz);
         }
         osobaRepository.save(osoba);
+        referenceDataCache.invalidate(Kind.OSOBY);
         return toOsobaDto(osoba);
     }
 
@@ -265,6 +286,7 @@ public class AdminRestController {
             osoba.setDzial(null);
         }
         osobaRepository.save(osoba);
+        referenceDataCache.invalidate(Kind.OSOBY);
         return toOsobaDto(osoba);
     }
 
@@ -272,6 +294,7 @@ public class AdminRestController {
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteOsoba(@PathVariable Long id) {
         osobaRepository.deleteById(id);
+        referenceDataCache.invalidate(Kind.OSOBY);
     }
 
     // ========== USERS (SECURITY) ==========
@@ -311,6 +334,7 @@ public class AdminRestController {
         }
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(this, user.getUsername(), null));
         return toUserDto(user);
     }
 
@@ -318,12 +342,17 @@ public class AdminRestController {
     public UserDTO updateUser(@PathVariable Long id, @Valid @RequestBody UserCreateRequest req) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        String previousUsername = user.getUsername();
+        Set<String> previousRoles = user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+        Set<String> previousModules = Set.copyOf(user.getModules());
+        boolean passwordChanged = false;
         
         user.setUsername(req.getUsername());
         user.setEmail(req.getEmail());
 
         if (req.getPassword() != null && !req.getPassword().trim().isEmpty()) {
             user.setPassword(passwordEncoder.encode(req.getPassword()));
+            passwordChanged = true;
         }
         
         if (req.getRoles() != null) {
@@ -348,14 +377,28 @@ public class AdminRestController {
             user.setModules(Set.of());
         }
 
+        // wydane tokeny tracą ważność przy zmianie hasła, loginu, ról lub modułów
+        if (passwordChanged || !Objects.equals(previousUsername, user.getUsername())
+                || !previousRoles.equals(user.getRoles().stream().map(Role::getName).collect(Collectors.toSet()))
+                || !previousModules.equals(Set.copyOf(user.getModules()))) {
+            user.bumpTokenVersion();
+        }
         userRepository.save(user);
+        // role/moduły/hasło mogły się zmienić - principal w JwtAuthFilter musi zostać przeładowany
+        principalCache.invalidate(previousUsername);
+        principalCache.invalidate(user.getUsername());
+        if (!Objects.equals(previousUsername, user.getUsername())) {
+            eventPublisher.publishEvent(new UserAccountChangedEvent(this, user.getUsername(), previousUsername));
+        }
         return toUserDto(user);
     }
 
     @DeleteMapping("/users/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteUser(@PathVariable Long id) {
+        String username = userRepository.findById(id).map(User::getUsername).orElse(null);
         userRepository.deleteById(id);
+        principalCache.invalidate(username);
     }
 
     // ========== MAPPER METHODS ==========
@@ -0,0 +1,62 @@
+package drimer.drimain.controller;
+
+import drimer.drimain.service.ThumbnailService;
+import drimer.drimain.service.storage.ContentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Operacje administracyjne na magazynie plików (załączniki, zdjęcia raportów).
+ */
+@RestController
+@RequestMapping("/api/admin/storage")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Slf4j
+public class AdminStorageController {
+
+    private final ThumbnailService thumbnailService;
+    private final ContentStore contentStore;
+
+    private final AtomicBoolean thumbnailBackfillRunning = new AtomicBoolean();
+
+    // Generuje brakujące miniatury/podglądy dla istniejących obrazów (w tle)
+    @PostMapping("/thumbnails/backfill")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Map<String, Object> backfillThumbnails() {
+        if (!thumbnailBackfillRunning.compareAndSet(false, true)) {
+            return Map.of("started", false, "message", "Backfill already running");
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                thumbnailService.backfill();
+            } catch (Exception e) {
+                log.warn("Thumbnail backfill failed: {}", e.getMessage());
+            } finally {
+                thumbnailBackfillRunning.set(false);
+            }
+        }, "thumbnail-backfill");
+        worker.setDaemon(true);
+        worker.start();
+        return Map.of("started", true);
+    }
+
+    // Oszczędność z deduplikacji: rozmiar logiczny vs fizyczny magazynu treści
+    @GetMapping("/content")
+    public ContentStore.Report contentReport() {
+        return contentStore.report();
+    }
+
+    // Ręczne uruchomienie GC (normalnie co app.attachments.content-gc-interval-minutes)
+    @PostMapping("/content/gc")
+    public ContentStore.GcResult collectGarbage() throws IOException {
+        return contentStore.collectGarbage();
+    }
+}
@@ -2,16 +2,19 @@ package drimer.drimain.controller;
 
 import drimer.drimain.api.dto.AttachmentDTO;
 import drimer.drimain.api.dto.AttachmentUploadResponse;
+import drimer.drimain.api.download.DownloadWriter;
+import drimer.drimain.security.RateLimit;
 import drimer.drimain.service.AttachmentService;
+import drimer.drimain.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -22,6 +25,7 @@ public class AttachmentController {
 
     @PostMapping("/api/zgloszenia/{id}/attachments")
     @ResponseStatus(HttpStatus.CREATED)
+    @RateLimit(requests = 30, timeWindow = 60, identifier = "user")
     public AttachmentUploadResponse uploadAttachments(
             @PathVariable Long id,
             @RequestParam("files") List<MultipartFile> files,
@@ -42,15 +46,12 @@ public class AttachmentController {
     }
 
     @GetMapping("/api/attachments/{attachmentId}/download")
-    public ResponseEntity<Resource> downloadAttachment(@PathVariable Long attachmentId) {
-        Resource resource = attachmentService.downloadAttachment(attachmentId);
-        AttachmentDTO attachmentInfo = attachmentService.getAttachmentInfo(attachmentId);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                        "attachment; filename=\"" + attachmentInfo.getOriginalFilename() + "\"")
-                .header(HttpHeaders.CONTENT_TYPE, attachmentInfo.getContentType())
-                .body(resource);
+    public void downloadAttachment(@PathVariable Long attachmentId,
+                                   @RequestParam(required = false) String variant,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        DownloadWriter.write(request, response,
+                attachmentService.prepareDownload(attachmentId, ThumbnailService.Variant.parse(variant)));
     }
 
     @DeleteMapping("/api/attachments/{attachmentId}")
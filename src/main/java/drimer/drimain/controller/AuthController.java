@@ -4,18 +4,22 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import drimer.drimain.api.dto.RefreshRequest;
+import drimer.drimain.events.UserAccountChangedEvent;
 import drimer.drimain.model.RefreshToken;
 import drimer.drimain.model.Role;
 import drimer.drimain.model.User;
 import drimer.drimain.repository.RoleRepository;
 import drimer.drimain.repository.UserRepository;
+import drimer.drimain.security.AuthenticatedUser;
 import drimer.drimain.security.JwtService;
+import drimer.drimain.security.PrincipalCache;
 import drimer.drimain.service.CustomUserDetailsService;
 import drimer.drimain.service.RefreshTokenService;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -52,6 +56,8 @@ public class AuthController {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper lenientJsonMapper = new ObjectMapper()
             .configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true)
             .configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
@@ -62,7 +68,9 @@ public class AuthController {
                           RefreshTokenService refreshTokenService,
                           UserRepository userRepository,
                           RoleRepository roleRepository,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          PrincipalCache principalCache,
+                          ApplicationEventPublisher eventPublisher) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
@@ -70,6 +78,8 @@ public class AuthController {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @PostMapping(value = "/login", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_FORM_URLENCODED_VALUE, MediaType.TEXT_PLAIN_VALUE})
@@ -100,10 +110,10 @@ public class AuthController {
             Authentication auth = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(resolvedUsername, request.getPassword())
             );
-            var userDetails = userDetailsService.loadUserByUsername(resolvedUsername);
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("roles", userDetails.getAuthorities()
-                    .stream().map(a -> a.getAuthority()).toList());
+            // Principal (role + maska modułów) wyliczony raz przy logowaniu i trzymany w cache
+            String principalName = resolvedUsername;
+            var userDetails = principalCache.refresh(principalName, () -> userDetailsService.loadUserByUsername(principalName));
+            Map<String, Object> claims = accessClaims(userDetails);
 
             String accessToken = jwtService.generateAccessToken(userDetails.getUsername(), claims);
             
@@ -210,10 +220,8 @@ public class AuthController {
 
             // Generate new access token
             User user = refreshToken.getUser();
-            var userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("roles", userDetails.getAuthorities()
-                    .stream().map(a -> a.getAuthority()).toList());
+            var userDetails = principalCache.refresh(user.getUsername(), () -> userDetailsService.loadUserByUsername(user.getUsername()));
+            Map<String, Object> claims = accessClaims(userDetails);
 
             String newAccessToken = jwtService.generateAccessToken(user.getUsername(), claims);
 
@@ -302,12 +310,11 @@ public class AuthController {
             user.setRoles(Set.of(userRole));
 
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserAccountChangedEvent(this, user.getUsername(), null));
 
             // Generate tokens for immediate login
             var userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("roles", userDetails.getAuthorities()
-                    .stream().map(a -> a.getAuthority()).toList());
+            Map<String, Object> claims = accessClaims(userDetails);
 
             String accessToken = jwtService.generateAccessToken(user.getUsername(), claims);
             RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
@@ -322,6 +329,19 @@ public class AuthController {
         }
     }
 
+    /**
+     * Claimy access tokenu: role i wersja poświadczeń (JwtAuthFilter odrzuca tokeny sprzed jej podbicia).
+     */
+    private Map<String, Object> accessClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("roles", userDetails.getAuthorities()
+                .stream().map(a -> a.getAuthority()).toList());
+        if (userDetails instanceof AuthenticatedUser authenticated) {
+            claims.put(JwtService.TOKEN_VERSION_CLAIM, authenticated.getTokenVersion());
+        }
+        return claims;
+    }
+
     private boolean isValidEmail(String email) {
         // Simple RFC 5322 compliant-ish regex (kept simple for server-side)
         Pattern p = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-ZaZ0-9.-]+$");
@@ -1,10 +1,11 @@
 package drimer.drimain.controller;
 
 import drimer.drimain.api.dto.*;
+import drimer.drimain.api.download.DownloadWriter;
 import drimer.drimain.service.InstructionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,6 +14,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -62,11 +64,9 @@ public class InstructionController {
     }
 
     @GetMapping("/attachments/{attachmentId}/download")
-    public ResponseEntity<Resource> download(@PathVariable Long attachmentId) {
-        Resource res = instructionService.download(attachmentId);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + res.getFilename() + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(res);
+    public void download(@PathVariable Long attachmentId,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        DownloadWriter.write(request, response, instructionService.prepareDownload(attachmentId));
     }
 }
@@ -3,19 +3,26 @@ package drimer.drimain.controller;
 import drimer.drimain.api.dto.RaportCreateRequest;
 import drimer.drimain.api.dto.RaportDTO;
 import drimer.drimain.api.dto.RaportUpdateRequest;
+import drimer.drimain.api.download.DownloadSource;
+import drimer.drimain.api.download.DownloadWriter;
 import drimer.drimain.api.mapper.RaportMapper;
 import drimer.drimain.events.RaportChangedEvent;
 import drimer.drimain.model.Raport;
 import drimer.drimain.model.User;
-import drimer.drimain.model.Zgloszenie;
 import drimer.drimain.model.enums.RaportStatus;
-import drimer.drimain.model.enums.ZgloszenieStatus;
 import drimer.drimain.repository.MaszynaRepository;
 import drimer.drimain.repository.OsobaRepository;
 import drimer.drimain.repository.RaportRepository;
 import drimer.drimain.repository.UserRepository;
-import drimer.drimain.repository.ZgloszenieRepository;
 import drimer.drimain.repository.spec.RaportSpecifications;
+import drimer.drimain.repository.projection.RaportZdjecieBlobMeta;
+import drimer.drimain.service.RaportPhotoService;
+import drimer.drimain.service.RaportQueryService;
+import drimer.drimain.service.ThumbnailService;
+import drimer.drimain.service.job.RaportBackfillJob;
+import drimer.drimain.service.search.FullTextSearchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
@@ -40,11 +47,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ByteArrayResource;
 
 @RestController
 @RequestMapping("/api/raporty")
@@ -64,8 +67,12 @@ public class RaportRestController {
     private final ApplicationEventPublisher publisher;
     private final OsobaRepository osobaRepository;
     private final RaportMapper raportMapper;
-    private final ZgloszenieRepository zgloszenieRepository;
     private final UserRepository userRepository;
+    private final FullTextSearchService fullTextSearchService;
+    private final RaportQueryService raportQueryService;
+    private final RaportPhotoService raportPhotoService;
+    private final ThumbnailService thumbnailService;
+    private final RaportBackfillJob raportBackfillJob;
 
     @GetMapping
     @Transactional(readOnly = true)
@@ -128,7 +135,11 @@ public class RaportRestController {
                         .and(RaportSpecifications.hasMaszynaId(maszynaId))
                         .and(RaportSpecifications.dateFrom(from))
                         .and(RaportSpecifications.dateTo(to))
-                        .and(RaportSpecifications.fullText(q));
+                        .and(fullTextSearchService.matchRaporty(q)
+                                .map(match -> match.tsQuery() != null
+                                        ? RaportSpecifications.matchesTsQuery(match.tsQuery())
+                                        : RaportSpecifications.idIn(match.ids()))
+                                .orElseGet(() -> RaportSpecifications.fullText(q)));
 
         // Filter by user's department if not admin and not "Utrzymanie Ruchu"
         if (authentication != null) {
@@ -153,22 +164,21 @@ public class RaportRestController {
             }
         }
 
-        Page<Raport> pageData = raportRepository.findAll(spec, pageable);
-        return pageData.map(raportMapper::toDto);
+        return raportQueryService.page(spec, pageable);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','BIURO','USER')")
     public RaportDTO get(@PathVariable Long id) {
-        Raport r = raportRepository.findById(id)
+        return raportQueryService.get(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Raport not found"));
-        return raportMapper.toDto(r);
     }
 
     // Create report: require module AND role (ADMIN or BIURO)
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasAnyRole('ADMIN','BIURO')")
+    @Transactional
     public RaportDTO create(@RequestBody RaportCreateRequest req,
                            @AuthenticationPrincipal UserDetails userDetails) {
         Raport r = new Raport();
@@ -205,6 +215,7 @@ public class RaportRestController {
     // Update report: require module AND role (ADMIN or BIURO)
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','BIURO','USER')")
+    @Transactional
     public RaportDTO update(@PathVariable Long id, @RequestBody RaportUpdateRequest req,
                            @AuthenticationPrincipal UserDetails userDetails) {
         Raport r = raportRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Raport not found"));
@@ -225,40 +236,32 @@ public class RaportRestController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @PreAuthorize("hasRole('ADMIN') and @moduleGuard.has('Raporty')")
+    @Transactional
     public void delete(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        RaportDTO deleted = raportRepository.findById(id).map(raportMapper::toDto).orElse(null);
+        raportPhotoService.deleteAll(id);
         raportRepository.deleteById(id);
+        if (deleted != null) {
+            publisher.publishEvent(new RaportChangedEvent(this, deleted, "DELETED"));
+        }
         if (userDetails != null) {
             log.info("Report {} deleted by user: {}", id, userDetails.getUsername());
         }
     }
 
-    // Backfill: utwórz raporty dla ZAKOŃCZONYCH (DONE) zgłoszeń bez raportu
+    // Backfill: raporty dla ZAKOŃCZONYCH (DONE) zgłoszeń bez raportu - zadanie w tle (service.job.RaportBackfillJob),
+    // paczkami z punktem kontrolnym; GET zwraca postęp, ponowny POST wznawia przerwany przebieg
     @PostMapping("/backfill-from-zgloszenia")
+    @ResponseStatus(HttpStatus.ACCEPTED)
     @PreAuthorize("hasAnyRole('ADMIN','BIURO') and @moduleGuard.has('Raporty')")
-    public int backfillFromZgloszenia() {
-        int created = 0;
-        var doneList = zgloszenieRepository.findAll().stream()
-                .filter(z -> z.getStatus() == ZgloszenieStatus.DONE)
-                .toList();
-        for (Zgloszenie z : doneList) {
-            if (z.getId() == null) continue;
-            if (raportRepository.findByZgloszenieId(z.getId()).isPresent()) continue;
-            Raport r = new Raport();
-            r.setZgloszenieId(z.getId());
-            r.setMaszyna(z.getMaszyna());
-            r.setTypNaprawy(z.getTyp());
-            r.setOpis(z.getOpis());
-            r.setStatus(drimer.drimain.model.enums.RaportStatus.ZAKONCZONE);
-            var data = z.getCompletedAt() != null ? z.getCompletedAt().toLocalDate() : java.time.LocalDate.now();
-            r.setDataNaprawy(data);
-            if (z.getAcceptedAt() != null) r.setCzasOd(z.getAcceptedAt().toLocalTime());
-            if (z.getCompletedAt() != null) r.setCzasDo(z.getCompletedAt().toLocalTime());
-            if (z.getAutor() != null) r.setCreatedBy(z.getAutor().getUsername());
-            raportRepository.save(r);
-            created++;
-        }
-        log.info("Backfill raportów zakończony. Utworzono: {}", created);
-        return created;
+    public RaportBackfillJob.Progress backfillFromZgloszenia() {
+        return raportBackfillJob.start();
+    }
+
+    @GetMapping("/backfill-from-zgloszenia")
+    @PreAuthorize("hasAnyRole('ADMIN','BIURO') and @moduleGuard.has('Raporty')")
+    public RaportBackfillJob.Progress backfillProgress() {
+        return raportBackfillJob.progress();
     }
 
     @PostMapping("/{id}/zdjecia")
@@ -273,11 +276,14 @@ public class RaportRestController {
         for (MultipartFile file : zdjecia) {
             try {
                 if (!file.isEmpty()) {
-                    StoredPhoto storedPhoto = saveFile(file);
-                    raport.getZdjecia().add(storedPhoto.inlineValue());
-                    uploadedPaths.add(storedPhoto.filename());
-                    log.info("Uploaded photo for raport {}: {}", id, storedPhoto.filename());
+                    String ref = raportPhotoService.store(raport, file);
+                    raport.getZdjecia().add(ref);
+                    String filename = RaportPhotoService.displayName(ref);
+                    uploadedPaths.add(filename);
+                    log.info("Uploaded photo for raport {}: {}", id, filename);
                 }
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
             } catch (Exception e) {
                 log.error("Failed to upload photo for raport {}: {}", id, e.getMessage(), e);
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to upload photo: " + e.getMessage());
@@ -290,12 +296,44 @@ public class RaportRestController {
 
     @GetMapping("/{id}/zdjecia/{filename}")
     @PreAuthorize("hasAnyRole('ADMIN','BIURO','USER')")
-    public ResponseEntity<Resource> downloadZdjecie(@PathVariable Long id, @PathVariable String filename) {
+    public void downloadZdjecie(@PathVariable Long id, @PathVariable String filename,
+                                @RequestParam(required = false) String variant,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String normalizedFilename = java.net.URLDecoder.decode(filename, java.nio.charset.StandardCharsets.UTF_8);
+        ThumbnailService.Variant imageVariant = ThumbnailService.Variant.parse(variant);
+
+        // Binary store: raport_zdjecia_blob - lookup is scoped by raport id, so the raport itself is not loaded.
+        // Content is read only when the client does not already have this version (If-None-Match).
+        var blob = raportPhotoService.findMeta(id, normalizedFilename);
+        if (blob.isPresent()) {
+            RaportZdjecieBlobMeta meta = blob.get();
+            if (imageVariant != null && thumbnailService.isSupported(meta.getContentType())) {
+                Path variantPath = thumbnailService.raportPhotoVariantPath(id, meta.getStoredFilename(), imageVariant);
+                if (Files.exists(variantPath)) {
+                    String etag = meta.getSha256() != null ? meta.getSha256() + "-" + imageVariant.key() : null;
+                    DownloadWriter.write(request, response, DownloadSource.ofFile(variantPath, "image/jpeg", etag));
+                    return;
+                }
+                thumbnailService.enqueueRaportPhoto(id, meta.getId(), meta.getStoredFilename(), meta.getContentType());
+                // Original served at the variant URL until the variant exists - revalidated, distinct ETag
+                String fallbackEtag = imageVariant.fallbackEtag(meta.getSha256());
+                if (DownloadWriter.notModified(request, response, fallbackEtag, true)) return;
+                byte[] data = raportPhotoService.loadData(meta)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Photo not found"));
+                DownloadWriter.write(request, response,
+                        DownloadSource.ofBytes(data, meta.getContentType(), fallbackEtag).mustRevalidate());
+                return;
+            }
+            if (DownloadWriter.notModified(request, response, meta.getSha256())) return;
+            byte[] data = raportPhotoService.loadData(meta)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Photo not found"));
+            DownloadWriter.write(request, response, DownloadSource.ofBytes(data, meta.getContentType(), meta.getSha256()));
+            return;
+        }
+
         Raport raport = raportRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Raport not found"));
 
-        String normalizedFilename = java.net.URLDecoder.decode(filename, java.nio.charset.StandardCharsets.UTF_8);
-
         // Security: verify the file is actually associated with this raport
         boolean fileExists = raport.getZdjecia().stream()
                 .anyMatch(path -> {
@@ -308,9 +346,7 @@ public class RaportRestController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Photo not found for this raport");
         }
 
-        Path filePath = Paths.get(attachmentsBasePath, normalizedFilename).normalize();
-
-        // New persistent mode: inline photo content stored in DB row raport_zdjecia.
+        // Not yet migrated: inline Base64 photo content stored in DB row raport_zdjecia.
         String inlinePrefix = "inline:" + normalizedFilename + ":";
         var inline = raport.getZdjecia().stream()
                 .filter(path -> path != null && path.startsWith(inlinePrefix))
@@ -321,36 +357,30 @@ public class RaportRestController {
             int marker = inlinePayload.indexOf(";base64,");
             String contentType = marker > 0 ? inlinePayload.substring(0, marker) : "image/jpeg";
             String encoded = marker > 0 ? inlinePayload.substring(marker + 8) : inlinePayload;
+            byte[] decoded;
             try {
-                byte[] decoded = Base64.getDecoder().decode(encoded);
-                Resource resource = new ByteArrayResource(decoded);
-                return ResponseEntity.ok()
-                        .header("Content-Type", contentType)
-                        .body(resource);
+                decoded = Base64.getDecoder().decode(encoded);
             } catch (IllegalArgumentException e) {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid inline photo data");
             }
+            DownloadWriter.write(request, response, DownloadSource.ofBytes(decoded, contentType, null));
+            return;
         }
 
         // Backward compatibility: old entries are still disk-based.
-        if (Files.exists(filePath)) {
-            try {
-                Resource resource = new FileSystemResource(filePath);
-                String contentType = Files.probeContentType(filePath);
-                if (contentType == null) {
-                    contentType = "image/jpeg"; // default
-                }
-                return ResponseEntity.ok()
-                        .header("Content-Type", contentType)
-                        .body(resource);
-            } catch (IllegalArgumentException e) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid photo path");
-            } catch (IOException e) {
-                log.warn("Failed to read photo from disk, trying DB fallback. Path={}", filePath, e);
-            }
+        Path basePath = Paths.get(attachmentsBasePath).toAbsolutePath().normalize();
+        Path filePath = basePath.resolve(normalizedFilename).normalize();
+        if (!filePath.startsWith(basePath)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid photo path");
         }
-
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Photo not found");
+        String contentType = null;
+        try {
+            contentType = Files.probeContentType(filePath);
+        } catch (IOException e) {
+            log.debug("Could not probe content type of {}", filePath);
+        }
+        DownloadWriter.write(request, response,
+                DownloadSource.ofFile(filePath, contentType != null ? contentType : "image/jpeg", null));
     }
 
     @DeleteMapping("/{id}/zdjecia/{filename}")
@@ -363,6 +393,7 @@ public class RaportRestController {
         // Remove from set
         raport.getZdjecia().removeIf(path -> path.endsWith(filename) || path.contains(filename));
         raportRepository.save(raport);
+        raportPhotoService.delete(id, filename);
 
         // Delete file from disk
         Path filePath = Paths.get(attachmentsBasePath, filename);
@@ -374,43 +405,4 @@ public class RaportRestController {
             // Don't throw - already removed from DB
         }
     }
-
-    private StoredPhoto saveFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("File is empty");
-        }
-
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || originalFilename.isEmpty()) {
-            throw new IllegalArgumentException("Invalid filename");
-        }
-
-        // Generate unique filename
-        String fileExtension = getFileExtension(originalFilename);
-        String storedFilename = UUID.randomUUID() + fileExtension;
-
-        try {
-            byte[] bytes = file.getBytes();
-            String contentType = file.getContentType();
-            if (contentType == null || contentType.isBlank()) {
-                contentType = "image/jpeg";
-            }
-            String encoded = Base64.getEncoder().encodeToString(bytes);
-            String inlineValue = "inline:" + storedFilename + ":" + contentType + ";base64," + encoded;
-            return new StoredPhoto(storedFilename, contentType, inlineValue);
-        } catch (IOException e) {
-            log.error("Failed to save file: {}", originalFilename, e);
-            throw new RuntimeException("Failed to save photo: " + e.getMessage(), e);
-        }
-    }
-
-    private record StoredPhoto(String filename, String contentType, String inlineValue) {}
-
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.isEmpty()) {
-            return "";
-        }
-        int lastDotIndex = filename.lastIndexOf('.');
-        return lastDotIndex > 0 ? filename.substring(lastDotIndex).toLowerCase() : "";
-    }
 }
@@ -1,6 +1,7 @@
 package drimer.drimain.controller;
 
 import drimer.drimain.repository.UserRepository;
+import drimer.drimain.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -28,6 +29,7 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     /**
      * NOTE: Endpoint for getting current user information with roles
@@ -87,7 +89,9 @@ public class UserController {
         }
 
         user.setPassword(passwordEncoder.encode(req.newPassword));
+        user.bumpTokenVersion(); // tokeny sprzed zmiany hasła tracą ważność
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
         return ResponseEntity.noContent().build();
     }
 
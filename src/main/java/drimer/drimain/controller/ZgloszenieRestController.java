@@ -1,5 +1,6 @@
 package drimer.drimain.controller;
 
+import drimer.drimain.api.dto.CursorPageDTO;
 import drimer.drimain.api.dto.ZgloszenieCreateRequest;
 import drimer.drimain.api.dto.ZgloszenieDTO;
 import drimer.drimain.api.dto.ZgloszenieUpdateRequest;
@@ -7,7 +8,9 @@ import drimer.drimain.api.mapper.ZgloszenieMapper;
 import drimer.drimain.model.Zgloszenie;
 import drimer.drimain.model.enums.ZgloszenieStatus;
 import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.spec.ZgloszenieQuery;
 import drimer.drimain.service.ZgloszenieCommandService;
+import drimer.drimain.service.ZgloszenieQueryService;
 import drimer.drimain.util.ZgloszenieStatusMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -23,8 +26,8 @@ import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 // New imports
 import drimer.drimain.repository.UserRepository;
@@ -35,6 +38,9 @@ import drimer.drimain.model.NotificationType;
 /**
  * REST controller for Zgloszenie CRUD.
  * - GET    /api/zgloszenia
+ * - GET    /api/zgloszenia/page
+ * - GET    /api/zgloszenia/moje[/page]
+ * - GET    /api/zgloszenia/moje-zadania[/page|/count]
  * - POST   /api/zgloszenia
  * - GET    /api/zgloszenia/{id}
  * - PUT    /api/zgloszenia/{id}
@@ -52,6 +58,7 @@ public class ZgloszenieRestController {
 
     private final ZgloszenieRepository zgloszenieRepository;
     private final ZgloszenieCommandService commandService;
+    private final ZgloszenieQueryService queryService;
     // New: to resolve current user's department
     private final UserRepository userRepository;
     // New: notification service
@@ -59,115 +66,55 @@ public class ZgloszenieRestController {
 
     /**
      * List with simple filters.
-     * Trzyma transakcję otwartą na czas mapowania do DTO, aby Lazy nie wywalił.
-     * Dodatkowo ogranicza widoczność do działu użytkownika (poza ADMIN).
+     * Filtry i ograniczenie widoczności do działu użytkownika (poza ADMIN) wykonywane są w SQL.
      */
     @GetMapping
-    @Transactional(readOnly = true)
     @PreAuthorize("@moduleGuard.has('Zgloszenia')")
     public List<ZgloszenieDTO> list(@RequestParam Optional<String> status,
                                     @RequestParam Optional<String> typ,
                                     @RequestParam Optional<String> q,
                                     Authentication authentication) {
+        return queryService.list(withFilters(queryService.visibleTo(authentication), status, typ, q));
+    }
 
-        List<Zgloszenie> all = zgloszenieRepository.findAll();
-
-        // If not admin, restrict to user's department if assigned
-        if (authentication != null) {
-            boolean isAdmin = authentication.getAuthorities().stream()
-                    .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-            if (!isAdmin) {
-                User u = userRepository.findByUsernameFetchDzial(authentication.getName()).orElse(null);
-                // Utrzymanie Ruchu ma dostęp do wszystkich zgłoszeń oprócz działu Technologie
-                boolean isUtrzymanieRuchu = u != null && u.getDzial() != null
-                        && "Utrzymanie Ruchu".equalsIgnoreCase(u.getDzial().getNazwa());
-                if (isUtrzymanieRuchu) {
-                    // Utrzymanie Ruchu widzi wszystkie zgłoszenia OPRÓCZ działu Technologie
-                    all = all.stream()
-                            .filter(z -> z.getDzial() == null || !"Technologie".equalsIgnoreCase(z.getDzial().getNazwa()))
-                            .collect(Collectors.toList());
-                } else {
-                    Long dzialId = (u != null && u.getDzial() != null) ? u.getDzial().getId() : null;
-                    if (dzialId != null) {
-                        all = all.stream().filter(z -> z.getDzial() != null && dzialId.equals(z.getDzial().getId()))
-                                .collect(Collectors.toList());
-                    } else {
-                        // Brak przypisanego działu -> nie pokazuj nic
-                        all = List.of();
-                    }
-                }
-            }
-        } else {
-            // Not authenticated -> empty
-            all = List.of();
-        }
-
-        return all.stream()
-                .filter(z -> status
-                        .map(s -> {
-                            ZgloszenieStatus ms = ZgloszenieStatusMapper.map(s);
-                            return ms != null && ms == z.getStatus();
-                        })
-                        .orElse(true))
-                .filter(z -> typ
-                        .map(t -> z.getTyp() != null && z.getTyp().equalsIgnoreCase(t))
-                        .orElse(true))
-                .filter(z -> q
-                        .map(query -> {
-                            String qq = query.toLowerCase();
-                            return (z.getOpis() != null && z.getOpis().toLowerCase().contains(qq)) ||
-                                    (z.getTyp() != null && z.getTyp().toLowerCase().contains(qq)) ||
-                                    (z.getImie() != null && z.getImie().toLowerCase().contains(qq)) ||
-                                    (z.getNazwisko() != null && z.getNazwisko().toLowerCase().contains(qq)) ||
-                                    (z.getTytul() != null && z.getTytul().toLowerCase().contains(qq));
-                        })
-                        .orElse(true))
-                .map(ZgloszenieMapper::toDto)
-                .collect(Collectors.toList());
+    /**
+     * Lista stronicowana kursorem (keyset po createdAt DESC, id DESC).
+     * Pierwsza strona bez parametru cursor; kolejne z nextCursor z poprzedniej odpowiedzi.
+     */
+    @GetMapping("/page")
+    @PreAuthorize("@moduleGuard.has('Zgloszenia')")
+    public CursorPageDTO<ZgloszenieDTO> page(@RequestParam Optional<String> status,
+                                             @RequestParam Optional<String> typ,
+                                             @RequestParam Optional<String> q,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit,
+                                             Authentication authentication) {
+        return queryService.seek(withFilters(queryService.visibleTo(authentication), status, typ, q), cursor, limit);
     }
 
     /**
      * List user's own issues (created by current user).
-     * Filters by autor.username == current user's username.
+     * Filters by autor_id of the current user.
      * Supports same filters: status, typ, q (search).
      */
     @GetMapping("/moje")
-    @Transactional(readOnly = true)
     @PreAuthorize("@moduleGuard.has('Zgloszenia')")
     public List<ZgloszenieDTO> listMoje(@RequestParam Optional<String> status,
                                         @RequestParam Optional<String> typ,
                                         @RequestParam Optional<String> q,
                                         Authentication authentication) {
+        return queryService.list(withFilters(queryService.createdBy(authentication), status, typ, q));
+    }
 
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return List.of();
-        }
-
-        String currentUsername = authentication.getName();
-        List<Zgloszenie> all = zgloszenieRepository.findAll().stream()
-                .filter(z -> z.getAutor() != null && currentUsername.equals(z.getAutor().getUsername()))
-                .collect(Collectors.toList());
-
-        return all.stream()
-                .filter(z -> status
-                        .map(s -> {
-                            ZgloszenieStatus ms = ZgloszenieStatusMapper.map(s);
-                            return ms != null && ms == z.getStatus();
-                        })
-                        .orElse(true))
-                .filter(z -> typ
-                        .map(t -> z.getTyp() != null && z.getTyp().equalsIgnoreCase(t))
-                        .orElse(true))
-                .filter(z -> q
-                        .map(query -> {
-                            String qq = query.toLowerCase();
-                            return (z.getOpis() != null && z.getOpis().toLowerCase().contains(qq)) ||
-                                    (z.getTyp() != null && z.getTyp().toLowerCase().contains(qq)) ||
-                                    (z.getTytul() != null && z.getTytul().toLowerCase().contains(qq));
-                        })
-                        .orElse(true))
-                .map(ZgloszenieMapper::toDto)
-                .collect(Collectors.toList());
+    @GetMapping("/moje/page")
+    @PreAuthorize("@moduleGuard.has('Zgloszenia')")
+    public CursorPageDTO<ZgloszenieDTO> pageMoje(@RequestParam Optional<String> status,
+                                                 @RequestParam Optional<String> typ,
+                                                 @RequestParam Optional<String> q,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 Authentication authentication) {
+        return queryService.seek(withFilters(queryService.createdBy(authentication), status, typ, q), cursor, limit);
     }
 
     /**
@@ -175,53 +122,32 @@ public class ZgloszenieRestController {
      * "Moje zadania" = zgłoszenia z działu użytkownika w statusach roboczych.
      */
     @GetMapping("/moje-zadania")
-    @Transactional(readOnly = true)
     @PreAuthorize("@moduleGuard.has('Zgloszenia')")
     public List<ZgloszenieDTO> listMojeZadania(@RequestParam Optional<String> status,
                                                @RequestParam Optional<String> typ,
                                                @RequestParam Optional<String> q,
                                                Authentication authentication) {
+        return queryService.list(withFilters(queryService.tasksOf(authentication), status, typ, q));
+    }
 
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return List.of();
-        }
-
-        User u = userRepository.findByUsernameFetchDzial(authentication.getName()).orElse(null);
-        if (u == null || u.getDzial() == null) {
-            return List.of();
-        }
+    @GetMapping("/moje-zadania/page")
+    @PreAuthorize("@moduleGuard.has('Zgloszenia')")
+    public CursorPageDTO<ZgloszenieDTO> pageMojeZadania(@RequestParam Optional<String> status,
+                                                        @RequestParam Optional<String> typ,
+                                                        @RequestParam Optional<String> q,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        Authentication authentication) {
+        return queryService.seek(withFilters(queryService.tasksOf(authentication), status, typ, q), cursor, limit);
+    }
 
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-        Long dzialId = u.getDzial().getId();
-        List<Zgloszenie> all = zgloszenieRepository.findAll().stream()
-                .filter(z -> isAdmin || (z.getDzial() != null && dzialId.equals(z.getDzial().getId())))
-                .filter(z -> z.getStatus() == ZgloszenieStatus.OPEN
-                        || z.getStatus() == ZgloszenieStatus.IN_PROGRESS
-                        || z.getStatus() == ZgloszenieStatus.ON_HOLD)
-                .collect(Collectors.toList());
-
-        return all.stream()
-                .filter(z -> status
-                        .map(s -> {
-                            ZgloszenieStatus ms = ZgloszenieStatusMapper.map(s);
-                            return ms != null && ms == z.getStatus();
-                        })
-                        .orElse(true))
-                .filter(z -> typ
-                        .map(t -> z.getTyp() != null && z.getTyp().equalsIgnoreCase(t))
-                        .orElse(true))
-                .filter(z -> q
-                        .map(query -> {
-                            String qq = query.toLowerCase();
-                            return (z.getOpis() != null && z.getOpis().toLowerCase().contains(qq)) ||
-                                    (z.getTyp() != null && z.getTyp().toLowerCase().contains(qq)) ||
-                                    (z.getTytul() != null && z.getTytul().toLowerCase().contains(qq));
-                        })
-                        .orElse(true))
-                .map(ZgloszenieMapper::toDto)
-                .collect(Collectors.toList());
+    /**
+     * Licznik (badge) "moje zadania" - sam COUNT po indeksie (dzial_id, status), bez ładowania encji.
+     */
+    @GetMapping("/moje-zadania/count")
+    @PreAuthorize("@moduleGuard.has('Zgloszenia')")
+    public Map<String, Long> countMojeZadania(Authentication authentication) {
+        return Map.of("count", queryService.count(queryService.tasksOf(authentication)));
     }
 
     /**
@@ -266,8 +192,8 @@ public class ZgloszenieRestController {
      * - Użytkownicy z dostępem do modułu 'Zgloszenia' - mogą edytować zgłoszenia w swoim dziale
      *
      * WAŻNE: Gdy zgłoszenie zostanie zmienione na status DONE (zamknięte),
-     * system automatycznie utworzy raport na podstawie tego zgłoszenia.
-     * Raport trafi do listy raportów z statusem NOWY.
+     * system automatycznie utworzy raport na podstawie tego zgłoszenia
+     * (po commicie, w tle - events.ZgloszenieToRaportListener) ze statusem ZAKONCZONE.
      */
     @PutMapping("/{id}")
     @Transactional
@@ -298,6 +224,15 @@ public class ZgloszenieRestController {
         commandService.delete(id, authentication);
     }
 
+    private ZgloszenieQuery withFilters(ZgloszenieQuery scope,
+                                        Optional<String> status,
+                                        Optional<String> typ,
+                                        Optional<String> q) {
+        return scope.status(status.orElse(null))
+                .typ(typ.orElse(null))
+                .text(q.orElse(null));
+    }
+
     /**
      * Map UI status names to enum if someone sends raw UI values here.
      */
@@ -23,9 +23,11 @@ public class ZgloszenieStreamController {
      * Subscribe to Server-Sent Events for zgloszenia changes.
      * 
      * @param types Comma-separated list of event types to filter (CREATED, UPDATED, DELETED, ATTACHMENT_ADDED, ATTACHMENT_REMOVED)
-     * @param dzialId Filter by dzial ID (TODO: not implemented yet)
-     * @param autorId Filter by autor ID (TODO: not implemented yet)  
-     * @param full Include full entity snapshots in events (TODO: not implemented yet)
+     * @param dzialId Filter by dzial ID (also receives the event when a zgloszenie moves out of the dzial)
+     * @param autorId Filter by autor ID
+     * @param full Include the zgloszenie snapshot in events ("zgloszenie" field), no follow-up GET needed
+     * @param lastEventId Last-Event-ID sent by EventSource on reconnect (or ?lastEventId= for clients that
+     *                    cannot set headers): missed events are replayed, or RESYNC is sent if the gap is too large
      * @return SseEmitter for streaming events
      */
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -34,7 +36,9 @@ public class ZgloszenieStreamController {
             @RequestParam(required = false) String types,
             @RequestParam(required = false) Long dzialId,
             @RequestParam(required = false) Long autorId,
-            @RequestParam(defaultValue = "false") boolean full) {
+            @RequestParam(defaultValue = "false") boolean full,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
         
         Set<EventType> eventTypes = null;
         
@@ -52,18 +56,30 @@ public class ZgloszenieStreamController {
                     .collect(Collectors.toSet());
         }
 
-        return sseSubscriptionService.subscribe(eventTypes, dzialId, autorId, full);
+        String rawLastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        Long lastEventId = null;
+        if (rawLastEventId != null && !rawLastEventId.isBlank()) {
+            try {
+                lastEventId = Long.parseLong(rawLastEventId.trim());
+            } catch (NumberFormatException e) {
+                lastEventId = -1L; // unknown id format - the client gets RESYNC
+            }
+        }
+
+        return sseSubscriptionService.subscribe(eventTypes, dzialId, autorId, full, lastEventId);
     }
 
     /**
-     * Get the number of active SSE subscriptions (for monitoring).
+     * Get the number of active SSE subscriptions and send queue statistics (for monitoring).
      */
     @GetMapping("/stream/status")
     @PreAuthorize("@moduleGuard.has('Zgloszenia')")
     public Object getStreamStatus() {
+        SseSubscriptionService.Stats stats = sseSubscriptionService.getStats();
         return new Object() {
-            public final int activeSubscriptions = sseSubscriptionService.getActiveSubscriptionCount();
+            public final int activeSubscriptions = stats.activeSubscriptions();
             public final String status = "SSE service running";
+            public final SseSubscriptionService.Stats queues = stats;
         };
     }
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package drimer.drimain.events;
 
+import drimer.drimain.events.cluster.RaportEventMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
+/**
+ * /topic/raporty - zasilane z ClusterEventRelay, więc klienci STOMP na każdej instancji
+ * dostają zmiany z całego klastra (po commicie).
+ */
 @Component
 @RequiredArgsConstructor
 public class RaportEventListener {
@@ -12,7 +17,7 @@ public class RaportEventListener {
     private final SimpMessagingTemplate template;
 
     @EventListener
-    public void onRaportChanged(RaportChangedEvent ev) {
+    public void onRaportChanged(RaportEventMessage ev) {
         template.convertAndSend("/topic/raporty", ev);
     }
 }
\ No newline at end of file
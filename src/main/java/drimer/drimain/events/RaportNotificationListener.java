@@ -1,30 +1,42 @@
 package drimer.drimain.events;
 
 import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.events.cluster.ClusterEventBatch;
+import drimer.drimain.events.cluster.RaportEventMessage;
+import drimer.drimain.events.outbox.OutboxConsumer;
 import drimer.drimain.model.NotificationType;
 import drimer.drimain.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 /**
  * Listener do automatycznego tworzenia powiadomień dla raportów.
+ * Konsument outboxu - działa po commicie na wątku OutboxDispatcher, w jego transakcji.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class RaportNotificationListener {
+public class RaportNotificationListener implements OutboxConsumer {
 
     private final NotificationService notificationService;
 
+    @Override
+    public String consumerName() {
+        return "raport-notifications";
+    }
+
+    @Override
+    public void handle(ClusterEventBatch batch) {
+        batch.raporty().forEach(this::onRaportChanged);
+    }
+
     /**
      * Gdy raport zostanie utworzony lub zmieniony, tworzymy powiadomienie modułowe.
      */
-    @EventListener
-    public void onRaportChanged(RaportChangedEvent event) {
-        RaportDTO raport = event.getRaport();
-        String action = event.getAction();
+    public void onRaportChanged(RaportEventMessage event) {
+        RaportDTO raport = event.raport();
+        String action = event.action();
 
         if (raport == null || raport.getId() == null) {
             log.warn("RaportDTO or ID is null for notification");
@@ -0,0 +1,20 @@
+package drimer.drimain.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Konto użytkownika utworzone albo zmieniona nazwa (login) - sygnał do synchronizacji User -> Osoba.
+ */
+public class UserAccountChangedEvent extends ApplicationEvent {
+    private final String username;
+    private final String previousUsername; // null przy tworzeniu konta
+
+    public UserAccountChangedEvent(Object source, String username, String previousUsername) {
+        super(source);
+        this.username = username;
+        this.previousUsername = previousUsername;
+    }
+
+    public String getUsername() { return username; }
+    public String getPreviousUsername() { return previousUsername; }
+}
@@ -12,7 +12,7 @@ public class ZgloszenieDomainEvent extends ApplicationEvent {
     private final LocalDateTime eventTimestamp;
     private final List<String> changedFields;
     private final Long attachmentId;
-    private final Object snapshot; // TODO: For filtering by dzialId/autorId
+    private final Object snapshot; // ZgloszenieDTO po zmianie (routing SSE po dziale/autorze, full=true)
 
     public ZgloszenieDomainEvent(Object source, EventType type, Long zgloszenieId) {
         this(source, type, zgloszenieId, null, null, null);
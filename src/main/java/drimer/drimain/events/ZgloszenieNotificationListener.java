@@ -1,5 +1,8 @@
 package drimer.drimain.events;
 
+import drimer.drimain.events.cluster.ClusterEventBatch;
+import drimer.drimain.events.cluster.ZgloszenieEventMessage;
+import drimer.drimain.events.outbox.OutboxConsumer;
 import drimer.drimain.model.Notification;
 import drimer.drimain.model.NotificationType;
 import drimer.drimain.model.Zgloszenie;
@@ -8,29 +11,34 @@ import drimer.drimain.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.event.TransactionalEventListener;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.annotation.Propagation;
 
 /**
  * Listener do automatycznego tworzenia powiadomień dla zgłoszeń.
+ * Konsument outboxu - działa po commicie na wątku OutboxDispatcher, w jego transakcji.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class ZgloszenieNotificationListener {
+public class ZgloszenieNotificationListener implements OutboxConsumer {
 
     private final ZgloszenieRepository zgloszenieRepository;
     private final NotificationService notificationService;
 
+    @Override
+    public String consumerName() {
+        return "zgloszenie-notifications";
+    }
+
+    @Override
+    public void handle(ClusterEventBatch batch) {
+        batch.zgloszenia().forEach(this::onZgloszenieEvent);
+    }
+
     /**
      * Gdy zgłoszenie zostanie utworzone, tworzymy powiadomienie modułowe.
      */
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onZgloszenieEvent(ZgloszenieDomainEvent event) {
-        Long zgloszenieId = event.getZgloszenieId();
+    public void onZgloszenieEvent(ZgloszenieEventMessage event) {
+        Long zgloszenieId = event.zgloszenieId();
         if (zgloszenieId == null) return;
 
         Zgloszenie zgloszenie = zgloszenieRepository.findById(zgloszenieId).orElse(null);
@@ -39,13 +47,13 @@ public class ZgloszenieNotificationListener {
             return;
         }
 
-        switch (event.getType()) {
+        switch (event.type()) {
             case CREATED:
                 createNewZgloszenieNotification(zgloszenie);
                 break;
             case UPDATED:
                 // Powiadomienie o aktualizacji statusu (opcjonalne)
-                if (event.getChangedFields() != null && event.getChangedFields().contains("status")) {
+                if (event.changedFields() != null && event.changedFields().contains("status")) {
                     createStatusChangeNotification(zgloszenie);
                 }
                 break;
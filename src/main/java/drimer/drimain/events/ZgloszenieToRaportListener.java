@@ -1,5 +1,9 @@
 package drimer.drimain.events;
 
+import drimer.drimain.api.mapper.RaportMapper;
+import drimer.drimain.events.cluster.ClusterEventBatch;
+import drimer.drimain.events.cluster.ZgloszenieEventMessage;
+import drimer.drimain.events.outbox.OutboxConsumer;
 import drimer.drimain.model.Raport;
 import drimer.drimain.model.Zgloszenie;
 import drimer.drimain.model.enums.RaportStatus;
@@ -8,80 +12,86 @@ import drimer.drimain.repository.RaportRepository;
 import drimer.drimain.repository.ZgloszenieRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.event.TransactionalEventListener;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.annotation.Propagation;
 
 import java.time.LocalDate;
 
+/**
+ * Automatyczny raport z zamkniętego zgłoszenia (status DONE) - jedyne miejsce, które go tworzy.
+ *
+ * Konsument outboxu ("raport-autogen"): zmiany zgłoszeń (CREATED jako DONE albo UPDATED ze zmianą
+ * statusu) przychodzą po commicie na wątku OutboxDispatcher - żądanie PUT nie czeka na raport, a zdarzenie
+ * nie ginie przy restarcie. Raport jest szukany po unikalnym indeksie zgloszenie_id i aktualizowany albo
+ * wstawiany w transakcji dispatchera; równoległe wstawienie kończy się naruszeniem indeksu, wycofaniem
+ * i ponowieniem zdarzenia, które znajdzie już raport.
+ * Zapis publikuje RaportChangedEvent - liczniki KPI, wyszukiwarka i inne instancje widzą raport
+ * jak każdy utworzony ręcznie.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class ZgloszenieToRaportListener {
+public class ZgloszenieToRaportListener implements OutboxConsumer {
 
     private final ZgloszenieRepository zgloszenieRepository;
     private final RaportRepository raportRepository;
+    private final RaportMapper raportMapper;
+    private final ApplicationEventPublisher publisher;
 
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onZgloszenieEvent(ZgloszenieDomainEvent ev) {
-        Long id = ev.getZgloszenieId();
+    @Override
+    public String consumerName() {
+        return "raport-autogen";
+    }
+
+    @Override
+    public void handle(ClusterEventBatch batch) {
+        batch.zgloszenia().forEach(this::onZgloszenieEvent);
+    }
+
+    public void onZgloszenieEvent(ZgloszenieEventMessage ev) {
+        Long id = ev.zgloszenieId();
         if (id == null) return;
 
         // Obsłuż dwa przypadki:
         // - CREATED: zgłoszenie utworzone od razu jako DONE
         // - UPDATED: zmiana statusu -> DONE
-        switch (ev.getType()) {
-            case CREATED -> handleIfDone(id, true);
-            case UPDATED -> {
-                if (ev.getChangedFields() == null || ev.getChangedFields().stream().noneMatch(f -> "status".equalsIgnoreCase(f))) {
-                    return; // nie status
-                }
-                handleIfDone(id, false);
+        boolean created = ev.type() == EventType.CREATED;
+        if (!created) {
+            if (ev.type() != EventType.UPDATED) return;
+            if (ev.changedFields() == null || ev.changedFields().stream().noneMatch(f -> "status".equalsIgnoreCase(f))) {
+                return; // nie status
             }
-            default -> {}
         }
+        upsert(id, created);
     }
 
-    private void handleIfDone(Long zgloszenieId, boolean created) {
+    private void upsert(Long zgloszenieId, boolean created) {
         Zgloszenie z = zgloszenieRepository.findById(zgloszenieId).orElse(null);
         if (z == null) return;
         if (z.getStatus() != ZgloszenieStatus.DONE) return; // tylko zakończone
 
         var existing = raportRepository.findByZgloszenieId(zgloszenieId);
-        if (existing.isPresent()) {
-            // Aktualizuj istniejący raport ostatnimi danymi ze zgłoszenia (np. ponowne zamknięcie)
-            Raport r = existing.get();
-            r.setMaszyna(z.getMaszyna());
-            r.setTypNaprawy(z.getTyp());
-            r.setOpis(z.getOpis());
-            r.setStatus(RaportStatus.ZAKONCZONE);
-            var data = z.getCompletedAt() != null ? z.getCompletedAt().toLocalDate() : (r.getDataNaprawy() != null ? r.getDataNaprawy() : LocalDate.now());
-            r.setDataNaprawy(data);
-            if (z.getAcceptedAt() != null) r.setCzasOd(z.getAcceptedAt().toLocalTime());
-            if (z.getCompletedAt() != null) r.setCzasDo(z.getCompletedAt().toLocalTime());
-            if (z.getAutor() != null && (r.getCreatedBy() == null || r.getCreatedBy().isBlank())) r.setCreatedBy(z.getAutor().getUsername());
-            raportRepository.save(r);
-            log.info("Zaktualizowano raport {} ze zgloszenia {} (status DONE)", r.getId(), zgloszenieId);
-            return;
-        }
-
-        // Brak – utwórz nowy raport
-        Raport r = new Raport();
+        Raport r = existing.orElseGet(Raport::new);
         r.setZgloszenieId(zgloszenieId);
         r.setMaszyna(z.getMaszyna());
         r.setTypNaprawy(z.getTyp());
         r.setOpis(z.getOpis());
         r.setStatus(RaportStatus.ZAKONCZONE);
-        var data = z.getCompletedAt() != null ? z.getCompletedAt().toLocalDate() : LocalDate.now();
-        r.setDataNaprawy(data);
+        LocalDate fallback = r.getDataNaprawy() != null ? r.getDataNaprawy() : LocalDate.now();
+        r.setDataNaprawy(z.getCompletedAt() != null ? z.getCompletedAt().toLocalDate() : fallback);
         if (z.getAcceptedAt() != null) r.setCzasOd(z.getAcceptedAt().toLocalTime());
         if (z.getCompletedAt() != null) r.setCzasDo(z.getCompletedAt().toLocalTime());
-        if (z.getAutor() != null) r.setCreatedBy(z.getAutor().getUsername());
+        if (z.getAutor() != null && (r.getCreatedBy() == null || r.getCreatedBy().isBlank())) {
+            r.setCreatedBy(z.getAutor().getUsername());
+        }
+        raportRepository.saveAndFlush(r);
 
-        raportRepository.save(r);
-        log.info("Utworzono raport {} ze zgloszenia {} ({} -> DONE)", r.getId(), zgloszenieId, created ? "CREATED" : "UPDATED");
+        String action = existing.isPresent() ? "UPDATED" : "CREATED";
+        publisher.publishEvent(new RaportChangedEvent(this, raportMapper.toDto(r), action));
+        if (existing.isPresent()) {
+            log.info("Zaktualizowano raport {} ze zgloszenia {} (status DONE)", r.getId(), zgloszenieId);
+        } else {
+            log.info("Utworzono raport {} ze zgloszenia {} ({} -> DONE)", r.getId(), zgloszenieId, created ? "CREATED" : "UPDATED");
+        }
     }
 }
@@ -0,0 +1,102 @@
+package drimer.drimain.events.cluster;
+
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.events.EventType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Zbiera zdarzenia jednej transakcji i kompaktuje je per encja:
+ * - CREATED + UPDATED -> CREATED z ostatnim snapshotem
+ * - UPDATED + UPDATED -> UPDATED z sumą changedFields i ostatnim snapshotem
+ * - UPDATED + DELETED -> DELETED; CREATED + DELETED -> nic (nikt poza transakcją nie widział encji)
+ * Zdarzenia załączników nie są łączone. Scalone zdarzenie zostaje na pozycji pierwszego.
+ * Unieważnienia principali są deduplikowane.
+ */
+public class ClusterBatchBuilder {
+
+    private final List<ZgloszenieEventMessage> zgloszenia = new ArrayList<>();
+    private final List<RaportEventMessage> raporty = new ArrayList<>();
+    private final Set<String> principals = new LinkedHashSet<>();
+
+    public void add(ZgloszenieEventMessage message) {
+        if (!isLifecycle(message.type()) || message.zgloszenieId() == null) {
+            zgloszenia.add(message);
+            return;
+        }
+        for (int i = 0; i < zgloszenia.size(); i++) {
+            ZgloszenieEventMessage existing = zgloszenia.get(i);
+            if (!isLifecycle(existing.type()) || !Objects.equals(existing.zgloszenieId(), message.zgloszenieId())) {
+                continue;
+            }
+            if (existing.type() == EventType.DELETED) break;
+            if (message.type() == EventType.DELETED) {
+                if (existing.type() == EventType.CREATED) zgloszenia.remove(i);
+                else zgloszenia.set(i, message);
+            } else if (existing.type() == EventType.CREATED) {
+                zgloszenia.set(i, new ZgloszenieEventMessage(EventType.CREATED, message.zgloszenieId(),
+                        message.eventTimestamp(), existing.changedFields(), null, latest(existing, message), null));
+            } else {
+                zgloszenia.set(i, new ZgloszenieEventMessage(EventType.UPDATED, message.zgloszenieId(),
+                        message.eventTimestamp(), union(existing.changedFields(), message.changedFields()), null,
+                        latest(existing, message), null));
+            }
+            return;
+        }
+        zgloszenia.add(message);
+    }
+
+    public void add(RaportEventMessage message) {
+        if (message.raportId() == null) {
+            raporty.add(message);
+            return;
+        }
+        for (int i = 0; i < raporty.size(); i++) {
+            RaportEventMessage existing = raporty.get(i);
+            if (!Objects.equals(existing.raportId(), message.raportId()) || "DELETED".equals(existing.action())) {
+                continue;
+            }
+            if ("DELETED".equals(message.action())) {
+                if ("CREATED".equals(existing.action())) raporty.remove(i);
+                else raporty.set(i, message);
+            } else {
+                String action = "CREATED".equals(existing.action()) ? "CREATED" : message.action();
+                raporty.set(i, new RaportEventMessage(action, message.raportId(),
+                        message.raport() != null ? message.raport() : existing.raport()));
+            }
+            return;
+        }
+        raporty.add(message);
+    }
+
+    public void invalidatePrincipal(String username) {
+        if (username != null) principals.add(username);
+    }
+
+    public boolean isEmpty() {
+        return zgloszenia.isEmpty() && raporty.isEmpty() && principals.isEmpty();
+    }
+
+    public ClusterEventBatch build(String originNode) {
+        return new ClusterEventBatch(originNode, zgloszenia, raporty, List.copyOf(principals));
+    }
+
+    private static boolean isLifecycle(EventType type) {
+        return type == EventType.CREATED || type == EventType.UPDATED || type == EventType.DELETED;
+    }
+
+    private static ZgloszenieDTO latest(ZgloszenieEventMessage older, ZgloszenieEventMessage newer) {
+        return newer.snapshot() != null ? newer.snapshot() : older.snapshot();
+    }
+
+    private static List<String> union(List<String> a, List<String> b) {
+        LinkedHashSet<String> fields = new LinkedHashSet<>();
+        if (a != null) fields.addAll(a);
+        if (b != null) fields.addAll(b);
+        return new ArrayList<>(fields);
+    }
+}
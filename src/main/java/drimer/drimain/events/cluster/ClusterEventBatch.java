@@ -0,0 +1,43 @@
+package drimer.drimain.events.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zdarzenia jednej transakcji (po kompakcji) - jednostka wysyłki na szynę klastra.
+ * principals - loginy, których principal (PrincipalCache) trzeba przeładować na każdej instancji.
+ */
+public record ClusterEventBatch(String originNode, List<ZgloszenieEventMessage> zgloszenia,
+                                List<RaportEventMessage> raporty, List<String> principals) {
+
+    /**
+     * Pojemność numeracji jednej paczki: id zdarzenia = id wiersza event_outbox * EVENT_IDS_PER_BATCH + pozycja.
+     */
+    public static final long EVENT_IDS_PER_BATCH = 1_000_000L;
+
+    public ClusterEventBatch {
+        zgloszenia = zgloszenia == null ? List.of() : List.copyOf(zgloszenia);
+        raporty = raporty == null ? List.of() : List.copyOf(raporty);
+        principals = principals == null ? List.of() : List.copyOf(principals);
+    }
+
+    /**
+     * Numeruje zdarzenia zgłoszeń na podstawie id wiersza event_outbox (kolejność commitów, wspólna
+     * dla klastra) - każda instancja nadaje tym samym zdarzeniom te same, rosnące id.
+     */
+    public ClusterEventBatch withEventIds(long outboxId) {
+        List<ZgloszenieEventMessage> numbered = new ArrayList<>(zgloszenia.size());
+        for (int i = 0; i < zgloszenia.size(); i++) {
+            numbered.add(zgloszenia.get(i).withEventId(outboxId * EVENT_IDS_PER_BATCH + i));
+        }
+        return new ClusterEventBatch(originNode, numbered, raporty, principals);
+    }
+
+    public boolean isEmpty() {
+        return zgloszenia.isEmpty() && raporty.isEmpty() && principals.isEmpty();
+    }
+
+    public int size() {
+        return zgloszenia.size() + raporty.size() + principals.size();
+    }
+}
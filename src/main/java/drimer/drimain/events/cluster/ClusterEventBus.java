@@ -0,0 +1,21 @@
+package drimer.drimain.events.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Szyna zdarzeń między instancjami aplikacji. Wysłana paczka trafia do subskrybentów
+ * na wszystkich instancjach, łącznie z nadawcą.
+ */
+public interface ClusterEventBus {
+
+    /**
+     * Wysyłka synchroniczna w transakcji wołającego: subskrybenci dostają paczkę dopiero po jej commicie,
+     * a wycofana transakcja nie wysyła nic. Błąd wysyłki leci wyjątkiem (wołający ponawia).
+     */
+    void send(ClusterEventBatch batch);
+
+    void subscribe(Consumer<ClusterEventBatch> consumer);
+
+    default void close() {
+    }
+}
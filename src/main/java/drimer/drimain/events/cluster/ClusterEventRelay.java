@@ -0,0 +1,159 @@
+package drimer.drimain.events.cluster;
+
+import drimer.drimain.api.mapper.RaportMapper;
+import drimer.drimain.config.ClusterProperties;
+import drimer.drimain.events.RaportChangedEvent;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.events.outbox.OutboxConsumer;
+import drimer.drimain.events.outbox.OutboxStore;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.security.PrincipalCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Przekaźnik zdarzeń domenowych między instancjami.
+ *
+ * Lokalne ZgloszenieDomainEvent / RaportChangedEvent są zbierane per transakcja, kompaktowane
+ * (ClusterBatchBuilder) i przed commitem zapisywane jedną paczką do event_outbox - w tej samej
+ * transakcji co zmiana, więc wycofana transakcja nie zostawia nic, a zatwierdzona nie zgubi zdarzeń
+ * przy awarii zaraz po commicie. Jako konsument outboxu ("cluster-bus") relay wysyła paczki na
+ * ClusterEventBus z wątku OutboxDispatcher. Paczki odebrane z szyny (ze wszystkich instancji, łącznie
+ * z tą) są publikowane lokalnie jako ZgloszenieEventMessage / RaportEventMessage - na nich działają
+ * strumień SSE i /topic/raporty, więc klient podłączony do dowolnej instancji widzi zmiany z całego klastra.
+ * Powiadomienia i automatyczne raporty to osobni konsumenci outboxu (raz na klaster).
+ * Tą samą drogą idą unieważnienia PrincipalCache - zmiana ról/hasła na jednej instancji przeładowuje
+ * principal na wszystkich.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterEventRelay implements OutboxConsumer {
+
+    private final ClusterEventBus bus;
+    private final ClusterProperties properties;
+    private final ApplicationEventPublisher publisher;
+    private final RaportRepository raportRepository;
+    private final RaportMapper raportMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final OutboxStore outbox;
+    private final PrincipalCache principalCache;
+
+    @PostConstruct
+    void start() {
+        bus.subscribe(this::deliver);
+        principalCache.onInvalidate(this::onPrincipalInvalidated);
+    }
+
+    @EventListener
+    public void onZgloszenieEvent(ZgloszenieDomainEvent event) {
+        ClusterBatchBuilder batch = currentBatch();
+        batch.add(ZgloszenieEventMessage.of(event));
+        appendIfStandalone(batch);
+    }
+
+    @EventListener
+    public void onRaportChanged(RaportChangedEvent event) {
+        ClusterBatchBuilder batch = currentBatch();
+        batch.add(RaportEventMessage.of(event));
+        appendIfStandalone(batch);
+    }
+
+    void onPrincipalInvalidated(String username) {
+        ClusterBatchBuilder batch = currentBatch();
+        batch.invalidatePrincipal(username);
+        appendIfStandalone(batch);
+    }
+
+    @Override
+    public String consumerName() {
+        return "cluster-bus";
+    }
+
+    /**
+     * Wysyłka zatwierdzonej paczki na szynę w transakcji dispatchera - wychodzi razem z commitem offsetu;
+     * błąd szyny -> wycofanie i ponowienie przez OutboxDispatcher.
+     */
+    @Override
+    public void handle(ClusterEventBatch batch) {
+        bus.send(batch);
+    }
+
+    /**
+     * Paczka bieżącej transakcji (zapisywana w beforeCommit) albo jednorazowa, gdy transakcji nie ma.
+     */
+    private ClusterBatchBuilder currentBatch() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new ClusterBatchBuilder();
+        }
+        ClusterBatchBuilder bound = (ClusterBatchBuilder) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return bound;
+        }
+        ClusterBatchBuilder batch = new ClusterBatchBuilder();
+        TransactionSynchronizationManager.bindResource(this, batch);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                append(batch);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ClusterEventRelay.this);
+            }
+        });
+        return batch;
+    }
+
+    private void appendIfStandalone(ClusterBatchBuilder batch) {
+        if (TransactionSynchronizationManager.getResource(this) != batch) {
+            append(batch);
+        }
+    }
+
+    private void append(ClusterBatchBuilder batch) {
+        if (batch.isEmpty()) return;
+        outbox.append(batch.build(properties.getNodeId()));
+    }
+
+    void deliver(ClusterEventBatch batch) {
+        for (String username : batch.principals()) {
+            principalCache.invalidateLocal(username);
+        }
+        for (ZgloszenieEventMessage message : batch.zgloszenia()) {
+            try {
+                publisher.publishEvent(message);
+            } catch (RuntimeException e) {
+                log.warn("Cluster zgloszenie event {} failed: {}", message.zgloszenieId(), e.getMessage());
+            }
+        }
+        for (RaportEventMessage message : batch.raporty()) {
+            try {
+                publisher.publishEvent(message.raport() != null || "DELETED".equals(message.action())
+                        ? message : reload(message));
+            } catch (RuntimeException e) {
+                log.warn("Cluster raport event {} failed: {}", message.raportId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Zdarzenie bez DTO (za duże na NOTIFY) - stan doczytywany z bazy.
+     */
+    private RaportEventMessage reload(RaportEventMessage message) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> raportRepository.findById(message.raportId())
+                .map(r -> new RaportEventMessage(message.action(), message.raportId(), raportMapper.toDto(r)))
+                .orElse(message));
+    }
+}
@@ -0,0 +1,49 @@
+package drimer.drimain.events.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Szyna dla jednej instancji (H2, testy): paczka trafia do subskrybentów w tym samym procesie
+ * po commicie transakcji wysyłającej (bez transakcji - od razu), jak NOTIFY na PostgreSQL.
+ */
+@Slf4j
+public class LoopbackClusterEventBus implements ClusterEventBus {
+
+    private final List<Consumer<ClusterEventBatch>> consumers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(ClusterEventBatch batch) {
+        if (batch.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(batch);
+                }
+            });
+        } else {
+            deliver(batch);
+        }
+    }
+
+    private void deliver(ClusterEventBatch batch) {
+        for (Consumer<ClusterEventBatch> consumer : consumers) {
+            try {
+                consumer.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cluster event consumer failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEventBatch> consumer) {
+        consumers.add(consumer);
+    }
+}
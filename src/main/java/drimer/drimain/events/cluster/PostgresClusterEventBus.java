@@ -0,0 +1,224 @@
+package drimer.drimain.events.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.config.ClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Szyna klastra na PostgreSQL LISTEN/NOTIFY - bez zewnętrznego brokera, na istniejącym datasource.
+ *
+ * Wysyłka: pg_notify w transakcji wołającego (konsument outboxu "cluster-bus") - NOTIFY jest
+ * transakcyjny, więc paczka wychodzi dokładnie wtedy, gdy commituje się przesunięcie offsetu; błąd
+ * wysyłki wycofuje oba i OutboxDispatcher ponawia zdarzenie. Payload &lt; 8000 bajtów - większe paczki
+ * są dzielone; pojedyncze za duże zdarzenie idzie bez snapshotu/DTO, odbiorca doczytuje stan z bazy.
+ * Odbiór: wątek "cluster-listen" trzyma jedno połączenie z puli z LISTEN i odpytuje getNotifications;
+ * po utracie połączenia ponawia LISTEN co reconnect-delay-seconds (zdarzenia z przerwy przepadają).
+ */
+@Slf4j
+public class PostgresClusterEventBus implements ClusterEventBus {
+
+    // limit PostgreSQL to 8000 bajtów; zapas na cudzysłowy/escape'y w protokole
+    static final int MAX_PAYLOAD_BYTES = 7800;
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ClusterProperties properties;
+    private final List<Consumer<ClusterEventBatch>> consumers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresClusterEventBus(DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                   ClusterProperties properties) {
+        if (!CHANNEL_NAME.matcher(properties.getChannel()).matches()) {
+            throw new IllegalArgumentException("Invalid cluster channel name: " + properties.getChannel());
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public void start() {
+        running = true;
+        listener = daemon("cluster-listen", this::listenLoop);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    @Override
+    public void send(ClusterEventBatch batch) {
+        if (batch.isEmpty()) return;
+        List<String> payloads;
+        try {
+            payloads = encode(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cluster batch", e);
+        }
+        for (String payload : payloads) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, properties.getChannel(), payload);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEventBatch> consumer) {
+        consumers.add(consumer);
+    }
+
+    /**
+     * Paczka -> payloady NOTIFY nie większe niż MAX_PAYLOAD_BYTES.
+     */
+    List<String> encode(ClusterEventBatch batch) throws JsonProcessingException {
+        List<String> payloads = new ArrayList<>();
+        PayloadWriter writer = new PayloadWriter(batch.originNode(), payloads);
+        for (ZgloszenieEventMessage message : batch.zgloszenia()) {
+            String json = objectMapper.writeValueAsString(message);
+            if (!writer.fits(json)) json = objectMapper.writeValueAsString(message.withoutSnapshot());
+            if (writer.fits(json)) writer.add(writer.zgloszenia, json);
+            else log.warn("Cluster event for zgloszenie {} too large for NOTIFY, skipped", message.zgloszenieId());
+        }
+        for (RaportEventMessage message : batch.raporty()) {
+            String json = objectMapper.writeValueAsString(message);
+            if (!writer.fits(json)) json = objectMapper.writeValueAsString(message.withoutRaport());
+            if (writer.fits(json)) writer.add(writer.raporty, json);
+            else log.warn("Cluster event for raport {} too large for NOTIFY, skipped", message.raportId());
+        }
+        for (String username : batch.principals()) {
+            writer.add(writer.principals, objectMapper.writeValueAsString(username));
+        }
+        writer.flush();
+        return payloads;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                log.info("Listening for cluster events on channel {}", properties.getChannel());
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(Math.max(1, properties.getPollTimeoutMillis()));
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Cluster listener connection lost: {} - retrying in {}s",
+                        e.getMessage(), properties.getReconnectDelaySeconds());
+                try {
+                    TimeUnit.SECONDS.sleep(Math.max(1, properties.getReconnectDelaySeconds()));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        ClusterEventBatch batch;
+        try {
+            batch = objectMapper.readValue(payload, ClusterEventBatch.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cluster event payload: {}", e.getMessage());
+            return;
+        }
+        for (Consumer<ClusterEventBatch> consumer : consumers) {
+            try {
+                consumer.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cluster event consumer failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static Thread daemon(String name, Runnable body) {
+        Thread t = new Thread(body, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    /**
+     * Składa JSON paczki z gotowych fragmentów: {"originNode":..,"zgloszenia":[..],"raporty":[..],"principals":[..]}.
+     */
+    private final class PayloadWriter {
+        private final String prefix;
+        private final List<String> out;
+        private final List<String> zgloszenia = new ArrayList<>();
+        private final List<String> raporty = new ArrayList<>();
+        private final List<String> principals = new ArrayList<>();
+        private int bytes;
+
+        PayloadWriter(String origin, List<String> out) throws JsonProcessingException {
+            this.prefix = "{\"originNode\":" + objectMapper.writeValueAsString(origin);
+            this.out = out;
+            reset();
+        }
+
+        boolean fits(String json) {
+            return empty(utf8(prefix)) + utf8(json) <= MAX_PAYLOAD_BYTES;
+        }
+
+        void add(List<String> section, String json) {
+            int size = utf8(json) + 1;
+            if (bytes + size > MAX_PAYLOAD_BYTES && !isEmpty()) flush();
+            section.add(json);
+            bytes += size;
+        }
+
+        void flush() {
+            if (isEmpty()) return;
+            out.add(prefix + ",\"zgloszenia\":[" + String.join(",", zgloszenia)
+                    + "],\"raporty\":[" + String.join(",", raporty)
+                    + "],\"principals\":[" + String.join(",", principals) + "]}");
+            reset();
+        }
+
+        private boolean isEmpty() {
+            return zgloszenia.isEmpty() && raporty.isEmpty() && principals.isEmpty();
+        }
+
+        private void reset() {
+            zgloszenia.clear();
+            raporty.clear();
+            principals.clear();
+            bytes = empty(utf8(prefix));
+        }
+
+        private int empty(int prefixBytes) {
+            return prefixBytes + ",\"zgloszenia\":[],\"raporty\":[],\"principals\":[]}".length();
+        }
+
+        private int utf8(String s) {
+            return s.getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+}
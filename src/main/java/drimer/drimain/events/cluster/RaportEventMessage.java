@@ -0,0 +1,21 @@
+package drimer.drimain.events.cluster;
+
+import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.events.RaportChangedEvent;
+
+/**
+ * Zmiana raportu rozgłaszana do wszystkich instancji (po commicie). Konsumenci: /topic/raporty.
+ *
+ * @param raport null, gdy usunięty z powodu limitu rozmiaru NOTIFY (odbiorca doczytuje po raportId)
+ */
+public record RaportEventMessage(String action, Long raportId, RaportDTO raport) {
+
+    public static RaportEventMessage of(RaportChangedEvent event) {
+        RaportDTO raport = event.getRaport();
+        return new RaportEventMessage(event.getAction(), raport != null ? raport.getId() : null, raport);
+    }
+
+    public RaportEventMessage withoutRaport() {
+        return new RaportEventMessage(action, raportId, null);
+    }
+}
@@ -0,0 +1,34 @@
+package drimer.drimain.events.cluster;
+
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.events.EventType;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Zmiana zgłoszenia rozgłaszana do wszystkich instancji (po commicie). Konsumenci: strumień SSE.
+ *
+ * @param snapshot stan po zmianie; null, gdy nieznany albo usunięty z powodu limitu rozmiaru NOTIFY
+ * @param eventId  identyfikator wspólny dla klastra (id SSE), nadawany przy odczycie z event_outbox
+ *                 (ClusterEventBatch.withEventIds); null przed zapisem do outboxu
+ */
+public record ZgloszenieEventMessage(EventType type, Long zgloszenieId, LocalDateTime eventTimestamp,
+                                     List<String> changedFields, Long attachmentId, ZgloszenieDTO snapshot,
+                                     Long eventId) {
+
+    public static ZgloszenieEventMessage of(ZgloszenieDomainEvent event) {
+        return new ZgloszenieEventMessage(event.getType(), event.getZgloszenieId(), event.getEventTimestamp(),
+                event.getChangedFields(), event.getAttachmentId(),
+                event.getSnapshot() instanceof ZgloszenieDTO dto ? dto : null, null);
+    }
+
+    public ZgloszenieEventMessage withoutSnapshot() {
+        return new ZgloszenieEventMessage(type, zgloszenieId, eventTimestamp, changedFields, attachmentId, null, eventId);
+    }
+
+    public ZgloszenieEventMessage withEventId(long id) {
+        return new ZgloszenieEventMessage(type, zgloszenieId, eventTimestamp, changedFields, attachmentId, snapshot, id);
+    }
+}
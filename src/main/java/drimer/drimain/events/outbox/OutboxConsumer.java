@@ -0,0 +1,20 @@
+package drimer.drimain.events.outbox;
+
+import drimer.drimain.events.cluster.ClusterEventBatch;
+
+/**
+ * Konsument zdarzeń z event_outbox, wywoływany przez OutboxDispatcher na wątku roboczym.
+ *
+ * Paczka to zdarzenia jednej zatwierdzonej transakcji; konsument dostaje je po kolei, raz na klaster.
+ * handle() działa w transakcji razem z przesunięciem offsetu - zapisy konsumenta i offset są
+ * zatwierdzane razem, a wyjątek wycofuje oba i zdarzenie jest ponawiane.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Stała nazwa - klucz offsetu w event_outbox_offsets (zmiana nazwy = nowy konsument od końca kolejki).
+     */
+    String consumerName();
+
+    void handle(ClusterEventBatch batch);
+}
@@ -0,0 +1,231 @@
+package drimer.drimain.events.outbox;
+
+import drimer.drimain.config.OutboxProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rozsyła zdarzenia z event_outbox do konsumentów (OutboxConsumer) poza wątkiem żądania.
+ *
+ * Wątek "outbox-poll" budzi się po commicie nowych zdarzeń na tej instancji (OutboxStore.onAppend)
+ * albo co poll-interval-millis (zdarzenia z innych instancji, ponowienia) i zleca każdemu konsumentowi
+ * opróżnienie jego zaległości na puli "outbox-worker-N" - najwyżej jedno zadanie na konsumenta naraz,
+ * więc wolny konsument nie wstrzymuje pozostałych.
+ * Każde zdarzenie jest obsługiwane w osobnej transakcji: blokada wiersza offsetu (jedna instancja
+ * na konsumenta w klastrze), handle(), przesunięcie offsetu. Błąd -> ponowienie z rosnącą przerwą;
+ * po max-attempts zdarzenie jest logowane i pomijane, żeby nie blokować konsumenta.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+    private static final long CLEANUP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final OutboxStore store;
+    private final OutboxProperties properties;
+    private final List<OutboxConsumer> consumers;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, Retry> retries = new ConcurrentHashMap<>();
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private TransactionTemplate tx;
+    private ThreadPoolExecutor workers;
+    private Thread poller;
+    private volatile boolean stopped;
+    private long lastCleanup = System.nanoTime();
+
+    @PostConstruct
+    void start() {
+        tx = new TransactionTemplate(transactionManager);
+        for (OutboxConsumer consumer : consumers) {
+            store.registerConsumer(consumer.consumerName());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        int threads = Math.max(1, properties.getWorkerThreads());
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, consumers.size())),
+                r -> {
+                    Thread t = new Thread(r, "outbox-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        store.onAppend(this::wakeUp);
+        poller = new Thread(this::pollLoop, "outbox-poll");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopped = true;
+        poller.interrupt();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public void wakeUp() {
+        wakeups.release();
+    }
+
+    /**
+     * Czeka, aż wszyscy konsumenci tej instancji dojdą do końca kolejki (także zdarzeń dopisanych
+     * w międzyczasie przez samych konsumentów) i żaden przebieg nie jest w toku - offset jest widoczny
+     * już po commicie, a listenery after-commit transakcji konsumenta biegną jeszcze na wątku workera.
+     */
+    public boolean awaitIdle(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            if (running.isEmpty() && dirty.isEmpty()) {
+                long last = store.maxId();
+                if (consumers.stream().allMatch(c -> store.offset(c.consumerName()) >= last)) {
+                    if (running.isEmpty() && dirty.isEmpty()) return true;
+                } else {
+                    wakeUp();
+                }
+            }
+            if (System.nanoTime() - deadline > 0) return false;
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void pollLoop() {
+        while (!stopped) {
+            try {
+                wakeups.tryAcquire(properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+            } catch (InterruptedException e) {
+                if (stopped) return;
+            }
+            for (OutboxConsumer consumer : consumers) {
+                schedule(consumer);
+            }
+            cleanupIfDue();
+        }
+    }
+
+    private void schedule(OutboxConsumer consumer) {
+        String name = consumer.consumerName();
+        dirty.add(name);
+        if (!running.add(name)) return; // pobiegnie jeszcze raz po bieżącym przebiegu
+        try {
+            workers.execute(() -> {
+                try {
+                    do {
+                        dirty.remove(name);
+                        drain(consumer);
+                    } while (dirty.contains(name) && !stopped);
+                } finally {
+                    running.remove(name);
+                }
+                if (dirty.contains(name) && !stopped) schedule(consumer);
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(name);
+        }
+    }
+
+    private void drain(OutboxConsumer consumer) {
+        String name = consumer.consumerName();
+        while (!stopped) {
+            Retry retry = retries.get(name);
+            if (retry != null && retry.notBefore - System.nanoTime() > 0) return;
+            List<OutboxEvent> events;
+            try {
+                events = store.fetchAfter(store.offset(name), Math.max(1, properties.getBatchSize()));
+            } catch (RuntimeException e) {
+                log.warn("Outbox read failed for {}: {}", name, e.getMessage());
+                return;
+            }
+            if (events.isEmpty()) return;
+            for (OutboxEvent event : events) {
+                if (stopped || !deliver(consumer, event)) return;
+            }
+        }
+    }
+
+    /**
+     * @return false, gdy zdarzenie czeka na ponowienie (konsument przerywa przebieg)
+     */
+    private boolean deliver(OutboxConsumer consumer, OutboxEvent event) {
+        String name = consumer.consumerName();
+        try {
+            tx.executeWithoutResult(status -> {
+                // inna instancja mogła już obsłużyć to zdarzenie (czekaliśmy na jej blokadę)
+                if (store.lockOffset(name) >= event.id()) return;
+                consumer.handle(store.decode(event));
+                store.advance(name, event.id());
+            });
+            retries.remove(name);
+            return true;
+        } catch (RuntimeException e) {
+            Retry previous = retries.get(name);
+            int attempts = previous != null && previous.eventId == event.id() ? previous.attempts + 1 : 1;
+            if (attempts >= properties.getMaxAttempts()) {
+                log.error("Outbox event {} skipped by {} after {} attempts: {}", event.id(), name, attempts,
+                        e.getMessage(), e);
+                retries.remove(name);
+                return skip(name, event);
+            }
+            long delay = Math.min(properties.getRetryDelayMillis() << Math.min(attempts - 1, 16), MAX_RETRY_DELAY_MILLIS);
+            retries.put(name, new Retry(event.id(), attempts, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay)));
+            log.warn("Outbox event {} failed in {} (attempt {}), retry in {} ms: {}", event.id(), name, attempts,
+                    delay, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean skip(String name, OutboxEvent event) {
+        try {
+            tx.executeWithoutResult(status -> {
+                if (store.lockOffset(name) < event.id()) store.advance(name, event.id());
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Cannot advance outbox offset of {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void cleanupIfDue() {
+        long now = System.nanoTime();
+        if (now - lastCleanup < TimeUnit.MILLISECONDS.toNanos(CLEANUP_INTERVAL_MILLIS)) return;
+        lastCleanup = now;
+        try {
+            long consumed = store.minOffset(consumers.stream().map(OutboxConsumer::consumerName).toList());
+            int deleted = store.deleteConsumed(consumed, LocalDateTime.now().minusHours(properties.getRetentionHours()));
+            if (deleted > 0) log.debug("Deleted {} consumed outbox events", deleted);
+        } catch (RuntimeException e) {
+            log.warn("Outbox cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private record Retry(long eventId, int attempts, long notBefore) {}
+}
@@ -0,0 +1,7 @@
+package drimer.drimain.events.outbox;
+
+/**
+ * Wiersz event_outbox: id (kolejność commitów) i paczka zdarzeń jako JSON (ClusterEventBatch).
+ */
+public record OutboxEvent(long id, String payload) {
+}
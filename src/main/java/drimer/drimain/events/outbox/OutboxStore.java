@@ -0,0 +1,158 @@
+package drimer.drimain.events.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.events.cluster.ClusterEventBatch;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dostęp JDBC do event_outbox (paczki zdarzeń zatwierdzonych transakcji) i event_outbox_offsets
+ * (pozycja każdego konsumenta). Zapis idzie w transakcji wołającego.
+ */
+@Component
+public class OutboxStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<Runnable> appendListeners = new CopyOnWriteArrayList<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OutboxStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Zapisuje paczkę w bieżącej transakcji (bez transakcji - od razu). Po commicie budzi dispatcher.
+     *
+     * Wiersz event_outbox_lock jest blokowany do końca transakcji, więc id stają się widoczne w kolejności
+     * commitów - konsument czytający "id > offset" nie przeskoczy wolniejszej transakcji z niższym id.
+     * Zmiany encji są zrzucane wcześniej, żeby blokada obejmowała tylko sam commit.
+     */
+    public void append(ClusterEventBatch batch) {
+        if (batch == null || batch.isEmpty()) return;
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox batch", e);
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            entityManager.flush();
+        }
+        jdbcTemplate.queryForList("SELECT id FROM event_outbox_lock WHERE id = 1 FOR UPDATE", Integer.class);
+        jdbcTemplate.update("INSERT INTO event_outbox (origin_node, payload, created_at) VALUES (?, ?, ?)",
+                batch.originNode(), payload, Timestamp.valueOf(LocalDateTime.now()));
+
+        if (inTransaction && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyAppended();
+                }
+            });
+        } else {
+            notifyAppended();
+        }
+    }
+
+    /**
+     * Wywoływane po zatwierdzeniu nowych zdarzeń na tej instancji.
+     */
+    public void onAppend(Runnable listener) {
+        appendListeners.add(listener);
+    }
+
+    /**
+     * Paczka z wiersza; zdarzenia zgłoszeń dostają id pochodne od id wiersza (ClusterEventBatch.withEventIds).
+     */
+    public ClusterEventBatch decode(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.payload(), ClusterEventBatch.class).withEventIds(event.id());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot parse outbox event " + event.id(), e);
+        }
+    }
+
+    public List<OutboxEvent> fetchAfter(long afterId, int limit) {
+        return jdbcTemplate.query("SELECT id, payload FROM event_outbox WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY",
+                (rs, i) -> new OutboxEvent(rs.getLong(1), rs.getString(2)), afterId, limit);
+    }
+
+    public long maxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM event_outbox", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    /**
+     * Nowy konsument zaczyna od bieżącego końca kolejki (bez odtwarzania historii).
+     */
+    public void registerConsumer(String consumer) {
+        try {
+            jdbcTemplate.update("INSERT INTO event_outbox_offsets (consumer, last_event_id, updated_at) " +
+                            "SELECT ?, COALESCE(MAX(id), 0), ? FROM event_outbox " +
+                            "WHERE NOT EXISTS (SELECT 1 FROM event_outbox_offsets WHERE consumer = ?)",
+                    consumer, Timestamp.valueOf(LocalDateTime.now()), consumer);
+        } catch (DuplicateKeyException ignored) {
+            // zarejestrowany równolegle przez inną instancję
+        }
+    }
+
+    public long offset(String consumer) {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT last_event_id FROM event_outbox_offsets WHERE consumer = ?", Long.class, consumer);
+        return rows.isEmpty() ? 0L : rows.get(0);
+    }
+
+    /**
+     * Offset z blokadą wiersza do końca transakcji - zdarzenie konsumenta obsługuje naraz jedna instancja.
+     */
+    public long lockOffset(String consumer) {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT last_event_id FROM event_outbox_offsets WHERE consumer = ? FOR UPDATE", Long.class, consumer);
+        if (rows.isEmpty()) throw new IllegalStateException("Outbox consumer not registered: " + consumer);
+        return rows.get(0);
+    }
+
+    public void advance(String consumer, long eventId) {
+        jdbcTemplate.update("UPDATE event_outbox_offsets SET last_event_id = ?, updated_at = ? WHERE consumer = ?",
+                eventId, Timestamp.valueOf(LocalDateTime.now()), consumer);
+    }
+
+    public long minOffset(Collection<String> consumers) {
+        long min = Long.MAX_VALUE;
+        for (String consumer : consumers) {
+            min = Math.min(min, offset(consumer));
+        }
+        return min == Long.MAX_VALUE ? 0L : min;
+    }
+
+    /**
+     * Usuwa zdarzenia obsłużone przez wszystkich konsumentów (id &lt;= upToId) starsze niż olderThan.
+     */
+    public int deleteConsumed(long upToId, LocalDateTime olderThan) {
+        return jdbcTemplate.update("DELETE FROM event_outbox WHERE id <= ? AND created_at < ?",
+                upToId, Timestamp.valueOf(olderThan));
+    }
+
+    private void notifyAppended() {
+        for (Runnable listener : appendListeners) {
+            listener.run();
+        }
+    }
+}
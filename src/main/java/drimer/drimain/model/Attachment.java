@@ -30,6 +30,10 @@ public class Attachment {
     @Column(name = "checksum")
     private String checksum;
 
+    // SHA-256 of the content in the content-addressed store; null = legacy file stored under storedFilename
+    @Column(name = "blob_sha256", length = 64)
+    private String blobSha256;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -101,6 +105,14 @@ public class Attachment {
         this.checksum = checksum;
     }
 
+    public String getBlobSha256() {
+        return blobSha256;
+    }
+
+    public void setBlobSha256(String blobSha256) {
+        this.blobSha256 = blobSha256;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -34,6 +34,10 @@ public class InstructionAttachment {
     @Column(name = "checksum")
     private String checksum;
 
+    // treść w magazynie adresowanym skrótem (null = stary plik pod storedFilename)
+    @Column(name = "blob_sha256", length = 64)
+    private String blobSha256;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
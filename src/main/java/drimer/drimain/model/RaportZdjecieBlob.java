@@ -24,6 +24,9 @@ public class RaportZdjecieBlob {
     @Column(name = "file_size")
     private Long fileSize;
 
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
     @Basic(fetch = FetchType.LAZY)
     @Column(name = "data", nullable = false, columnDefinition = "bytea")
     private byte[] data;
@@ -64,6 +67,14 @@ public class RaportZdjecieBlob {
         this.fileSize = fileSize;
     }
 
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
     public byte[] getData() {
         return data;
     }
@@ -37,6 +37,10 @@ public class User implements UserDetails {
     @Column(name = "module")
     private Set<String> modules = new HashSet<>();
 
+    // Wersja poświadczeń w tokenach (claim "tv") - podbijana przy zmianie hasła, ról, modułów lub loginu
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -59,6 +63,10 @@ public class User implements UserDetails {
     public Dzial getDzial() { return dzial; }
     public void setDzial(Dzial dzial) { this.dzial = dzial; }
 
+    public long getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(long tokenVersion) { this.tokenVersion = tokenVersion; }
+    public void bumpTokenVersion() { tokenVersion++; }
+
     public Set<String> getModules() { return modules; }
     public void setModules(Set<String> modules) { this.modules = modules != null ? modules : new HashSet<>(); }
 
@@ -1,7 +1,11 @@
 package drimer.drimain.repository;
 
 import drimer.drimain.model.Attachment;
+import drimer.drimain.repository.projection.StoredImageRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +16,12 @@ public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
     List<Attachment> findByZgloszenieIdOrderByCreatedAtDesc(Long zgloszenieId);
     
     void deleteByZgloszenieId(Long zgloszenieId);
+
+    // Obrazy do backfillu miniatur - keyset po id
+    @Query("SELECT a.id AS id, a.zgloszenie.id AS ownerId, a.storedFilename AS storedFilename, " +
+            "a.contentType AS contentType, a.blobSha256 AS blobSha256 FROM Attachment a " +
+            "WHERE a.contentType LIKE 'image/%' AND a.id > :afterId ORDER BY a.id")
+    List<StoredImageRow> findImagesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    long countByBlobSha256(String blobSha256);
 }
\ No newline at end of file
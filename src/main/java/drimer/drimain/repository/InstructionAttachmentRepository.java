@@ -6,5 +6,7 @@ import java.util.List;
 
 public interface InstructionAttachmentRepository extends JpaRepository<InstructionAttachment, Long> {
     List<InstructionAttachment> findByInstruction_IdOrderByCreatedAtDesc(Long instructionId);
+
+    long countByBlobSha256(String blobSha256);
 }
 
@@ -1,13 +1,22 @@
 package drimer.drimain.repository;
 
 import drimer.drimain.model.Maszyna;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface MaszynaRepository extends JpaRepository<Maszyna, Long> {
+    // dzial/sekcja są EAGER - bez grafu Hibernate dociąga je osobnymi SELECT-ami dla każdej maszyny
+    @EntityGraph(attributePaths = {"dzial", "sekcja"})
     List<Maszyna> findByDzial_Id(Long dzialId);
+    @EntityGraph(attributePaths = {"dzial", "sekcja"})
     List<Maszyna> findByDzial_NazwaIgnoreCase(String nazwa);
     List<Maszyna> findBySekcja_Id(Long sekcjaId);
     List<Maszyna> findBySekcje_Id(Long sekcjaId);
+
+    @EntityGraph(attributePaths = {"dzial", "sekcja"})
+    @Query("SELECT m FROM Maszyna m")
+    List<Maszyna> findAllWithDzialAndSekcja();
 }
@@ -9,6 +9,10 @@ import java.util.Optional;
 public interface OsobaRepository extends JpaRepository<Osoba, Long> {
     Optional<Osoba> findByLogin(String login);
 
+    boolean existsByLogin(String login);
+
+    Optional<Osoba> findFirstByLoginOrderByIdAsc(String login);
+
     List<Osoba> findByDzial_NazwaIgnoreCase(String nazwa);
 
     List<Osoba> findByDzial_Id(Long dzialId);
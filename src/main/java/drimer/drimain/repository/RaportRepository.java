@@ -1,20 +1,44 @@
 package drimer.drimain.repository;
 
 import drimer.drimain.model.Raport;
-import org.springframework.data.domain.Page;
+import drimer.drimain.repository.projection.RaportKpiGroupRow;
+import drimer.drimain.repository.projection.RaportKpiRow;
+import drimer.drimain.repository.projection.RaportListRow;
+import drimer.drimain.repository.projection.RaportPartUsageRow;
+import drimer.drimain.repository.projection.RaportSearchRow;
+import drimer.drimain.repository.projection.RaportZdjecieRow;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface RaportRepository extends JpaRepository<Raport, Long>, JpaSpecificationExecutor<Raport> {
+public interface RaportRepository extends JpaRepository<Raport, Long>, JpaSpecificationExecutor<Raport>,
+        RaportRepositoryCustom {
 
-    @Override
-    @EntityGraph(attributePaths = {"maszyna", "maszyna.dzial", "maszyna.sekcja", "osoba", "partUsages", "partUsages.part", "zdjecia"})
-    Page<Raport> findAll(Specification<Raport> spec, Pageable pageable);
+    // Lista z filtrem i stronicowaniem: id strony z RaportRepositoryCustom.findPageIds (LIMIT w SQL),
+    // RaportDTO składane z projekcji poniżej (RaportQueryService)
+
+    @Query("SELECT r.id AS id, r.typNaprawy AS typNaprawy, r.opis AS opis, r.status AS status, " +
+            "r.dataNaprawy AS dataNaprawy, r.czasOd AS czasOd, r.czasDo AS czasDo, " +
+            "m.id AS maszynaId, m.nazwa AS maszynaNazwa, d.id AS dzialId, d.nazwa AS dzialNazwa, " +
+            "s.id AS sekcjaId, s.nazwa AS sekcjaNazwa, o.id AS osobaId, o.imieNazwisko AS osobaImieNazwisko " +
+            "FROM Raport r LEFT JOIN r.maszyna m LEFT JOIN m.dzial d LEFT JOIN m.sekcja s LEFT JOIN r.osoba o " +
+            "WHERE r.id IN :ids")
+    List<RaportListRow> findListRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT pu.raport.id AS raportId, pu.part.id AS partId, pu.ilosc AS ilosc FROM PartUsage pu " +
+            "WHERE pu.raport.id IN :ids ORDER BY pu.id")
+    List<RaportPartUsageRow> findPartUsageRowsByRaportIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.id AS raportId, z AS zdjecie FROM Raport r JOIN r.zdjecia z WHERE r.id IN :ids")
+    List<RaportZdjecieRow> findZdjecieRowsByRaportIdIn(@Param("ids") Collection<Long> ids);
 
     @Override
     @EntityGraph(attributePaths = {"maszyna", "maszyna.dzial", "maszyna.sekcja", "osoba", "partUsages", "partUsages.part", "zdjecia"})
@@ -24,4 +48,31 @@ public interface RaportRepository extends JpaRepository<Raport, Long>, JpaSpecif
 
     // Liczba raportów powiązanych z maszyną
     long countByMaszyna_Id(Long maszynaId);
+
+    // Pola tekstowe dla indeksu wyszukiwania - porcjami po id (keyset), bez ładowania encji
+    @Query("SELECT r.id AS id, r.typNaprawy AS typNaprawy, r.opis AS opis FROM Raport r " +
+            "WHERE r.id > :afterId ORDER BY r.id")
+    List<RaportSearchRow> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Raporty z niezmigrowanymi zdjęciami Base64 ("inline:") - keyset po id dla RaportPhotoMigrator
+    @Query("SELECT DISTINCT r.id FROM Raport r JOIN r.zdjecia z " +
+            "WHERE z LIKE 'inline:%' AND r.id > :afterId ORDER BY r.id")
+    List<Long> findIdsWithInlinePhotosAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Liczniki KPI dashboardu (keyset przy uzgadnianiu kpi_daily, pojedynczo po zdarzeniu)
+    @Query("SELECT r.id AS id, r.dataNaprawy AS dataNaprawy, r.status AS status FROM Raport r " +
+            "WHERE r.id > :afterId ORDER BY r.id")
+    List<RaportKpiRow> findKpiRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT r.id AS id, r.dataNaprawy AS dataNaprawy, r.status AS status FROM Raport r WHERE r.id = :id")
+    Optional<RaportKpiRow> findKpiRowById(@Param("id") Long id);
+
+    @Query("SELECT r.id AS id, r.dataNaprawy AS dataNaprawy, r.status AS status FROM Raport r " +
+            "WHERE r.zgloszenieId = :zgloszenieId")
+    Optional<RaportKpiRow> findKpiRowByZgloszenieId(@Param("zgloszenieId") Long zgloszenieId);
+
+    // KPI dashboardu bez liczników kpi_daily
+    @Query("SELECT r.dataNaprawy AS day, r.status AS status, COUNT(r) AS cnt FROM Raport r " +
+            "WHERE r.dataNaprawy >= :from GROUP BY r.dataNaprawy, r.status")
+    List<RaportKpiGroupRow> countKpiGroupsSince(@Param("from") LocalDate from);
 }
@@ -0,0 +1,14 @@
+package drimer.drimain.repository;
+
+import drimer.drimain.model.Raport;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface RaportRepositoryCustom {
+
+    /**
+     * Id raportów jednej strony (filtr, sortowanie i LIMIT/OFFSET w SQL) z łączną liczbą wyników.
+     */
+    Page<Long> findPageIds(Specification<Raport> spec, Pageable pageable);
+}
@@ -0,0 +1,67 @@
+package drimer.drimain.repository;
+
+import drimer.drimain.model.Raport;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Pierwszy krok stronicowania raportów: SELECT r.id z filtrem, sortowaniem i LIMIT/OFFSET w SQL
+ * (id jako ostatni klucz sortowania - stabilna kolejność między stronami). Fetch kolekcji
+ * (partUsages, zdjecia) razem z LIMIT zmuszałby Hibernate do stronicowania w pamięci (HHH90003004);
+ * dane strony dociąga RaportQueryService projekcjami po tych id.
+ * COUNT liczy tylko po filtrze (bez fetchy) i jest pomijany, gdy wynika z rozmiaru strony.
+ */
+class RaportRepositoryImpl implements RaportRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Long> findPageIds(Specification<Raport> spec, Pageable pageable) {
+        return PageableExecutionUtils.getPage(findIds(spec, pageable), pageable, () -> count(spec));
+    }
+
+    private List<Long> findIds(Specification<Raport> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Raport> root = query.from(Raport.class);
+        query.select(root.get("id"));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) sort = sort.and(Sort.by(Sort.Direction.DESC, "id"));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<Long> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        return typed.getResultList();
+    }
+
+    private long count(Specification<Raport> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Raport> root = query.from(Raport.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -1,14 +1,48 @@
 package drimer.drimain.repository;
 
 import drimer.drimain.model.RaportZdjecieBlob;
+import drimer.drimain.repository.projection.RaportZdjecieBlobMeta;
+import drimer.drimain.repository.projection.StoredImageRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface RaportZdjecieBlobRepository extends JpaRepository<RaportZdjecieBlob, Long> {
 
     Optional<RaportZdjecieBlob> findByRaportIdAndStoredFilename(Long raportId, String storedFilename);
 
-    void deleteByRaportIdAndStoredFilename(Long raportId, String storedFilename);
-}
+    // Metadane bez kolumny data
+    @Query("SELECT b.id AS id, b.storedFilename AS storedFilename, b.contentType AS contentType, " +
+            "b.fileSize AS fileSize, b.sha256 AS sha256 FROM RaportZdjecieBlob b " +
+            "WHERE b.raport.id = :raportId AND b.storedFilename = :storedFilename")
+    Optional<RaportZdjecieBlobMeta> findMeta(@Param("raportId") Long raportId,
+                                             @Param("storedFilename") String storedFilename);
+
+    @Query("SELECT b.id AS id, b.storedFilename AS storedFilename, b.contentType AS contentType, " +
+            "b.fileSize AS fileSize, b.sha256 AS sha256 FROM RaportZdjecieBlob b " +
+            "WHERE b.raport.id = :raportId AND b.sha256 = :sha256")
+    List<RaportZdjecieBlobMeta> findMetaBySha256(@Param("raportId") Long raportId, @Param("sha256") String sha256);
+
+    // Zdjęcia do backfillu miniatur - keyset po id
+    @Query("SELECT b.id AS id, b.raport.id AS ownerId, b.storedFilename AS storedFilename, " +
+            "b.contentType AS contentType FROM RaportZdjecieBlob b WHERE b.id > :afterId ORDER BY b.id")
+    List<StoredImageRow> findImagesAfter(@Param("afterId") Long afterId, Pageable pageable);
 
+    // Sama zawartość - ładowana tylko przy pobraniu zdjęcia
+    @Query("SELECT b.data FROM RaportZdjecieBlob b WHERE b.id = :id")
+    Optional<byte[]> findDataById(@Param("id") Long id);
+
+    // Bulk delete - bez ładowania zawartości do pamięci
+    @Modifying
+    @Query("DELETE FROM RaportZdjecieBlob b WHERE b.raport.id = :raportId AND b.storedFilename = :storedFilename")
+    void deleteByRaportIdAndStoredFilename(@Param("raportId") Long raportId, @Param("storedFilename") String storedFilename);
+
+    @Modifying
+    @Query("DELETE FROM RaportZdjecieBlob b WHERE b.raport.id = :raportId")
+    int deleteAllByRaportId(@Param("raportId") Long raportId);
+}
@@ -1,14 +1,16 @@
 package drimer.drimain.repository;
 
 import drimer.drimain.model.Sekcja;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface SekcjaRepository extends JpaRepository<Sekcja, Long> {
+    @EntityGraph(attributePaths = {"dzial"})
     List<Sekcja> findByDzial_IdOrderByNazwaAsc(Long dzialId);
+    @EntityGraph(attributePaths = {"dzial"})
     List<Sekcja> findAllByOrderByNazwaAsc();
     Optional<Sekcja> findByDzial_IdAndNazwaIgnoreCase(Long dzialId, String nazwa);
 }
-
@@ -1,10 +1,12 @@
 package drimer.drimain.repository;
 
 import drimer.drimain.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -15,4 +17,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Ładuj użytkownika wraz z działem, aby uniknąć LAZY w kontrolerze
     @Query("select u from User u left join fetch u.dzial where u.username = :username")
     Optional<User> findByUsernameFetchDzial(@Param("username") String username);
-}
\ No newline at end of file
+
+    // Sam identyfikator (bez EAGER ról i modułów) - do filtrów po autor_id
+    @Query("select u.id from User u where u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // Loginy bez odpowiadającej Osoby (rekoncyliacja User -> Osoba, paczkami)
+    @Query("select u.username from User u where u.username is not null and u.username <> '' "
+            + "and not exists (select 1 from Osoba o where o.login = u.username) order by u.username")
+    List<String> findUsernamesWithoutOsoba(Pageable pageable);
+}
@@ -2,6 +2,10 @@ package drimer.drimain.repository;
 
 import drimer.drimain.model.Zgloszenie;
 import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.projection.ResolvedKpiGroupRow;
+import drimer.drimain.repository.projection.ZgloszenieKpiGroupRow;
+import drimer.drimain.repository.projection.ZgloszenieKpiRow;
+import drimer.drimain.repository.projection.ZgloszenieSearchRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -10,6 +14,7 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -62,4 +67,46 @@ public interface ZgloszenieRepository extends JpaRepository<Zgloszenie, Long>, J
 
     // Liczba zgłoszeń powiązanych z maszyną
     long countByMaszyna_Id(Long maszynaId);
-}
\ No newline at end of file
+
+    // Pola tekstowe dla indeksu wyszukiwania - porcjami po id (keyset), bez ładowania encji
+    @Query("SELECT z.id AS id, z.tytul AS tytul, z.typ AS typ, z.opis AS opis, " +
+            "z.imie AS imie, z.nazwisko AS nazwisko FROM Zgloszenie z " +
+            "WHERE z.id > :afterId ORDER BY z.id")
+    List<ZgloszenieSearchRow> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT z.id AS id, z.tytul AS tytul, z.typ AS typ, z.opis AS opis, " +
+            "z.imie AS imie, z.nazwisko AS nazwisko FROM Zgloszenie z WHERE z.id = :id")
+    Optional<ZgloszenieSearchRow> findSearchRowById(@Param("id") Long id);
+
+    // Liczniki KPI dashboardu - porcjami po id (keyset) przy uzgadnianiu kpi_daily, pojedynczo po zdarzeniu
+    @Query("SELECT z.id AS id, z.dataGodzina AS dataGodzina, z.createdAt AS createdAt, z.status AS status, " +
+            "z.typ AS typ, d.id AS dzialId, z.acceptedAt AS acceptedAt, z.completedAt AS completedAt " +
+            "FROM Zgloszenie z LEFT JOIN z.dzial d WHERE z.id > :afterId ORDER BY z.id")
+    List<ZgloszenieKpiRow> findKpiRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT z.id AS id, z.dataGodzina AS dataGodzina, z.createdAt AS createdAt, z.status AS status, " +
+            "z.typ AS typ, d.id AS dzialId, z.acceptedAt AS acceptedAt, z.completedAt AS completedAt " +
+            "FROM Zgloszenie z LEFT JOIN z.dzial d WHERE z.id = :id")
+    Optional<ZgloszenieKpiRow> findKpiRowById(@Param("id") Long id);
+
+    // KPI dashboardu bez liczników kpi_daily: agregacja po dniu zgłoszenia (cast na date = date_trunc('day'))
+    @Query("SELECT CAST(COALESCE(z.dataGodzina, z.createdAt) AS LocalDate) AS day, z.status AS status, " +
+            "z.typ AS typ, d.id AS dzialId, COUNT(z) AS cnt " +
+            "FROM Zgloszenie z LEFT JOIN z.dzial d WHERE COALESCE(z.dataGodzina, z.createdAt) >= :from " +
+            "GROUP BY CAST(COALESCE(z.dataGodzina, z.createdAt) AS LocalDate), z.status, z.typ, d.id")
+    List<ZgloszenieKpiGroupRow> countKpiGroupsSince(@Param("from") LocalDateTime from);
+
+    // Zamknięte (DONE) per dzień zamknięcia; minuty obcięte per zgłoszenie jak Duration.toMinutes()
+    @Query("SELECT CAST(z.completedAt AS LocalDate) AS day, COUNT(z) AS cnt, " +
+            "SUM(CAST(FLOOR(((z.completedAt - z.acceptedAt) BY NANOSECOND) / 60000000000) AS Long)) AS totalMinutes " +
+            "FROM Zgloszenie z WHERE z.status = drimer.drimain.model.enums.ZgloszenieStatus.DONE " +
+            "AND z.acceptedAt IS NOT NULL AND z.completedAt >= :from " +
+            "GROUP BY CAST(z.completedAt AS LocalDate)")
+    List<ResolvedKpiGroupRow> countResolvedSince(@Param("from") LocalDateTime from);
+
+    // Maszyny z otwartym zgłoszeniem (wszystko poza DONE / REJECTED)
+    @Query("SELECT COUNT(DISTINCT m.id) FROM Zgloszenie z JOIN z.maszyna m " +
+            "WHERE z.status IS NULL OR z.status NOT IN (drimer.drimain.model.enums.ZgloszenieStatus.DONE, " +
+            "drimer.drimain.model.enums.ZgloszenieStatus.REJECTED)")
+    long countMaszynyWPrzestoju();
+}
@@ -0,0 +1,14 @@
+package drimer.drimain.repository.projection;
+
+import drimer.drimain.model.enums.RaportStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Liczba raportów per (data naprawy, status) - GROUP BY po stronie bazy.
+ */
+public interface RaportKpiGroupRow {
+    LocalDate getDay();
+    RaportStatus getStatus();
+    Long getCnt();
+}
@@ -0,0 +1,14 @@
+package drimer.drimain.repository.projection;
+
+import drimer.drimain.model.enums.RaportStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Pola raportu wchodzące do liczników KPI dashboardu (bez hydratacji encji).
+ */
+public interface RaportKpiRow {
+    Long getId();
+    LocalDate getDataNaprawy();
+    RaportStatus getStatus();
+}
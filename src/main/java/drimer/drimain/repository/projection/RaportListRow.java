@@ -0,0 +1,27 @@
+package drimer.drimain.repository.projection;
+
+import drimer.drimain.model.enums.RaportStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Płaski wiersz RaportDTO (raport + maszyna z działem i sekcją + osoba) - bez hydratacji encji.
+ */
+public interface RaportListRow {
+    Long getId();
+    String getTypNaprawy();
+    String getOpis();
+    RaportStatus getStatus();
+    LocalDate getDataNaprawy();
+    LocalTime getCzasOd();
+    LocalTime getCzasDo();
+    Long getMaszynaId();
+    String getMaszynaNazwa();
+    Long getDzialId();
+    String getDzialNazwa();
+    Long getSekcjaId();
+    String getSekcjaNazwa();
+    Long getOsobaId();
+    String getOsobaImieNazwisko();
+}
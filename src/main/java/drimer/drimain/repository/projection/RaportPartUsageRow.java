@@ -0,0 +1,10 @@
+package drimer.drimain.repository.projection;
+
+/**
+ * Zużycie części raportu (dla RaportDTO.partUsages), ładowane paczką dla strony raportów.
+ */
+public interface RaportPartUsageRow {
+    Long getRaportId();
+    Long getPartId();
+    Integer getIlosc();
+}
@@ -0,0 +1,10 @@
+package drimer.drimain.repository.projection;
+
+/**
+ * Pola tekstowe raportu indeksowane przez wyszukiwarkę (bez hydratacji encji).
+ */
+public interface RaportSearchRow {
+    Long getId();
+    String getTypNaprawy();
+    String getOpis();
+}
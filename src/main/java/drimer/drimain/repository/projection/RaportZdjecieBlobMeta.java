@@ -0,0 +1,12 @@
+package drimer.drimain.repository.projection;
+
+/**
+ * Metadane zdjęcia raportu bez kolumny data (bytea ładowana dopiero przy pobraniu).
+ */
+public interface RaportZdjecieBlobMeta {
+    Long getId();
+    String getStoredFilename();
+    String getContentType();
+    Long getFileSize();
+    String getSha256();
+}
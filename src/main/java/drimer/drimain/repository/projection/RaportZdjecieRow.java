@@ -0,0 +1,9 @@
+package drimer.drimain.repository.projection;
+
+/**
+ * Wpis zdjęcia raportu (raport_zdjecia), ładowany paczką dla strony raportów.
+ */
+public interface RaportZdjecieRow {
+    Long getRaportId();
+    String getZdjecie();
+}
@@ -0,0 +1,12 @@
+package drimer.drimain.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Zamknięte zgłoszenia per dzień zamknięcia: liczba i suma pełnych minut accepted_at -> completed_at.
+ */
+public interface ResolvedKpiGroupRow {
+    LocalDate getDay();
+    Long getCnt();
+    Long getTotalMinutes();
+}
@@ -0,0 +1,14 @@
+package drimer.drimain.repository.projection;
+
+/**
+ * Obraz do przetworzenia przez backfill miniatur: id rekordu, właściciel (zgłoszenie / raport),
+ * nazwa pliku w magazynie i typ MIME.
+ */
+public interface StoredImageRow {
+    Long getId();
+    Long getOwnerId();
+    String getStoredFilename();
+    String getContentType();
+    /** Skrót treści w magazynie adresowanym skrótem - tylko załączniki (zdjęcia raportów są w bazie). */
+    String getBlobSha256();
+}
@@ -0,0 +1,16 @@
+package drimer.drimain.repository.projection;
+
+import drimer.drimain.model.enums.ZgloszenieStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Liczba zgłoszeń w grupie (dzień zgłoszenia, status, typ, dział) - GROUP BY po stronie bazy.
+ */
+public interface ZgloszenieKpiGroupRow {
+    LocalDate getDay();
+    ZgloszenieStatus getStatus();
+    String getTyp();
+    Long getDzialId();
+    Long getCnt();
+}
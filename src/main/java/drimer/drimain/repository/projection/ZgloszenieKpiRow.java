@@ -0,0 +1,19 @@
+package drimer.drimain.repository.projection;
+
+import drimer.drimain.model.enums.ZgloszenieStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pola zgłoszenia wchodzące do liczników KPI dashboardu (bez hydratacji encji).
+ */
+public interface ZgloszenieKpiRow {
+    Long getId();
+    LocalDateTime getDataGodzina();
+    LocalDateTime getCreatedAt();
+    ZgloszenieStatus getStatus();
+    String getTyp();
+    Long getDzialId();
+    LocalDateTime getAcceptedAt();
+    LocalDateTime getCompletedAt();
+}
@@ -0,0 +1,13 @@
+package drimer.drimain.repository.projection;
+
+/**
+ * Pola tekstowe zgłoszenia indeksowane przez wyszukiwarkę (bez hydratacji encji).
+ */
+public interface ZgloszenieSearchRow {
+    Long getId();
+    String getTytul();
+    String getTyp();
+    String getOpis();
+    String getImie();
+    String getNazwisko();
+}
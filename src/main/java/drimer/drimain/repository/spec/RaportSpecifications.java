@@ -1,10 +1,12 @@
 package drimer.drimain.repository.spec;
 
+import drimer.drimain.config.FullTextSearchFunctions;
 import drimer.drimain.model.Raport;
 import drimer.drimain.model.enums.RaportStatus;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
+import java.util.Collection;
 
 public class RaportSpecifications {
 
@@ -39,6 +41,22 @@ public class RaportSpecifications {
         };
     }
 
+    /**
+     * Full-text match on search_vector (PostgreSQL), evaluated in the same SQL as the other filters.
+     */
+    public static Specification<Raport> matchesTsQuery(String tsQuery) {
+        return (root, q, cb) -> cb.isTrue(cb.function(FullTextSearchFunctions.RAPORTY_MATCH, Boolean.class,
+                root.get("id"), cb.literal(tsQuery)));
+    }
+
+    /**
+     * Ids returned by the full-text search engine (replaces fullText LIKE when the index is available).
+     */
+    public static Specification<Raport> idIn(Collection<Long> ids) {
+        return (root, q, cb) ->
+                ids == null ? cb.conjunction() : ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
     /**
      * Filter raporty by dzial ID (through maszyna relationship).
      */
@@ -0,0 +1,136 @@
+package drimer.drimain.repository.spec;
+
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.util.ZgloszenieStatusMapper;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Obiekt filtra dla list zgłoszeń (/api/zgloszenia, /moje, /moje-zadania).
+ * Kompiluje się do jednej Specification, więc wszystkie filtry wykonywane są w SQL
+ * i mogą korzystać z indeksów na autor_id, dzial_id i status.
+ */
+public class ZgloszenieQuery {
+
+    /** Statusy "roboczych" zgłoszeń (moje zadania). */
+    public static final Set<ZgloszenieStatus> ACTIVE_STATUSES =
+            EnumSet.of(ZgloszenieStatus.OPEN, ZgloszenieStatus.IN_PROGRESS, ZgloszenieStatus.ON_HOLD);
+
+    private static final String[] TEXT_FIELDS = {"opis", "typ", "imie", "nazwisko", "tytul"};
+
+    private boolean none;
+    private ZgloszenieStatus status;
+    private Set<ZgloszenieStatus> statusIn;
+    private String typ;
+    private String text;
+    private List<Long> textMatchIds;
+    private String textTsQuery;
+    private Long autorId;
+    private Long dzialId;
+    private String excludeDzialNazwa;
+
+    public static ZgloszenieQuery create() {
+        return new ZgloszenieQuery();
+    }
+
+    /**
+     * Status w formacie UI lub enum; wartość niemożliwa do zmapowania daje pusty wynik.
+     */
+    public ZgloszenieQuery status(String raw) {
+        if (raw != null) {
+            this.status = ZgloszenieStatusMapper.map(raw);
+            if (this.status == null) this.none = true;
+        }
+        return this;
+    }
+
+    public ZgloszenieQuery statusIn(Set<ZgloszenieStatus> statuses) {
+        this.statusIn = statuses;
+        return this;
+    }
+
+    public ZgloszenieQuery typ(String typ) {
+        this.typ = typ;
+        return this;
+    }
+
+    public ZgloszenieQuery text(String text) {
+        this.text = text;
+        return this;
+    }
+
+    /**
+     * Wynik wyszukiwarki pełnotekstowej dla {@link #getText()} (id wg trafności);
+     * zastępuje filtr LIKE warunkiem "id IN (...)".
+     */
+    public ZgloszenieQuery textMatchIds(List<Long> ids) {
+        this.textMatchIds = ids;
+        return this;
+    }
+
+    /**
+     * Fraza {@link #getText()} jako tsquery (PostgreSQL); zastępuje filtr LIKE warunkiem
+     * na search_vector w tym samym zapytaniu.
+     */
+    public ZgloszenieQuery textTsQuery(String tsQuery) {
+        this.textTsQuery = tsQuery;
+        return this;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Long> getTextMatchIds() {
+        return textMatchIds;
+    }
+
+    public String getTextTsQuery() {
+        return textTsQuery;
+    }
+
+    public ZgloszenieQuery autorId(Long autorId) {
+        this.autorId = autorId;
+        return this;
+    }
+
+    public ZgloszenieQuery dzialId(Long dzialId) {
+        this.dzialId = dzialId;
+        return this;
+    }
+
+    public ZgloszenieQuery excludeDzialNazwa(String nazwa) {
+        this.excludeDzialNazwa = nazwa;
+        return this;
+    }
+
+    /** Wymusza pusty wynik (np. brak uprawnień / brak działu). */
+    public ZgloszenieQuery none() {
+        this.none = true;
+        return this;
+    }
+
+    public boolean isNone() {
+        return none;
+    }
+
+    public Specification<Zgloszenie> toSpecification() {
+        if (none) {
+            return ZgloszenieSpecifications.none();
+        }
+        return Specification
+                .where(ZgloszenieSpecifications.hasAutor(autorId))
+                .and(ZgloszenieSpecifications.hasDzial(dzialId))
+                .and(ZgloszenieSpecifications.excludeDzialByName(excludeDzialNazwa))
+                .and(ZgloszenieSpecifications.hasStatusIn(statusIn))
+                .and(ZgloszenieSpecifications.hasStatus(status))
+                .and(ZgloszenieSpecifications.hasTypIgnoreCase(typ))
+                .and(textTsQuery != null ? ZgloszenieSpecifications.matchesTsQuery(textTsQuery)
+                        : textMatchIds != null ? ZgloszenieSpecifications.idIn(textMatchIds)
+                        : ZgloszenieSpecifications.textContains(text, TEXT_FIELDS));
+    }
+}
@@ -0,0 +1,125 @@
+package drimer.drimain.repository.spec;
+
+import drimer.drimain.config.FullTextSearchFunctions;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public class ZgloszenieSpecifications {
+
+    /**
+     * Dociąga relacje potrzebne do mapowania DTO (autor, dzial, maszyna.dzial, maszyna.sekcja).
+     * Tylko relacje *-do-jednego, więc LIMIT nadal działa po stronie bazy.
+     * Pomijane dla zapytań COUNT.
+     */
+    public static Specification<Zgloszenie> fetchRelations() {
+        return (root, q, cb) -> {
+            Class<?> resultType = q.getResultType();
+            if (resultType != Long.class && resultType != long.class) {
+                root.fetch("autor", JoinType.LEFT);
+                root.fetch("dzial", JoinType.LEFT);
+                var maszyna = root.fetch("maszyna", JoinType.LEFT);
+                maszyna.fetch("dzial", JoinType.LEFT);
+                maszyna.fetch("sekcja", JoinType.LEFT);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    public static Specification<Zgloszenie> hasStatus(ZgloszenieStatus status) {
+        return (root, q, cb) ->
+                status == null ? cb.conjunction() : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Zgloszenie> hasStatusIn(Collection<ZgloszenieStatus> statuses) {
+        return (root, q, cb) ->
+                statuses == null || statuses.isEmpty() ? cb.conjunction() : root.get("status").in(statuses);
+    }
+
+    public static Specification<Zgloszenie> hasAutor(Long autorId) {
+        return (root, q, cb) ->
+                autorId == null ? cb.conjunction() : cb.equal(root.get("autor").get("id"), autorId);
+    }
+
+    public static Specification<Zgloszenie> hasTypIgnoreCase(String typ) {
+        return (root, q, cb) ->
+                typ == null || typ.isBlank() ? cb.conjunction()
+                        : cb.equal(cb.lower(root.get("typ")), typ.toLowerCase());
+    }
+
+    /**
+     * Wyszukiwanie "zawiera" (case-insensitive) w podanych polach tekstowych.
+     */
+    public static Specification<Zgloszenie> textContains(String qStr, String... fields) {
+        return (root, q, cb) -> {
+            if (qStr == null || qStr.isBlank() || fields.length == 0) return cb.conjunction();
+            String like = "%" + escapeLike(qStr.toLowerCase()) + "%";
+            var predicates = new jakarta.persistence.criteria.Predicate[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                predicates[i] = cb.like(cb.lower(root.get(fields[i])), like, '\\');
+            }
+            return cb.or(predicates);
+        };
+    }
+
+    public static Specification<Zgloszenie> hasDzial(Long dzialId) {
+        return (root, q, cb) ->
+                dzialId == null ? cb.conjunction() : cb.equal(root.get("dzial").get("id"), dzialId);
+    }
+
+    /**
+     * Wyklucza zgłoszenia z działu o danej nazwie; zgłoszenia bez działu pozostają widoczne.
+     */
+    public static Specification<Zgloszenie> excludeDzialByName(String dzialName) {
+        return (root, q, cb) -> {
+            if (dzialName == null || dzialName.isBlank()) return cb.conjunction();
+            var dzial = root.join("dzial", JoinType.LEFT);
+            return cb.or(
+                    cb.isNull(dzial.get("id")),
+                    cb.notEqual(cb.lower(dzial.get("nazwa")), dzialName.toLowerCase())
+            );
+        };
+    }
+
+    /**
+     * Full-text match on search_vector (PostgreSQL), evaluated in the same SQL as the other filters.
+     */
+    public static Specification<Zgloszenie> matchesTsQuery(String tsQuery) {
+        return (root, q, cb) -> cb.isTrue(cb.function(FullTextSearchFunctions.ZGLOSZENIA_MATCH, Boolean.class,
+                root.get("id"), cb.literal(tsQuery)));
+    }
+
+    public static Specification<Zgloszenie> idIn(Collection<Long> ids) {
+        return (root, q, cb) ->
+                ids == null ? cb.conjunction() : ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    public static Specification<Zgloszenie> none() {
+        return (root, q, cb) -> cb.disjunction();
+    }
+
+    /**
+     * Keyset (seek) dla sortowania createdAt DESC, id DESC:
+     * zwraca wiersze "za" kursorem (createdAt, id).
+     */
+    public static Specification<Zgloszenie> createdBefore(LocalDateTime createdAt, Long id) {
+        return (root, q, cb) -> {
+            if (createdAt == null || id == null) return cb.conjunction();
+            return cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(
+                            cb.equal(root.get("createdAt"), createdAt),
+                            cb.lessThan(root.get("id"), id)
+                    )
+            );
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
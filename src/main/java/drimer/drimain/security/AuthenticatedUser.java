@@ -0,0 +1,37 @@
+package drimer.drimain.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal z maską modułów (ModulesCatalog) wyliczoną raz przy ładowaniu użytkownika.
+ * Trzymany w PrincipalCache, więc @moduleGuard.has(...) to test bitu bez zapytania do bazy.
+ * tokenVersion = users.token_version z chwili ładowania, porównywany z claimem "tv" tokenu.
+ */
+public class AuthenticatedUser extends User {
+
+    private final int moduleMask;
+    private final long tokenVersion;
+
+    public AuthenticatedUser(String username, String password,
+                             Collection<? extends GrantedAuthority> authorities, int moduleMask, long tokenVersion) {
+        super(username, password, authorities);
+        this.moduleMask = moduleMask;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public int getModuleMask() {
+        return moduleMask;
+    }
+
+    public boolean hasModule(String moduleName) {
+        int bit = ModulesCatalog.bit(moduleName);
+        return bit != 0 && (moduleMask & bit) != 0;
+    }
+}
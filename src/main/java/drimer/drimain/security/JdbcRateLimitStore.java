@@ -0,0 +1,211 @@
+package drimer.drimain.security;
+
+import drimer.drimain.config.DatabaseDialect;
+import drimer.drimain.config.RateLimitProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limit wspólny dla wszystkich instancji: liczniki okien w tabeli rate_limit_counters.
+ *
+ * Ścieżka żądania nie dotyka bazy - decyzja na podstawie ostatnio pobranego stanu globalnego
+ * plus lokalnych, jeszcze nie zapisanych trafień. Osobny wątek co jdbc-flush-interval-millis
+ * zapisuje przyrosty jednym batchem (upsert hits = hits + delta) i odczytuje sumy z bieżących okien,
+ * tylko dla kluczy używanych na tej instancji - koszt flushu rośnie z lokalnym ruchem, a nie z liczbą
+ * klientów całego klastra. Klucz widziany na instancji pierwszy raz zna sumę globalną od następnego flushu.
+ *
+ * Limit liczony jako przesuwane okno (ważona suma poprzedniego i bieżącego okna stałego).
+ * Między flushami inne instancje widzą nasze trafienia z opóźnieniem - limit jest przybliżony
+ * (przekroczenie co najwyżej o ruch z jednego interwału flush).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "jdbc")
+@Slf4j
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final int READ_CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect dialect;
+    private final RateLimitProperties properties;
+    private final LongSupplier clock;
+
+    // trafienia jeszcze nie zapisane / zapisywane w trwającym flushu
+    private final Map<Slot, LongAdder> pending = new ConcurrentHashMap<>();
+    // zapisane w bazie, ale jeszcze nieobjęte odczytem sum (global)
+    private final Map<Slot, Long> inFlight = new ConcurrentHashMap<>();
+    // klucze używane na tej instancji -> czas ostatniego użycia; tylko ich sumy są odczytywane
+    private final Map<String, Long> touched = new ConcurrentHashMap<>();
+    // sumy ze wszystkich instancji z ostatniego odczytu
+    private volatile Map<Slot, Long> global = Map.of();
+    private final AtomicLong maxWindowMillis = new AtomicLong(60_000);
+
+    private ScheduledExecutorService flusher;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate, DatabaseDialect dialect, RateLimitProperties properties) {
+        this(jdbcTemplate, dialect, properties, System::currentTimeMillis);
+    }
+
+    JdbcRateLimitStore(JdbcTemplate jdbcTemplate, DatabaseDialect dialect, RateLimitProperties properties,
+                       LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, properties.getJdbcFlushIntervalMillis());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher != null) flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    @Override
+    public long tryAcquire(String key, int requests, long windowMillis) {
+        if (requests <= 0 || windowMillis <= 0) return 0;
+        maxWindowMillis.accumulateAndGet(windowMillis, Math::max);
+        long now = clock.getAsLong();
+        touched.put(key, now);
+        long currentStart = now - Math.floorMod(now, windowMillis);
+        Slot current = new Slot(key, currentStart);
+        Slot previous = new Slot(key, currentStart - windowMillis);
+
+        double elapsed = (double) (now - currentStart) / windowMillis;
+        long currentHits = count(current);
+        long previousHits = count(previous);
+        double estimate = previousHits * (1 - elapsed) + currentHits;
+        if (estimate + 1 <= requests) {
+            pending.computeIfAbsent(current, s -> new LongAdder()).increment();
+            return 0;
+        }
+        // czas, po którym waga poprzedniego okna spadnie wystarczająco (albo do końca okna)
+        long untilNextWindow = currentStart + windowMillis - now;
+        if (currentHits + 1 > requests || previousHits == 0) return Math.max(1, untilNextWindow);
+        double neededElapsed = 1 - (requests - 1 - currentHits) / (double) previousHits;
+        return Math.max(1, Math.min(untilNextWindow, (long) Math.ceil((neededElapsed - elapsed) * windowMillis)));
+    }
+
+    @Override
+    public void sweep() {
+        long cutoff = clock.getAsLong() - 2 * maxWindowMillis.get();
+        global = filterRecent(global, cutoff);
+        touched.values().removeIf(lastUsed -> lastUsed < cutoff);
+        if (flusher != null && !flusher.isShutdown()) {
+            flusher.execute(() -> {
+                try {
+                    jdbcTemplate.update("DELETE FROM rate_limit_counters WHERE window_start < ?", cutoff);
+                } catch (Exception e) {
+                    log.warn("Rate limit counter cleanup failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    private long count(Slot slot) {
+        LongAdder local = pending.get(slot);
+        return global.getOrDefault(slot, 0L) + inFlight.getOrDefault(slot, 0L) + (local == null ? 0 : local.sum());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Rate limit counter flush failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Zapis przyrostów (jeden batch) i odczyt sum z okien, które mogą jeszcze wpływać na decyzje.
+     * Nieudany zapis oddaje przyrosty do kolejki; nieudany odczyt po udanym zapisie zostawia je w inFlight
+     * (są już w bazie - ponowny zapis policzyłby je podwójnie) do następnego udanego odczytu.
+     */
+    synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Slot slot : List.copyOf(pending.keySet())) {
+            LongAdder adder = pending.remove(slot);
+            if (adder == null) continue;
+            long delta = adder.sum();
+            if (delta == 0) continue;
+            inFlight.merge(slot, delta, Long::sum);
+            batch.add(new Object[]{slot.key(), slot.windowStart(), delta});
+        }
+        try {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(dialect.isPostgres()
+                        ? "INSERT INTO rate_limit_counters (limit_key, window_start, hits) VALUES (?, ?, ?) " +
+                          "ON CONFLICT (limit_key, window_start) DO UPDATE SET hits = rate_limit_counters.hits + EXCLUDED.hits"
+                        : "MERGE INTO rate_limit_counters t USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT))) " +
+                          "AS s(limit_key, window_start, hits) ON t.limit_key = s.limit_key AND t.window_start = s.window_start " +
+                          "WHEN MATCHED THEN UPDATE SET hits = t.hits + s.hits " +
+                          "WHEN NOT MATCHED THEN INSERT (limit_key, window_start, hits) VALUES (s.limit_key, s.window_start, s.hits)",
+                        batch);
+            }
+        } catch (RuntimeException e) {
+            // zapis się nie udał - przyrosty wracają do kolejki na następny flush
+            for (Object[] row : batch) {
+                Slot slot = new Slot((String) row[0], (Long) row[1]);
+                pending.computeIfAbsent(slot, s -> new LongAdder()).add((Long) row[2]);
+                inFlight.computeIfPresent(slot, (s, v) -> v - (Long) row[2] <= 0 ? null : v - (Long) row[2]);
+            }
+            throw e;
+        }
+        global = readRecent(clock.getAsLong() - 2 * maxWindowMillis.get());
+        inFlight.clear();
+    }
+
+    private Map<Slot, Long> readRecent(long since) {
+        Map<Slot, Long> fresh = new HashMap<>();
+        List<String> keys = List.copyOf(touched.keySet());
+        for (int from = 0; from < keys.size(); from += READ_CHUNK) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + READ_CHUNK));
+            Object[] args = new Object[chunk.size() + 1];
+            args[0] = since;
+            for (int i = 0; i < chunk.size(); i++) args[i + 1] = chunk.get(i);
+            jdbcTemplate.query("SELECT limit_key, window_start, hits FROM rate_limit_counters WHERE window_start >= ? " +
+                            "AND limit_key IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")",
+                    (RowCallbackHandler) rs -> {
+                        fresh.put(new Slot(rs.getString(1), rs.getLong(2)), rs.getLong(3));
+                    }, args);
+        }
+        return fresh;
+    }
+
+    private static Map<Slot, Long> filterRecent(Map<Slot, Long> source, long cutoff) {
+        Map<Slot, Long> out = new HashMap<>();
+        source.forEach((slot, hits) -> {
+            if (slot.windowStart() >= cutoff) out.put(slot, hits);
+        });
+        return out;
+    }
+
+    private record Slot(String key, long windowStart) {}
+}
@@ -1,5 +1,6 @@
 package drimer.drimain.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -13,6 +14,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -24,10 +26,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthFilter(JwtService jwtService, @Lazy UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService, @Lazy UserDetailsService userDetailsService,
+                         PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -50,30 +55,44 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        String username;
-        try {
-            username = jwtService.extractUsername(token);
-        } catch (Exception e) {
-            filterChain.doFilter(request, response);
-            return;
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.isValid(token, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        // Token parsowany raz (podpis + wygaśnięcie); principal z cache zamiast zapytania o użytkownika
+        Claims claims = jwtService.parseValid(token).orElse(null);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = claims.getSubject();
+            long tokenVersion = JwtService.tokenVersion(claims);
+            UserDetails userDetails;
+            try {
+                userDetails = principalCache.get(username, () -> userDetailsService.loadUserByUsername(username));
+                if (versionOf(userDetails) < tokenVersion) {
+                    // token nowszy niż wpis w cache - zmiana z innej instancji, unieważnienie jeszcze nie dotarło
+                    userDetails = principalCache.refresh(username, () -> userDetailsService.loadUserByUsername(username));
+                }
+            } catch (UsernameNotFoundException e) {
+                // token usuniętego użytkownika - żądanie pozostaje nieuwierzytelnione
+                filterChain.doFilter(request, response);
+                return;
+            }
+            if (versionOf(userDetails) > tokenVersion) {
+                // token wydany przed zmianą hasła/ról/modułów - żądanie pozostaje nieuwierzytelnione
+                filterChain.doFilter(request, response);
+                return;
             }
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         filterChain.doFilter(request, response);
     }
 
+    private static long versionOf(UserDetails userDetails) {
+        return userDetails instanceof AuthenticatedUser authenticated ? authenticated.getTokenVersion() : 0L;
+    }
+
     private String getJwtFromCookie(HttpServletRequest request) {
         if (request.getCookies() != null) {
             for (Cookie cookie : request.getCookies()) {
@@ -17,12 +17,16 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class JwtService {
 
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
 
+    // wersja poświadczeń użytkownika (users.token_version) z chwili wydania tokenu
+    public static final String TOKEN_VERSION_CLAIM = "tv";
+
     private final SecretKey secretKey;
     private final long ttlMinutes;
     private final long accessExpirationMs;
@@ -130,6 +134,30 @@ public class JwtService {
                 .parseSignedClaims(token);
     }
 
+    /**
+     * Jednokrotne parsowanie tokenu: podpis + wygaśnięcie; empty gdy token nieprawidłowy.
+     */
+    public Optional<Claims> parseValid(String token) {
+        try {
+            Claims c = parseSigned(token).getPayload();
+            if (c.getSubject() == null || c.getExpiration() == null || !c.getExpiration().after(new Date())) {
+                return Optional.empty();
+            }
+            return Optional.of(c);
+        } catch (Exception e) {
+            log.debug("JWT invalid: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Wersja poświadczeń z tokenu; tokeny wydane przed wprowadzeniem claimu mają wersję 0.
+     */
+    public static long tokenVersion(Claims claims) {
+        Object value = claims.get(TOKEN_VERSION_CLAIM);
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+
     public String extractUsername(String token) {
         return parseSigned(token).getPayload().getSubject();
     }
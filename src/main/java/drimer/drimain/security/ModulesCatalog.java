@@ -1,9 +1,12 @@
 package drimer.drimain.security;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -21,6 +24,39 @@ public final class ModulesCatalog {
             "Instrukcje"
     );
 
+    /** Maska wszystkich modułów (ADMIN). */
+    public static final int ALL_MASK = (1 << ALLOWED.size()) - 1;
+
+    // Bit modułu = pozycja w ALLOWED; klucze: nazwa kanoniczna i lower-case
+    private static final Map<String, Integer> BITS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < ALLOWED.size(); i++) {
+            BITS.put(ALLOWED.get(i), 1 << i);
+            BITS.put(ALLOWED.get(i).toLowerCase(Locale.ROOT), 1 << i);
+        }
+    }
+
+    /**
+     * Bit modułu (case-insensitive); 0 dla nieznanej nazwy.
+     */
+    public static int bit(String value) {
+        if (value == null) return 0;
+        Integer bit = BITS.get(value);
+        if (bit == null) bit = BITS.get(value.trim().toLowerCase(Locale.ROOT));
+        return bit == null ? 0 : bit;
+    }
+
+    /**
+     * Maska bitowa dla zbioru nazw modułów (np. user_modules); nieznane wartości są pomijane.
+     */
+    public static int mask(Collection<String> values) {
+        if (values == null) return 0;
+        int mask = 0;
+        for (String value : values) mask |= bit(value);
+        return mask;
+    }
+
     public static boolean isAllowed(String value) {
         if (value == null || value.isBlank()) return false;
         return ALLOWED.stream().anyMatch(v -> v.equalsIgnoreCase(value));
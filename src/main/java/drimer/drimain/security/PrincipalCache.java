@@ -0,0 +1,143 @@
+package drimer.drimain.security;
+
+import drimer.drimain.config.PrincipalCacheProperties;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Cache principali dla JwtAuthFilter (username -> UserDetails z rolami), żeby każde żądanie
+ * z tokenem nie wykonywało findByUsername z EAGER rolami i modułami.
+ *
+ * Klucz to username; wersja poświadczeń (users.token_version) jest w principalu (AuthenticatedUser)
+ * i JwtAuthFilter porównuje ją z claimem "tv" tokenu - token starszy niż wpis jest odrzucany, nowszy
+ * wymusza przeładowanie. Klucz (username, wersja) dawałby to samo, ale trzymałby osobne wpisy per wersja.
+ *
+ * Każdy wpis ma też lokalny stempel z chwili rozpoczęcia ładowania. {@link #invalidate(String)} zapisuje
+ * stempel unieważnienia - ładowanie rozpoczęte wcześniej (np. równolegle z commitem zmiany ról)
+ * nie trafi już do cache - i powiadamia słuchaczy (ClusterEventRelay rozsyła unieważnienie do pozostałych
+ * instancji przez outbox; tam trafia do {@link #invalidateLocal(String)}). Rozmiar ograniczony (najpierw
+ * wygasłe, potem najstarsze); TTL jest już tylko zabezpieczeniem na wypadek opóźnienia szyny klastra.
+ */
+@Component
+public class PrincipalCache {
+
+    private final PrincipalCacheProperties properties;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Invalidation> invalidations = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public PrincipalCache(PrincipalCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Zwraca principal z cache albo ładuje go (wyjątki loadera, np. UsernameNotFoundException, nie są cache'owane).
+     */
+    public UserDetails get(String username, Supplier<UserDetails> loader) {
+        if (!properties.isEnabled()) return loader.get();
+        long now = System.nanoTime();
+        Entry cached = entries.get(username);
+        if (cached != null && cached.expiresAt - now > 0) {
+            return cached.details;
+        }
+        long stamp = clock.incrementAndGet();
+        UserDetails loaded = loader.get();
+        Invalidation invalidated = invalidations.get(username);
+        if (invalidated == null || invalidated.stamp < stamp) {
+            if (entries.size() >= maxEntries()) evict(now);
+            entries.put(username, new Entry(loaded, stamp, now + TimeUnit.SECONDS.toNanos(properties.getTtlSeconds())));
+        }
+        return loaded;
+    }
+
+    /**
+     * Ładuje principal na nowo i zapisuje go w cache (logowanie / odświeżenie tokenu) - kolejne
+     * żądania z nowym tokenem korzystają z maski modułów wyliczonej tutaj.
+     */
+    public UserDetails refresh(String username, Supplier<UserDetails> loader) {
+        doInvalidate(username);
+        return get(username, loader);
+    }
+
+    /**
+     * Unieważnia wpis teraz i (w transakcji) ponownie po commicie - żądanie, które między zmianą
+     * a commitem załaduje stare dane, nie zostawi ich w cache.
+     */
+    public void invalidate(String username) {
+        if (username == null) return;
+        doInvalidate(username);
+        for (Consumer<String> listener : invalidationListeners) {
+            listener.accept(username);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Unieważnienie odebrane z innej instancji - tylko lokalnie, bez ponownego rozgłaszania.
+     */
+    public void invalidateLocal(String username) {
+        if (username != null) doInvalidate(username);
+    }
+
+    /**
+     * Wywoływane przy każdym {@link #invalidate(String)} (w transakcji wołającego, jeśli jest).
+     */
+    public void onInvalidate(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public void invalidateAll() {
+        Invalidation invalidation = new Invalidation(clock.incrementAndGet(), System.nanoTime());
+        entries.keySet().forEach(u -> invalidations.put(u, invalidation));
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void doInvalidate(String username) {
+        invalidations.put(username, new Invalidation(clock.incrementAndGet(), System.nanoTime()));
+        entries.remove(username);
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(e -> e.expiresAt - now <= 0);
+        // ładowanie nie trwa dłużej niż TTL - starsze stemple unieważnień nie są już potrzebne
+        long ttl = TimeUnit.SECONDS.toNanos(properties.getTtlSeconds());
+        invalidations.values().removeIf(i -> now - i.at > ttl);
+        while (entries.size() >= maxEntries() && !entries.isEmpty()) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().stamp))
+                    .ifPresent(e -> entries.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private int maxEntries() {
+        return Math.max(1, properties.getMaxEntries());
+    }
+
+    private record Entry(UserDetails details, long stamp, long expiresAt) {}
+
+    private record Invalidation(long stamp, long at) {}
+}
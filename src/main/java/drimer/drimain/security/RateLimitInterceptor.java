@@ -1,78 +1,87 @@
 package drimer.drimain.security;
 
+import drimer.drimain.config.RateLimitProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Rate limiting interceptor to prevent abuse.
- * Tracks requests per IP or user and rejects when limit exceeded.
+ * Every /api/** request takes a token from the client's (IP) default bucket; endpoints annotated
+ * with {@link RateLimit} additionally take a token from their own per-endpoint bucket.
+ * Counters live in the configured {@link RateLimitStore} (per instance or shared via JDBC).
  */
 @Slf4j
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
-    // Simple in-memory cache for rate limiting
-    // In production, use Redis or similar distributed cache
-    private static final Map<String, RateLimitInfo> REQUEST_CACHE = new ConcurrentHashMap<>();
-    private static final long CLEANUP_INTERVAL = TimeUnit.MINUTES.toMillis(10);
-    private static long lastCleanup = System.currentTimeMillis();
+    private final RateLimitProperties properties;
+    private final RateLimitStore store;
+
+    public RateLimitInterceptor(RateLimitProperties properties, RateLimitStore store) {
+        this.properties = properties;
+        this.store = store;
+    }
 
     /**
      * Rate limit entry point
      */
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        // Cleanup old entries periodically
-        if (System.currentTimeMillis() - lastCleanup > CLEANUP_INTERVAL) {
-            cleanupOldEntries();
-            lastCleanup = System.currentTimeMillis();
+        if (!properties.isEnabled()) return true;
+
+        String clientIp = getClientIp(request);
+
+        // Default limit per IP address
+        long wait = store.tryAcquire(clientIp, properties.getDefaultRequests(),
+                TimeUnit.SECONDS.toMillis(properties.getDefaultWindowSeconds()));
+
+        // Per-endpoint limit from @RateLimit
+        if (wait == 0 && handler instanceof HandlerMethod handlerMethod) {
+            RateLimit limit = handlerMethod.getMethodAnnotation(RateLimit.class);
+            if (limit != null) {
+                String key = identifier(limit, clientIp) + "|" + handlerMethod.getBeanType().getSimpleName()
+                        + "#" + handlerMethod.getMethod().getName();
+                wait = store.tryAcquire(key, limit.requests(), TimeUnit.SECONDS.toMillis(limit.timeWindow()));
+            }
         }
 
-        // Get client identifier (IP address)
-        String clientId = getClientIp(request);
-        
-        // Check rate limit (default: 100 requests per minute per IP)
-        if (!isAllowed(clientId, 100, 60)) {
-            log.warn("Rate limit exceeded for IP: {}", clientId);
+        if (wait > 0) {
+            log.warn("Rate limit exceeded for {} {} (client {})", request.getMethod(), request.getRequestURI(), clientIp);
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.setHeader("Retry-After", "60");
+            response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(wait) + 1)));
             response.setContentType("application/json");
             response.getWriter().write("{\"error\": \"Too many requests. Please try again later.\"}");
             return false;
         }
-
         return true;
     }
 
     /**
-     * Check if request is allowed based on rate limit
+     * Expired counters are dropped by a scheduled sweeper instead of on the request path.
      */
-    private synchronized boolean isAllowed(String clientId, int maxRequests, int timeWindowSeconds) {
-        long now = System.currentTimeMillis();
-        long timeWindowMs = TimeUnit.SECONDS.toMillis(timeWindowSeconds);
-
-        RateLimitInfo info = REQUEST_CACHE.getOrDefault(clientId, new RateLimitInfo());
-        
-        // Remove old timestamps outside the window
-        info.timestamps.removeIf(timestamp -> now - timestamp > timeWindowMs);
+    @Scheduled(fixedDelayString = "#{rateLimitProperties.sweepIntervalSeconds * 1000}")
+    public void sweep() {
+        store.sweep();
+    }
 
-        // Check if limit exceeded
-        if (info.timestamps.size() >= maxRequests) {
-            return false;
+    private String identifier(RateLimit limit, String clientIp) {
+        if ("user".equalsIgnoreCase(limit.identifier())) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.isAuthenticated()) {
+                return "user:" + auth.getName();
+            }
         }
-
-        // Add current timestamp
-        info.timestamps.add(now);
-        REQUEST_CACHE.put(clientId, info);
-        return true;
+        return "ip:" + clientIp;
     }
 
     /**
@@ -91,28 +100,4 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         
         return request.getRemoteAddr();
     }
-
-    /**
-     * Cleanup old entries from cache
-     */
-    private synchronized void cleanupOldEntries() {
-        long now = System.currentTimeMillis();
-        long maxAge = TimeUnit.MINUTES.toMillis(15);
-        
-        REQUEST_CACHE.entrySet().removeIf(entry -> {
-            RateLimitInfo info = entry.getValue();
-            return info.timestamps.stream()
-                    .noneMatch(timestamp -> now - timestamp < maxAge);
-        });
-        
-        log.debug("Rate limit cache cleanup completed. Entries: {}", REQUEST_CACHE.size());
-    }
-
-    /**
-     * Inner class to store rate limit information
-     */
-    private static class RateLimitInfo {
-        java.util.List<Long> timestamps = new java.util.concurrent.CopyOnWriteArrayList<>();
-    }
 }
-
@@ -0,0 +1,23 @@
+package drimer.drimain.security;
+
+/**
+ * SPI magazynu liczników rate limitu (app.rate-limit.store):
+ * - memory: {@link TokenBucketRateLimiter} - limit per instancja
+ * - jdbc: {@link JdbcRateLimitStore} - limit wspólny dla wszystkich instancji (wspólna baza)
+ *
+ * Implementacje nie mogą wykonywać synchronicznych operacji I/O na ścieżce żądania.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Pobiera jeden token dla klucza.
+     *
+     * @return 0 gdy żądanie przepuszczone, w przeciwnym razie sugerowany czas oczekiwania (ms)
+     */
+    long tryAcquire(String key, int requests, long windowMillis);
+
+    /**
+     * Usuwa nieaktywne liczniki; wywoływane okresowo przez RateLimitInterceptor.
+     */
+    void sweep();
+}
@@ -0,0 +1,65 @@
+package drimer.drimain.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket bez blokad (GCRA): stan klucza to jeden long - "teoretyczny czas przybycia" (TAT)
+ * kolejnego żądania, aktualizowany przez CAS. Pojemność = requests, uzupełnianie = requests / window.
+ * Brak monitora i alokacji na żądanie (poza pierwszym dla klucza).
+ * Domyślny {@link RateLimitStore} - limity liczone osobno na każdej instancji.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "memory", matchIfMissing = true)
+public class TokenBucketRateLimiter implements RateLimitStore {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, int requests, long windowMillis) {
+        long wait = tryAcquire(key, requests, TimeUnit.MILLISECONDS.toNanos(windowMillis), System.nanoTime());
+        return wait == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+    }
+
+    @Override
+    public void sweep() {
+        sweep(System.nanoTime());
+    }
+
+    /**
+     * @return 0 gdy żądanie przepuszczone, w przeciwnym razie czas (ns) do zwolnienia tokenu
+     */
+    public long tryAcquire(String key, int requests, long windowNanos, long nowNanos) {
+        if (requests <= 0 || windowNanos <= 0) return 0;
+        long interval = Math.max(1, windowNanos / requests);
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long current = tat.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + interval;
+            long overflow = next - nowNanos - windowNanos;
+            if (overflow > 0) return overflow;
+            if (tat.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * Usuwa pełne kubełki (TAT w przeszłości) - nowy kubełek dla klucza zachowuje się identycznie.
+     * Żądanie równoległe z usunięciem może nie zostać policzone (co najwyżej jeden token na klucz).
+     */
+    public int sweep(long nowNanos) {
+        int before = buckets.size();
+        buckets.entrySet().removeIf(e -> e.getValue().get() - nowNanos <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -1,6 +1,7 @@
 package drimer.drimain.service;
 
 import drimer.drimain.api.dto.AttachmentDTO;
+import drimer.drimain.api.download.DownloadSource;
 import drimer.drimain.api.mapper.AttachmentMapper;
 import drimer.drimain.config.AttachmentStorageConfig;
 import drimer.drimain.events.EventType;
@@ -9,22 +10,19 @@ import drimer.drimain.model.Attachment;
 import drimer.drimain.model.Zgloszenie;
 import drimer.drimain.repository.AttachmentRepository;
 import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.service.storage.ContentStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -45,6 +43,8 @@ public class AttachmentService {
     private final AttachmentMapper attachmentMapper;
     private final AttachmentStorageConfig storageConfig;
     private final ApplicationEventPublisher eventPublisher;
+    private final ThumbnailService thumbnailService;
+    private final ContentStore contentStore;
 
     // Allowed MIME types - whitelist approach
     private static final String[] ALLOWED_MIME_TYPES = {
@@ -92,6 +92,10 @@ public class AttachmentService {
                 .map(file -> uploadSingleFile(zgloszenie, file, createdBy))
                 .collect(Collectors.toList());
 
+        // Thumbnails/previews are generated in the background (bounded worker pool)
+        savedAttachments.forEach(attachment -> thumbnailService.enqueueAttachment(attachment.getStoredFilename(),
+                contentStore.path(attachment.getBlobSha256()), attachment.getContentType()));
+
         // Publish attachment events
         savedAttachments.forEach(attachment -> {
             log.debug("Publishing ATTACHMENT_ADDED event for attachment id={}", attachment.getId());
@@ -125,43 +129,38 @@ public class AttachmentService {
     }
 
     /**
-     * Download an attachment file.
+     * Prepare an attachment file for download (one query; no filesystem syscalls here -
+     * a missing file surfaces as 404 when DownloadWriter opens the channel).
      * @param attachmentId The attachment ID
-     * @return FileSystemResource for download
+     * @param variant Image variant (thumb/preview) or null for the original file
+     * @return DownloadSource with strong ETag from the stored SHA-256 checksum
      */
-    public Resource downloadAttachment(Long attachmentId) {
+    @Transactional(readOnly = true)
+    public DownloadSource prepareDownload(Long attachmentId, ThumbnailService.Variant variant) {
         log.debug("Downloading attachment id={}", attachmentId);
-        
+
         Attachment attachment = attachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> {
                     log.warn("Attachment not found for download: {}", attachmentId);
                     return new IllegalArgumentException("Attachment not found: " + attachmentId);
                 });
 
-        Path filePath = Paths.get(storageConfig.getBasePath(), attachment.getStoredFilename());
-        
-        // Security: Ensure file is within storage directory (path traversal protection)
-        try {
-            filePath = filePath.toRealPath();
-            Path storagePath = Paths.get(storageConfig.getBasePath()).toRealPath();
-            
-            if (!filePath.startsWith(storagePath)) {
-                log.error("Path traversal attempt detected: requested path={}, storage path={}", 
-                        filePath, storagePath);
-                throw new IllegalArgumentException("Invalid file path");
+        Path filePath = contentStore.locate(attachment.getBlobSha256(), attachment.getStoredFilename());
+        if (variant != null && thumbnailService.isSupported(attachment.getContentType())) {
+            Path variantPath = thumbnailService.attachmentVariantPath(attachment.getStoredFilename(), variant);
+            if (Files.exists(variantPath)) {
+                String etag = attachment.getChecksum() != null ? attachment.getChecksum() + "-" + variant.key() : null;
+                return DownloadSource.ofFile(variantPath, "image/jpeg", etag);
             }
-        } catch (IOException e) {
-            log.error("Error validating file path for attachment id={}", attachmentId, e);
-            throw new RuntimeException("File path validation failed", e);
+            // Not generated yet (or cache lost) - serve the original and regenerate in the background;
+            // the URL will serve the variant later, so the fallback must not be cached as immutable
+            thumbnailService.enqueueAttachment(attachment.getStoredFilename(), filePath, attachment.getContentType());
+            return DownloadSource.ofFile(filePath, attachment.getContentType(), variant.fallbackEtag(attachment.getChecksum()))
+                    .asAttachment(attachment.getOriginalFilename())
+                    .mustRevalidate();
         }
-        
-        if (!Files.exists(filePath)) {
-            log.warn("File not found on disk for attachment id={}: {}", attachmentId, filePath);
-            throw new IllegalArgumentException("File not found on disk: " + attachment.getStoredFilename());
-        }
-
-        log.info("Attachment id={} prepared for download", attachmentId);
-        return new FileSystemResource(filePath);
+        return DownloadSource.ofFile(filePath, attachment.getContentType(), attachment.getChecksum())
+                .asAttachment(attachment.getOriginalFilename());
     }
 
     /**
@@ -179,13 +178,16 @@ public class AttachmentService {
 
         Long zgloszenieId = attachment.getZgloszenie().getId();
 
-        // Delete file from disk
-        Path filePath = Paths.get(storageConfig.getBasePath(), attachment.getStoredFilename());
-        try {
-            Files.deleteIfExists(filePath);
-            log.info("File deleted from disk: {}", filePath);
-        } catch (IOException e) {
-            log.warn("Failed to delete file from disk: {}", filePath, e);
+        // Delete file from disk - shared content-store blobs are removed by GC once unreferenced
+        thumbnailService.deleteAttachmentVariants(attachment.getStoredFilename());
+        if (attachment.getBlobSha256() == null) {
+            Path filePath = contentStore.locate(null, attachment.getStoredFilename());
+            try {
+                Files.deleteIfExists(filePath);
+                log.info("File deleted from disk: {}", filePath);
+            } catch (IOException e) {
+                log.warn("Failed to delete file from disk: {}", filePath, e);
+            }
         }
 
         // Delete from database
@@ -228,27 +230,14 @@ public class AttachmentService {
 
         String originalFilename = file.getOriginalFilename();
         String fileExtension = getFileExtension(originalFilename);
+        // Unique per record (thumbnail cache key); the content itself lives in the content store
         String storedFilename = generateStoredFilename(fileExtension);
 
-        Path filePath = Paths.get(storageConfig.getBasePath(), storedFilename);
-
-        try {
-            // Validate file content with magic bytes
-            byte[] fileBytes = file.getBytes();
-            validateFileContent(fileBytes, file.getContentType());
-
-            // Copy file to storage
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            log.debug("File stored at: {}", filePath);
-
-            // Calculate checksum
-            String checksum = null;
-            try {
-                checksum = calculateChecksum(fileBytes);
-                log.debug("File checksum calculated: {}", checksum);
-            } catch (Exception e) {
-                log.warn("Failed to calculate checksum for file: {}", originalFilename, e);
-            }
+        try (InputStream in = file.getInputStream()) {
+            // Single pass: hash + magic bytes check on the first buffer; identical content is stored once
+            ContentStore.Stored stored = contentStore.put(in, storageConfig.getMaxFileSizeBytes(),
+                    header -> validateFileContent(header, file.getContentType()));
+            log.debug("File content stored: sha256={} (deduplicated: {})", stored.sha256(), stored.deduplicated());
 
             // Create attachment entity
             Attachment attachment = new Attachment();
@@ -256,8 +245,9 @@ public class AttachmentService {
             attachment.setOriginalFilename(originalFilename);
             attachment.setStoredFilename(storedFilename);
             attachment.setContentType(file.getContentType());
-            attachment.setFileSize(file.getSize());
-            attachment.setChecksum(checksum);
+            attachment.setFileSize(stored.size());
+            attachment.setChecksum(stored.sha256());
+            attachment.setBlobSha256(stored.sha256());
             attachment.setCreatedBy(createdBy);
 
             Attachment saved = attachmentRepository.save(attachment);
@@ -301,7 +291,7 @@ public class AttachmentService {
     }
 
     /**
-     * Validate file content using magic bytes.
+     * Validate file content using magic bytes (first buffer of the upload stream).
      */
     private void validateFileContent(byte[] fileBytes, String contentType) {
         if (fileBytes == null || fileBytes.length == 0) {
@@ -350,17 +340,4 @@ public class AttachmentService {
     private String generateStoredFilename(String extension) {
         return UUID.randomUUID().toString() + extension;
     }
-
-    /**
-     * Calculate SHA-256 checksum of file content.
-     */
-    private String calculateChecksum(byte[] data) throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] hash = md.digest(data);
-        StringBuilder sb = new StringBuilder();
-        for (byte b : hash) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
-    }
-}
\ No newline at end of file
+}
@@ -2,7 +2,10 @@ package drimer.drimain.service;
 import drimer.drimain.model.Role;
 import drimer.drimain.model.User;
 import drimer.drimain.repository.UserRepository;
+import drimer.drimain.security.AuthenticatedUser;
+import drimer.drimain.security.ModulesCatalog;
 import org.springframework.context.annotation.Primary;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -22,10 +25,13 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword())
-                .authorities(user.getRoles().stream().map(Role::getName).toArray(String[]::new))
-                .build();
+        // ADMIN ma dostęp do wszystkich modułów
+        boolean admin = user.getRoles().stream().anyMatch(r -> "ROLE_ADMIN".equalsIgnoreCase(r.getName()));
+        return new AuthenticatedUser(
+                user.getUsername(),
+                user.getPassword(),
+                AuthorityUtils.createAuthorityList(user.getRoles().stream().map(Role::getName).toArray(String[]::new)),
+                admin ? ModulesCatalog.ALL_MASK : ModulesCatalog.mask(user.getModules()),
+                user.getTokenVersion());
     }
 }
@@ -1,25 +1,23 @@
 package drimer.drimain.service;
 
 import drimer.drimain.api.dto.*;
+import drimer.drimain.api.download.DownloadSource;
 import drimer.drimain.model.*;
 import drimer.drimain.repository.*;
 import drimer.drimain.config.AttachmentStorageConfig;
+import drimer.drimain.service.storage.ContentStore;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -28,12 +26,29 @@ import java.util.stream.Collectors;
 @Transactional
 public class InstructionService {
 
+    // Sygnatury (magic bytes) deklarowanych typów; typy tekstowe nie mają sygnatury i nie są sprawdzane
+    private static final byte[] ZIP = {0x50, 0x4B, 0x03, 0x04};
+    private static final byte[] OLE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0};
+    private static final Map<String, byte[]> SIGNATURES = Map.ofEntries(
+            Map.entry("application/pdf", new byte[]{0x25, 0x50, 0x44, 0x46}), // %PDF
+            Map.entry("image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+            Map.entry("image/png", new byte[]{(byte) 0x89, 0x50, 0x4E, 0x47}),
+            Map.entry("image/gif", new byte[]{0x47, 0x49, 0x46}),
+            Map.entry("image/webp", new byte[]{0x52, 0x49, 0x46, 0x46}),
+            Map.entry("application/msword", OLE),
+            Map.entry("application/vnd.ms-excel", OLE),
+            Map.entry("application/vnd.openxmlformats-officedocument.wordprocessingml.document", ZIP),
+            Map.entry("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ZIP),
+            Map.entry("application/zip", ZIP),
+            Map.entry("application/x-zip-compressed", ZIP));
+
     private final InstructionRepository instructionRepository;
     private final InstructionPartRepository instructionPartRepository;
     private final InstructionAttachmentRepository instructionAttachmentRepository;
     private final MaszynaRepository maszynaRepository;
     private final PartRepository partRepository;
     private final AttachmentStorageConfig storageConfig;
+    private final ContentStore contentStore;
 
     public InstructionDTO create(InstructionCreateRequest req, String createdBy) {
         Maszyna m = maszynaRepository.findById(req.getMaszynaId())
@@ -85,25 +100,25 @@ public class InstructionService {
         Instruction ins = instructionRepository.findById(instructionId)
                 .orElseThrow(() -> new IllegalArgumentException("Instruction not found: " + instructionId));
 
-        Path storageDir = Paths.get(storageConfig.getBasePath());
-        try { Files.createDirectories(storageDir); } catch (IOException e) { throw new RuntimeException(e); }
-
         List<InstructionAttachment> saved = new ArrayList<>();
         for (MultipartFile file : files) {
             validateFile(file);
             String original = file.getOriginalFilename();
             String ext = getFileExtension(original);
             String stored = UUID.randomUUID() + ext;
-            Path fp = storageDir.resolve(stored);
-            try {
-                Files.copy(file.getInputStream(), fp, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream in = file.getInputStream()) {
+                // jeden odczyt strumienia (SHA-256 w locie + sygnatura z pierwszego bufora); ta sama instrukcja
+                // PDF trzymana na dysku raz
+                ContentStore.Stored result = contentStore.put(in, storageConfig.getMaxManualSizeBytes(),
+                        header -> validateSignature(header, file.getContentType()));
                 InstructionAttachment ia = new InstructionAttachment();
                 ia.setInstruction(ins);
                 ia.setOriginalFilename(original);
                 ia.setStoredFilename(stored);
                 ia.setContentType(file.getContentType());
-                ia.setFileSize(file.getSize());
-                ia.setChecksum(calcChecksumSafe(file));
+                ia.setFileSize(result.size());
+                ia.setChecksum(result.sha256());
+                ia.setBlobSha256(result.sha256());
                 ia.setCreatedBy(createdBy);
                 saved.add(instructionAttachmentRepository.save(ia));
             } catch (IOException ex) {
@@ -120,12 +135,13 @@ public class InstructionService {
     }
 
     @Transactional(readOnly = true)
-    public Resource download(Long attachmentId) {
+    public DownloadSource prepareDownload(Long attachmentId) {
         InstructionAttachment a = instructionAttachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Attachment not found: " + attachmentId));
-        Path fp = Paths.get(storageConfig.getBasePath(), a.getStoredFilename());
-        if (!Files.exists(fp)) throw new IllegalArgumentException("File missing: " + a.getStoredFilename());
-        return new FileSystemResource(fp);
+        Path fp = contentStore.locate(a.getBlobSha256(), a.getStoredFilename());
+        String contentType = a.getContentType() != null ? a.getContentType() : "application/octet-stream";
+        return DownloadSource.ofFile(fp, contentType, a.getChecksum())
+                .asAttachment(a.getOriginalFilename() != null ? a.getOriginalFilename() : a.getStoredFilename());
     }
 
     @Transactional(readOnly = true)
@@ -141,11 +157,11 @@ public class InstructionService {
         // delete attachments files and rows
         List<InstructionAttachment> attachments = instructionAttachmentRepository
                 .findByInstruction_IdOrderByCreatedAtDesc(id);
-        Path storageDir = Paths.get(storageConfig.getBasePath());
+        // pliki w magazynie treści (blobSha256) usuwa GC, gdy nie mają już referencji
         for (InstructionAttachment a : attachments) {
             try {
-                if (a.getStoredFilename() != null) {
-                    Path fp = storageDir.resolve(a.getStoredFilename());
+                if (a.getStoredFilename() != null && a.getBlobSha256() == null) {
+                    Path fp = contentStore.locate(null, a.getStoredFilename());
                     try { Files.deleteIfExists(fp); } catch (Exception ignored) {}
                 }
             } catch (Exception ignored) {}
@@ -157,31 +173,35 @@ public class InstructionService {
 
     private void validateFile(MultipartFile file) {
         if (file.isEmpty()) throw new IllegalArgumentException("File is empty");
-        if (file.getSize() > storageConfig.getMaxFileSizeBytes())
+        if (file.getSize() > storageConfig.getMaxManualSizeBytes())
             throw new IllegalArgumentException("File too large: " + file.getSize());
         String ct = file.getContentType();
         if (ct == null || !storageConfig.getAllowedContentTypes().contains(ct))
             throw new IllegalArgumentException("File type not allowed: " + ct);
     }
 
+    /**
+     * Treść musi zaczynać się sygnaturą deklarowanego typu - inaczej upload jest odrzucany przed zapisem.
+     */
+    private static void validateSignature(byte[] header, String contentType) {
+        byte[] signature = SIGNATURES.get(contentType);
+        if (signature == null) return;
+        if (header.length < signature.length) {
+            throw new IllegalArgumentException("File content does not match type: " + contentType);
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (header[i] != signature[i]) {
+                throw new IllegalArgumentException("File content does not match type: " + contentType);
+            }
+        }
+    }
+
     private String getFileExtension(String filename) {
         if (filename == null || filename.isEmpty()) return "";
         int idx = filename.lastIndexOf('.');
         return idx > 0 ? filename.substring(idx) : "";
     }
 
-    private String calcChecksumSafe(MultipartFile file) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(file.getBytes());
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) sb.append(String.format("%02x", b));
-            return sb.toString();
-        } catch (NoSuchAlgorithmException | IOException e) {
-            return null;
-        }
-    }
-
     private InstructionDTO toDtoBasic(Instruction e) {
         InstructionDTO dto = new InstructionDTO();
         dto.id = e.getId();
@@ -0,0 +1,116 @@
+package drimer.drimain.service;
+
+import drimer.drimain.events.UserAccountChangedEvent;
+import drimer.drimain.model.Osoba;
+import drimer.drimain.repository.OsobaRepository;
+import drimer.drimain.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Synchronizacja User -> Osoba: każdy użytkownik ma wpis Osoba z login = username
+ * (imię i nazwisko = username, bez działu - do uzupełnienia w panelu admina).
+ *
+ * - po commicie utworzenia konta / zmiany loginu (UserAccountChangedEvent) - zmiana loginu przenosi
+ *   istniejącą Osobę zamiast tworzyć drugą
+ * - przy starcie: paczkami wszystkie konta bez Osoby (konta z inicjalizatorów, importów, starszych wersji)
+ * Dawniej robił to GET /api/meta/osoby-simple przy każdym wywołaniu (pełny skan users + osoby i zapisy w GET).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OsobaUserReconciler {
+
+    static final int BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final OsobaRepository osobaRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        try {
+            tx.executeWithoutResult(status -> sync(event.getUsername(), event.getPreviousUsername()));
+        } catch (RuntimeException e) {
+            // brakującą Osobę uzupełni rekoncyliacja przy następnym starcie
+            log.warn("Osoba sync failed for user {}: {}", event.getUsername(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            int created = reconcileAll();
+            if (created > 0) log.info("Created {} Osoba entries for users without one", created);
+        } catch (RuntimeException e) {
+            log.warn("User -> Osoba reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tworzy brakujące Osoby paczkami po BATCH_SIZE (każda paczka w osobnej transakcji).
+     *
+     * @return liczba utworzonych wpisów
+     */
+    public int reconcileAll() {
+        int created = 0;
+        while (true) {
+            Integer batch = tx.execute(status -> {
+                List<String> usernames = userRepository.findUsernamesWithoutOsoba(PageRequest.of(0, BATCH_SIZE));
+                osobaRepository.saveAll(usernames.stream().map(OsobaUserReconciler::newOsoba).toList());
+                return usernames.size();
+            });
+            if (batch == null || batch == 0) break;
+            created += batch;
+            if (batch < BATCH_SIZE) break;
+        }
+        if (created > 0) referenceDataCache.invalidate(ReferenceDataCache.Kind.OSOBY);
+        return created;
+    }
+
+    void sync(String username, String previousUsername) {
+        if (username == null || username.isBlank() || osobaRepository.existsByLogin(username)) return;
+        Osoba osoba = null;
+        if (previousUsername != null && !previousUsername.equals(username)) {
+            osoba = osobaRepository.findFirstByLoginOrderByIdAsc(previousUsername).orElse(null);
+        }
+        if (osoba != null) {
+            osoba.setLogin(username);
+            // imię i nazwisko domyślnie = login; nie nadpisujemy wartości uzupełnionej ręcznie
+            if (previousUsername.equals(osoba.getImieNazwisko())) osoba.setImieNazwisko(username);
+        } else {
+            osoba = newOsoba(username);
+        }
+        osobaRepository.save(osoba);
+        referenceDataCache.invalidate(ReferenceDataCache.Kind.OSOBY);
+    }
+
+    private static Osoba newOsoba(String username) {
+        Osoba osoba = new Osoba();
+        osoba.setLogin(username);
+        osoba.setImieNazwisko(username);
+        // UWAGA: nowa osoba nie dostaje działu automatycznie.
+        return osoba;
+    }
+}
@@ -0,0 +1,65 @@
+package drimer.drimain.service;
+
+import drimer.drimain.repository.RaportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Jednorazowa migracja w tle: zdjęcia Base64 ("inline:") z raport_zdjecia -> raport_zdjecia_blob.
+ * Po zakończeniu w raport_zdjecia zostają tylko referencje "blob:"; kolejne starty nie znajdą nic do zrobienia.
+ * Wyłączenie: app.raport-photos.migrate-inline-on-startup=false
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RaportPhotoMigrator {
+
+    private static final int BATCH_SIZE = 50;
+
+    private final RaportRepository raportRepository;
+    private final RaportPhotoService raportPhotoService;
+
+    @Value("${app.raport-photos.migrate-inline-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!migrateOnStartup) return;
+        Thread worker = new Thread(this::migrateAll, "raport-photo-migrator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public int migrateAll() {
+        int raporty = 0;
+        int photos = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = raportRepository.findIdsWithInlinePhotosAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+            for (Long id : ids) {
+                afterId = id;
+                try {
+                    int migrated = raportPhotoService.migrateInlinePhotos(id);
+                    if (migrated > 0) {
+                        raporty++;
+                        photos += migrated;
+                    }
+                } catch (Exception e) {
+                    log.warn("Inline photo migration failed for raport {}: {}", id, e.getMessage());
+                }
+            }
+        } while (ids.size() == BATCH_SIZE);
+        if (photos > 0) {
+            log.info("Inline photo migration finished: {} photos from {} raporty moved to raport_zdjecia_blob", photos, raporty);
+        }
+        return photos;
+    }
+}
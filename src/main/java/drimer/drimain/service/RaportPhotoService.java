@@ -0,0 +1,224 @@
+package drimer.drimain.service;
+
+import drimer.drimain.config.AttachmentStorageConfig;
+import drimer.drimain.model.Raport;
+import drimer.drimain.model.RaportZdjecieBlob;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.RaportZdjecieBlobRepository;
+import drimer.drimain.repository.projection.RaportZdjecieBlobMeta;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Zdjęcia raportów przechowywane w raport_zdjecia_blob (bytea).
+ * W kolekcji Raport.zdjecia zostaje wyłącznie referencja "blob:&lt;storedFilename&gt;",
+ * więc listy raportów nie ciągną zawartości zdjęć. Zawartość ładowana jest tylko przy pobraniu.
+ *
+ * Starsze formaty w raport_zdjecia:
+ * - "inline:&lt;filename&gt;:&lt;contentType&gt;;base64,&lt;data&gt;" - przenoszone przez RaportPhotoMigrator
+ * - sama nazwa/ścieżka pliku na dysku
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RaportPhotoService {
+
+    public static final String BLOB_PREFIX = "blob:";
+    public static final String INLINE_PREFIX = "inline:";
+
+    private static final String DEFAULT_CONTENT_TYPE = "image/jpeg";
+
+    private final RaportZdjecieBlobRepository blobRepository;
+    private final RaportRepository raportRepository;
+    private final ThumbnailService thumbnailService;
+    private final AttachmentStorageConfig storageConfig;
+
+    /**
+     * Zapisuje przesłane zdjęcie i zwraca referencję do umieszczenia w Raport.zdjecia.
+     * Limit app.attachments.max-file-size-bytes sprawdzany przed odczytem (globalny limit multipart
+     * jest wyższy ze względu na instrukcje PDF); odczyt ograniczony limitem także przy błędnym rozmiarze.
+     */
+    @Transactional
+    public String store(Raport raport, MultipartFile file) throws IOException {
+        String originalFilename = file.getOriginalFilename();
+        if (originalFilename == null || originalFilename.isEmpty()) {
+            throw new IllegalArgumentException("Invalid filename");
+        }
+        long maxSize = storageConfig.getMaxFileSizeBytes();
+        if (file.getSize() > maxSize) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed: " + maxSize + " bytes");
+        }
+        byte[] data;
+        try (InputStream in = file.getInputStream()) {
+            data = in.readNBytes((int) Math.min(maxSize + 1, Integer.MAX_VALUE - 8));
+        }
+        if (data.length > maxSize) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed: " + maxSize + " bytes");
+        }
+        String storedFilename = UUID.randomUUID() + extension(originalFilename);
+        return store(raport, storedFilename, file.getContentType(), data);
+    }
+
+    /**
+     * Zapis zawartości; identyczne zdjęcie (SHA-256) w tym samym raporcie nie jest zapisywane drugi raz.
+     */
+    @Transactional
+    public String store(Raport raport, String storedFilename, String contentType, byte[] data) {
+        String sha256 = sha256(data);
+        if (raport.getId() != null) {
+            List<RaportZdjecieBlobMeta> existing = blobRepository.findMetaBySha256(raport.getId(), sha256);
+            if (!existing.isEmpty()) {
+                return BLOB_PREFIX + existing.get(0).getStoredFilename();
+            }
+        }
+        RaportZdjecieBlob blob = new RaportZdjecieBlob();
+        blob.setRaport(raport);
+        blob.setStoredFilename(storedFilename);
+        blob.setContentType(contentType == null || contentType.isBlank() ? DEFAULT_CONTENT_TYPE : contentType);
+        blob.setFileSize((long) data.length);
+        blob.setSha256(sha256);
+        blob.setData(data);
+        RaportZdjecieBlob saved = blobRepository.save(blob);
+        enqueueThumbnailsAfterCommit(raport.getId(), saved);
+        return BLOB_PREFIX + storedFilename;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RaportZdjecieBlobMeta> findMeta(Long raportId, String storedFilename) {
+        return blobRepository.findMeta(raportId, storedFilename);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<byte[]> loadData(RaportZdjecieBlobMeta meta) {
+        return blobRepository.findDataById(meta.getId());
+    }
+
+    @Transactional
+    public void delete(Long raportId, String storedFilename) {
+        blobRepository.deleteByRaportIdAndStoredFilename(raportId, storedFilename);
+        thumbnailService.deleteRaportPhotoVariants(raportId, storedFilename);
+    }
+
+    @Transactional
+    public int deleteAll(Long raportId) {
+        thumbnailService.deleteAllRaportPhotoVariants(raportId);
+        return blobRepository.deleteAllByRaportId(raportId);
+    }
+
+    /**
+     * Przenosi wszystkie wpisy "inline:" jednego raportu (jedna transakcja na raport).
+     * Zwraca liczbę przeniesionych zdjęć; uszkodzone wpisy zostają bez zmian.
+     */
+    @Transactional
+    public int migrateInlinePhotos(Long raportId) {
+        Raport raport = raportRepository.findById(raportId).orElse(null);
+        if (raport == null || raport.getZdjecia() == null) return 0;
+        int migrated = 0;
+        LinkedHashSet<String> updated = new LinkedHashSet<>();
+        for (String entry : raport.getZdjecia()) {
+            Optional<String> ref = migrateInline(raport, entry);
+            if (ref.isPresent()) {
+                updated.add(ref.get());
+                migrated++;
+            } else {
+                updated.add(entry);
+            }
+        }
+        if (migrated > 0) {
+            raport.getZdjecia().clear();
+            raport.getZdjecia().addAll(updated);
+            raportRepository.save(raport);
+        }
+        return migrated;
+    }
+
+    /**
+     * Przenosi wpis "inline:" do raport_zdjecia_blob; zwraca referencję "blob:" albo empty,
+     * gdy wpis nie jest w formacie inline lub zawiera uszkodzony Base64.
+     */
+    @Transactional
+    public Optional<String> migrateInline(Raport raport, String entry) {
+        if (entry == null || !entry.startsWith(INLINE_PREFIX)) return Optional.empty();
+        String rest = entry.substring(INLINE_PREFIX.length());
+        int sep = rest.indexOf(':');
+        if (sep <= 0) return Optional.empty();
+        String filename = rest.substring(0, sep);
+        String payload = rest.substring(sep + 1);
+        int marker = payload.indexOf(";base64,");
+        String contentType = marker > 0 ? payload.substring(0, marker) : DEFAULT_CONTENT_TYPE;
+        String encoded = marker > 0 ? payload.substring(marker + 8) : payload;
+        try {
+            byte[] data = Base64.getDecoder().decode(encoded);
+            return Optional.of(store(raport, filename, contentType, data));
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping invalid inline photo {} of raport {}", filename, raport.getId());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Nazwa pliku widoczna dla klienta (bez prefiksów "blob:" / "inline:" i zawartości).
+     */
+    public static String displayName(String entry) {
+        if (entry == null) return null;
+        String value = entry.trim();
+        if (value.startsWith(BLOB_PREFIX)) {
+            return value.substring(BLOB_PREFIX.length());
+        }
+        if (value.startsWith(INLINE_PREFIX)) {
+            int first = value.indexOf(':');
+            int second = value.indexOf(':', first + 1);
+            if (second > first + 1) {
+                return value.substring(first + 1, second);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Miniatury generowane w tle dopiero po commicie - worker czyta zawartość z bazy.
+     */
+    private void enqueueThumbnailsAfterCommit(Long raportId, RaportZdjecieBlob blob) {
+        Runnable enqueue = () -> thumbnailService.enqueueRaportPhoto(
+                raportId, blob.getId(), blob.getStoredFilename(), blob.getContentType());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    private static String extension(String filename) {
+        int lastDotIndex = filename.lastIndexOf('.');
+        return lastDotIndex > 0 ? filename.substring(lastDotIndex).toLowerCase() : "";
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package drimer.drimain.service;
+
+import drimer.drimain.api.dto.PartUsageDTO;
+import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.api.dto.SimpleDzialDTO;
+import drimer.drimain.api.dto.SimpleMaszynaDTO;
+import drimer.drimain.api.dto.SimpleOsobaDTO;
+import drimer.drimain.api.dto.SimpleSekcjaDTO;
+import drimer.drimain.model.Raport;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.projection.RaportListRow;
+import drimer.drimain.repository.projection.RaportPartUsageRow;
+import drimer.drimain.repository.projection.RaportZdjecieRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Odczyt RaportDTO bez hydratacji encji Raport (lista i szczegóły).
+ *
+ * Strona: id z RaportRepository.findPageIds (LIMIT w SQL), potem jeden płaski wiersz na raport
+ * (maszyna, dział, sekcja, osoba) i po jednym zapytaniu paczką na części i zdjęcia całej strony.
+ * Projekcje nie trafiają do kontekstu utrwalania - brak snapshotów i dirty-checkingu przy flush.
+ * Pola jak w RaportMapper.toDto (zapis nadal mapuje encję po zmianie).
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class RaportQueryService {
+
+    private final RaportRepository raportRepository;
+
+    public Page<RaportDTO> page(Specification<Raport> spec, Pageable pageable) {
+        Page<Long> ids = raportRepository.findPageIds(spec, pageable);
+        return new PageImpl<>(load(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    public Optional<RaportDTO> get(Long id) {
+        List<RaportDTO> found = load(List.of(id));
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    /**
+     * RaportDTO dla podanych id w tej samej kolejności (id nieistniejące są pomijane).
+     */
+    List<RaportDTO> load(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, RaportDTO> byId = new HashMap<>(ids.size() * 2);
+        for (RaportListRow row : raportRepository.findListRowsByIdIn(ids)) {
+            byId.put(row.getId(), toDto(row));
+        }
+        for (RaportPartUsageRow row : raportRepository.findPartUsageRowsByRaportIdIn(ids)) {
+            RaportDTO dto = byId.get(row.getRaportId());
+            if (dto == null) continue;
+            PartUsageDTO pud = new PartUsageDTO();
+            pud.setPartId(row.getPartId());
+            pud.setIlosc(row.getIlosc());
+            dto.getPartUsages().add(pud);
+        }
+        for (RaportZdjecieRow row : raportRepository.findZdjecieRowsByRaportIdIn(ids)) {
+            RaportDTO dto = byId.get(row.getRaportId());
+            String name = RaportPhotoService.displayName(row.getZdjecie());
+            if (dto != null && name != null && !name.isBlank()) dto.getZdjecia().add(name);
+        }
+
+        List<RaportDTO> result = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            RaportDTO dto = byId.get(id);
+            if (dto != null) result.add(dto);
+        }
+        return result;
+    }
+
+    private static RaportDTO toDto(RaportListRow row) {
+        RaportDTO dto = new RaportDTO();
+        dto.setId(row.getId());
+        if (row.getMaszynaId() != null) {
+            SimpleMaszynaDTO m = new SimpleMaszynaDTO();
+            m.setId(row.getMaszynaId());
+            m.setNazwa(row.getMaszynaNazwa());
+            if (row.getDzialId() != null) {
+                SimpleDzialDTO d = new SimpleDzialDTO();
+                d.setId(row.getDzialId());
+                d.setNazwa(row.getDzialNazwa());
+                m.setDzial(d);
+            }
+            if (row.getSekcjaId() != null) {
+                SimpleSekcjaDTO s = new SimpleSekcjaDTO();
+                s.setId(row.getSekcjaId());
+                s.setNazwa(row.getSekcjaNazwa());
+                m.setSekcja(s);
+            }
+            dto.setMaszyna(m);
+        }
+        if (row.getOsobaId() != null) {
+            SimpleOsobaDTO o = new SimpleOsobaDTO();
+            o.setId(row.getOsobaId());
+            o.setImieNazwisko(row.getOsobaImieNazwisko());
+            dto.setOsoba(o);
+        }
+        dto.setTypNaprawy(row.getTypNaprawy());
+        dto.setOpis(row.getOpis());
+        dto.setStatus(row.getStatus() != null ? row.getStatus().name() : null);
+        dto.setDataNaprawy(row.getDataNaprawy());
+        dto.setCzasOd(row.getCzasOd() != null ? row.getCzasOd().toString() : null);
+        dto.setCzasDo(row.getCzasDo() != null ? row.getCzasDo().toString() : null);
+        dto.setPartUsages(new ArrayList<>());
+        dto.setZdjecia(new ArrayList<>());
+        return dto;
+    }
+}
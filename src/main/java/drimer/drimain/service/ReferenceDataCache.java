@@ -0,0 +1,138 @@
+package drimer.drimain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.config.ReferenceCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache list słownikowych z /api/meta (maszyny, działy, sekcje, osoby) razem z ETagiem odpowiedzi.
+ *
+ * Wpis = gotowa lista DTO + ETag (MD5 z JSON-a), więc trafienie nie dotyka bazy, a klient z pasującym
+ * If-None-Match dostaje 304. ETag zależy tylko od treści - jest ten sam na każdej instancji.
+ * Zapisy z panelu admina unieważniają konkretne rodzaje list ({@link #invalidate(Kind...)}) teraz
+ * i ponownie po commicie; ładowanie rozpoczęte przed unieważnieniem nie trafi do cache (stemple jak
+ * w PrincipalCache). Zmiany z innej instancji ogranicza TTL.
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+
+    public enum Kind { MASZYNY, DZIALY, SEKCJE, OSOBY }
+
+    /**
+     * @param etag ETag bez cudzysłowów; null, gdy treści nie udało się zserializować
+     */
+    public record Cached<T>(T value, String etag) {}
+
+    private final ReferenceCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Kind, Long> invalidations = new EnumMap<>(Kind.class);
+    private final AtomicLong clock = new AtomicLong();
+
+    public ReferenceDataCache(ReferenceCacheProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Zwraca listę z cache albo ładuje ją; params rozróżnia warianty tej samej listy (np. filtr działu).
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Cached<T> get(Kind kind, String params, Supplier<T> loader) {
+        if (!properties.isEnabled()) return load(loader);
+        Key key = new Key(kind, params == null ? "" : params);
+        long now = System.nanoTime();
+        Entry cached = entries.get(key);
+        if (cached != null && cached.expiresAt - now > 0) {
+            return (Cached<T>) cached.value;
+        }
+        long stamp = clock.incrementAndGet();
+        Cached<T> loaded = load(loader);
+        if (invalidatedAt(kind) < stamp) {
+            if (entries.size() >= maxEntries()) evict(now);
+            entries.put(key, new Entry(loaded, stamp, now + TimeUnit.SECONDS.toNanos(properties.getTtlSeconds())));
+        }
+        return loaded;
+    }
+
+    /**
+     * Unieważnia wskazane listy teraz i (w transakcji) ponownie po commicie - żądanie, które między
+     * zapisem a commitem załaduje stare dane, nie zostawi ich w cache.
+     */
+    public void invalidate(Kind... kinds) {
+        doInvalidate(kinds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(kinds);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        invalidate(Kind.values());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private <T> Cached<T> load(Supplier<T> loader) {
+        T value = loader.get();
+        String etag = null;
+        try {
+            etag = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(value));
+        } catch (Exception e) {
+            log.warn("Cannot compute ETag for reference list: {}", e.getMessage());
+        }
+        return new Cached<>(value, etag);
+    }
+
+    private void doInvalidate(Kind... kinds) {
+        for (Kind kind : kinds) {
+            long stamp = clock.incrementAndGet();
+            synchronized (invalidations) {
+                invalidations.put(kind, stamp);
+            }
+            entries.keySet().removeIf(k -> k.kind == kind);
+        }
+    }
+
+    private long invalidatedAt(Kind kind) {
+        synchronized (invalidations) {
+            return invalidations.getOrDefault(kind, 0L);
+        }
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(e -> e.expiresAt - now <= 0);
+        while (entries.size() >= maxEntries() && !entries.isEmpty()) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().stamp))
+                    .ifPresent(e -> entries.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private int maxEntries() {
+        return Math.max(1, properties.getMaxEntries());
+    }
+
+    private record Key(Kind kind, String params) {}
+
+    private record Entry(Cached<?> value, long stamp, long expiresAt) {}
+}
@@ -1,31 +1,138 @@
 package drimer.drimain.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.api.dto.ZgloszenieDTO;
 import drimer.drimain.api.dto.ZgloszenieEventDTO;
 import drimer.drimain.config.SseProperties;
 import drimer.drimain.events.EventType;
-import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.events.cluster.ZgloszenieEventMessage;
+import drimer.drimain.service.sse.SseClient;
+import drimer.drimain.service.sse.SseFrame;
+import drimer.drimain.service.sse.SseReplayBuffer;
+import drimer.drimain.service.sse.SseRoutingIndex;
+import drimer.drimain.service.sse.ZgloszenieSnapshotCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Strumień SSE zmian zgłoszeń.
+ *
+ * Źródłem są ZgloszenieEventMessage z ClusterEventRelay (po commicie, z całego klastra).
+ * Publikujący (listener zdarzenia) tylko serializuje zdarzenie raz do JSON i wrzuca je
+ * do kolejek pasujących klientów - nie czeka na sieć. Kolejki opróżnia osobna, ograniczona pula
+ * wątków "sse-sender"; wolny klient blokuje co najwyżej jeden jej wątek, a jego kolejka
+ * po przepełnieniu traci najstarsze zdarzenia (albo klient jest rozłączany - app.sse.overflow-policy).
+ * Kolejne UPDATED tego samego zgłoszenia czekające w kolejce są łączone w jedno (suma changedFields).
+ *
+ * Filtry dzialId/autorId działają po stronie serwera: zdarzenie trafia przez SseRoutingIndex
+ * tylko do pasujących klientów, na podstawie snapshotu zgłoszenia (ZgloszenieSnapshotCache).
+ * Przy zmianie działu zdarzenie dostaje też stary dział. Klient z full=true dostaje snapshot
+ * w polu "zgloszenie" i nie musi dociągać GET /api/zgloszenia/{id}. Gdy stanu zgłoszenia
+ * nie da się ustalić, zdarzenie idzie do wszystkich (jak wcześniej).
+ *
+ * Zdarzenia mają rosnące id (pole "id:") nadane z event_outbox - te same na każdej instancji; po zerwaniu
+ * połączenia EventSource wysyła Last-Event-ID i brakujące zdarzenia są odtwarzane z SseReplayBuffer
+ * (app.sse.replay-buffer-size), także gdy klient połączy się ponownie z inną instancją. Zdarzenie RESYNC
+ * (pełne przeładowanie listy po stronie klienta) tylko gdy luka wykracza poza bufor, gdy instancja jeszcze
+ * nie odebrała ostatniego zdarzenia klienta albo gdy pełna kolejka wolnego klienta (DROP_OLDEST)
+ * odrzuciła zdarzenie.
+ *
+ * Metryki (Micrometer): sse.clients, sse.queue.depth, sse.queue.depth.max,
+ * sse.events.sent / dropped / coalesced / replayed, sse.clients.overflow-disconnects, sse.clients.resync.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SseSubscriptionService {
 
+    private static final int DRAIN_BATCH = 32;
+    private static final String HEARTBEAT_KEY = "HEARTBEAT";
+
     private final SseProperties sseProperties;
-    private final Map<String, SseEmitter> subscriptions = new ConcurrentHashMap<>();
-    private final Map<String, SubscriptionInfo> subscriptionInfo = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ZgloszenieSnapshotCache snapshotCache;
+    private final Map<String, SseClient> subscriptions = new ConcurrentHashMap<>();
+    private final SseRoutingIndex routingIndex = new SseRoutingIndex();
+    // kolejność: nadanie id + rozesłanie vs rejestracja + odtworzenie z bufora
+    private final Object publishLock = new Object();
+    private SseReplayBuffer replayBuffer;
+
+    private ThreadPoolExecutor sender;
+    private SseFrame heartbeatFrame;
+    private Counter sentCounter;
+    private Counter droppedCounter;
+    private Counter coalescedCounter;
+    private Counter overflowDisconnects;
+    private Counter replayedCounter;
+    private Counter resyncCounter;
+
+    public record Stats(int activeSubscriptions, long queuedEvents, int maxQueueDepth,
+                        long sent, long dropped, long coalesced, long overflowDisconnects) {}
+
+    @PostConstruct
+    void start() {
+        replayBuffer = new SseReplayBuffer(sseProperties.getReplayBufferSize());
+        int threads = Math.max(1, sseProperties.getSenderThreads());
+        AtomicInteger counter = new AtomicInteger();
+        // jedno zadanie drain na klienta naraz, więc kolejka puli nie przekroczy liczby klientów
+        sender = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, sseProperties.getMaxClients())),
+                r -> {
+                    Thread t = new Thread(r, "sse-sender-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        heartbeatFrame = new SseFrame("HEARTBEAT", null, HEARTBEAT_KEY, null,
+                SseEmitter.event().name("HEARTBEAT").data("ping").build());
+
+        Gauge.builder("sse.clients", subscriptions, Map::size).register(meterRegistry);
+        Gauge.builder("sse.queue.depth", this, s -> s.getStats().queuedEvents()).register(meterRegistry);
+        Gauge.builder("sse.queue.depth.max", this, s -> s.getStats().maxQueueDepth()).register(meterRegistry);
+        sentCounter = meterRegistry.counter("sse.events.sent");
+        droppedCounter = meterRegistry.counter("sse.events.dropped");
+        coalescedCounter = meterRegistry.counter("sse.events.coalesced");
+        overflowDisconnects = meterRegistry.counter("sse.clients.overflow-disconnects");
+        replayedCounter = meterRegistry.counter("sse.events.replayed");
+        resyncCounter = meterRegistry.counter("sse.clients.resync");
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+    }
 
     public SseEmitter subscribe(Set<EventType> eventTypes, Long dzialId, Long autorId, boolean full) {
+        return subscribe(eventTypes, dzialId, autorId, full, null);
+    }
+
+    /**
+     * @param lastEventId Last-Event-ID z ponownego połączenia: brakujące zdarzenia są odtwarzane z bufora,
+     *                    a gdy luka jest większa niż bufor (lub niż kolejka klienta) - zdarzenie RESYNC
+     */
+    public SseEmitter subscribe(Set<EventType> eventTypes, Long dzialId, Long autorId, boolean full, Long lastEventId) {
         if (subscriptions.size() >= sseProperties.getMaxClients()) {
             throw new IllegalStateException("Maximum number of SSE clients reached");
         }
@@ -38,25 +145,21 @@ public class SseSubscriptionService {
         emitter.onTimeout(() -> removeSubscription(subscriptionId));
         emitter.onError(e -> removeSubscription(subscriptionId));
 
-        // Store subscription
-        subscriptions.put(subscriptionId, emitter);
-        subscriptionInfo.put(subscriptionId, new SubscriptionInfo(
-                eventTypes, dzialId, autorId, full, LocalDateTime.now()
-        ));
+        SseClient client = new SseClient(subscriptionId, emitter, eventTypes, dzialId, autorId, full,
+                sseProperties.getQueueCapacity(), this::coalesce);
 
-        try {
-            // Send initial event
-            ZgloszenieEventDTO initEvent = new ZgloszenieEventDTO(
-                    null, null, LocalDateTime.now(), Collections.emptyList(), null
-            );
-            initEvent.setType(null); // Special INIT event marker
-            emitter.send(SseEmitter.event()
-                    .name("INIT")
-                    .data(initEvent)
-            );
-        } catch (IOException e) {
-            log.warn("Failed to send initial event to subscription {}", subscriptionId, e);
-            removeSubscription(subscriptionId);
+        // rejestracja i odtworzenie pod tym samym zamkiem co publikacja - bez luk i duplikatów
+        synchronized (publishLock) {
+            subscriptions.put(subscriptionId, client);
+            routingIndex.add(client);
+
+            // Initial event (type == null is the INIT marker); goes through the queue like everything else
+            SseFrame init = frame("INIT", null, null, markerEvent());
+            if (init != null) enqueue(client, init);
+
+            if (lastEventId != null) {
+                replay(client, lastEventId);
+            }
         }
 
         log.debug("SSE subscription {} created. Active subscriptions: {}", subscriptionId, subscriptions.size());
@@ -64,39 +167,54 @@ public class SseSubscriptionService {
     }
 
     @EventListener
-    public void onZgloszenieEvent(ZgloszenieDomainEvent event) {
-        ZgloszenieEventDTO eventDto = new ZgloszenieEventDTO(
-                event.getType(),
-                event.getZgloszenieId(),
-                event.getEventTimestamp(),
-                event.getChangedFields(),
-                event.getAttachmentId()
-        );
+    public void onZgloszenieEvent(ZgloszenieEventMessage event) {
+        ZgloszenieDTO snapshot = event.snapshot();
+        ZgloszenieDTO previous = snapshot != null ? snapshotCache.put(snapshot) : null;
+        try {
+            if (snapshot == null && (event.type() == EventType.CREATED || event.type() == EventType.UPDATED)) {
+                // snapshot pominięty (limit NOTIFY) - stan w cache mógł się zdezaktualizować
+                snapshotCache.evict(event.zgloszenieId());
+            }
+            if (snapshot == null && event.type() != EventType.DELETED && !subscriptions.isEmpty()) {
+                snapshot = snapshotCache.resolve(event.zgloszenieId()).orElse(null);
+            }
+            List<SseRoutingIndex.Key> routing = snapshot == null ? null : routingKeys(snapshot, previous);
+
+            synchronized (publishLock) {
+                // do bufora trafia każde zdarzenie, także bez aktywnych klientów (mogą się zaraz połączyć ponownie)
+                SseReplayBuffer.Entry entry = replayBuffer.append(event.eventId(), event.type(), eventDto(event),
+                        snapshot, routing);
+                if (subscriptions.isEmpty()) {
+                    return;
+                }
+                Collection<SseClient> recipients = routing == null
+                        ? subscriptions.values()
+                        : routingIndex.match(routing);
 
-        List<String> failedSubscriptions = new ArrayList<>();
-
-        subscriptions.entrySet().parallelStream().forEach(entry -> {
-            String subscriptionId = entry.getKey();
-            SseEmitter emitter = entry.getValue();
-            SubscriptionInfo info = subscriptionInfo.get(subscriptionId);
-
-            if (info != null && shouldSendEvent(event, info)) {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name(event.getType().name())
-                            .data(eventDto)
-                    );
-                } catch (IOException e) {
-                    log.warn("Failed to send event to subscription {}", subscriptionId, e);
-                    synchronized (failedSubscriptions) {
-                        failedSubscriptions.add(subscriptionId);
+                SseFrame lite = null;
+                SseFrame full = null;
+                for (SseClient client : recipients) {
+                    if (!shouldSendEvent(entry.type(), client)) {
+                        continue;
+                    }
+                    SseFrame frame;
+                    if (client.full() && snapshot != null) {
+                        if (full == null) full = frame(entry, true);
+                        frame = full;
+                    } else {
+                        if (lite == null) lite = frame(entry, false);
+                        frame = lite;
+                    }
+                    if (frame != null) {
+                        enqueue(client, frame);
                     }
                 }
             }
-        });
-
-        // Clean up failed subscriptions
-        failedSubscriptions.forEach(this::removeSubscription);
+        } finally {
+            if (event.type() == EventType.DELETED) {
+                snapshotCache.evict(event.zgloszenieId());
+            }
+        }
     }
 
     @Scheduled(fixedDelayString = "#{sseProperties.heartbeatIntervalSeconds * 1000}")
@@ -105,67 +223,189 @@ public class SseSubscriptionService {
             return;
         }
 
-        List<String> failedSubscriptions = new ArrayList<>();
-        
-        subscriptions.entrySet().parallelStream().forEach(entry -> {
-            String subscriptionId = entry.getKey();
-            SseEmitter emitter = entry.getValue();
-
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("HEARTBEAT")
-                        .data("ping")
-                );
-            } catch (IOException e) {
-                log.debug("Heartbeat failed for subscription {}", subscriptionId, e);
-                synchronized (failedSubscriptions) {
-                    failedSubscriptions.add(subscriptionId);
+        // heartbeat czekający jeszcze w kolejce klienta nie jest dokładany drugi raz
+        subscriptions.values().forEach(client -> enqueue(client, heartbeatFrame));
+        log.debug("Queued heartbeat for {} active SSE subscriptions", subscriptions.size());
+    }
+
+    private boolean shouldSendEvent(EventType type, SseClient client) {
+        // dzialId/autorId already matched by the routing index
+        return client.eventTypes() == null || client.eventTypes().isEmpty() || client.eventTypes().contains(type);
+    }
+
+    /**
+     * Wywoływane pod publishLock. Odtwarza tylko, gdy pasujące zdarzenia mieszczą się
+     * w kolejce klienta - inaczej i tak część by wypadła, więc od razu RESYNC.
+     */
+    private void replay(SseClient client, long lastEventId) {
+        Optional<List<SseReplayBuffer.Entry>> missed = replayBuffer.since(lastEventId);
+        if (missed.isPresent()) {
+            List<SseReplayBuffer.Entry> matching = missed.get().stream()
+                    .filter(e -> shouldSendEvent(e.type(), client) && SseRoutingIndex.matches(client, e.routing()))
+                    .toList();
+            if (matching.size() < sseProperties.getQueueCapacity()) {
+                for (SseReplayBuffer.Entry entry : matching) {
+                    SseFrame frame = frame(entry, client.full() && entry.snapshot() != null);
+                    if (frame != null) enqueue(client, frame);
                 }
+                replayedCounter.increment(matching.size());
+                return;
             }
-        });
+        }
+        SseFrame resync = frame("RESYNC", replayBuffer.lastId(), null, markerEvent());
+        if (resync != null) enqueue(client, resync);
+        resyncCounter.increment();
+        log.debug("SSE subscription {} resumed from {} beyond replay buffer, RESYNC sent", client.id(), lastEventId);
+    }
 
-        failedSubscriptions.forEach(this::removeSubscription);
-        
-        if (!subscriptions.isEmpty()) {
-            log.debug("Sent heartbeat to {} active SSE subscriptions", subscriptions.size());
+    private static List<SseRoutingIndex.Key> routingKeys(ZgloszenieDTO snapshot, ZgloszenieDTO previous) {
+        SseRoutingIndex.Key current = new SseRoutingIndex.Key(snapshot.getDzialId(), snapshot.getAutorId());
+        if (previous == null) {
+            return List.of(current);
         }
+        SseRoutingIndex.Key before = new SseRoutingIndex.Key(previous.getDzialId(), previous.getAutorId());
+        return before.equals(current) ? List.of(current) : List.of(current, before);
     }
 
-    private boolean shouldSendEvent(ZgloszenieDomainEvent event, SubscriptionInfo info) {
-        // Filter by event type
-        if (info.eventTypes != null && !info.eventTypes.isEmpty() && !info.eventTypes.contains(event.getType())) {
-            return false;
+    private static ZgloszenieEventDTO markerEvent() {
+        return new ZgloszenieEventDTO(null, null, LocalDateTime.now(), Collections.emptyList(), null);
+    }
+
+    private static ZgloszenieEventDTO eventDto(ZgloszenieEventMessage event) {
+        return new ZgloszenieEventDTO(
+                event.type(),
+                event.zgloszenieId(),
+                event.eventTimestamp(),
+                event.changedFields(),
+                event.attachmentId()
+        );
+    }
+
+    private void enqueue(SseClient client, SseFrame frame) {
+        boolean dropOldest = sseProperties.getOverflowPolicy() != SseProperties.OverflowPolicy.DISCONNECT;
+        switch (client.offer(frame, dropOldest)) {
+            case COALESCED -> coalescedCounter.increment();
+            case DROPPED_OLDEST -> droppedCounter.increment();
+            case DROPPED_EVENT -> {
+                droppedCounter.increment();
+                // klient przegapiłby zmianę - zamiast reszty kolejki dostaje RESYNC (id obejmuje to zdarzenie)
+                SseFrame resync = frame("RESYNC", replayBuffer.lastId(), null, markerEvent());
+                if (resync != null) {
+                    droppedCounter.increment(client.resync(resync));
+                    resyncCounter.increment();
+                    log.debug("SSE subscription {} dropped an event, RESYNC queued", client.id());
+                }
+            }
+            case OVERFLOW -> {
+                droppedCounter.increment();
+                overflowDisconnects.increment();
+                log.debug("SSE subscription {} is too slow, disconnecting", client.id());
+                removeSubscription(client.id());
+                client.emitter().complete();
+                return;
+            }
+            default -> { }
+        }
+        scheduleDrain(client);
+    }
+
+    private void scheduleDrain(SseClient client) {
+        if (client.tryScheduleDrain()) {
+            submitDrain(client);
+        }
+    }
+
+    private void submitDrain(SseClient client) {
+        try {
+            sender.execute(() -> drain(client));
+        } catch (RejectedExecutionException e) {
+            // pula zamknięta (shutdown) albo przepełniona - zdarzenia zostają w kolejce do następnej próby
+            client.abortDrain();
+            log.debug("SSE drain for subscription {} rejected", client.id());
+        }
+    }
+
+    private void drain(SseClient client) {
+        if (!client.drain(DRAIN_BATCH, sentCounter::increment)) {
+            log.debug("Failed to send event to subscription {}", client.id());
+            client.abortDrain();
+            removeSubscription(client.id());
+            return;
+        }
+        if (client.releaseDrain()) {
+            // reszta kolejki w kolejnym zadaniu - inni klienci nie czekają na jednego z długą kolejką
+            submitDrain(client);
+        }
+    }
+
+    /**
+     * Łączy dwa zdarzenia z tym samym kluczem: nowsze dane + suma changedFields (serializacja ponownie,
+     * ale tylko dla klienta, który nie nadąża).
+     */
+    private SseFrame coalesce(SseFrame older, SseFrame newer) {
+        if (older.event() == null || newer.event() == null) {
+            return newer;
+        }
+        ZgloszenieEventDTO a = older.event();
+        ZgloszenieEventDTO b = newer.event();
+        LinkedHashSet<String> fields = new LinkedHashSet<>();
+        if (a.getChangedFields() != null) fields.addAll(a.getChangedFields());
+        if (b.getChangedFields() != null) fields.addAll(b.getChangedFields());
+        ZgloszenieEventDTO merged = new ZgloszenieEventDTO(b.getType(), b.getZgloszenieId(), b.getEventTimestamp(),
+                new ArrayList<>(fields), b.getAttachmentId());
+        merged.setZgloszenie(b.getZgloszenie());
+        SseFrame frame = frame(newer.name(), newer.id(), newer.coalesceKey(), merged);
+        return frame != null ? frame : newer;
+    }
+
+    private static String coalesceKey(EventType type, Long zgloszenieId) {
+        return type == EventType.UPDATED && zgloszenieId != null ? "UPDATED:" + zgloszenieId : null;
+    }
+
+    private SseFrame frame(SseReplayBuffer.Entry entry, boolean withSnapshot) {
+        ZgloszenieEventDTO dto = entry.event();
+        if (withSnapshot) {
+            dto = new ZgloszenieEventDTO(dto.getType(), dto.getZgloszenieId(), dto.getEventTimestamp(),
+                    dto.getChangedFields(), dto.getAttachmentId());
+            dto.setZgloszenie(entry.snapshot());
         }
+        return frame(entry.type().name(), entry.id(), coalesceKey(entry.type(), dto.getZgloszenieId()), dto);
+    }
 
-        // TODO: Filter by dzialId/autorId requires snapshot implementation
-        // Currently not filtering by dzialId/autorId as noted in requirements
-        
-        return true;
+    private SseFrame frame(String name, Long id, String coalesceKey, ZgloszenieEventDTO dto) {
+        try {
+            String json = objectMapper.writeValueAsString(dto);
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON);
+            if (id != null) builder.id(String.valueOf(id));
+            return new SseFrame(name, id, coalesceKey, dto, builder.build());
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize SSE event {}", name, e);
+            return null;
+        }
     }
 
     private void removeSubscription(String subscriptionId) {
-        subscriptions.remove(subscriptionId);
-        subscriptionInfo.remove(subscriptionId);
-        log.debug("SSE subscription {} removed. Active subscriptions: {}", subscriptionId, subscriptions.size());
+        SseClient client = subscriptions.remove(subscriptionId);
+        if (client != null) {
+            routingIndex.remove(client);
+            log.debug("SSE subscription {} removed. Active subscriptions: {}", subscriptionId, subscriptions.size());
+        }
     }
 
     public int getActiveSubscriptionCount() {
         return subscriptions.size();
     }
 
-    private static class SubscriptionInfo {
-        final Set<EventType> eventTypes;
-        final Long dzialId;
-        final Long autorId;
-        final boolean full;
-        final LocalDateTime createdAt;
-
-        SubscriptionInfo(Set<EventType> eventTypes, Long dzialId, Long autorId, boolean full, LocalDateTime createdAt) {
-            this.eventTypes = eventTypes;
-            this.dzialId = dzialId;
-            this.autorId = autorId;
-            this.full = full;
-            this.createdAt = createdAt;
+    public Stats getStats() {
+        long queued = 0;
+        int max = 0;
+        for (SseClient client : subscriptions.values()) {
+            int depth = client.queueDepth();
+            queued += depth;
+            max = Math.max(max, depth);
         }
+        return new Stats(subscriptions.size(), queued, max,
+                (long) sentCounter.count(), (long) droppedCounter.count(),
+                (long) coalescedCounter.count(), (long) overflowDisconnects.count());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,355 @@
+package drimer.drimain.service;
+
+import drimer.drimain.config.AttachmentStorageConfig;
+import drimer.drimain.config.ThumbnailProperties;
+import drimer.drimain.repository.AttachmentRepository;
+import drimer.drimain.repository.RaportZdjecieBlobRepository;
+import drimer.drimain.repository.projection.StoredImageRow;
+import drimer.drimain.service.storage.ContentStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Miniatury i podglądy zdjęć (załączniki zgłoszeń, zdjęcia raportów) generowane w tle przez ImageIO.
+ *
+ * Pochodne są cache'em na dysku obok oryginałów: {basePath}/variants/...
+ * Brak pliku (np. po redeployu na ulotnym dysku) = serwowany oryginał + ponowne zlecenie generowania.
+ * Pula wątków i kolejka są ograniczone; przy pełnej kolejce zlecenia z uploadu są pomijane
+ * (odtworzą się przy pierwszym żądaniu ?variant=...), backfill czeka na miejsce w kolejce.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    public enum Variant {
+        THUMB("thumb", 320),
+        PREVIEW("preview", 1280);
+
+        private final String key;
+        private final int width;
+
+        Variant(String key, int width) {
+            this.key = key;
+            this.width = width;
+        }
+
+        public String key() { return key; }
+        public int width() { return width; }
+
+        /**
+         * ETag oryginału wysłanego pod URL-em wariantu, zanim wariant powstanie - inny niż ETag
+         * oryginału i wygenerowanego wariantu, więc po wygenerowaniu rewalidacja zwraca 200.
+         */
+        public String fallbackEtag(String sha256) {
+            return sha256 != null ? sha256 + "-" + key + "-original" : null;
+        }
+
+        /**
+         * null/puste -> null (oryginał); nieznany wariant -> IllegalArgumentException (400).
+         */
+        public static Variant parse(String raw) {
+            if (raw == null || raw.isBlank()) return null;
+            for (Variant v : values()) {
+                if (v.key.equalsIgnoreCase(raw.trim())) return v;
+            }
+            throw new IllegalArgumentException("Unknown image variant: " + raw);
+        }
+    }
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+    private static final int BACKFILL_BATCH = 200;
+
+    private final ThumbnailProperties properties;
+    private final AttachmentStorageConfig storageConfig;
+    private final AttachmentRepository attachmentRepository;
+    private final RaportZdjecieBlobRepository blobRepository;
+    private final ContentStore contentStore;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, properties.getWorkerThreads());
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "thumbnail-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isSupported(String contentType) {
+        return properties.isEnabled() && contentType != null
+                && SUPPORTED_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    public Path attachmentVariantPath(String storedFilename, Variant variant) {
+        return variantsRoot().resolve("a").resolve(storedFilename + "." + variant.key() + ".jpg");
+    }
+
+    public Path raportPhotoVariantPath(Long raportId, String storedFilename, Variant variant) {
+        return variantsRoot().resolve("r" + raportId).resolve(storedFilename + "." + variant.key() + ".jpg");
+    }
+
+    /**
+     * @param original plik z treścią (ContentStore.locate) - pochodne i tak są kluczowane po storedFilename
+     */
+    public void enqueueAttachment(String storedFilename, Path original, String contentType) {
+        if (!isSupported(contentType)) return;
+        submit("a:" + storedFilename, targets(v -> attachmentVariantPath(storedFilename, v)),
+                () -> Files.newInputStream(original), false);
+    }
+
+    public void enqueueRaportPhoto(Long raportId, Long blobId, String storedFilename, String contentType) {
+        if (!isSupported(contentType)) return;
+        submit("r:" + blobId, targets(v -> raportPhotoVariantPath(raportId, storedFilename, v)),
+                () -> new ByteArrayInputStream(blobRepository.findDataById(blobId).orElseThrow(
+                        () -> new IOException("Photo blob " + blobId + " not found"))), false);
+    }
+
+    /**
+     * Zleca brakujące pochodne dla wszystkich istniejących obrazów; zwraca liczbę zleconych plików.
+     */
+    public int backfill() {
+        int queued = 0;
+        long afterId = 0;
+        List<StoredImageRow> rows;
+        do {
+            rows = attachmentRepository.findImagesAfter(afterId, PageRequest.of(0, BACKFILL_BATCH));
+            for (StoredImageRow row : rows) {
+                afterId = row.getId();
+                if (!isSupported(row.getContentType())) continue;
+                Map<Variant, Path> missing = missing(targets(v -> attachmentVariantPath(row.getStoredFilename(), v)));
+                if (missing.isEmpty()) continue;
+                Path original = contentStore.locate(row.getBlobSha256(), row.getStoredFilename());
+                if (submit("a:" + row.getStoredFilename(), missing, () -> Files.newInputStream(original), true)) queued++;
+            }
+        } while (rows.size() == BACKFILL_BATCH);
+
+        afterId = 0;
+        do {
+            rows = blobRepository.findImagesAfter(afterId, PageRequest.of(0, BACKFILL_BATCH));
+            for (StoredImageRow row : rows) {
+                afterId = row.getId();
+                if (!isSupported(row.getContentType())) continue;
+                Map<Variant, Path> missing = missing(targets(v ->
+                        raportPhotoVariantPath(row.getOwnerId(), row.getStoredFilename(), v)));
+                if (missing.isEmpty()) continue;
+                Long blobId = row.getId();
+                if (submit("r:" + blobId, missing, () -> new ByteArrayInputStream(blobRepository.findDataById(blobId)
+                        .orElseThrow(() -> new IOException("Photo blob " + blobId + " not found"))), true)) queued++;
+            }
+        } while (rows.size() == BACKFILL_BATCH);
+
+        log.info("Thumbnail backfill queued {} images", queued);
+        return queued;
+    }
+
+    public void deleteRaportPhotoVariants(Long raportId, String storedFilename) {
+        for (Variant v : Variant.values()) {
+            deleteQuietly(raportPhotoVariantPath(raportId, storedFilename, v));
+        }
+    }
+
+    public void deleteAllRaportPhotoVariants(Long raportId) {
+        Path dir = variantsRoot().resolve("r" + raportId);
+        if (!Files.isDirectory(dir)) return;
+        try (var files = Files.list(dir)) {
+            files.forEach(ThumbnailService::deleteQuietly);
+        } catch (IOException e) {
+            log.debug("Could not list image variants of raport {}", raportId);
+        }
+        deleteQuietly(dir);
+    }
+
+    public void deleteAttachmentVariants(String storedFilename) {
+        for (Variant v : Variant.values()) {
+            deleteQuietly(attachmentVariantPath(storedFilename, v));
+        }
+    }
+
+    private boolean submit(String key, Map<Variant, Path> targets, ImageSource source, boolean waitForCapacity) {
+        if (!properties.isEnabled() || targets.isEmpty() || !pending.add(key)) return false;
+        Runnable task = () -> {
+            try {
+                generate(source, targets);
+            } catch (Exception e) {
+                log.warn("Thumbnail generation failed for {}: {}", key, e.getMessage());
+            } finally {
+                pending.remove(key);
+            }
+        };
+        try {
+            if (waitForCapacity) {
+                while (!executor.getQueue().offer(task, 1, TimeUnit.SECONDS)) {
+                    if (executor.isShutdown()) {
+                        pending.remove(key);
+                        return false;
+                    }
+                }
+            } else {
+                executor.execute(task);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(key);
+            return false;
+        } catch (RuntimeException rejected) {
+            pending.remove(key);
+            log.debug("Thumbnail queue full, skipping {}", key);
+            return false;
+        }
+    }
+
+    private void generate(ImageSource source, Map<Variant, Path> targets) throws IOException {
+        BufferedImage original;
+        try (InputStream in = source.open(); ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) return;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > properties.getMaxSourcePixels()) {
+                    log.warn("Skipping thumbnail: image too large ({} px)", pixels);
+                    return;
+                }
+                original = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+        for (Map.Entry<Variant, Path> target : targets.entrySet()) {
+            if (Files.exists(target.getValue())) continue;
+            writeJpeg(scaleToWidth(original, target.getKey().width()), target.getValue());
+        }
+    }
+
+    /**
+     * Skalowanie kolejnymi połówkami (lepsza jakość niż jeden krok bilinearny), wynik RGB na białym tle.
+     */
+    static BufferedImage scaleToWidth(BufferedImage src, int targetWidth) {
+        int width = Math.min(targetWidth, src.getWidth());
+        int height = Math.max(1, (int) Math.round((double) src.getHeight() * width / src.getWidth()));
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage step = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, w, h);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".thumb", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(properties.getJpegQuality());
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Map<Variant, Path> targets(java.util.function.Function<Variant, Path> pathFor) {
+        Map<Variant, Path> targets = new EnumMap<>(Variant.class);
+        for (Variant v : Variant.values()) targets.put(v, pathFor.apply(v));
+        return targets;
+    }
+
+    private static Map<Variant, Path> missing(Map<Variant, Path> targets) {
+        targets.values().removeIf(Files::exists);
+        return targets;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Could not delete image variant {}", path);
+        }
+    }
+
+    private Path storageRoot() {
+        return Paths.get(storageConfig.getBasePath()).toAbsolutePath().normalize();
+    }
+
+    private Path variantsRoot() {
+        return storageRoot().resolve("variants");
+    }
+
+    @FunctionalInterface
+    private interface ImageSource {
+        InputStream open() throws IOException;
+    }
+}
@@ -1,7 +1,9 @@
 package drimer.drimain.service;
 
 import drimer.drimain.api.dto.ZgloszenieCreateRequest;
+import drimer.drimain.api.dto.ZgloszenieDTO;
 import drimer.drimain.api.dto.ZgloszenieUpdateRequest;
+import drimer.drimain.api.mapper.ZgloszenieMapper;
 import drimer.drimain.events.EventType;
 import drimer.drimain.events.ZgloszenieDomainEvent;
 import drimer.drimain.model.Dzial;
@@ -121,11 +123,14 @@ public class ZgloszenieCommandService {
         // Save
         Zgloszenie saved = zgloszenieRepository.save(z);
 
-        // Publish creation event
+        // Publish creation event (snapshot: SSE routing by dzial/autor, full=true payload)
         eventPublisher.publishEvent(new ZgloszenieDomainEvent(
                 this,
                 EventType.CREATED,
-                saved.getId()
+                saved.getId(),
+                null,
+                null,
+                ZgloszenieMapper.toDto(saved)
         ));
 
         log.debug("Created zgloszenie {} with ID {}", saved.getTytul(), saved.getId());
@@ -206,7 +211,9 @@ public class ZgloszenieCommandService {
                     this,
                     EventType.UPDATED,
                     saved.getId(),
-                    changedFields
+                    changedFields,
+                    null,
+                    ZgloszenieMapper.toDto(saved)
             ));
             
             log.debug("Updated zgloszenie {} with changes: {}", saved.getId(), changedFields);
@@ -219,6 +226,9 @@ public class ZgloszenieCommandService {
         Zgloszenie z = zgloszenieRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Zgloszenie not found"));
 
+        // Last known state - subscribers filtered by dzial/autor still need to learn about the deletion
+        ZgloszenieDTO snapshot = ZgloszenieMapper.toDto(z);
+
         // Delete the entity
         zgloszenieRepository.delete(z);
 
@@ -226,7 +236,10 @@ public class ZgloszenieCommandService {
         eventPublisher.publishEvent(new ZgloszenieDomainEvent(
                 this,
                 EventType.DELETED,
-                id
+                id,
+                null,
+                null,
+                snapshot
         ));
 
         log.debug("Deleted zgloszenie with ID {}", id);
@@ -0,0 +1,206 @@
+package drimer.drimain.service;
+
+import drimer.drimain.api.dto.CursorPageDTO;
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.api.mapper.ZgloszenieMapper;
+import drimer.drimain.model.User;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.repository.UserRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.spec.ZgloszenieQuery;
+import drimer.drimain.repository.spec.ZgloszenieSpecifications;
+import drimer.drimain.service.search.FullTextSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Odczyt listy zgłoszeń z filtrowaniem po stronie bazy.
+ * Reguły widoczności:
+ * - ADMIN widzi wszystko
+ * - "Utrzymanie Ruchu" widzi wszystko oprócz działu "Technologie"
+ * - pozostali widzą tylko swój dział (brak działu -> brak wyników)
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class ZgloszenieQueryService {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 200;
+
+    private static final Sort SEEK_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final ZgloszenieRepository zgloszenieRepository;
+    private final UserRepository userRepository;
+    private final FullTextSearchService fullTextSearchService;
+
+    /**
+     * Lista bez stronicowania; przy wyszukiwaniu tekstowym posortowana wg trafności.
+     */
+    public List<ZgloszenieDTO> list(ZgloszenieQuery query) {
+        if (query.isNone()) return List.of();
+        resolveText(query);
+        Specification<Zgloszenie> spec = query.toSpecification()
+                .and(ZgloszenieSpecifications.fetchRelations());
+        List<Zgloszenie> rows = zgloszenieRepository.findAll(spec);
+        List<Long> ranked = query.getTextTsQuery() != null
+                ? fullTextSearchService.rankZgloszenia(query.getText()).orElse(null)
+                : query.getTextMatchIds();
+        if (ranked != null && !ranked.isEmpty()) {
+            Map<Long, Integer> rank = new HashMap<>(ranked.size() * 2);
+            for (int i = 0; i < ranked.size(); i++) rank.put(ranked.get(i), i);
+            rows = rows.stream()
+                    .sorted(Comparator.comparing(z -> rank.getOrDefault(z.getId(), Integer.MAX_VALUE)))
+                    .toList();
+        }
+        return rows.stream()
+                .map(ZgloszenieMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Stronicowanie keyset po (createdAt DESC, id DESC) - koszt nie rośnie z numerem strony.
+     */
+    public CursorPageDTO<ZgloszenieDTO> seek(ZgloszenieQuery query, String cursor, Integer limit) {
+        int effectiveLimit = normalizeLimit(limit);
+        Cursor after = Cursor.decode(cursor);
+        if (query.isNone()) return new CursorPageDTO<>(List.of(), null, false);
+        resolveText(query);
+
+        Specification<Zgloszenie> spec = query.toSpecification()
+                .and(after == null ? null : ZgloszenieSpecifications.createdBefore(after.createdAt(), after.id()))
+                .and(ZgloszenieSpecifications.fetchRelations());
+
+        List<Zgloszenie> rows = zgloszenieRepository.findBy(spec,
+                q -> q.sortBy(SEEK_SORT).limit(effectiveLimit + 1).all());
+
+        boolean hasMore = rows.size() > effectiveLimit;
+        List<Zgloszenie> pageRows = hasMore ? rows.subList(0, effectiveLimit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Zgloszenie last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(pageRows.stream().map(ZgloszenieMapper::toDto).toList(), nextCursor, hasMore);
+    }
+
+    /**
+     * Sam COUNT (bez hydratacji encji) - np. licznik "moje zadania" odpytywany przez aplikację mobilną.
+     */
+    public long count(ZgloszenieQuery query) {
+        if (query.isNone()) return 0;
+        resolveText(query);
+        return zgloszenieRepository.count(query.toSpecification());
+    }
+
+    /**
+     * Zakres: wszystkie zgłoszenia widoczne dla użytkownika.
+     */
+    public ZgloszenieQuery visibleTo(Authentication authentication) {
+        if (authentication == null) {
+            return ZgloszenieQuery.create().none();
+        }
+        if (isAdmin(authentication)) {
+            return ZgloszenieQuery.create();
+        }
+        User u = userRepository.findByUsernameFetchDzial(authentication.getName()).orElse(null);
+        if (u == null || u.getDzial() == null) {
+            // Brak przypisanego działu -> nie pokazuj nic
+            return ZgloszenieQuery.create().none();
+        }
+        if ("Utrzymanie Ruchu".equalsIgnoreCase(u.getDzial().getNazwa())) {
+            // Utrzymanie Ruchu widzi wszystkie zgłoszenia OPRÓCZ działu Technologie
+            return ZgloszenieQuery.create().excludeDzialNazwa("Technologie");
+        }
+        return ZgloszenieQuery.create().dzialId(u.getDzial().getId());
+    }
+
+    /**
+     * Zakres: zgłoszenia utworzone przez bieżącego użytkownika.
+     */
+    public ZgloszenieQuery createdBy(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ZgloszenieQuery.create().none();
+        }
+        return userRepository.findIdByUsername(authentication.getName())
+                .map(id -> ZgloszenieQuery.create().autorId(id))
+                .orElseGet(() -> ZgloszenieQuery.create().none());
+    }
+
+    /**
+     * Zakres: "moje zadania" = zgłoszenia z działu użytkownika w statusach roboczych (ADMIN: wszystkie działy).
+     */
+    public ZgloszenieQuery tasksOf(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ZgloszenieQuery.create().none();
+        }
+        User u = userRepository.findByUsernameFetchDzial(authentication.getName()).orElse(null);
+        if (u == null || u.getDzial() == null) {
+            return ZgloszenieQuery.create().none();
+        }
+        ZgloszenieQuery query = ZgloszenieQuery.create().statusIn(ZgloszenieQuery.ACTIVE_STATUSES);
+        return isAdmin(authentication) ? query : query.dzialId(u.getDzial().getId());
+    }
+
+    /**
+     * Fraza "q" -> warunek tsvector albo id z indeksu pełnotekstowego; gdy indeks niedostępny
+     * (albo trafień n-gramów jest więcej niż max-hits), zostaje filtr LIKE.
+     */
+    private void resolveText(ZgloszenieQuery query) {
+        if (query.getText() == null || query.getText().isBlank()
+                || query.getTextMatchIds() != null || query.getTextTsQuery() != null) return;
+        fullTextSearchService.matchZgloszenia(query.getText()).ifPresent(match -> {
+            if (match.tsQuery() != null) {
+                query.textTsQuery(match.tsQuery());
+            } else {
+                query.textMatchIds(match.ids());
+            }
+        });
+    }
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    private int normalizeLimit(Integer limit) {
+        if (limit == null || limit < 1) return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Kursor: base64url("createdAt|id"). Nieprawidłowy kursor -> IllegalArgumentException (400).
+     */
+    record Cursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            if (value == null || value.isBlank()) return null;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Nieprawidłowy kursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package drimer.drimain.service.job;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wiersz batch_jobs: stan zadania i punkt kontrolny (ostatnie przetworzone id, licznik).
+ */
+public record BatchJobState(String jobName, Status status, long lastId, long processed,
+                            LocalDateTime startedAt, LocalDateTime updatedAt, LocalDateTime finishedAt,
+                            String error) {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+}
@@ -0,0 +1,83 @@
+package drimer.drimain.service.job;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Dostęp JDBC do batch_jobs. Metody zapisu zakładają aktywną transakcję wołającego - punkt kontrolny
+ * jest zatwierdzany razem z paczką, której dotyczy.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchJobStore {
+
+    private static final String COLUMNS = "job_name, status, last_id, processed, started_at, updated_at, finished_at, error";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final RowMapper<BatchJobState> MAPPER = (rs, i) -> new BatchJobState(
+            rs.getString(1), BatchJobState.Status.valueOf(rs.getString(2)), rs.getLong(3), rs.getLong(4),
+            toLocalDateTime(rs.getTimestamp(5)), toLocalDateTime(rs.getTimestamp(6)),
+            toLocalDateTime(rs.getTimestamp(7)), rs.getString(8));
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    public Optional<BatchJobState> find(String jobName) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM batch_jobs WHERE job_name = ?", MAPPER, jobName)
+                .stream().findFirst();
+    }
+
+    /**
+     * Stan z blokadą wiersza do końca transakcji - paczki tego samego zadania (także z innej instancji)
+     * idą po kolei i każda czyta punkt kontrolny zapisany przez poprzednią.
+     */
+    public Optional<BatchJobState> lock(String jobName) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM batch_jobs WHERE job_name = ? FOR UPDATE", MAPPER, jobName)
+                .stream().findFirst();
+    }
+
+    /**
+     * Nowy przebieg od początku (last_id = 0, licznik = 0).
+     */
+    public void restart(String jobName, boolean exists) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (exists) {
+            jdbcTemplate.update("UPDATE batch_jobs SET status = ?, last_id = 0, processed = 0, started_at = ?, " +
+                    "updated_at = ?, finished_at = NULL, error = NULL WHERE job_name = ?",
+                    BatchJobState.Status.RUNNING.name(), now, now, jobName);
+        } else {
+            jdbcTemplate.update("INSERT INTO batch_jobs (" + COLUMNS + ") VALUES (?, ?, 0, 0, ?, ?, NULL, NULL)",
+                    jobName, BatchJobState.Status.RUNNING.name(), now, now);
+        }
+    }
+
+    /**
+     * Wznowienie od zapisanego punktu kontrolnego.
+     */
+    public void resume(String jobName) {
+        jdbcTemplate.update("UPDATE batch_jobs SET status = ?, updated_at = ?, finished_at = NULL, error = NULL " +
+                "WHERE job_name = ?", BatchJobState.Status.RUNNING.name(), Timestamp.valueOf(LocalDateTime.now()), jobName);
+    }
+
+    public void checkpoint(String jobName, long lastId, long processed) {
+        jdbcTemplate.update("UPDATE batch_jobs SET last_id = ?, processed = ?, updated_at = ? WHERE job_name = ?",
+                lastId, processed, Timestamp.valueOf(LocalDateTime.now()), jobName);
+    }
+
+    public void finish(String jobName, BatchJobState.Status status, String error) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String message = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        jdbcTemplate.update("UPDATE batch_jobs SET status = ?, updated_at = ?, finished_at = ?, error = ? WHERE job_name = ?",
+                status.name(), now, now, message, jobName);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,203 @@
+package drimer.drimain.service.job;
+
+import drimer.drimain.config.DatabaseDialect;
+import drimer.drimain.config.RaportBackfillProperties;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Backfill raportów dla zamkniętych (DONE) zgłoszeń bez raportu - zadanie w tle z punktami kontrolnymi.
+ *
+ * Paczka: anti-join (DONE, id &gt; punkt kontrolny, brak raportu z tym zgloszenie_id) po kluczu id,
+ * wstawienie raportów jednym batchem JDBC i zapis punktu kontrolnego w tej samej transakcji.
+ * Koszt zależy od liczby brakujących raportów, nie od rozmiaru tabel. Zadanie przerwane restartem
+ * (status RUNNING w batch_jobs) jest wznawiane przy starcie aplikacji; po błędzie (FAILED) ponowne
+ * uruchomienie kontynuuje od punktu kontrolnego, po zakończeniu (COMPLETED) - skanuje od początku.
+ * Raporty powstają z pominięciem zdarzeń (jak dawniej): liczniki KPI poprawia nocne uzgodnienie.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RaportBackfillJob {
+
+    public static final String JOB_NAME = "raport-backfill-from-zgloszenia";
+
+    private static final String RAPORT_COLUMNS =
+            "zgloszenie_id, maszyna_id, typ_naprawy, opis, status, data_naprawy, czas_od, czas_do, created_by";
+    private static final String MISSING_CONDITION = "z.status = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM raporty r WHERE r.zgloszenie_id = z.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchJobStore jobs;
+    private final RaportBackfillProperties properties;
+    private final PlatformTransactionManager transactionManager;
+    private final DatabaseDialect dialect;
+
+    private final AtomicBoolean active = new AtomicBoolean();
+    private TransactionTemplate tx;
+
+    /**
+     * Stan zadania dla GET /api/raporty/backfill-from-zgloszenia.
+     *
+     * @param created raporty utworzone w bieżącym / ostatnim przebiegu
+     * @param missing zamknięte zgłoszenia, które nadal nie mają raportu
+     * @param active  czy przebieg działa na tej instancji
+     */
+    public record Progress(String status, long lastZgloszenieId, long created, long missing, boolean active,
+                           LocalDateTime startedAt, LocalDateTime updatedAt, LocalDateTime finishedAt,
+                           String error) {}
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        try {
+            jobs.find(JOB_NAME)
+                    .filter(state -> state.status() == BatchJobState.Status.RUNNING)
+                    .ifPresent(state -> {
+                        log.info("Resuming raport backfill after zgloszenie {} ({} created so far)",
+                                state.lastId(), state.processed());
+                        launch();
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Cannot resume raport backfill: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Uruchamia (albo wznawia) zadanie w tle; gdy już działa na tej instancji - tylko zwraca stan.
+     */
+    public Progress start() {
+        if (!active.get()) {
+            tx.executeWithoutResult(status -> {
+                BatchJobState state = jobs.lock(JOB_NAME).orElse(null);
+                if (state == null || state.status() == BatchJobState.Status.COMPLETED) {
+                    jobs.restart(JOB_NAME, state != null);
+                } else {
+                    jobs.resume(JOB_NAME);
+                }
+            });
+            launch();
+        }
+        return progress();
+    }
+
+    public Progress progress() {
+        Long missing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM zgloszenia z WHERE " + MISSING_CONDITION,
+                Long.class, ZgloszenieStatus.DONE.name());
+        BatchJobState state = jobs.find(JOB_NAME).orElse(null);
+        if (state == null) {
+            return new Progress(null, 0, 0, missing != null ? missing : 0, false, null, null, null, null);
+        }
+        return new Progress(state.status().name(), state.lastId(), state.processed(), missing != null ? missing : 0,
+                active.get(), state.startedAt(), state.updatedAt(), state.finishedAt(), state.error());
+    }
+
+    private void launch() {
+        if (!active.compareAndSet(false, true)) return;
+        Thread worker = new Thread(() -> {
+            try {
+                run();
+            } finally {
+                active.set(false);
+            }
+        }, "raport-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        try {
+            int chunkSize = Math.max(1, properties.getChunkSize());
+            int rows;
+            do {
+                rows = runChunk(chunkSize);
+            } while (rows == chunkSize);
+            if (rows < 0) return; // zadanie zakończone / zatrzymane gdzie indziej
+            tx.executeWithoutResult(status -> jobs.finish(JOB_NAME, BatchJobState.Status.COMPLETED, null));
+            log.info("Raport backfill completed: {}", jobs.find(JOB_NAME).map(BatchJobState::processed).orElse(0L));
+        } catch (RuntimeException e) {
+            log.error("Raport backfill failed: {}", e.getMessage(), e);
+            try {
+                tx.executeWithoutResult(status -> jobs.finish(JOB_NAME, BatchJobState.Status.FAILED, e.getMessage()));
+            } catch (RuntimeException ignored) {
+                // stan zostaje RUNNING - wznowienie przy następnym starcie
+            }
+        }
+    }
+
+    /**
+     * Jedna paczka w jednej transakcji; zwraca liczbę zgłoszeń w paczce albo -1, gdy zadanie nie jest RUNNING.
+     */
+    private int runChunk(int chunkSize) {
+        Integer result = tx.execute(status -> {
+            BatchJobState state = jobs.lock(JOB_NAME).orElse(null);
+            if (state == null || state.status() != BatchJobState.Status.RUNNING) return -1;
+
+            List<Object[]> batch = new ArrayList<>(chunkSize);
+            long[] lastId = {state.lastId()};
+            jdbcTemplate.query("SELECT z.id, z.maszyna_id, z.typ, z.opis, z.accepted_at, z.completed_at, u.username " +
+                            "FROM zgloszenia z LEFT JOIN users u ON u.id = z.autor_id " +
+                            "WHERE z.id > ? AND " + MISSING_CONDITION + " ORDER BY z.id FETCH FIRST ? ROWS ONLY",
+                    rs -> {
+                        long id = rs.getLong(1);
+                        lastId[0] = id;
+                        Timestamp accepted = rs.getTimestamp(5);
+                        Timestamp completed = rs.getTimestamp(6);
+                        LocalDate day = completed != null ? completed.toLocalDateTime().toLocalDate() : LocalDate.now();
+                        Object[] values = {id, rs.getObject(2, Long.class), rs.getString(3), rs.getString(4),
+                                RaportStatus.ZAKONCZONE.name(), Date.valueOf(day),
+                                accepted != null ? Time.valueOf(accepted.toLocalDateTime().toLocalTime()) : null,
+                                completed != null ? Time.valueOf(completed.toLocalDateTime().toLocalTime()) : null,
+                                rs.getString(7), id};
+                        batch.add(dialect.isPostgres() ? Arrays.copyOf(values, 9) : values);
+                    },
+                    state.lastId(), ZgloszenieStatus.DONE.name(), chunkSize);
+            if (batch.isEmpty()) return 0;
+
+            int created = 0;
+            for (int count : jdbcTemplate.batchUpdate(insertSql(), batch)) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) created++;
+            }
+            jobs.checkpoint(JOB_NAME, lastId[0], state.processed() + created);
+            return batch.size();
+        });
+        return result != null ? result : -1;
+    }
+
+    /**
+     * Raport mógł powstać w międzyczasie (ZgloszenieToRaportListener) - wtedy wiersz jest pomijany.
+     */
+    private String insertSql() {
+        return dialect.isPostgres()
+                ? "INSERT INTO raporty (" + RAPORT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                  "ON CONFLICT (zgloszenie_id) DO NOTHING"
+                : "INSERT INTO raporty (" + RAPORT_COLUMNS + ") SELECT CAST(? AS BIGINT), CAST(? AS BIGINT), " +
+                  "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(4000)), CAST(? AS VARCHAR(40)), CAST(? AS DATE), " +
+                  "CAST(? AS TIME), CAST(? AS TIME), CAST(? AS VARCHAR(120)) " +
+                  "WHERE NOT EXISTS (SELECT 1 FROM raporty WHERE zgloszenie_id = ?)";
+    }
+}
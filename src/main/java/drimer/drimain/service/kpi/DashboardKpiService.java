@@ -0,0 +1,200 @@
+package drimer.drimain.service.kpi;
+
+import drimer.drimain.api.dto.DashboardKpiDTO;
+import drimer.drimain.api.dto.DashboardTrendPointDTO;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.DzialRepository;
+import drimer.drimain.repository.MaszynaRepository;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.projection.RaportKpiGroupRow;
+import drimer.drimain.repository.projection.ResolvedKpiGroupRow;
+import drimer.drimain.repository.projection.ZgloszenieKpiGroupRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * KPI dashboardu liczone z dziennych liczników: O(dni) wierszy kpi_daily zamiast całej historii.
+ * Dopóki liczniki nie są gotowe (pierwsze przeliczenie, app.kpi.aggregates-enabled=false),
+ * te same liczniki liczy baza zapytaniami GROUP BY po zakresie dashboardu.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardKpiService {
+
+    private final KpiAggregationService aggregationService;
+    private final ZgloszenieRepository zgloszenieRepository;
+    private final RaportRepository raportRepository;
+    private final MaszynaRepository maszynaRepository;
+    private final DzialRepository dzialRepository;
+
+    @Transactional(readOnly = true)
+    public DashboardKpiDTO dashboardKpi(int days) {
+        return dashboardKpi(days, aggregationService.isReady());
+    }
+
+    /**
+     * @param fromAggregates true = wiersze kpi_daily, false = GROUP BY na tabelach źródłowych
+     */
+    DashboardKpiDTO dashboardKpi(int days, boolean fromAggregates) {
+        int normalizedDays = normalizeDays(days);
+        LocalDate today = LocalDate.now();
+        LocalDate periodStart = today.minusDays(normalizedDays - 1L);
+        LocalDate previousPeriodEnd = periodStart.minusDays(1);
+        LocalDate previousPeriodStart = previousPeriodEnd.minusDays(normalizedDays - 1L);
+        LocalDate weekStart = today.minusDays(6);
+        LocalDate from = previousPeriodStart.isBefore(weekStart) ? previousPeriodStart : weekStart;
+
+        KpiCounters c = fromAggregates ? aggregationService.load(from) : groupedCounters(from);
+
+        DashboardKpiDTO dto = new DashboardKpiDTO();
+        dto.setZakresDni(normalizedDays);
+        dto.setOkresOd(periodStart);
+        dto.setOkresDo(today);
+
+        dto.setRaportyWOkresie(c.count(KpiMetric.RAPORT_STATUS, null, periodStart, today));
+        dto.setZgloszeniaWOkresieNowe(c.count(KpiMetric.ZGL_STATUS, ZgloszenieStatus.OPEN.name(), periodStart, today));
+        dto.setZgloszeniaWOkresieWToku(c.count(KpiMetric.ZGL_STATUS, ZgloszenieStatus.IN_PROGRESS.name(), periodStart, today));
+        dto.setZgloszeniaWOkresieZamkniete(c.count(KpiMetric.ZGL_STATUS, ZgloszenieStatus.DONE.name(), periodStart, today));
+        dto.setZgloszeniaWPoprzednimOkresie(c.count(KpiMetric.ZGL_STATUS, null, previousPeriodStart, previousPeriodEnd));
+        dto.setRaportyWPoprzednimOkresie(c.count(KpiMetric.RAPORT_STATUS, null, previousPeriodStart, previousPeriodEnd));
+
+        dto.setZgloszeniaZmianaProcent(percentChange(dto.getZgloszeniaWOkresieNowe(), dto.getZgloszeniaWPoprzednimOkresie()));
+        dto.setRaportyZmianaProcent(percentChange(dto.getRaportyWOkresie(), dto.getRaportyWPoprzednimOkresie()));
+
+        dto.setZgloszeniaTrend(buildTrend(c, KpiMetric.ZGL_STATUS, periodStart, today));
+        dto.setRaportyTrend(buildTrend(c, KpiMetric.RAPORT_STATUS, periodStart, today));
+
+        dto.setRaportyDzis(c.count(KpiMetric.RAPORT_STATUS, null, today, today));
+        // bez górnej granicy - raporty z datą naprawy w przyszłości też wchodzą do "7 dni"
+        dto.setRaporty7Dni(c.count(KpiMetric.RAPORT_STATUS, null, weekStart, null));
+
+        dto.setZgloszeniaDzisNowe(c.count(KpiMetric.ZGL_STATUS, ZgloszenieStatus.OPEN.name(), today, today));
+        dto.setZgloszeniaDzisWToku(c.count(KpiMetric.ZGL_STATUS, ZgloszenieStatus.IN_PROGRESS.name(), today, today));
+        dto.setZgloszeniaDzisZamkniete(c.count(KpiMetric.ZGL_STATUS, ZgloszenieStatus.DONE.name(), today, today));
+
+        long resolved = c.count(KpiMetric.ZGL_RESOLVED, null, periodStart, today);
+        double avgMinutes = resolved > 0 ? (double) c.minutes(KpiMetric.ZGL_RESOLVED, null, periodStart, today) / resolved : 0.0;
+        double avgHours = avgMinutes / 60.0;
+        dto.setSredniCzasRozwiazaniaGodziny(Math.round(avgHours * 10.0) / 10.0);
+
+        long maszynyRazem = maszynaRepository.count();
+        long maszynyWPrzestoju = zgloszenieRepository.countMaszynyWPrzestoju();
+        dto.setMaszynyRazem(maszynyRazem);
+        dto.setMaszynyWPrzestoju(maszynyWPrzestoju);
+        dto.setMaszynyWPracy(Math.max(0, maszynyRazem - maszynyWPrzestoju));
+
+        dto.setTopTypyZgloszen(top(c.countByDim(KpiMetric.ZGL_TYP, periodStart, today), 3));
+        dto.setZgloszeniaByDzial(byDzial(c.countByDim(KpiMetric.ZGL_DZIAL, periodStart, today)));
+
+        Map<String, Long> zglByStatus = new LinkedHashMap<>();
+        for (ZgloszenieStatus status : ZgloszenieStatus.values()) {
+            zglByStatus.put(status.name(), c.count(KpiMetric.ZGL_STATUS, status.name(), periodStart, today));
+        }
+        dto.setZgloszeniaByStatus(zglByStatus);
+
+        Map<String, Long> raportyByStatus = new LinkedHashMap<>();
+        for (RaportStatus status : RaportStatus.values()) {
+            raportyByStatus.put(status.name(), c.count(KpiMetric.RAPORT_STATUS, status.name(), periodStart, today));
+        }
+        dto.setRaportyByStatus(raportyByStatus);
+
+        dto.setLastUpdated(LocalDateTime.now());
+        return dto;
+    }
+
+    /**
+     * Liczniki z zapytań GROUP BY (dzień x status / typ / dział) od podanego dnia - bez ładowania encji.
+     */
+    private KpiCounters groupedCounters(LocalDate from) {
+        KpiCounters counters = new KpiCounters();
+        for (ZgloszenieKpiGroupRow row : zgloszenieRepository.countKpiGroupsSince(from.atStartOfDay())) {
+            KpiContribution.addZgloszenia(counters, row.getDay(), name(row.getStatus()), row.getTyp(), row.getDzialId(), row.getCnt());
+        }
+        for (ResolvedKpiGroupRow row : zgloszenieRepository.countResolvedSince(from.atStartOfDay())) {
+            KpiContribution.addResolved(counters, row.getDay(), row.getCnt(), row.getTotalMinutes() != null ? row.getTotalMinutes() : 0);
+        }
+        for (RaportKpiGroupRow row : raportRepository.countKpiGroupsSince(from)) {
+            KpiContribution.addRaporty(counters, row.getDay(), name(row.getStatus()), row.getCnt());
+        }
+        return counters;
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private List<DashboardTrendPointDTO> buildTrend(KpiCounters c, KpiMetric metric, LocalDate startInclusive, LocalDate endInclusive) {
+        List<DashboardTrendPointDTO> trend = new ArrayList<>();
+        for (LocalDate day = startInclusive; !day.isAfter(endInclusive); day = day.plusDays(1)) {
+            DashboardTrendPointDTO point = new DashboardTrendPointDTO();
+            point.setDate(day);
+            point.setCount(c.count(metric, null, day, day));
+            trend.add(point);
+        }
+        return trend;
+    }
+
+    private static Map<String, Long> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        Map.Entry::getValue,
+                        (a, b) -> a,
+                        LinkedHashMap::new
+                ));
+    }
+
+    /**
+     * Liczby per dział (id z kpi_daily -> nazwa), malejąco.
+     */
+    private Map<String, Long> byDzial(Map<String, Long> countsById) {
+        if (countsById.isEmpty()) return new LinkedHashMap<>();
+        Set<Long> ids = countsById.keySet().stream().map(Long::valueOf).collect(Collectors.toSet());
+        Map<Long, String> names = new HashMap<>();
+        dzialRepository.findAllById(ids).forEach(d -> names.put(d.getId(), d.getNazwa()));
+        Map<String, Long> byName = new HashMap<>();
+        countsById.forEach((id, count) ->
+                byName.merge(names.getOrDefault(Long.valueOf(id), "#" + id), count, Long::sum));
+        return byName.entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private int normalizeDays(int days) {
+        if (days < 1) {
+            return 1;
+        }
+        return Math.min(days, 30);
+    }
+
+    private double percentChange(long current, long previous) {
+        if (previous == 0) {
+            return current == 0 ? 0.0 : 100.0;
+        }
+        BigDecimal change = BigDecimal.valueOf(current - previous)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(previous), 2, RoundingMode.HALF_UP);
+        return change.doubleValue();
+    }
+}
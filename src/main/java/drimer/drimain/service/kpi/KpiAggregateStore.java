@@ -0,0 +1,144 @@
+package drimer.drimain.service.kpi;
+
+import drimer.drimain.config.DatabaseDialect;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dostęp JDBC do kpi_daily (dzienne liczniki) i kpi_source (zapamiętany wkład każdej encji).
+ * Metody zapisu zakładają aktywną transakcję wołającego.
+ */
+@Component
+@RequiredArgsConstructor
+public class KpiAggregateStore {
+
+    private static final String SOURCE_COLUMNS = "kpi_day, status, typ, dzial_id, resolved_day, resolution_minutes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect dialect;
+
+    public boolean hasContributions() {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM kpi_source FETCH FIRST 1 ROWS ONLY", Integer.class).isEmpty();
+    }
+
+    /**
+     * Zapamiętany wkład encji z blokadą wiersza - równoległe odświeżenia tej samej encji idą po kolei.
+     * Brakujący wiersz jest najpierw wstawiany jako pusty (bez dni), więc blokada obejmuje też pierwsze
+     * odświeżenie encji; pusty wiersz = brak wkładu (Optional.empty()).
+     */
+    public Optional<KpiContribution> lockContribution(KpiContribution.Source source, long id) {
+        jdbcTemplate.update(dialect.isPostgres()
+                ? "INSERT INTO kpi_source (source, source_id, resolution_minutes) VALUES (?, ?, 0) " +
+                  "ON CONFLICT (source, source_id) DO NOTHING"
+                : "MERGE INTO kpi_source t USING (VALUES (CAST(? AS VARCHAR(16)), CAST(? AS BIGINT))) " +
+                  "AS s(source, source_id) ON t.source = s.source AND t.source_id = s.source_id " +
+                  "WHEN NOT MATCHED THEN INSERT (source, source_id, resolution_minutes) " +
+                  "VALUES (s.source, s.source_id, 0)",
+                source.name(), id);
+        List<KpiContribution> rows = jdbcTemplate.query("SELECT " + SOURCE_COLUMNS +
+                        " FROM kpi_source WHERE source = ? AND source_id = ? FOR UPDATE",
+                (rs, i) -> new KpiContribution(source,
+                        toLocalDate(rs.getDate(1)), rs.getString(2), rs.getString(3),
+                        (Long) rs.getObject(4, Long.class), toLocalDate(rs.getDate(5)), rs.getLong(6)),
+                source.name(), id);
+        return rows.stream().findFirst().filter(c -> !c.isEmpty());
+    }
+
+    /**
+     * Nadpisuje wiersz zablokowany przez {@link #lockContribution}.
+     */
+    public void saveContribution(long id, KpiContribution contribution) {
+        jdbcTemplate.update("UPDATE kpi_source SET kpi_day = ?, status = ?, typ = ?, dzial_id = ?, " +
+                "resolved_day = ?, resolution_minutes = ? WHERE source = ? AND source_id = ?",
+                sourceValues(contribution, id));
+    }
+
+    public void deleteContribution(KpiContribution.Source source, long id) {
+        jdbcTemplate.update("DELETE FROM kpi_source WHERE source = ? AND source_id = ?", source.name(), id);
+    }
+
+    /**
+     * Dodaje przyrosty do liczników (upsert cnt = cnt + delta) w stałej kolejności kluczy.
+     */
+    public void apply(KpiCounters delta) {
+        List<Object[]> batch = new ArrayList<>();
+        delta.nonZero().forEach((key, v) -> batch.add(new Object[]{
+                Date.valueOf(key.day()), key.metric().name(), key.dim(), v[0], v[1]}));
+        if (batch.isEmpty()) return;
+        jdbcTemplate.batchUpdate(dialect.isPostgres()
+                ? "INSERT INTO kpi_daily (kpi_day, metric, dim, cnt, total_minutes) VALUES (?, ?, ?, ?, ?) " +
+                  "ON CONFLICT (kpi_day, metric, dim) DO UPDATE SET cnt = kpi_daily.cnt + EXCLUDED.cnt, " +
+                  "total_minutes = kpi_daily.total_minutes + EXCLUDED.total_minutes"
+                : "MERGE INTO kpi_daily t USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR(32)), " +
+                  "CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT))) " +
+                  "AS s(kpi_day, metric, dim, cnt, total_minutes) " +
+                  "ON t.kpi_day = s.kpi_day AND t.metric = s.metric AND t.dim = s.dim " +
+                  "WHEN MATCHED THEN UPDATE SET cnt = t.cnt + s.cnt, total_minutes = t.total_minutes + s.total_minutes " +
+                  "WHEN NOT MATCHED THEN INSERT (kpi_day, metric, dim, cnt, total_minutes) " +
+                  "VALUES (s.kpi_day, s.metric, s.dim, s.cnt, s.total_minutes)",
+                batch);
+    }
+
+    /**
+     * Liczniki od podanego dnia (włącznie, bez górnej granicy - raporty z przyszłą datą też się liczą).
+     */
+    public KpiCounters load(LocalDate from) {
+        KpiCounters counters = new KpiCounters();
+        jdbcTemplate.query("SELECT kpi_day, metric, dim, cnt, total_minutes FROM kpi_daily WHERE kpi_day >= ?",
+                rs -> {
+                    counters.add(new KpiKey(rs.getDate(1).toLocalDate(), KpiMetric.valueOf(rs.getString(2)),
+                            rs.getString(3)), rs.getLong(4), rs.getLong(5));
+                }, Date.valueOf(from));
+        return counters;
+    }
+
+    public KpiCounters loadAll() {
+        return load(LocalDate.of(1, 1, 1));
+    }
+
+    // --- pełne przeliczenie ---
+
+    /**
+     * Na PostgreSQL wstrzymuje odświeżenia przyrostowe (wątek kpi-refresh, nie wątki żądań) do końca
+     * transakcji uzgadniania; odczyty dashboardu idą dalej.
+     */
+    public void lockForReconcile() {
+        if (dialect.isPostgres()) jdbcTemplate.execute("LOCK TABLE kpi_source, kpi_daily IN EXCLUSIVE MODE");
+    }
+
+    public void clearContributions() {
+        jdbcTemplate.update("DELETE FROM kpi_source");
+    }
+
+    public void insertContributions(Map<Long, KpiContribution> contributions) {
+        List<Object[]> batch = new ArrayList<>();
+        contributions.forEach((id, c) -> batch.add(sourceValues(c, id)));
+        if (batch.isEmpty()) return;
+        jdbcTemplate.batchUpdate("INSERT INTO kpi_source (" + SOURCE_COLUMNS + ", source, source_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    public void replaceDaily(KpiCounters counters) {
+        jdbcTemplate.update("DELETE FROM kpi_daily");
+        apply(counters);
+    }
+
+    private static Object[] sourceValues(KpiContribution c, long id) {
+        return new Object[]{
+                c.day() != null ? Date.valueOf(c.day()) : null, c.status(), c.typ(), c.dzialId(),
+                c.resolvedDay() != null ? Date.valueOf(c.resolvedDay()) : null, c.resolutionMinutes(),
+                c.source().name(), id};
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,290 @@
+package drimer.drimain.service.kpi;
+
+import drimer.drimain.config.KpiProperties;
+import drimer.drimain.events.EventType;
+import drimer.drimain.events.RaportChangedEvent;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.projection.RaportKpiRow;
+import drimer.drimain.repository.projection.ZgloszenieKpiRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dzienne liczniki KPI dashboardu (kpi_daily) utrzymywane przyrostowo.
+ *
+ * - po commicie każdego ZgloszenieDomainEvent / RaportChangedEvent odświeżenie encji trafia do kolejki
+ *   wątku "kpi-refresh" (powtórzenia czekające w kolejce są łączone) - wątek żądania nie czeka na liczniki
+ *   ani na blokadę nocnego uzgadniania
+ * - odświeżenie: blokada wiersza kpi_source, dopiero potem odczyt encji projekcją, a różnica między nowym
+ *   a zapamiętanym wkładem trafia do kpi_daily (osobna transakcja - błąd liczników nie cofa zmiany biznesowej)
+ * - zdarzenie zgłoszenia odświeża też raport utworzony z niego przez ZgloszenieToRaportListener
+ * - nocne uzgodnienie (app.kpi.reconcile-cron) przelicza wszystko od zera i poprawia liczniki,
+ *   które rozjechały się ze źródłem (zmiany z pominięciem zdarzeń, np. backfill raportów, import SQL)
+ * Do zakończenia pierwszego przeliczenia {@link #isReady()} zwraca false (dashboard liczy ze źródła).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KpiAggregationService {
+
+    private final KpiAggregateStore store;
+    private final ZgloszenieRepository zgloszenieRepository;
+    private final RaportRepository raportRepository;
+    private final KpiProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Set<RefreshTask> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private TransactionTemplate refreshTx;
+    private TransactionTemplate reconcileTx;
+    private ExecutorService refresher;
+    private volatile boolean ready;
+
+    /**
+     * Odświeżenie wkładu encji; ZGLOSZENIE odświeża też raport utworzony ze zgłoszenia.
+     */
+    private record RefreshTask(KpiContribution.Source source, long id) {}
+
+    @PostConstruct
+    void init() {
+        refreshTx = new TransactionTemplate(transactionManager);
+        refreshTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reconcileTx = new TransactionTemplate(transactionManager);
+        refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "kpi-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready && properties.isAggregatesEnabled();
+    }
+
+    /**
+     * Pusta kpi_source = liczniki nigdy nie przeliczone (pierwsze wdrożenie) - przeliczenie w tle.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isAggregatesEnabled()) return;
+        if (store.hasContributions()) {
+            ready = true;
+            return;
+        }
+        Thread builder = new Thread(this::reconcileQuietly, "kpi-reconcile");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(cron = "#{kpiProperties.reconcileCron}")
+    public void scheduledReconcile() {
+        if (properties.isAggregatesEnabled()) reconcileQuietly();
+    }
+
+    /**
+     * Liczniki od podanego dnia (zakres dashboardu).
+     */
+    public KpiCounters load(LocalDate from) {
+        return store.load(from);
+    }
+
+    /**
+     * Czeka na wykonanie zakolejkowanych odświeżeń (testy, narzędzia administracyjne).
+     */
+    public boolean awaitIdle(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() - deadline > 0) return false;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onZgloszenieEvent(ZgloszenieDomainEvent event) {
+        Long id = event.getZgloszenieId();
+        if (!properties.isAggregatesEnabled() || id == null) return;
+        if (event.getType() != EventType.CREATED && event.getType() != EventType.UPDATED
+                && event.getType() != EventType.DELETED) return;
+        submit(new RefreshTask(KpiContribution.Source.ZGLOSZENIE, id));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRaportChanged(RaportChangedEvent event) {
+        if (!properties.isAggregatesEnabled() || event.getRaport() == null || event.getRaport().getId() == null) return;
+        submit(new RefreshTask(KpiContribution.Source.RAPORT, event.getRaport().getId()));
+    }
+
+    private void submit(RefreshTask task) {
+        if (!pending.add(task)) return; // już czeka w kolejce - i tak przeczyta najnowszy stan
+        inFlight.incrementAndGet();
+        try {
+            refresher.execute(() -> {
+                try {
+                    pending.remove(task);
+                    run(task);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // zamykanie aplikacji - liczniki dogoni nocne uzgodnienie
+            pending.remove(task);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void run(RefreshTask task) {
+        long id = task.id();
+        if (task.source() == KpiContribution.Source.RAPORT) {
+            refresh("raport " + id, () -> refresh(KpiContribution.Source.RAPORT, id,
+                    () -> raportRepository.findKpiRowById(id).map(KpiContribution::of)));
+            return;
+        }
+        refresh("zgloszenie " + id, () -> {
+            refresh(KpiContribution.Source.ZGLOSZENIE, id,
+                    () -> zgloszenieRepository.findKpiRowById(id).map(KpiContribution::of));
+            raportRepository.findKpiRowByZgloszenieId(id).ifPresent(row ->
+                    refresh(KpiContribution.Source.RAPORT, row.getId(),
+                            () -> raportRepository.findKpiRowById(row.getId()).map(KpiContribution::of)));
+        });
+    }
+
+    private void refresh(String what, Runnable body) {
+        try {
+            refreshTx.executeWithoutResult(status -> body.run());
+        } catch (RuntimeException e) {
+            // liczniki dogoni nocne uzgodnienie
+            log.warn("KPI counters update failed for {}: {}", what, e.getMessage());
+        }
+    }
+
+    /**
+     * Najpierw blokada wkładu, potem odczyt encji - odświeżenie, które czekało na blokadę, widzi stan
+     * zatwierdzony przez poprzednie, więc nie nadpisze nowszych danych starszymi.
+     */
+    private void refresh(KpiContribution.Source source, long id, Supplier<Optional<KpiContribution>> current) {
+        Optional<KpiContribution> previous = store.lockContribution(source, id);
+        KpiContribution next = current.get().filter(c -> !c.isEmpty()).orElse(null);
+        if (next == null) {
+            store.deleteContribution(source, id); // także pusty wiersz wstawiony przez lockContribution
+            if (previous.isEmpty()) return;
+        } else if (next.equals(previous.orElse(null))) {
+            return;
+        }
+
+        KpiCounters delta = new KpiCounters();
+        previous.ifPresent(c -> c.addTo(delta, -1));
+        if (next != null) next.addTo(delta, 1);
+        store.apply(delta);
+        if (next != null) store.saveContribution(id, next);
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("KPI reconcile failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Przelicza kpi_source i kpi_daily od zera w jednej transakcji.
+     *
+     * @return liczba liczników, które różniły się od pełnego przeliczenia
+     */
+    public synchronized int reconcile() {
+        long start = System.currentTimeMillis();
+        int batchSize = Math.max(100, properties.getReconcileBatchSize());
+        Integer corrected = reconcileTx.execute(status -> {
+            store.lockForReconcile();
+            KpiCounters before = store.loadAll();
+            store.clearContributions();
+            KpiCounters expected = new KpiCounters();
+
+            long afterId = 0;
+            List<ZgloszenieKpiRow> zRows;
+            do {
+                zRows = zgloszenieRepository.findKpiRowsAfter(afterId, PageRequest.of(0, batchSize));
+                Map<Long, KpiContribution> batch = new LinkedHashMap<>();
+                for (ZgloszenieKpiRow row : zRows) {
+                    collect(batch, expected, row.getId(), KpiContribution.of(row));
+                    afterId = row.getId();
+                }
+                store.insertContributions(batch);
+            } while (zRows.size() == batchSize);
+
+            afterId = 0;
+            List<RaportKpiRow> rRows;
+            do {
+                rRows = raportRepository.findKpiRowsAfter(afterId, PageRequest.of(0, batchSize));
+                Map<Long, KpiContribution> batch = new LinkedHashMap<>();
+                for (RaportKpiRow row : rRows) {
+                    collect(batch, expected, row.getId(), KpiContribution.of(row));
+                    afterId = row.getId();
+                }
+                store.insertContributions(batch);
+            } while (rRows.size() == batchSize);
+
+            store.replaceDaily(expected);
+            return expected.diffCount(before);
+        });
+        ready = true;
+        int result = corrected != null ? corrected : 0;
+        if (result > 0) {
+            log.info("KPI counters reconciled in {} ms, {} counters corrected",
+                    System.currentTimeMillis() - start, result);
+        } else {
+            log.debug("KPI counters reconciled in {} ms, no drift", System.currentTimeMillis() - start);
+        }
+        return result;
+    }
+
+    private static void collect(Map<Long, KpiContribution> batch, KpiCounters expected, Long id, KpiContribution c) {
+        if (c.isEmpty()) return;
+        batch.put(id, c);
+        c.addTo(expected, 1);
+    }
+}
@@ -0,0 +1,81 @@
+package drimer.drimain.service.kpi;
+
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.projection.RaportKpiRow;
+import drimer.drimain.repository.projection.ZgloszenieKpiRow;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Wkład jednego zgłoszenia / raportu do liczników kpi_daily (zapamiętywany w kpi_source).
+ * Zmiana encji = odjęcie starego wkładu i dodanie nowego, więc liczniki nie wymagają
+ * znajomości poprzedniego stanu w zdarzeniu.
+ *
+ * @param day               dzień zgłoszenia (data_godzina, inaczej created_at) / data_naprawy raportu
+ * @param resolvedDay       dzień zamknięcia - tylko DONE z accepted_at i completed_at
+ * @param resolutionMinutes pełne minuty accepted_at -> completed_at (jak Duration.toMinutes)
+ */
+public record KpiContribution(Source source, LocalDate day, String status, String typ, Long dzialId,
+                              LocalDate resolvedDay, long resolutionMinutes) {
+
+    public enum Source { ZGLOSZENIE, RAPORT }
+
+    public static KpiContribution of(ZgloszenieKpiRow row) {
+        LocalDateTime ts = row.getDataGodzina() != null ? row.getDataGodzina() : row.getCreatedAt();
+        LocalDate resolvedDay = null;
+        long minutes = 0;
+        if (row.getStatus() == ZgloszenieStatus.DONE && row.getAcceptedAt() != null && row.getCompletedAt() != null) {
+            resolvedDay = row.getCompletedAt().toLocalDate();
+            minutes = Duration.between(row.getAcceptedAt(), row.getCompletedAt()).toMinutes();
+        }
+        return new KpiContribution(Source.ZGLOSZENIE, ts != null ? ts.toLocalDate() : null,
+                row.getStatus() != null ? row.getStatus().name() : null, row.getTyp(), row.getDzialId(),
+                resolvedDay, minutes);
+    }
+
+    public static KpiContribution of(RaportKpiRow row) {
+        return new KpiContribution(Source.RAPORT, row.getDataNaprawy(),
+                row.getStatus() != null ? row.getStatus().name() : null, null, null, null, 0);
+    }
+
+    /**
+     * Nic nie liczy (brak daty) - nie trzeba go przechowywać.
+     */
+    public boolean isEmpty() {
+        return day == null && resolvedDay == null;
+    }
+
+    /**
+     * Dodaje (sign = 1) albo odejmuje (sign = -1) wkład od liczników.
+     */
+    public void addTo(KpiCounters counters, int sign) {
+        if (day != null) {
+            if (source == Source.RAPORT) addRaporty(counters, day, status, sign);
+            else addZgloszenia(counters, day, status, typ, dzialId, sign);
+        }
+        if (resolvedDay != null) addResolved(counters, resolvedDay, sign, sign * resolutionMinutes);
+    }
+
+    /**
+     * Liczniki grupy zgłoszeń z tego samego dnia (jedno zgłoszenie albo wiersz GROUP BY).
+     */
+    public static void addZgloszenia(KpiCounters counters, LocalDate day, String status, String typ, Long dzialId, long count) {
+        counters.add(new KpiKey(day, KpiMetric.ZGL_STATUS, dim(status)), count, 0);
+        if (typ != null && !typ.isBlank()) counters.add(new KpiKey(day, KpiMetric.ZGL_TYP, typ), count, 0);
+        if (dzialId != null) counters.add(new KpiKey(day, KpiMetric.ZGL_DZIAL, dzialId.toString()), count, 0);
+    }
+
+    public static void addResolved(KpiCounters counters, LocalDate day, long count, long minutes) {
+        counters.add(new KpiKey(day, KpiMetric.ZGL_RESOLVED, ""), count, minutes);
+    }
+
+    public static void addRaporty(KpiCounters counters, LocalDate day, String status, long count) {
+        counters.add(new KpiKey(day, KpiMetric.RAPORT_STATUS, dim(status)), count, 0);
+    }
+
+    private static String dim(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,92 @@
+package drimer.drimain.service.kpi;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Dzienne liczniki KPI w pamięci: wiersze kpi_daily z zakresu dashboardu albo przyrosty do zapisania.
+ */
+public class KpiCounters {
+
+    /** [liczba, suma minut] */
+    private final Map<KpiKey, long[]> values = new HashMap<>();
+
+    public void add(KpiKey key, long count, long minutes) {
+        long[] v = values.computeIfAbsent(key, k -> new long[2]);
+        v[0] += count;
+        v[1] += minutes;
+    }
+
+    /**
+     * Suma liczników metryki w dniach [from, to]; dim == null = wszystkie wymiary, to == null = bez górnej granicy.
+     */
+    public long count(KpiMetric metric, String dim, LocalDate from, LocalDate to) {
+        return sum(metric, dim, from, to, 0);
+    }
+
+    public long minutes(KpiMetric metric, String dim, LocalDate from, LocalDate to) {
+        return sum(metric, dim, from, to, 1);
+    }
+
+    /**
+     * Liczby per wymiar w dniach [from, to] (bez zerowych). Zwraca HashMap - kolejność jak przy Collectors.groupingBy.
+     */
+    public Map<String, Long> countByDim(KpiMetric metric, LocalDate from, LocalDate to) {
+        Map<String, Long> out = new HashMap<>();
+        values.forEach((key, v) -> {
+            if (key.metric() == metric && inRange(key.day(), from, to)) out.merge(key.dim(), v[0], Long::sum);
+        });
+        out.values().removeIf(c -> c == 0);
+        return out;
+    }
+
+    /**
+     * Wiersze z niezerową wartością, posortowane wg klucza (kolejność zapisu / blokad).
+     */
+    public Map<KpiKey, long[]> nonZero() {
+        Map<KpiKey, long[]> out = new TreeMap<>();
+        values.forEach((key, v) -> {
+            if (v[0] != 0 || v[1] != 0) out.put(key, v);
+        });
+        return out;
+    }
+
+    public boolean isEmpty() {
+        return nonZero().isEmpty();
+    }
+
+    /**
+     * Liczba kluczy, na których liczniki się różnią (przy uzgadnianiu z pełnym przeliczeniem).
+     */
+    public int diffCount(KpiCounters other) {
+        Map<KpiKey, long[]> a = nonZero();
+        Map<KpiKey, long[]> b = other.nonZero();
+        int diff = 0;
+        for (Map.Entry<KpiKey, long[]> e : a.entrySet()) {
+            long[] o = b.get(e.getKey());
+            if (o == null || o[0] != e.getValue()[0] || o[1] != e.getValue()[1]) diff++;
+        }
+        for (KpiKey key : b.keySet()) {
+            if (!a.containsKey(key)) diff++;
+        }
+        return diff;
+    }
+
+    private long sum(KpiMetric metric, String dim, LocalDate from, LocalDate to, int index) {
+        long total = 0;
+        for (Map.Entry<KpiKey, long[]> e : values.entrySet()) {
+            KpiKey key = e.getKey();
+            if (key.metric() == metric && (dim == null || Objects.equals(dim, key.dim())) && inRange(key.day(), from, to)) {
+                total += e.getValue()[index];
+            }
+        }
+        return total;
+    }
+
+    private static boolean inRange(LocalDate day, LocalDate from, LocalDate to) {
+        return !day.isBefore(from) && (to == null || !day.isAfter(to));
+    }
+}
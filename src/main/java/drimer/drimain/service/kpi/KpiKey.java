@@ -0,0 +1,20 @@
+package drimer.drimain.service.kpi;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Klucz wiersza kpi_daily. Porządek (dzień, metryka, wymiar) ustala kolejność blokowania wierszy
+ * przy zapisie przyrostów - dwie transakcje nie zakleszczą się na tych samych licznikach.
+ */
+public record KpiKey(LocalDate day, KpiMetric metric, String dim) implements Comparable<KpiKey> {
+
+    private static final Comparator<KpiKey> ORDER = Comparator.comparing(KpiKey::day)
+            .thenComparing(KpiKey::metric)
+            .thenComparing(KpiKey::dim);
+
+    @Override
+    public int compareTo(KpiKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,17 @@
+package drimer.drimain.service.kpi;
+
+/**
+ * Rodzaje dziennych liczników w kpi_daily (wymiar "dim" zależy od metryki).
+ */
+public enum KpiMetric {
+    /** zgłoszenia wg dnia zgłoszenia (data_godzina, inaczej created_at); dim = status ("" = brak) */
+    ZGL_STATUS,
+    /** zgłoszenia wg dnia zgłoszenia; dim = typ (tylko niepusty) */
+    ZGL_TYP,
+    /** zgłoszenia wg dnia zgłoszenia; dim = id działu */
+    ZGL_DZIAL,
+    /** zgłoszenia DONE wg dnia zamknięcia; dim = ""; minutes = suma minut accepted_at -> completed_at */
+    ZGL_RESOLVED,
+    /** raporty wg data_naprawy; dim = status ("" = brak) */
+    RAPORT_STATUS
+}
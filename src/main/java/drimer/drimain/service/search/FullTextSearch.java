@@ -0,0 +1,17 @@
+package drimer.drimain.service.search;
+
+import java.util.List;
+
+/**
+ * Silnik wyszukiwania pełnotekstowego: zwraca id dopasowanych rekordów posortowane wg trafności.
+ * Dalsze filtry (dział, status, uprawnienia) nakładane są w SQL - przez "id IN (...)" z kompletnej listy
+ * albo (PostgreSQL) warunkiem tsvector w tym samym zapytaniu, patrz FullTextSearchService.
+ */
+public interface FullTextSearch {
+
+    String name();
+
+    List<Long> searchZgloszenia(String query, int limit);
+
+    List<Long> searchRaporty(String query, int limit);
+}
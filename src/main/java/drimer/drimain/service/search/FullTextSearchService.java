@@ -0,0 +1,106 @@
+package drimer.drimain.service.search;
+
+import drimer.drimain.config.DatabaseDialect;
+import drimer.drimain.config.SearchProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Wybór silnika wyszukiwania (app.search.engine):
+ * - auto: PostgreSQL z kolumnami search_vector -> tsvector/GIN, w pozostałych przypadkach indeks n-gramowy
+ * - postgres / ngram: wymuszony silnik
+ * - like: brak indeksu, wołający używa LIKE (zachowanie sprzed wprowadzenia wyszukiwarki)
+ * Pusty Optional oznacza "silnik niedostępny" (albo zbyt wiele trafień n-gramów) - wołający wraca do LIKE.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FullTextSearchService {
+
+    private final PostgresFullTextSearch postgresSearch;
+    private final NgramFullTextSearch ngramSearch;
+    private final SearchProperties searchProperties;
+    private final DatabaseDialect dialect;
+
+    private volatile FullTextSearch engine;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void selectEngine() {
+        String configured = searchProperties.getEngine() == null ? "auto" : searchProperties.getEngine().trim().toLowerCase();
+        try {
+            switch (configured) {
+                case "like" -> engine = null;
+                case "postgres" -> engine = postgresSearch;
+                case "ngram" -> engine = useNgram();
+                default -> engine = dialect.isPostgres() && postgresSearch.isSchemaReady() ? postgresSearch : useNgram();
+            }
+        } catch (Exception e) {
+            log.warn("Full-text search engine selection failed, falling back to LIKE: {}", e.getMessage());
+            engine = null;
+        }
+        log.info("Full-text search engine: {}", engine == null ? "like" : engine.name());
+    }
+
+    /**
+     * Warunek frazy dla listy zgłoszeń; pusty Optional -> wołający używa LIKE.
+     */
+    public Optional<TextMatch> matchZgloszenia(String query) {
+        return match(query, FullTextSearch::searchZgloszenia);
+    }
+
+    public Optional<TextMatch> matchRaporty(String query) {
+        return match(query, FullTextSearch::searchRaporty);
+    }
+
+    /**
+     * Najlepsze app.search.max-hits id wg trafności - tylko do sortowania wyniku, nie do filtrowania.
+     */
+    public Optional<List<Long>> rankZgloszenia(String query) {
+        FullTextSearch current = available();
+        if (current == null || query == null || query.isBlank()) return Optional.empty();
+        return Optional.of(current.searchZgloszenia(query, searchProperties.getMaxHits()));
+    }
+
+    /**
+     * PostgreSQL: predykat tsvector w SQL listy (bez limitu trafień).
+     * Indeks n-gramowy: lista id, o ile zmieściła się w max-hits - obcięta lista zgubiłaby wiersze
+     * spełniające pozostałe filtry, więc wtedy wołający wraca do LIKE.
+     */
+    private Optional<TextMatch> match(String query, Search search) {
+        FullTextSearch current = available();
+        if (current == null || query == null || query.isBlank()) return Optional.empty();
+        if (current == postgresSearch) {
+            String tsQuery = PostgresFullTextSearch.toTsQuery(query);
+            return Optional.of(tsQuery.isEmpty() ? TextMatch.ids(List.of()) : TextMatch.tsQuery(tsQuery));
+        }
+        int maxHits = Math.max(1, searchProperties.getMaxHits());
+        List<Long> ids = search.apply(current, query, maxHits + 1);
+        if (ids.size() > maxHits) {
+            log.debug("Full-text search for '{}' exceeded {} hits, using LIKE", query, maxHits);
+            return Optional.empty();
+        }
+        return Optional.of(TextMatch.ids(ids));
+    }
+
+    private FullTextSearch available() {
+        FullTextSearch current = engine;
+        if (current == ngramSearch && !ngramSearch.isReady()) return null;
+        return current;
+    }
+
+    private FullTextSearch useNgram() {
+        ngramSearch.activate();
+        return ngramSearch;
+    }
+
+    @FunctionalInterface
+    private interface Search {
+        List<Long> apply(FullTextSearch engine, String query, int limit);
+    }
+}
@@ -0,0 +1,156 @@
+package drimer.drimain.service.search;
+
+import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.config.SearchProperties;
+import drimer.drimain.events.EventType;
+import drimer.drimain.events.RaportChangedEvent;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.projection.RaportSearchRow;
+import drimer.drimain.repository.projection.ZgloszenieSearchRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fallback wyszukiwania dla H2 (lub PostgreSQL bez migracji V34): indeks trigramowy w pamięci.
+ * - pełna budowa po aktywacji i cyklicznie co app.search.ngram-rebuild-interval-minutes
+ * - bieżące zmiany z ZgloszenieDomainEvent / RaportChangedEvent (po commicie)
+ * Dopóki pierwsza budowa się nie zakończy, {@link #isReady()} zwraca false (wołający używa LIKE).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NgramFullTextSearch implements FullTextSearch {
+
+    private final ZgloszenieRepository zgloszenieRepository;
+    private final RaportRepository raportRepository;
+    private final SearchProperties searchProperties;
+
+    private final NgramIndex zgloszenia = new NgramIndex();
+    private final NgramIndex raporty = new NgramIndex();
+
+    private volatile boolean active;
+    private volatile boolean ready;
+
+    @Override
+    public String name() {
+        return "ngram";
+    }
+
+    @Override
+    public List<Long> searchZgloszenia(String query, int limit) {
+        return zgloszenia.search(query, limit);
+    }
+
+    @Override
+    public List<Long> searchRaporty(String query, int limit) {
+        return raporty.search(query, limit);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Włącza indeks i buduje go w tle (start aplikacji nie czeka na załadowanie tekstów).
+     */
+    public void activate() {
+        if (active) return;
+        active = true;
+        Thread builder = new Thread(this::rebuild, "ngram-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(initialDelayString = "#{searchProperties.ngramRebuildIntervalMinutes * 60000}",
+            fixedDelayString = "#{searchProperties.ngramRebuildIntervalMinutes * 60000}")
+    public void scheduledRebuild() {
+        if (active) rebuild();
+    }
+
+    synchronized void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            int batch = Math.max(100, searchProperties.getNgramLoadBatchSize());
+
+            long zSeq = zgloszenia.beginRebuild();
+            NgramIndex.Builder zBuilder = new NgramIndex.Builder();
+            long afterId = 0;
+            List<ZgloszenieSearchRow> zRows;
+            do {
+                zRows = zgloszenieRepository.findSearchRowsAfter(afterId, PageRequest.of(0, batch));
+                for (ZgloszenieSearchRow row : zRows) {
+                    zBuilder.add(row.getId(), text(row));
+                    afterId = row.getId();
+                }
+            } while (zRows.size() == batch);
+            zgloszenia.replace(zBuilder.build(), zSeq);
+
+            long rSeq = raporty.beginRebuild();
+            NgramIndex.Builder rBuilder = new NgramIndex.Builder();
+            afterId = 0;
+            List<RaportSearchRow> rRows;
+            do {
+                rRows = raportRepository.findSearchRowsAfter(afterId, PageRequest.of(0, batch));
+                for (RaportSearchRow row : rRows) {
+                    rBuilder.add(row.getId(), join(row.getTypNaprawy(), row.getOpis()));
+                    afterId = row.getId();
+                }
+            } while (rRows.size() == batch);
+            raporty.replace(rBuilder.build(), rSeq);
+
+            ready = true;
+            log.info("N-gram search index rebuilt: {} zgloszenia, {} raporty in {} ms",
+                    zgloszenia.size(), raporty.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("N-gram search index rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onZgloszenieEvent(ZgloszenieDomainEvent event) {
+        if (!active || event.getZgloszenieId() == null) return;
+        if (event.getType() == EventType.DELETED) {
+            zgloszenia.remove(event.getZgloszenieId());
+            return;
+        }
+        if (event.getType() != EventType.CREATED && event.getType() != EventType.UPDATED) return;
+        try {
+            zgloszenieRepository.findSearchRowById(event.getZgloszenieId())
+                    .ifPresentOrElse(row -> zgloszenia.put(row.getId(), text(row)),
+                            () -> zgloszenia.remove(event.getZgloszenieId()));
+        } catch (Exception e) {
+            log.debug("Search index update skipped for zgloszenie {}: {}", event.getZgloszenieId(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRaportChanged(RaportChangedEvent event) {
+        RaportDTO dto = event.getRaport();
+        if (!active || dto == null || dto.getId() == null) return;
+        if ("DELETED".equals(event.getAction())) {
+            raporty.remove(dto.getId());
+        } else {
+            raporty.put(dto.getId(), join(dto.getTypNaprawy(), dto.getOpis()));
+        }
+    }
+
+    private static String text(ZgloszenieSearchRow row) {
+        return join(row.getTytul(), row.getTyp(), row.getOpis(), row.getImie(), row.getNazwisko());
+    }
+
+    private static String join(String... parts) {
+        return Stream.of(parts).filter(Objects::nonNull).collect(Collectors.joining(" "));
+    }
+}
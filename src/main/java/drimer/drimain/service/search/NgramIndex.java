@@ -0,0 +1,208 @@
+package drimer.drimain.service.search;
+
+import drimer.drimain.util.PolishTextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indeks trigramowy w pamięci (fallback dla H2 / bazy bez kolumn search_vector).
+ *
+ * Baza (snapshot) jest niezmienna: posortowane id dokumentów + listy postingów (int[] pozycji).
+ * Zmiany między przebudowami trafiają do mapy nadpisań, które mają pierwszeństwo przed snapshotem.
+ * Wyszukiwanie: przecięcie postingów trigramów z tokenów (>= 3 znaki), potem weryfikacja
+ * "zawiera" na znormalizowanym tekście i ranking po liczbie wystąpień.
+ */
+class NgramIndex {
+
+    private static final Snapshot EMPTY = new Snapshot(new long[0], new String[0], Map.of());
+
+    private volatile Snapshot snapshot = EMPTY;
+    private final Map<Long, Pending> overrides = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** Numer sekwencji do przekazania w {@link #replace(Snapshot, long)} - pobrać PRZED ładowaniem danych. */
+    long beginRebuild() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Podmienia snapshot; nadpisania zarejestrowane przed rozpoczęciem przebudowy są już w nim zawarte.
+     */
+    void replace(Snapshot next, long rebuildSequence) {
+        this.snapshot = next;
+        overrides.values().removeIf(o -> o.sequence() < rebuildSequence);
+    }
+
+    void put(long id, String text) {
+        overrides.put(id, new Pending(PolishTextNormalizer.fold(text), sequence.incrementAndGet()));
+    }
+
+    void remove(long id) {
+        overrides.put(id, new Pending(null, sequence.incrementAndGet()));
+    }
+
+    int size() {
+        return snapshot.ids.length + overrides.size();
+    }
+
+    List<Long> search(String query, int limit) {
+        List<String> tokens = PolishTextNormalizer.tokens(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        Snapshot snap = this.snapshot;
+        List<Hit> hits = new ArrayList<>();
+
+        int[] candidates = snap.candidates(tokens);
+        if (candidates == null) {
+            for (int ord = 0; ord < snap.ids.length; ord++) {
+                collect(hits, snap.ids[ord], snap.texts[ord], tokens, true);
+            }
+        } else {
+            for (int ord : candidates) {
+                collect(hits, snap.ids[ord], snap.texts[ord], tokens, true);
+            }
+        }
+        for (Map.Entry<Long, Pending> e : overrides.entrySet()) {
+            String text = e.getValue().text();
+            if (text != null) collect(hits, e.getKey(), text, tokens, false);
+        }
+
+        hits.sort(Comparator.comparingInt(Hit::score).reversed().thenComparing(Hit::id, Comparator.reverseOrder()));
+        return hits.stream().limit(limit).map(Hit::id).toList();
+    }
+
+    private void collect(List<Hit> hits, long id, String text, List<String> tokens, boolean fromSnapshot) {
+        if (fromSnapshot && overrides.containsKey(id)) return;
+        int score = 0;
+        for (String token : tokens) {
+            int occurrences = countOccurrences(text, token);
+            if (occurrences == 0) return;
+            score += occurrences;
+        }
+        hits.add(new Hit(id, score));
+    }
+
+    private static int countOccurrences(String text, String token) {
+        int count = 0;
+        int from = 0;
+        while ((from = text.indexOf(token, from)) >= 0) {
+            count++;
+            from += token.length();
+        }
+        return count;
+    }
+
+    /** Trigram spakowany do long (3 x 16 bitów); tylko litery/cyfry - tokeny zapytania nie zawierają separatorów. */
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private record Pending(String text, long sequence) {}
+
+    private record Hit(long id, int score) {}
+
+    static final class Snapshot {
+        private final long[] ids;
+        private final String[] texts;
+        private final Map<Long, int[]> postings;
+
+        private Snapshot(long[] ids, String[] texts, Map<Long, int[]> postings) {
+            this.ids = ids;
+            this.texts = texts;
+            this.postings = postings;
+        }
+
+        /**
+         * Pozycje dokumentów zawierających wszystkie trigramy tokenów; null = brak tokenu >= 3 znaki (pełny skan).
+         */
+        private int[] candidates(List<String> tokens) {
+            List<int[]> lists = new ArrayList<>();
+            for (String token : tokens) {
+                for (int i = 0; i + 3 <= token.length(); i++) {
+                    int[] list = postings.get(gram(token, i));
+                    if (list == null) return new int[0];
+                    lists.add(list);
+                }
+            }
+            if (lists.isEmpty()) return null;
+            lists.sort(Comparator.comparingInt(a -> a.length));
+            int[] result = lists.get(0);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i));
+            }
+            return result;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] out = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) i++;
+                else if (a[i] > b[j]) j++;
+                else { out[n++] = a[i]; i++; j++; }
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+
+    /**
+     * Buduje snapshot; dokumenty muszą być dodawane rosnąco po id (postingi pozostają posortowane).
+     */
+    static final class Builder {
+        private long[] ids = new long[1024];
+        private String[] texts = new String[1024];
+        private int count;
+        private final Map<Long, IntList> postings = new HashMap<>();
+
+        Builder add(long id, String text) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                texts = Arrays.copyOf(texts, count * 2);
+            }
+            String folded = PolishTextNormalizer.fold(text);
+            int ord = count++;
+            ids[ord] = id;
+            texts[ord] = folded;
+            for (int i = 0; i + 3 <= folded.length(); i++) {
+                if (!isWordChar(folded.charAt(i)) || !isWordChar(folded.charAt(i + 1)) || !isWordChar(folded.charAt(i + 2))) {
+                    continue;
+                }
+                postings.computeIfAbsent(gram(folded, i), k -> new IntList()).addIfLast(ord);
+            }
+            return this;
+        }
+
+        Snapshot build() {
+            Map<Long, int[]> frozen = new HashMap<>(postings.size() * 4 / 3 + 1);
+            postings.forEach((k, v) -> frozen.put(k, v.toArray()));
+            return new Snapshot(Arrays.copyOf(ids, count), Arrays.copyOf(texts, count), frozen);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        /** Dodaje pozycję, pomijając powtórzenia trigramu w tym samym dokumencie. */
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package drimer.drimain.service.search;
+
+import drimer.drimain.util.PolishTextNormalizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Wyszukiwanie po kolumnach search_vector (GIN) z V34__add_full_text_search.sql.
+ * Każdy token zapytania dopasowywany jako prefiks słowa ("lozys" -> "łożysko"), tokeny łączone AND.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostgresFullTextSearch implements FullTextSearch {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String name() {
+        return "postgres";
+    }
+
+    @Override
+    public List<Long> searchZgloszenia(String query, int limit) {
+        return search("zgloszenia", query, limit);
+    }
+
+    @Override
+    public List<Long> searchRaporty(String query, int limit) {
+        return search("raporty", query, limit);
+    }
+
+    /**
+     * Sprawdza, czy migracja V34 została zastosowana (kolumny search_vector istnieją).
+     */
+    public boolean isSchemaReady() {
+        Integer columns = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns " +
+                        "WHERE table_name IN ('zgloszenia', 'raporty') AND column_name = 'search_vector'",
+                Integer.class);
+        return columns != null && columns >= 2;
+    }
+
+    private List<Long> search(String table, String query, int limit) {
+        String tsQuery = toTsQuery(query);
+        if (tsQuery.isEmpty()) return List.of();
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE search_vector @@ to_tsquery('simple', ?) " +
+                        "ORDER BY ts_rank(search_vector, to_tsquery('simple', ?)) DESC, id DESC LIMIT ?",
+                Long.class, tsQuery, tsQuery, limit);
+    }
+
+    /**
+     * Tokeny zawierają wyłącznie litery/cyfry, więc nie da się nimi wstrzyknąć operatorów tsquery.
+     */
+    static String toTsQuery(String query) {
+        return PolishTextNormalizer.tokens(query).stream()
+                .map(t -> t + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,19 @@
+package drimer.drimain.service.search;
+
+import java.util.List;
+
+/**
+ * Dopasowanie frazy wyszukiwania:
+ * - tsQuery != null: warunek tsvector wykonywany w tym samym SQL co pozostałe filtry (PostgreSQL)
+ * - ids != null: kompletna lista id wg trafności (indeks n-gramowy), filtr "id IN (...)"
+ */
+public record TextMatch(String tsQuery, List<Long> ids) {
+
+    public static TextMatch tsQuery(String tsQuery) {
+        return new TextMatch(tsQuery, null);
+    }
+
+    public static TextMatch ids(List<Long> ids) {
+        return new TextMatch(null, ids);
+    }
+}
@@ -0,0 +1,169 @@
+package drimer.drimain.service.sse;
+
+import drimer.drimain.events.EventType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+/**
+ * Subskrybent SSE: filtr + ograniczona kolejka wysyłki.
+ *
+ * Kolejkę opróżnia co najwyżej jedno zadanie naraz (flaga drainScheduled), więc kolejność zdarzeń
+ * dla klienta jest zachowana. Zdarzenie z kluczem, który już czeka w kolejce, zastępuje poprzednie
+ * na jego miejscu (coalescer łączy oba); przy pełnej kolejce decyduje overflow policy.
+ * Odrzucenie zdarzenia z id (DROPPED_EVENT) nie może przejść po cichu - wołający zastępuje kolejkę
+ * ramką RESYNC ({@link #resync(SseFrame)}), jak przy luce większej niż bufor odtwarzania.
+ */
+public class SseClient {
+
+    /**
+     * DROPPED_OLDEST - odrzucony znacznik (INIT / HEARTBEAT), DROPPED_EVENT - odrzucone zdarzenie z id.
+     */
+    public enum Offer { QUEUED, COALESCED, DROPPED_OLDEST, DROPPED_EVENT, OVERFLOW }
+
+    private final String id;
+    private final SseEmitter emitter;
+    private final Set<EventType> eventTypes;
+    private final Long dzialId;
+    private final Long autorId;
+    private final boolean full;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private final int capacity;
+    private final BinaryOperator<SseFrame> coalescer;
+    private final ArrayDeque<Slot> queue = new ArrayDeque<>();
+    private final Map<String, Slot> queuedByKey = new HashMap<>();
+    private boolean drainScheduled;
+    private long dropped;
+
+    public SseClient(String id, SseEmitter emitter, Set<EventType> eventTypes, Long dzialId, Long autorId,
+                     boolean full, int capacity, BinaryOperator<SseFrame> coalescer) {
+        this.id = id;
+        this.emitter = emitter;
+        this.eventTypes = eventTypes;
+        this.dzialId = dzialId;
+        this.autorId = autorId;
+        this.full = full;
+        this.capacity = Math.max(1, capacity);
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * @param dropOldest false = przy pełnej kolejce nic nie jest dodawane (OVERFLOW, wywołujący rozłącza klienta)
+     */
+    public synchronized Offer offer(SseFrame frame, boolean dropOldest) {
+        if (frame.coalesceKey() != null) {
+            Slot existing = queuedByKey.get(frame.coalesceKey());
+            if (existing != null) {
+                existing.frame = coalescer.apply(existing.frame, frame);
+                return Offer.COALESCED;
+            }
+        }
+        Offer result = Offer.QUEUED;
+        if (queue.size() >= capacity) {
+            if (!dropOldest) return Offer.OVERFLOW;
+            Slot oldest = queue.poll();
+            forget(oldest);
+            dropped++;
+            result = oldest != null && oldest.frame.id() != null ? Offer.DROPPED_EVENT : Offer.DROPPED_OLDEST;
+        }
+        Slot slot = new Slot(frame);
+        queue.add(slot);
+        if (frame.coalesceKey() != null) queuedByKey.put(frame.coalesceKey(), slot);
+        return result;
+    }
+
+    /**
+     * Zastępuje całą kolejkę jedną ramką RESYNC (klient przeładowuje stan i wznawia od jej id).
+     * Zwraca liczbę zastąpionych ramek.
+     */
+    public synchronized int resync(SseFrame resync) {
+        int superseded = queue.size();
+        queue.clear();
+        queuedByKey.clear();
+        queue.add(new Slot(resync));
+        dropped += superseded;
+        return superseded;
+    }
+
+    /**
+     * true = wywołujący ma zlecić drain (kolejka niepusta i nikt jej jeszcze nie opróżnia).
+     */
+    public synchronized boolean tryScheduleDrain() {
+        if (drainScheduled || queue.isEmpty()) return false;
+        drainScheduled = true;
+        return true;
+    }
+
+    /**
+     * Wysyła do maxFrames zdarzeń; false = połączenie zerwane.
+     */
+    public boolean drain(int maxFrames, Runnable onSent) {
+        for (int i = 0; i < maxFrames; i++) {
+            SseFrame frame = poll();
+            if (frame == null) break;
+            try {
+                emitter.send(frame.payload());
+                onSent.run();
+            } catch (IOException | IllegalStateException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Koniec zadania drain; true = kolejka nadal niepusta, flaga zostaje i wywołujący zleca kolejny drain.
+     */
+    public synchronized boolean releaseDrain() {
+        drainScheduled = !queue.isEmpty();
+        return drainScheduled;
+    }
+
+    public synchronized void abortDrain() {
+        drainScheduled = false;
+    }
+
+    private synchronized SseFrame poll() {
+        Slot slot = queue.poll();
+        if (slot == null) return null;
+        forget(slot);
+        return slot.frame;
+    }
+
+    private void forget(Slot slot) {
+        if (slot != null && slot.frame.coalesceKey() != null) {
+            queuedByKey.remove(slot.frame.coalesceKey(), slot);
+        }
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    public String id() { return id; }
+    public SseEmitter emitter() { return emitter; }
+    public Set<EventType> eventTypes() { return eventTypes; }
+    public Long dzialId() { return dzialId; }
+    public Long autorId() { return autorId; }
+    public boolean full() { return full; }
+    public LocalDateTime createdAt() { return createdAt; }
+
+    private static final class Slot {
+        SseFrame frame;
+
+        Slot(SseFrame frame) {
+            this.frame = frame;
+        }
+    }
+}
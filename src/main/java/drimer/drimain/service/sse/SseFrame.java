@@ -0,0 +1,16 @@
+package drimer.drimain.service.sse;
+
+import drimer.drimain.api.dto.ZgloszenieEventDTO;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.util.Set;
+
+/**
+ * Zdarzenie SSE zserializowane raz (JSON) i wysyłane bez zmian do wszystkich subskrybentów.
+ *
+ * @param id          identyfikator zdarzenia (pole "id:", Last-Event-ID); null dla INIT / HEARTBEAT
+ * @param coalesceKey zdarzenia z tym samym kluczem czekające w kolejce klienta są łączone (null = bez łączenia)
+ * @param event       źródłowe DTO (do łączenia); null dla INIT / HEARTBEAT
+ */
+public record SseFrame(String name, Long id, String coalesceKey, ZgloszenieEventDTO event, Set<DataWithMediaType> payload) {
+}
@@ -0,0 +1,82 @@
+package drimer.drimain.service.sse;
+
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.api.dto.ZgloszenieEventDTO;
+import drimer.drimain.events.EventType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pierścień ostatnich zdarzeń SSE do odtworzenia po ponownym połączeniu (nagłówek Last-Event-ID).
+ *
+ * Identyfikatory nadaje outbox (ZgloszenieEventMessage.eventId: id wiersza event_outbox i pozycja
+ * w paczce), więc są takie same na każdej instancji i rosną w kolejności commitów - klient może wznowić
+ * strumień na innej instancji niż ta, z którą był połączony. Id nie są kolejnymi liczbami, dlatego bufor
+ * pamięta granicę, od której ma komplet zdarzeń: id ostatniego wypchniętego wpisu albo (po starcie)
+ * tuż przed pierwszym odebranym. Last-Event-ID sprzed tej granicy, sprzed restartu instancji
+ * albo nowszy niż wszystko, co ta instancja już odebrała, kończy się RESYNC.
+ */
+public class SseReplayBuffer {
+
+    /**
+     * @param id      null = zdarzenie spoza outboxu (bez id SSE, nie jest buforowane)
+     * @param routing stany zgłoszenia do dopasowania filtra dział/autor; null = nieznane (pasuje do wszystkich)
+     */
+    public record Entry(Long id, EventType type, ZgloszenieEventDTO event, ZgloszenieDTO snapshot,
+                        List<SseRoutingIndex.Key> routing) {}
+
+    private final Entry[] ring;
+    private int head; // pozycja następnego zapisu
+    private int size;
+    private long newestId;
+    // bufor ma wszystkie zdarzenia o id > completeAfter
+    private long completeAfter = Long.MAX_VALUE;
+
+    public SseReplayBuffer(int capacity) {
+        this.ring = new Entry[Math.max(1, capacity)];
+    }
+
+    /**
+     * Zapamiętuje zdarzenie (najstarsze wypada przy pełnym buforze). Zdarzenie bez id albo z id nie większym
+     * niż ostatnie jest tylko opakowywane - wysyłka bez odtwarzania.
+     */
+    public synchronized Entry append(Long id, EventType type, ZgloszenieEventDTO event, ZgloszenieDTO snapshot,
+                                     List<SseRoutingIndex.Key> routing) {
+        Entry entry = new Entry(id, type, event, snapshot, routing);
+        if (id == null || (completeAfter != Long.MAX_VALUE && id <= newestId)) {
+            return entry;
+        }
+        if (completeAfter == Long.MAX_VALUE) {
+            completeAfter = id - 1;
+        } else if (size == ring.length) {
+            completeAfter = ring[head].id();
+        }
+        ring[head] = entry;
+        head = (head + 1) % ring.length;
+        if (size < ring.length) size++;
+        newestId = id;
+        return entry;
+    }
+
+    /**
+     * Zdarzenia po lastEventId (rosnąco); empty = luka większa niż bufor albo nieznane id (RESYNC).
+     */
+    public synchronized Optional<List<Entry>> since(long lastEventId) {
+        if (size == 0 || lastEventId < completeAfter || lastEventId > newestId) return Optional.empty();
+        List<Entry> missed = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Entry entry = ring[(head - size + i + ring.length) % ring.length];
+            if (entry.id() > lastEventId) missed.add(entry);
+        }
+        return Optional.of(missed);
+    }
+
+    /**
+     * Id ostatniego zdarzenia (po RESYNC klient wznawia od tego miejsca); null, gdy jeszcze nic nie odebrano.
+     */
+    public synchronized Long lastId() {
+        return size == 0 ? null : newestId;
+    }
+}
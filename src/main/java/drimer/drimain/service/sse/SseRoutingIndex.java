@@ -0,0 +1,97 @@
+package drimer.drimain.service.sse;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indeks subskrybentów po filtrze: klient z dzialId trafia do koszyka działu (autorId, jeśli podany,
+ * sprawdzany przy dostarczeniu), klient tylko z autorId - do koszyka autora, bez filtra - do wspólnego.
+ * Zdarzenie odwiedza więc tylko klientów bez filtra i koszyki swojego działu/autora.
+ */
+public class SseRoutingIndex {
+
+    private final Set<SseClient> unfiltered = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<SseClient>> byDzial = new ConcurrentHashMap<>();
+    private final Map<Long, Set<SseClient>> byAutor = new ConcurrentHashMap<>();
+
+    public void add(SseClient client) {
+        if (client.dzialId() != null) {
+            addTo(byDzial, client.dzialId(), client);
+        } else if (client.autorId() != null) {
+            addTo(byAutor, client.autorId(), client);
+        } else {
+            unfiltered.add(client);
+        }
+    }
+
+    public void remove(SseClient client) {
+        if (client.dzialId() != null) {
+            removeFrom(byDzial, client.dzialId(), client);
+        } else if (client.autorId() != null) {
+            removeFrom(byAutor, client.autorId(), client);
+        } else {
+            unfiltered.remove(client);
+        }
+    }
+
+    /**
+     * Klienci, których filtr dział/autor pasuje do któregokolwiek ze stanów zgłoszenia
+     * (np. przed i po zmianie działu - oba działy powinny dostać zdarzenie).
+     */
+    public Set<SseClient> match(Collection<Key> states) {
+        Set<SseClient> result = new LinkedHashSet<>(unfiltered);
+        for (Key state : states) {
+            if (state.dzialId() != null) {
+                for (SseClient client : byDzial.getOrDefault(state.dzialId(), Set.of())) {
+                    if (client.autorId() == null || Objects.equals(client.autorId(), state.autorId())) {
+                        result.add(client);
+                    }
+                }
+            }
+            if (state.autorId() != null) {
+                result.addAll(byAutor.getOrDefault(state.autorId(), Set.of()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ten sam warunek co match() dla pojedynczego klienta (odtwarzanie zdarzeń z bufora);
+     * states == null = stan nieznany, pasuje każdy.
+     */
+    public static boolean matches(SseClient client, Collection<Key> states) {
+        if (states == null || (client.dzialId() == null && client.autorId() == null)) return true;
+        for (Key state : states) {
+            if (client.dzialId() != null) {
+                if (Objects.equals(client.dzialId(), state.dzialId())
+                        && (client.autorId() == null || Objects.equals(client.autorId(), state.autorId()))) {
+                    return true;
+                }
+            } else if (Objects.equals(client.autorId(), state.autorId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addTo(Map<Long, Set<SseClient>> index, Long key, SseClient client) {
+        index.compute(key, (k, clients) -> {
+            Set<SseClient> set = clients != null ? clients : ConcurrentHashMap.newKeySet();
+            set.add(client);
+            return set;
+        });
+    }
+
+    private static void removeFrom(Map<Long, Set<SseClient>> index, Long key, SseClient client) {
+        index.computeIfPresent(key, (k, clients) -> {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    public record Key(Long dzialId, Long autorId) {}
+}
@@ -0,0 +1,64 @@
+package drimer.drimain.service.sse;
+
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.api.mapper.ZgloszenieMapper;
+import drimer.drimain.config.SseProperties;
+import drimer.drimain.repository.ZgloszenieRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ostatnie znane snapshoty zgłoszeń (LRU, app.sse.snapshot-cache-size).
+ *
+ * Zasilany snapshotami z ZgloszenieCommandService (w zdarzeniu domenowym), więc zdarzenia SSE
+ * dla subskrypcji z filtrem dzialId/autorId albo full=true zwykle nie potrzebują zapytania.
+ * Zdarzenia bez snapshotu (załączniki) biorą stan z cache; brak w cache = jedno zapytanie po PK.
+ */
+@Component
+@RequiredArgsConstructor
+public class ZgloszenieSnapshotCache {
+
+    private final SseProperties sseProperties;
+    private final ZgloszenieRepository zgloszenieRepository;
+
+    private final Map<Long, ZgloszenieDTO> snapshots = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ZgloszenieDTO> eldest) {
+            return size() > Math.max(1, sseProperties.getSnapshotCacheSize());
+        }
+    };
+
+    /**
+     * Zapisuje snapshot i zwraca poprzedni (np. do powiadomienia działu, z którego zgłoszenie odeszło).
+     */
+    public synchronized ZgloszenieDTO put(ZgloszenieDTO snapshot) {
+        return snapshots.put(snapshot.getId(), snapshot);
+    }
+
+    public synchronized ZgloszenieDTO get(Long id) {
+        return snapshots.get(id);
+    }
+
+    public synchronized void evict(Long id) {
+        snapshots.remove(id);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ZgloszenieDTO> resolve(Long id) {
+        if (id == null) return Optional.empty();
+        ZgloszenieDTO cached = get(id);
+        if (cached != null) return Optional.of(cached);
+        Optional<ZgloszenieDTO> loaded = zgloszenieRepository.findById(id).map(ZgloszenieMapper::toDto);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    public synchronized int size() {
+        return snapshots.size();
+    }
+}
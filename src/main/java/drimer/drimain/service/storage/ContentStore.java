@@ -0,0 +1,219 @@
+package drimer.drimain.service.storage;
+
+import drimer.drimain.config.AttachmentStorageConfig;
+import drimer.drimain.repository.AttachmentRepository;
+import drimer.drimain.repository.InstructionAttachmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Magazyn treści adresowany skrótem: &lt;base-path&gt;/cas/ab/cd/&lt;sha256&gt;.
+ * Ta sama treść (np. instrukcja maszyny dołączona do wielu zgłoszeń) zapisywana jest na dysku raz.
+ *
+ * Licznik referencji = liczba wierszy attachments / instruction_attachments z danym blob_sha256
+ * (liczony zapytaniem po indeksie, więc nie rozjeżdża się z danymi przy rollbacku).
+ * Usuwanie rekordu nie kasuje pliku - robi to GC, dla plików bez referencji starszych niż okres karencji.
+ * Okres karencji chroni uploady, których transakcja jeszcze się nie zakończyła; trafienie w istniejący
+ * plik odświeża jego mtime. Sprawdzenie-i-odświeżenie w put() oraz ponowne sprawdzenie mtime i usunięcie
+ * w GC idą pod tą samą blokadą skrótu, więc deduplikacja nie może wskazać pliku usuwanego właśnie przez GC.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentStore {
+
+    static final String CAS_DIR = "cas";
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final AttachmentStorageConfig storageConfig;
+    private final AttachmentRepository attachmentRepository;
+    private final InstructionAttachmentRepository instructionAttachmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Object[] hashLocks = newLocks();
+
+    public record Stored(String sha256, long size, boolean deduplicated) {}
+
+    public record GcResult(int scanned, int deleted, long freedBytes) {}
+
+    public record Report(long references, long logicalBytes, long blobs, long physicalBytes, long savedBytes,
+                         long legacyFiles, long legacyBytes,
+                         long raportPhotos, long raportPhotoBytes, long raportPhotoDuplicateBytes) {}
+
+    /**
+     * Zapisuje strumień (jeden przebieg: skrót + walidacja nagłówka); gdy treść już istnieje,
+     * plik tymczasowy jest usuwany i zwracana jest referencja do istniejącego pliku.
+     */
+    public Stored put(InputStream in, long maxBytes, Consumer<byte[]> firstChunk) throws IOException {
+        Path root = casRoot();
+        Files.createDirectories(root);
+        Path tmp = Files.createTempFile(root, ".upload-", ".tmp");
+        try {
+            StreamingUpload.Result written = StreamingUpload.writeTemp(in, tmp, maxBytes, firstChunk);
+            Path target = path(written.sha256());
+            synchronized (lockFor(written.sha256())) {
+                if (Files.exists(target)) {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    return new Stored(written.sha256(), written.size(), true);
+                }
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException concurrent) {
+                    // równoległy upload tej samej treści zdążył pierwszy
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    return new Stored(written.sha256(), written.size(), true);
+                }
+                return new Stored(written.sha256(), written.size(), false);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Path path(String sha256) {
+        if (sha256 == null || !SHA256_HEX.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Invalid content hash");
+        }
+        return casRoot().resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * Plik z treścią rekordu: magazyn CAS albo (stare rekordy) plik pod storedFilename w katalogu bazowym.
+     */
+    public Path locate(String blobSha256, String storedFilename) {
+        if (blobSha256 != null) return path(blobSha256);
+        Path base = baseRoot();
+        Path filePath = base.resolve(storedFilename).normalize();
+        if (!filePath.startsWith(base) || filePath.equals(base)) {
+            log.error("Path traversal attempt detected: requested path={}, storage path={}", filePath, base);
+            throw new IllegalArgumentException("Invalid file path");
+        }
+        return filePath;
+    }
+
+    public long referenceCount(String sha256) {
+        return attachmentRepository.countByBlobSha256(sha256)
+                + instructionAttachmentRepository.countByBlobSha256(sha256);
+    }
+
+    @Scheduled(initialDelayString = "#{attachmentStorageConfig.contentGcIntervalMinutes * 60000}",
+            fixedDelayString = "#{attachmentStorageConfig.contentGcIntervalMinutes * 60000}")
+    public void scheduledGc() {
+        try {
+            collectGarbage();
+        } catch (Exception e) {
+            log.warn("Content store GC failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Usuwa pliki bez referencji (i porzucone pliki tymczasowe) starsze niż okres karencji.
+     */
+    public synchronized GcResult collectGarbage() throws IOException {
+        Path root = casRoot();
+        if (!Files.isDirectory(root)) return new GcResult(0, 0, 0);
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(Math.max(0, storageConfig.getContentGcGraceMinutes())));
+        int scanned = 0;
+        int deleted = 0;
+        long freed = 0;
+        List<Path> files;
+        try (var walk = Files.walk(root, 3)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            boolean temp = name.startsWith(".upload-");
+            if (!temp && !SHA256_HEX.matcher(name).matches()) continue;
+            scanned++;
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) continue;
+                if (temp) {
+                    long size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        deleted++;
+                        freed += size;
+                    }
+                    continue;
+                }
+                if (referenceCount(name) > 0) continue;
+                synchronized (lockFor(name)) {
+                    // put() mógł w międzyczasie zdeduplikować tę treść (odświeżony mtime)
+                    if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) continue;
+                    long size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        deleted++;
+                        freed += size;
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Skipping {} during GC: {}", file, e.getMessage());
+            }
+        }
+        log.info("Content store GC: scanned {}, deleted {} ({} bytes)", scanned, deleted, freed);
+        return new GcResult(scanned, deleted, freed);
+    }
+
+    /**
+     * Oszczędność z deduplikacji: rozmiar logiczny (suma rozmiarów rekordów) vs fizyczny (unikalne treści).
+     * Zdjęcia raportów są w bazie (raport_zdjecia_blob) - raportowane osobno jako duplikaty między raportami.
+     */
+    public Report report() {
+        String refs = "SELECT blob_sha256 AS sha, file_size AS size FROM attachments WHERE blob_sha256 IS NOT NULL " +
+                "UNION ALL SELECT blob_sha256, file_size FROM instruction_attachments WHERE blob_sha256 IS NOT NULL";
+        long[] logical = aggregate("SELECT COUNT(*), COALESCE(SUM(size), 0) FROM (" + refs + ") r");
+        long[] physical = aggregate("SELECT COUNT(*), COALESCE(SUM(size), 0) FROM " +
+                "(SELECT sha, MAX(size) AS size FROM (" + refs + ") r GROUP BY sha) d");
+        long[] legacy = aggregate("SELECT COUNT(*), COALESCE(SUM(size), 0) FROM (" +
+                "SELECT file_size AS size FROM attachments WHERE blob_sha256 IS NULL " +
+                "UNION ALL SELECT file_size FROM instruction_attachments WHERE blob_sha256 IS NULL) l");
+        long[] photos = aggregate("SELECT COUNT(*), COALESCE(SUM(file_size), 0) FROM raport_zdjecia_blob");
+        long[] uniquePhotos = aggregate("SELECT COUNT(*), COALESCE(SUM(size), 0) FROM " +
+                "(SELECT sha256, MAX(file_size) AS size FROM raport_zdjecia_blob WHERE sha256 IS NOT NULL GROUP BY sha256) d");
+        long[] unhashedPhotos = aggregate("SELECT COUNT(*), COALESCE(SUM(file_size), 0) FROM raport_zdjecia_blob WHERE sha256 IS NULL");
+        return new Report(logical[0], logical[1], physical[0], physical[1], logical[1] - physical[1],
+                legacy[0], legacy[1],
+                photos[0], photos[1], photos[1] - uniquePhotos[1] - unhashedPhotos[1]);
+    }
+
+    private long[] aggregate(String sql) {
+        return jdbcTemplate.queryForObject(sql, (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    private Object lockFor(String sha256) {
+        return hashLocks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new Object();
+        return locks;
+    }
+
+    private Path casRoot() {
+        return baseRoot().resolve(CAS_DIR);
+    }
+
+    private Path baseRoot() {
+        return Paths.get(storageConfig.getBasePath()).toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,93 @@
+package drimer.drimain.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+/**
+ * Jednoprzebiegowy zapis uploadu: strumień czytany raz przez DigestInputStream (SHA-256),
+ * pierwszy bufor przekazywany do walidacji (magic bytes), treść zapisywana do pliku tymczasowego
+ * (ContentStore przenosi go atomowo na miejsce). Pamięć stała niezależnie od rozmiaru pliku.
+ */
+public final class StreamingUpload {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private StreamingUpload() {}
+
+    public record Result(Path path, long size, String sha256) {}
+
+    /**
+     * Zapis do pliku tymczasowego; ścieżkę docelową ustala wywołujący po policzeniu skrótu (ContentStore).
+     * Przy odrzuceniu (limit, walidacja nagłówka, błąd zapisu) plik tymczasowy jest usuwany.
+     *
+     * @param in         strumień uploadu (zamykany przez metodę)
+     * @param maxBytes   limit rozmiaru liczony w trakcie czytania (nie ufamy deklarowanemu rozmiarowi)
+     * @param firstChunk walidacja nagłówka pliku (może rzucić IllegalArgumentException)
+     */
+    public static Result writeTemp(InputStream in, Path tmp, long maxBytes, Consumer<byte[]> firstChunk) throws IOException {
+        try {
+            return copy(in, tmp, maxBytes, firstChunk);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp); // odrzucony upload nie zostawia częściowego pliku
+            throw e;
+        }
+    }
+
+    private static Result copy(InputStream in, Path tmp, long maxBytes, Consumer<byte[]> firstChunk) throws IOException {
+        MessageDigest digest = newDigest();
+        long total = 0;
+        try (DigestInputStream din = new DigestInputStream(in, digest);
+             OutputStream out = Files.newOutputStream(tmp)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int headerLen = readFully(din, buffer);
+            if (headerLen <= 0) {
+                throw new IllegalArgumentException("File content is empty");
+            }
+            if (firstChunk != null) {
+                firstChunk.accept(Arrays.copyOf(buffer, headerLen));
+            }
+            total = checkLimit(headerLen, maxBytes);
+            out.write(buffer, 0, headerLen);
+            int n;
+            while ((n = din.read(buffer)) != -1) {
+                total = checkLimit(total + n, maxBytes);
+                out.write(buffer, 0, n);
+            }
+        }
+        return new Result(tmp, total, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static long checkLimit(long total, long maxBytes) {
+        if (maxBytes > 0 && total > maxBytes) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed: " + maxBytes + " bytes");
+        }
+        return total;
+    }
+
+    /** Wypełnia bufor (lub do końca strumienia) - pierwszy blok do sprawdzenia sygnatury. */
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        int n;
+        while (total < buffer.length && (n = in.read(buffer, total, buffer.length - total)) != -1) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package drimer.drimain.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalizacja tekstu do wyszukiwania: małe litery + zdjęcie polskich znaków diakrytycznych.
+ * Musi dawać ten sam wynik co funkcja SQL f_fold_pl (V34__add_full_text_search.sql).
+ */
+public final class PolishTextNormalizer {
+
+    private static final String FROM = "ąćęłńóśźżĄĆĘŁŃÓŚŹŻ";
+    private static final String TO = "acelnoszzacelnoszz";
+
+    private PolishTextNormalizer() {}
+
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) return "";
+        char[] chars = text.toLowerCase(Locale.ROOT).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            int idx = FROM.indexOf(chars[i]);
+            if (idx >= 0) chars[i] = TO.charAt(idx);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Dzieli zapytanie na znormalizowane tokeny (litery/cyfry), pomijając separatory.
+     */
+    public static List<String> tokens(String text) {
+        List<String> result = new ArrayList<>();
+        for (String token : fold(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) result.add(token);
+        }
+        return result;
+    }
+}
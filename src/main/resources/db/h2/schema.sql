@@ -0,0 +1,66 @@
+-- Tabele obsługiwane przez JDBC (bez encji JPA) dla H2 - baz bez Flyway (domyślny plik H2, testy).
+-- Uruchamiany przez spring.sql.init; na PostgreSQL schemat tworzą wyłącznie migracje Flyway
+-- i przy zmianie tabeli trzeba zmienić oba miejsca: V37, V38, V40, V41.
+
+-- V37__create_rate_limit_counters.sql
+CREATE TABLE IF NOT EXISTS rate_limit_counters (
+    limit_key VARCHAR(255) NOT NULL,
+    window_start BIGINT NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (limit_key, window_start)
+);
+CREATE INDEX IF NOT EXISTS idx_rate_limit_counters_window_start ON rate_limit_counters(window_start);
+
+-- V38__create_kpi_aggregates.sql
+CREATE TABLE IF NOT EXISTS kpi_daily (
+    kpi_day DATE NOT NULL,
+    metric VARCHAR(32) NOT NULL,
+    dim VARCHAR(255) NOT NULL,
+    cnt BIGINT NOT NULL,
+    total_minutes BIGINT NOT NULL,
+    PRIMARY KEY (kpi_day, metric, dim)
+);
+
+CREATE TABLE IF NOT EXISTS kpi_source (
+    source VARCHAR(16) NOT NULL,
+    source_id BIGINT NOT NULL,
+    kpi_day DATE,
+    status VARCHAR(40),
+    typ VARCHAR(255),
+    dzial_id BIGINT,
+    resolved_day DATE,
+    resolution_minutes BIGINT NOT NULL,
+    PRIMARY KEY (source, source_id)
+);
+
+-- V40__create_event_outbox.sql
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    origin_node VARCHAR(64),
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS event_outbox_offsets (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS event_outbox_lock (
+    id INT PRIMARY KEY
+);
+
+INSERT INTO event_outbox_lock (id) SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM event_outbox_lock);
+
+-- V41__create_batch_jobs.sql
+CREATE TABLE IF NOT EXISTS batch_jobs (
+    job_name VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    last_id BIGINT NOT NULL,
+    processed BIGINT NOT NULL,
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    error VARCHAR(1000)
+);
@@ -0,0 +1,10 @@
+-- Indexes backing the SQL-side filters of /api/zgloszenia, /moje and /moje-zadania
+CREATE INDEX IF NOT EXISTS idx_zgloszenia_autor_id ON zgloszenia(autor_id);
+
+-- "Moje zadania": dzial_id = ? AND status IN (...) -> count served from the index alone
+CREATE INDEX IF NOT EXISTS idx_zgloszenia_dzial_status ON zgloszenia(dzial_id, status);
+
+CREATE INDEX IF NOT EXISTS idx_zgloszenia_status ON zgloszenia(status);
+
+-- Keyset pagination: ORDER BY created_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_zgloszenia_created_at_id ON zgloszenia(created_at DESC, id DESC);
@@ -0,0 +1,28 @@
+-- Full-text search for zgloszenia and raporty (PostgreSQL).
+-- Polish diacritics are folded (ą->a, ł->l, ...) on both sides: here for the indexed text
+-- and in PolishTextNormalizer for the query, so "lozysko" matches "Łożysko".
+-- unaccent() is not IMMUTABLE and needs an extension, so the folding is a plain translate().
+CREATE OR REPLACE FUNCTION f_fold_pl(txt text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS
+$$
+SELECT translate(lower(coalesce(txt, '')), 'ąćęłńóśźżĄĆĘŁŃÓŚŹŻ', 'acelnoszzacelnoszz')
+$$;
+
+-- Weights drive ts_rank: tytul > typ > opis > imie/nazwisko
+ALTER TABLE zgloszenia
+    ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', f_fold_pl(tytul)), 'A') ||
+        setweight(to_tsvector('simple', f_fold_pl(typ)), 'B') ||
+        setweight(to_tsvector('simple', f_fold_pl(opis)), 'C') ||
+        setweight(to_tsvector('simple', f_fold_pl(imie) || ' ' || f_fold_pl(nazwisko)), 'D')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_zgloszenia_search_vector ON zgloszenia USING GIN (search_vector);
+
+ALTER TABLE raporty
+    ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', f_fold_pl(typ_naprawy)), 'A') ||
+        setweight(to_tsvector('simple', f_fold_pl(opis)), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_raporty_search_vector ON raporty USING GIN (search_vector);
@@ -0,0 +1,6 @@
+-- Raport photos move from Base64 "inline:" rows in raport_zdjecia to raport_zdjecia_blob (bytea).
+-- raport_zdjecia keeps only short "blob:<stored_filename>" references.
+ALTER TABLE raport_zdjecia_blob ADD COLUMN IF NOT EXISTS sha256 VARCHAR(64);
+
+-- Same photo uploaded twice to one raport is stored once
+CREATE INDEX IF NOT EXISTS idx_raport_zdjecia_blob_raport_sha256 ON raport_zdjecia_blob(raport_id, sha256);
@@ -0,0 +1,10 @@
+-- Content-addressed attachment store: files live under <base-path>/cas/ab/cd/<sha256>
+-- and are shared by every attachment / instruction attachment with the same content.
+-- NULL = legacy file stored under stored_filename.
+ALTER TABLE attachments ADD COLUMN IF NOT EXISTS blob_sha256 VARCHAR(64);
+ALTER TABLE instruction_attachments ADD COLUMN IF NOT EXISTS blob_sha256 VARCHAR(64);
+
+-- Reference counting (GC) looks rows up by content hash
+CREATE INDEX IF NOT EXISTS idx_attachments_blob_sha256 ON attachments(blob_sha256);
+CREATE INDEX IF NOT EXISTS idx_instruction_attachments_blob_sha256 ON instruction_attachments(blob_sha256);
+CREATE INDEX IF NOT EXISTS idx_raport_zdjecia_blob_sha256 ON raport_zdjecia_blob(sha256);
@@ -0,0 +1,10 @@
+-- Shared rate limit counters (app.rate-limit.store=jdbc): one row per key and fixed window,
+-- incremented in batches by every instance.
+CREATE TABLE IF NOT EXISTS rate_limit_counters (
+    limit_key VARCHAR(255) NOT NULL,
+    window_start BIGINT NOT NULL, -- epoch millis
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (limit_key, window_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_counters_window_start ON rate_limit_counters(window_start);
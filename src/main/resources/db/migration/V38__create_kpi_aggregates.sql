@@ -0,0 +1,23 @@
+-- Dashboard KPI: daily counters maintained from domain events (kpi_daily) and the per-entity
+-- contribution they were built from (kpi_source), so an update can subtract the old one.
+-- metric/dim: ZGL_STATUS/status, ZGL_TYP/typ, ZGL_DZIAL/dzial id, ZGL_RESOLVED/'', RAPORT_STATUS/status.
+CREATE TABLE IF NOT EXISTS kpi_daily (
+    kpi_day DATE NOT NULL,
+    metric VARCHAR(32) NOT NULL,
+    dim VARCHAR(255) NOT NULL,
+    cnt BIGINT NOT NULL,
+    total_minutes BIGINT NOT NULL,
+    PRIMARY KEY (kpi_day, metric, dim)
+);
+
+CREATE TABLE IF NOT EXISTS kpi_source (
+    source VARCHAR(16) NOT NULL, -- ZGLOSZENIE | RAPORT
+    source_id BIGINT NOT NULL,
+    kpi_day DATE,
+    status VARCHAR(40),
+    typ VARCHAR(255),
+    dzial_id BIGINT,
+    resolved_day DATE,
+    resolution_minutes BIGINT NOT NULL,
+    PRIMARY KEY (source, source_id)
+);
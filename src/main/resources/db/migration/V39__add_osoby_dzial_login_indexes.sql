@@ -0,0 +1,3 @@
+-- /api/meta/osoby-simple czyta osoby po dziale; rekoncyliacja User -> Osoba szuka po loginie
+CREATE INDEX IF NOT EXISTS idx_osoby_dzial_id ON osoby(dzial_id);
+CREATE INDEX IF NOT EXISTS idx_osoby_login ON osoby(login);
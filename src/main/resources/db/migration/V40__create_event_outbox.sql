@@ -0,0 +1,23 @@
+-- Transactional outbox: one row per committed transaction with its (compacted) domain events,
+-- written in the same transaction as the change. Consumers (cluster bus, notifications,
+-- raport auto-generation) track their own position in event_outbox_offsets.
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    origin_node VARCHAR(64),
+    payload TEXT NOT NULL, -- ClusterEventBatch JSON
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS event_outbox_offsets (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Single row locked by writers until commit, so ids become visible in commit order
+-- and a consumer reading past an id never misses a slower transaction with a lower one.
+CREATE TABLE IF NOT EXISTS event_outbox_lock (
+    id INT PRIMARY KEY
+);
+
+INSERT INTO event_outbox_lock (id) VALUES (1) ON CONFLICT DO NOTHING;
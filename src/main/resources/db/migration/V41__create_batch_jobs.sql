@@ -0,0 +1,15 @@
+-- Checkpoints of long-running background jobs (one row per job). A chunk and its checkpoint
+-- commit together, so a job interrupted by a restart resumes after the last committed chunk.
+CREATE TABLE IF NOT EXISTS batch_jobs (
+    job_name VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL, -- RUNNING | COMPLETED | FAILED
+    last_id BIGINT NOT NULL,
+    processed BIGINT NOT NULL,
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    error VARCHAR(1000)
+);
+
+-- Keyset scan of DONE tickets for the raport backfill (anti-join with ux_raporty_zgloszenie_id)
+CREATE INDEX IF NOT EXISTS idx_zgloszenia_status_id ON zgloszenia(status, id);
@@ -0,0 +1,2 @@
+-- Wersja poświadczeń w JWT (claim "tv"): tokeny sprzed zmiany hasła/ról/modułów są odrzucane
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version BIGINT NOT NULL DEFAULT 0;
@@ -36,6 +36,7 @@ class SchemaValidationIT {
         r.add("spring.flyway.enabled", () -> "true");
         r.add("spring.flyway.clean-disabled", () -> "true");
         r.add("spring.flyway.validate-on-migrate", () -> "true");
+        r.add("spring.sql.init.mode", () -> "never");
     }
 
     @Autowired
@@ -22,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -84,7 +85,7 @@ class AuthRestControllerTest {
         testUser.setUsername(testUsername);
         testUser.setEmail(testUsername + "@local");
         testUser.setPassword(passwordEncoder.encode(testPassword));
-        testUser.setRoles(Set.of(userRole));
+        testUser.setRoles(new HashSet<>(Set.of(userRole)));
         userRepository.save(testUser);
     }
 
@@ -149,6 +150,28 @@ class AuthRestControllerTest {
                 .andExpect(jsonPath("$.roles").isArray());
     }
 
+    @Test
+    void shouldRejectTokenIssuedBeforePasswordChange() throws Exception {
+        String token = login(testPassword);
+
+        Map<String, String> change = new HashMap<>();
+        change.put("currentPassword", testPassword);
+        change.put("newPassword", "newpass456");
+        change.put("confirmNewPassword", "newpass456");
+        mockMvc.perform(post("/api/users/me/password")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(change)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/auth/me")
+                        .header("Authorization", "Bearer " + login("newpass456")))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void shouldReturnUnauthorizedWithInvalidToken() throws Exception {
         // When & Then
@@ -156,4 +179,16 @@ class AuthRestControllerTest {
                         .header("Authorization", "Bearer invalid.token.here"))
                 .andExpect(status().isUnauthorized());
     }
-}
\ No newline at end of file
+
+    private String login(String password) throws Exception {
+        Map<String, String> loginRequest = new HashMap<>();
+        loginRequest.put("username", testUsername);
+        loginRequest.put("password", password);
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+}
@@ -8,8 +8,13 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -78,5 +83,50 @@ class MetaControllerIntegrationTest {
         String signature = new String(body, 0, 5, java.nio.charset.StandardCharsets.US_ASCII);
         org.junit.jupiter.api.Assertions.assertEquals("%PDF-", signature);
     }
-}
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void referenceLists_revalidateWithEtagAndFollowAdminWrites() throws Exception {
+        String etag = mockMvc.perform(get("/api/meta/dzialy-simple"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/meta/dzialy-simple").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        String created = mockMvc.perform(post("/api/admin/dzialy")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nazwa\":\"Dzial ETag\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String id = created.replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        String afterCreate = mockMvc.perform(get("/api/meta/dzialy-simple").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("Dzial ETag")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        org.junit.jupiter.api.Assertions.assertNotEquals(etag, afterCreate);
+
+        // zmiana nazwy działu unieważnia też listy sekcji/maszyn, w których ta nazwa występuje
+        String sekcjeEtag = mockMvc.perform(get("/api/meta/sekcje-simple"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(post("/api/admin/sekcje")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nazwa\":\"Sekcja ETag\",\"dzialId\":" + id + "}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/api/admin/dzialy/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nazwa\":\"Dzial ETag 2\"}"))
+                .andExpect(status().isOk());
+        String sekcjeAfter = mockMvc.perform(get("/api/meta/sekcje-simple").header(HttpHeaders.IF_NONE_MATCH, sekcjeEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("Dzial ETag 2")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/meta/sekcje-simple").header(HttpHeaders.IF_NONE_MATCH, sekcjeAfter))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -1,28 +1,59 @@
 package drimer.drimain.controller;
 
+import drimer.drimain.model.Raport;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.service.RaportPhotoMigrator;
+import drimer.drimain.service.ThumbnailService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @TestPropertySource(properties = {
-        "spring.flyway.enabled=false"
+        "spring.flyway.enabled=false",
+        "app.attachments.max-file-size-bytes=1048576"
 })
 class RaportRestControllerIntegrationTest {
 
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    RaportRepository raportRepository;
+
+    @Autowired
+    RaportPhotoMigrator raportPhotoMigrator;
+
+    @Autowired
+    ThumbnailService thumbnailService;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void createRaport_acceptsFlexibleTime_returns201() throws Exception {
@@ -70,4 +101,139 @@ class RaportRestControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray());
     }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void uploadZdjecia_storesBlobReferenceAndDownloadsContent() throws Exception {
+        Raport raport = newRaport();
+        byte[] content = "fake-jpeg-content".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("zdjecia", "foto.jpg", "image/jpeg", content);
+
+        String response = mockMvc.perform(multipart("/api/raporty/" + raport.getId() + "/zdjecia").file(file))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String filename = response.replaceAll("[\\[\\]\"]", "");
+
+        assertEquals(Set.of("blob:" + filename), raportRepository.findById(raport.getId()).orElseThrow().getZdjecia());
+
+        mockMvc.perform(get("/api/raporty/" + raport.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.zdjecia[0]").value(filename));
+
+        mockMvc.perform(get("/api/raporty/" + raport.getId() + "/zdjecia/" + filename))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void migrator_movesInlinePhotosToBlobStore() throws Exception {
+        byte[] content = "legacy-png".getBytes(StandardCharsets.UTF_8);
+        Raport raport = newRaport();
+        raport.getZdjecia().add("inline:legacy.png:image/png;base64," + Base64.getEncoder().encodeToString(content));
+        raportRepository.save(raport);
+
+        raportPhotoMigrator.migrateAll();
+
+        assertEquals(Set.of("blob:legacy.png"), raportRepository.findById(raport.getId()).orElseThrow().getZdjecia());
+        mockMvc.perform(get("/api/raporty/" + raport.getId() + "/zdjecia/legacy.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void downloadZdjecie_supportsRangeAndEtag() throws Exception {
+        Raport raport = newRaport();
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("zdjecia", "range.jpg", "image/jpeg", content);
+        String filename = mockMvc.perform(multipart("/api/raporty/" + raport.getId() + "/zdjecia").file(file))
+                .andReturn().getResponse().getContentAsString().replaceAll("[\\[\\]\"]", "");
+        String url = "/api/raporty/" + raport.getId() + "/zdjecia/" + filename;
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get(url).header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().bytes("2345".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get(url).header("Range", "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes("789".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get(url).header("Range", "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void uploadZdjecia_rejectsPhotoOverSizeLimit() throws Exception {
+        Raport raport = newRaport();
+        MockMultipartFile file = new MockMultipartFile("zdjecia", "duze.jpg", "image/jpeg", new byte[1048577]);
+
+        mockMvc.perform(multipart("/api/raporty/" + raport.getId() + "/zdjecia").file(file))
+                .andExpect(status().isBadRequest());
+        assertTrue(raportRepository.findById(raport.getId()).orElseThrow().getZdjecia().isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void downloadZdjecie_thumbVariantIsGeneratedInBackground() throws Exception {
+        Raport raport = newRaport();
+        BufferedImage image = new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        MockMultipartFile file = new MockMultipartFile("zdjecia", "duze.png", "image/png", png.toByteArray());
+        String filename = mockMvc.perform(multipart("/api/raporty/" + raport.getId() + "/zdjecia").file(file))
+                .andReturn().getResponse().getContentAsString().replaceAll("[\\[\\]\"]", "");
+
+        Path variant = thumbnailService.raportPhotoVariantPath(raport.getId(), filename, ThumbnailService.Variant.THUMB);
+        for (int i = 0; i < 100 && !Files.exists(variant); i++) {
+            Thread.sleep(50);
+        }
+
+        byte[] thumb = mockMvc.perform(get("/api/raporty/" + raport.getId() + "/zdjecia/" + filename).param("variant", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(320, ImageIO.read(new ByteArrayInputStream(thumb)).getWidth());
+
+        // wariant utracony -> oryginał pod URL-em wariantu, bez immutable i z innym ETag
+        Path preview = thumbnailService.raportPhotoVariantPath(raport.getId(), filename, ThumbnailService.Variant.PREVIEW);
+        for (int i = 0; i < 100 && !Files.exists(preview); i++) {
+            Thread.sleep(50);
+        }
+        Files.deleteIfExists(preview);
+        String originalEtag = mockMvc.perform(get("/api/raporty/" + raport.getId() + "/zdjecia/" + filename))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andReturn().getResponse().getHeader("ETag");
+        String fallbackEtag = mockMvc.perform(get("/api/raporty/" + raport.getId() + "/zdjecia/" + filename).param("variant", "preview"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(originalEtag, fallbackEtag);
+
+        mockMvc.perform(get("/api/raporty/" + raport.getId() + "/zdjecia/" + filename).param("variant", "huge"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Raport newRaport() {
+        Raport raport = new Raport();
+        raport.setTypNaprawy("Zdjęcia test");
+        raport.setOpis("Raport ze zdjęciami");
+        raport.setDataNaprawy(LocalDate.now());
+        return raportRepository.save(raport);
+    }
 }
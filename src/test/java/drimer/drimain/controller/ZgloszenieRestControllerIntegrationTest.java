@@ -1,5 +1,10 @@
 package drimer.drimain.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.ZgloszenieRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -8,6 +13,12 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -22,6 +33,12 @@ class ZgloszenieRestControllerIntegrationTest {
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    ZgloszenieRepository zgloszenieRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void mojeZadaniaEndpoint_returnsArray() throws Exception {
@@ -29,5 +46,54 @@ class ZgloszenieRestControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray());
     }
-}
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void mojeZadaniaCount_returnsNumber() throws Exception {
+        mockMvc.perform(get("/api/zgloszenia/moje-zadania/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").isNumber());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void pageEndpoint_walksAllRowsWithCursor() throws Exception {
+        String typ = "KeysetTest";
+        for (int i = 0; i < 5; i++) {
+            Zgloszenie z = new Zgloszenie();
+            z.setTyp(typ);
+            z.setImie("Jan");
+            z.setNazwisko("Kowalski");
+            z.setOpis("Opis testowy numer " + i);
+            z.setStatus(ZgloszenieStatus.OPEN);
+            z.setDataGodzina(LocalDateTime.now());
+            zgloszenieRepository.save(z);
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/zgloszenia/page").param("typ", typ).param("limit", "2");
+            if (cursor != null) request.param("cursor", cursor);
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items").isArray())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("items").forEach(item -> assertTrue(seen.add(item.get("id").asLong())));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void pageEndpoint_rejectsInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/zgloszenia/page").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
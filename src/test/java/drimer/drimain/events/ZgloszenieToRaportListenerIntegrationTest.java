@@ -0,0 +1,168 @@
+package drimer.drimain.events;
+
+import drimer.drimain.events.outbox.OutboxDispatcher;
+import drimer.drimain.model.Maszyna;
+import drimer.drimain.model.Raport;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.MaszynaRepository;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "drimer.drimain.events.ZgloszenieToRaportListenerIntegrationTest$ScopedStatements"
+})
+class ZgloszenieToRaportListenerIntegrationTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired OutboxDispatcher outboxDispatcher;
+    @Autowired ZgloszenieRepository zgloszenieRepository;
+    @Autowired RaportRepository raportRepository;
+    @Autowired MaszynaRepository maszynaRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void closingTicketCreatesRaportWithBoundedStatementsRegardlessOfTableSize() throws Exception {
+        Maszyna maszyna = new Maszyna();
+        maszyna.setNazwa("Maszyna autogen");
+        maszyna = maszynaRepository.save(maszyna);
+        Zgloszenie first = zgloszenie(maszyna);
+        Zgloszenie second = zgloszenie(maszyna);
+
+        long small = close(first);
+
+        List<Raport> filler = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Raport r = new Raport();
+            r.setTypNaprawy("Wypełniacz " + i);
+            r.setStatus(RaportStatus.NOWY);
+            r.setDataNaprawy(LocalDate.now());
+            r.setMaszyna(maszyna);
+            r.setZdjecia(new LinkedHashSet<>(Set.of("f" + i + ".jpg")));
+            filler.add(r);
+        }
+        raportRepository.saveAll(filler);
+
+        long large = close(second);
+        // wcześniej: findAll() wszystkich raportów ze zdjęciami przy każdym UPDATED
+        assertTrue(large <= small + 2, "statements grew with table size: " + small + " -> " + large);
+        assertTrue(large < 60, "statements: " + large);
+
+        // ponowne zamknięcie aktualizuje ten sam raport (unikalny zgloszenie_id)
+        Raport raport = raportRepository.findByZgloszenieId(second.getId()).orElseThrow();
+        reopenAndClose(second);
+        assertEquals(raport.getId(), raportRepository.findByZgloszenieId(second.getId()).orElseThrow().getId());
+    }
+
+    private long close(Zgloszenie z) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertTrue(outboxDispatcher.awaitIdle(Duration.ofSeconds(10)));
+        statistics.clear();
+        ScopedStatements.start(Thread.currentThread());
+        try {
+            setStatus(z, "DONE");
+            assertTrue(outboxDispatcher.awaitIdle(Duration.ofSeconds(10)));
+        } finally {
+            ScopedStatements.stop();
+        }
+        long statements = ScopedStatements.COUNT.get();
+        assertTrue(statistics.getEntityStatistics(Raport.class.getName()).getLoadCount() <= 1,
+                "closing a ticket must not load other raporty");
+
+        Raport raport = raportRepository.findByZgloszenieId(z.getId()).orElseThrow();
+        assertEquals(RaportStatus.ZAKONCZONE, raport.getStatus());
+        assertEquals(z.getTyp(), raport.getTypNaprawy());
+        return statements;
+    }
+
+    private void reopenAndClose(Zgloszenie z) throws Exception {
+        setStatus(z, "IN_PROGRESS");
+        setStatus(z, "DONE");
+        assertTrue(outboxDispatcher.awaitIdle(Duration.ofSeconds(10)));
+    }
+
+    private void setStatus(Zgloszenie z, String status) throws Exception {
+        mockMvc.perform(put("/api/zgloszenia/" + z.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"" + status + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private Zgloszenie zgloszenie(Maszyna maszyna) {
+        Zgloszenie z = new Zgloszenie();
+        z.setTyp("Autogen");
+        z.setImie("Jan");
+        z.setNazwisko("Kowalski");
+        z.setOpis("Zgłoszenie do zamknięcia w teście");
+        z.setStatus(ZgloszenieStatus.OPEN);
+        z.setDataGodzina(LocalDateTime.now());
+        z.setMaszyna(maszyna);
+        return zgloszenieRepository.save(z);
+    }
+
+    /**
+     * Liczy tylko instrukcje żądania (wątek testu) i konsumenta raport-autogen - bez listenerów
+     * after-commit (KPI, wyszukiwarka) i innych konsumentów outboxa działających w tym samym procesie.
+     */
+    public static class ScopedStatements implements StatementInspector {
+
+        static final AtomicLong COUNT = new AtomicLong();
+        private static volatile Thread requestThread;
+
+        static void start(Thread thread) {
+            COUNT.set(0);
+            requestThread = thread;
+        }
+
+        static void stop() {
+            requestThread = null;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            Thread request = requestThread;
+            if (request != null && (Thread.currentThread() == request || inAutogenConsumer())) {
+                COUNT.incrementAndGet();
+            }
+            return sql;
+        }
+
+        private static boolean inAutogenConsumer() {
+            return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE)
+                    .walk(frames -> frames.anyMatch(f -> f.getDeclaringClass() == ZgloszenieToRaportListener.class
+                            && f.getMethodName().equals("handle")));
+        }
+    }
+}
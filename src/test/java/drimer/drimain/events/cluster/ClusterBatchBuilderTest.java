@@ -0,0 +1,90 @@
+package drimer.drimain.events.cluster;
+
+import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.events.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterBatchBuilderTest {
+
+    @Test
+    void shouldMergeUpdatesOfSameZgloszenie() {
+        ClusterBatchBuilder builder = new ClusterBatchBuilder();
+        builder.add(message(EventType.UPDATED, 1L, List.of("status"), snapshot(1L, "a")));
+        builder.add(message(EventType.ATTACHMENT_ADDED, 1L, null, null));
+        builder.add(message(EventType.UPDATED, 1L, List.of("opis", "status"), snapshot(1L, "b")));
+        builder.add(message(EventType.UPDATED, 2L, List.of("tytul"), snapshot(2L, "c")));
+
+        List<ZgloszenieEventMessage> events = builder.build("node").zgloszenia();
+        assertEquals(3, events.size());
+        assertEquals(EventType.UPDATED, events.get(0).type());
+        assertEquals(List.of("status", "opis"), events.get(0).changedFields());
+        assertEquals("b", events.get(0).snapshot().getTytul());
+        assertEquals(EventType.ATTACHMENT_ADDED, events.get(1).type());
+        assertEquals(2L, events.get(2).zgloszenieId());
+    }
+
+    @Test
+    void shouldKeepCreatedWithLatestSnapshotAndCancelCreatedThenDeleted() {
+        ClusterBatchBuilder builder = new ClusterBatchBuilder();
+        builder.add(message(EventType.CREATED, 1L, null, snapshot(1L, "a")));
+        builder.add(message(EventType.UPDATED, 1L, List.of("status"), snapshot(1L, "b")));
+        builder.add(message(EventType.CREATED, 2L, null, snapshot(2L, "x")));
+        builder.add(message(EventType.DELETED, 2L, null, snapshot(2L, "x")));
+
+        List<ZgloszenieEventMessage> events = builder.build("node").zgloszenia();
+        assertEquals(1, events.size());
+        assertEquals(EventType.CREATED, events.get(0).type());
+        assertEquals("b", events.get(0).snapshot().getTytul());
+    }
+
+    @Test
+    void shouldReplaceUpdateWithDelete() {
+        ClusterBatchBuilder builder = new ClusterBatchBuilder();
+        builder.add(message(EventType.UPDATED, 1L, List.of("status"), snapshot(1L, "a")));
+        builder.add(message(EventType.DELETED, 1L, null, snapshot(1L, "a")));
+
+        List<ZgloszenieEventMessage> events = builder.build("node").zgloszenia();
+        assertEquals(1, events.size());
+        assertEquals(EventType.DELETED, events.get(0).type());
+    }
+
+    @Test
+    void shouldCompactRaportEvents() {
+        ClusterBatchBuilder builder = new ClusterBatchBuilder();
+        builder.add(new RaportEventMessage("CREATED", 5L, raport(5L, "v1")));
+        builder.add(new RaportEventMessage("UPDATED", 5L, raport(5L, "v2")));
+        builder.add(new RaportEventMessage("UPDATED", 6L, raport(6L, "a")));
+        builder.add(new RaportEventMessage("UPDATED", 6L, raport(6L, "b")));
+
+        List<RaportEventMessage> events = builder.build("node").raporty();
+        assertEquals(2, events.size());
+        assertEquals("CREATED", events.get(0).action());
+        assertEquals("v2", events.get(0).raport().getOpis());
+        assertEquals("UPDATED", events.get(1).action());
+        assertEquals("b", events.get(1).raport().getOpis());
+    }
+
+    private static ZgloszenieEventMessage message(EventType type, Long id, List<String> fields, ZgloszenieDTO snapshot) {
+        return new ZgloszenieEventMessage(type, id, LocalDateTime.now(), fields, null, snapshot, null);
+    }
+
+    private static ZgloszenieDTO snapshot(Long id, String tytul) {
+        ZgloszenieDTO dto = new ZgloszenieDTO();
+        dto.setId(id);
+        dto.setTytul(tytul);
+        return dto;
+    }
+
+    private static RaportDTO raport(Long id, String opis) {
+        RaportDTO dto = new RaportDTO();
+        dto.setId(id);
+        dto.setOpis(opis);
+        return dto;
+    }
+}
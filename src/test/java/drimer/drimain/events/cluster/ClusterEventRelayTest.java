@@ -0,0 +1,127 @@
+package drimer.drimain.events.cluster;
+
+import drimer.drimain.config.ClusterProperties;
+import drimer.drimain.config.PrincipalCacheProperties;
+import drimer.drimain.events.EventType;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.events.outbox.OutboxStore;
+import drimer.drimain.security.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterEventRelayTest {
+
+    private final LoopbackClusterEventBus bus = new LoopbackClusterEventBus();
+    private final List<Object> delivered = new ArrayList<>();
+    private final List<ClusterEventBatch> appended = new ArrayList<>();
+    private final OutboxStore outbox = new OutboxStore(null, null) {
+        @Override
+        public void append(ClusterEventBatch batch) {
+            appended.add(batch);
+        }
+    };
+    private final PrincipalCache principalCache = new PrincipalCache(new PrincipalCacheProperties());
+    private final ClusterEventRelay relay = new ClusterEventRelay(bus, new ClusterProperties(),
+            delivered::add, null, null, null, outbox, principalCache);
+
+    @AfterEach
+    void cleanUp() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(relay);
+    }
+
+    @Test
+    void shouldAppendOneCompactedBatchBeforeCommit() {
+        relay.start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        relay.onZgloszenieEvent(new ZgloszenieDomainEvent(this, EventType.UPDATED, 1L, List.of("status")));
+        relay.onZgloszenieEvent(new ZgloszenieDomainEvent(this, EventType.UPDATED, 1L, List.of("opis")));
+        assertTrue(appended.isEmpty(), "batch is written once, when the transaction commits");
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(1, appended.size());
+        assertTrue(delivered.isEmpty(), "the bus is fed by the outbox dispatcher, not the committing thread");
+        relay.handle(appended.get(0));
+        assertEquals(1, delivered.size());
+        ZgloszenieEventMessage message = (ZgloszenieEventMessage) delivered.get(0);
+        assertEquals(List.of("status", "opis"), message.changedFields());
+        assertNull(TransactionSynchronizationManager.getResource(relay));
+    }
+
+    @Test
+    void shouldSendToBusOnlyWhenDispatcherTransactionCommits() {
+        relay.start();
+        ClusterEventBatch batch = new ClusterEventBatch("a",
+                List.of(ZgloszenieEventMessage.of(new ZgloszenieDomainEvent(this, EventType.CREATED, 2L))), List.of(),
+                List.of());
+        TransactionSynchronizationManager.initSynchronization();
+
+        relay.handle(batch);
+        assertTrue(delivered.isEmpty(), "rolled back handle() must not reach other instances");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    void shouldBroadcastPrincipalInvalidationThroughOutbox() {
+        relay.start();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<UserDetails> loader = () -> {
+            loads.incrementAndGet();
+            return User.withUsername("jan").password("x").roles("USER").build();
+        };
+        principalCache.get("jan", loader);
+
+        principalCache.invalidate("jan");
+        assertEquals(List.of("jan"), appended.get(0).principals());
+
+        // paczka z innej instancji - unieważnienie tylko lokalne, bez ponownego zapisu do outboxu
+        principalCache.get("jan", loader);
+        relay.handle(new ClusterEventBatch("b", List.of(), List.of(), List.of("jan")));
+        principalCache.get("jan", loader);
+        assertEquals(3, loads.get());
+        assertEquals(1, appended.size());
+    }
+
+    @Test
+    void shouldNotAppendRolledBackTransaction() {
+        relay.start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        relay.onZgloszenieEvent(new ZgloszenieDomainEvent(this, EventType.CREATED, 1L));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(appended.isEmpty());
+    }
+
+    @Test
+    void shouldAppendImmediatelyWithoutTransaction() {
+        relay.start();
+
+        relay.onZgloszenieEvent(new ZgloszenieDomainEvent(this, EventType.DELETED, 3L));
+
+        assertEquals(1, appended.size());
+        assertEquals(3L, appended.get(0).zgloszenia().get(0).zgloszenieId());
+    }
+}
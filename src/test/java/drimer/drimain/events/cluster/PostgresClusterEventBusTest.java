@@ -0,0 +1,66 @@
+package drimer.drimain.events.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import drimer.drimain.api.dto.ZgloszenieDTO;
+import drimer.drimain.config.ClusterProperties;
+import drimer.drimain.events.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostgresClusterEventBusTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final PostgresClusterEventBus bus = new PostgresClusterEventBus(null, null, objectMapper, new ClusterProperties());
+
+    @Test
+    void shouldSplitLargeBatchesIntoNotifySizedPayloads() throws Exception {
+        List<ZgloszenieEventMessage> messages = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            messages.add(new ZgloszenieEventMessage(EventType.UPDATED, id, LocalDateTime.now(),
+                    List.of("status"), null, snapshot(id, "Awaria łożyska " + id), id));
+        }
+
+        List<String> payloads = bus.encode(new ClusterEventBatch("a", messages, List.of(), List.of()));
+
+        assertTrue(payloads.size() > 1);
+        int decoded = 0;
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= PostgresClusterEventBus.MAX_PAYLOAD_BYTES);
+            ClusterEventBatch batch = objectMapper.readValue(payload, ClusterEventBatch.class);
+            decoded += batch.zgloszenia().size();
+            assertNotNull(batch.zgloszenia().get(0).snapshot());
+        }
+        assertEquals(200, decoded);
+    }
+
+    @Test
+    void shouldDropSnapshotOfSingleOversizedEvent() throws Exception {
+        ZgloszenieDTO huge = snapshot(1L, "x");
+        huge.setOpis("ą".repeat(PostgresClusterEventBus.MAX_PAYLOAD_BYTES));
+        ZgloszenieEventMessage message = new ZgloszenieEventMessage(EventType.UPDATED, 1L, LocalDateTime.now(),
+                List.of("opis"), null, huge, 7_000_000L);
+
+        List<String> payloads = bus.encode(new ClusterEventBatch("a", List.of(message), List.of(), List.of()));
+
+        assertEquals(1, payloads.size());
+        ZgloszenieEventMessage decoded = objectMapper.readValue(payloads.get(0), ClusterEventBatch.class).zgloszenia().get(0);
+        assertEquals(1L, decoded.zgloszenieId());
+        assertNull(decoded.snapshot(), "receiver reloads the state");
+        assertEquals(7_000_000L, decoded.eventId(), "SSE id survives dropping the snapshot");
+    }
+
+    private static ZgloszenieDTO snapshot(Long id, String tytul) {
+        ZgloszenieDTO dto = new ZgloszenieDTO();
+        dto.setId(id);
+        dto.setTytul(tytul);
+        dto.setDzialId(3L);
+        return dto;
+    }
+}
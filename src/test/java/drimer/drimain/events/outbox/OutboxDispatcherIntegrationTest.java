@@ -0,0 +1,123 @@
+package drimer.drimain.events.outbox;
+
+import drimer.drimain.events.EventType;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.events.cluster.ClusterEventBatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "app.outbox.poll-interval-millis=50",
+        "app.outbox.retry-delay-millis=10",
+        "app.outbox.max-attempts=3"
+})
+class OutboxDispatcherIntegrationTest {
+
+    @Autowired OutboxDispatcher dispatcher;
+    @Autowired OutboxStore store;
+    @Autowired RecordingConsumer consumer;
+    @Autowired ApplicationEventPublisher publisher;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void deliversOnlyCommittedEventsOffTheCommittingThread() {
+        long before = store.maxId();
+        transactionTemplate.executeWithoutResult(status -> {
+            publish(910_001L);
+            status.setRollbackOnly();
+        });
+        assertEquals(before, store.maxId(), "rolled back transaction leaves no outbox row");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            publish(910_002L);
+            publish(910_002L); // kompaktowane do jednego zdarzenia w paczce transakcji
+        });
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+
+        assertFalse(consumer.seen.contains(910_001L));
+        assertEquals(1, consumer.seen.stream().filter(id -> id == 910_002L).count());
+        assertNotEquals(Thread.currentThread().getName(), consumer.threads.get(910_002L));
+        assertTrue(consumer.threads.get(910_002L).startsWith("outbox-worker-"));
+        // id SSE z id wiersza outboxu - ten sam na każdej instancji
+        long eventId = consumer.eventIds.get(910_002L);
+        assertEquals(0, eventId % ClusterEventBatch.EVENT_IDS_PER_BATCH);
+        assertTrue(eventId / ClusterEventBatch.EVENT_IDS_PER_BATCH > before);
+    }
+
+    @Test
+    void retriesFailingEventAndSkipsPoisonedOneWithoutBlockingTheConsumer() {
+        consumer.failures.put(910_003L, new AtomicInteger(2));   // udaje się za trzecim razem
+        consumer.failures.put(910_004L, new AtomicInteger(100)); // nigdy - pominięte po max-attempts
+
+        transactionTemplate.executeWithoutResult(status -> publish(910_003L));
+        transactionTemplate.executeWithoutResult(status -> publish(910_004L));
+        transactionTemplate.executeWithoutResult(status -> publish(910_005L));
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+
+        assertEquals(1, consumer.seen.stream().filter(id -> id == 910_003L).count());
+        assertEquals(0, consumer.failures.get(910_003L).get());
+        assertFalse(consumer.seen.contains(910_004L));
+        assertEquals(97, consumer.failures.get(910_004L).get(), "three attempts, then skipped");
+        assertTrue(consumer.seen.contains(910_005L));
+        assertEquals(store.maxId(), store.offset(RecordingConsumer.NAME));
+    }
+
+    private void publish(long zgloszenieId) {
+        publisher.publishEvent(new ZgloszenieDomainEvent(this, EventType.UPDATED, zgloszenieId, List.of("opis")));
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+
+    static class RecordingConsumer implements OutboxConsumer {
+
+        static final String NAME = "test-recording";
+
+        final List<Long> seen = new CopyOnWriteArrayList<>();
+        final Map<Long, String> threads = new ConcurrentHashMap<>();
+        final Map<Long, Long> eventIds = new ConcurrentHashMap<>();
+        final Map<Long, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+        @Override
+        public String consumerName() {
+            return NAME;
+        }
+
+        @Override
+        public void handle(ClusterEventBatch batch) {
+            batch.zgloszenia().forEach(message -> {
+                AtomicInteger remaining = failures.get(message.zgloszenieId());
+                if (remaining != null && remaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    throw new IllegalStateException("failure for " + message.zgloszenieId());
+                }
+            });
+            batch.zgloszenia().forEach(message -> {
+                seen.add(message.zgloszenieId());
+                threads.put(message.zgloszenieId(), Thread.currentThread().getName());
+                eventIds.put(message.zgloszenieId(), message.eventId());
+            });
+        }
+    }
+}
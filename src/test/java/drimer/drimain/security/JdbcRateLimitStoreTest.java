@@ -0,0 +1,133 @@
+package drimer.drimain.security;
+
+import drimer.drimain.config.DatabaseDialect;
+import drimer.drimain.config.RateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRateLimitStoreTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final AtomicLong now = new AtomicLong(10 * MINUTE);
+    private JdbcTemplate jdbc;
+    private DatabaseDialect dialect;
+    private RateLimitProperties properties;
+    private JdbcRateLimitStore nodeA;
+    private JdbcRateLimitStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:ratelimit;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2/schema.sql")).execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        dialect = new DatabaseDialect(jdbc);
+        properties = new RateLimitProperties();
+        properties.setJdbcFlushIntervalMillis(60_000); // flush wywoływany ręcznie w teście
+        nodeA = new JdbcRateLimitStore(jdbc, dialect, properties, now::get);
+        nodeB = new JdbcRateLimitStore(jdbc, dialect, properties, now::get);
+        nodeA.start();
+        nodeB.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        nodeB.stop();
+        jdbc.execute("DROP TABLE rate_limit_counters");
+    }
+
+    @Test
+    void shouldShareLimitAcrossInstancesAfterFlush() {
+        for (int i = 0; i < 6; i++) assertEquals(0, nodeA.tryAcquire("ip", 10, MINUTE));
+        nodeA.flush();
+        // pierwsze użycie klucza na B - suma globalna znana od następnego flushu
+        assertEquals(0, nodeB.tryAcquire("ip", 10, MINUTE));
+        nodeB.flush();
+
+        int admittedByB = 0;
+        for (int i = 0; i < 10; i++) {
+            if (nodeB.tryAcquire("ip", 10, MINUTE) == 0) admittedByB++;
+        }
+        assertEquals(3, admittedByB);
+        assertEquals(7L, jdbc.queryForObject("SELECT SUM(hits) FROM rate_limit_counters", Long.class));
+
+        nodeB.flush();
+        assertEquals(10L, jdbc.queryForObject("SELECT SUM(hits) FROM rate_limit_counters", Long.class));
+        nodeA.flush();
+        assertTrue(nodeA.tryAcquire("ip", 10, MINUTE) > 0);
+    }
+
+    @Test
+    void shouldWeighPreviousWindowAsWindowSlides() {
+        for (int i = 0; i < 10; i++) assertEquals(0, nodeA.tryAcquire("ip", 10, MINUTE));
+        assertTrue(nodeA.tryAcquire("ip", 10, MINUTE) > 0);
+        nodeA.flush();
+
+        // połowa następnego okna: poprzednie liczy się w 50% -> 5 wolnych miejsc
+        now.addAndGet(MINUTE + MINUTE / 2);
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (nodeA.tryAcquire("ip", 10, MINUTE) == 0) admitted++;
+        }
+        assertEquals(5, admitted);
+    }
+
+    @Test
+    void shouldReadOnlyKeysUsedOnThisInstance() {
+        for (int i = 0; i < 3; i++) nodeA.tryAcquire("ip:a", 3, MINUTE);
+        nodeA.flush();
+        nodeB.tryAcquire("ip:b", 3, MINUTE);
+        nodeB.flush();
+
+        assertEquals(0, nodeB.tryAcquire("ip:a", 3, MINUTE), "ip:a was not read by B before it was used there");
+        nodeB.flush();
+        assertTrue(nodeB.tryAcquire("ip:a", 3, MINUTE) > 0);
+    }
+
+    @Test
+    void shouldNotRewriteHitsWhenOnlyTheReadFails() {
+        AtomicBoolean failReads = new AtomicBoolean();
+        JdbcTemplate flaky = new JdbcTemplate(jdbc.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                if (failReads.get()) throw new DataAccessResourceFailureException("read failed");
+                super.query(sql, rch, args);
+            }
+        };
+        JdbcRateLimitStore node = new JdbcRateLimitStore(flaky, dialect, properties, now::get);
+        node.start();
+        try {
+            for (int i = 0; i < 3; i++) assertEquals(0, node.tryAcquire("ip", 3, MINUTE));
+            failReads.set(true);
+            assertThrows(DataAccessResourceFailureException.class, node::flush);
+            assertTrue(node.tryAcquire("ip", 3, MINUTE) > 0, "written hits still count until the next read");
+
+            failReads.set(false);
+            node.flush();
+            assertEquals(3L, jdbc.queryForObject("SELECT SUM(hits) FROM rate_limit_counters", Long.class));
+            assertTrue(node.tryAcquire("ip", 3, MINUTE) > 0);
+        } finally {
+            node.stop();
+        }
+    }
+
+    @Test
+    void shouldCountPendingHitsBeforeFirstFlush() {
+        for (int i = 0; i < 3; i++) assertEquals(0, nodeA.tryAcquire("user:jan|X#upload", 3, MINUTE));
+        assertTrue(nodeA.tryAcquire("user:jan|X#upload", 3, MINUTE) > 0);
+        assertEquals(0L, jdbc.queryForObject("SELECT COUNT(*) FROM rate_limit_counters", Long.class));
+    }
+}
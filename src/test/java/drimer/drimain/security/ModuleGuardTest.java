@@ -0,0 +1,65 @@
+package drimer.drimain.security;
+
+import drimer.drimain.config.PrincipalCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleGuardTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldTestModuleBitsOfAuthenticatedUserWithoutLoading() {
+        ModuleGuard guard = new ModuleGuard(failingLoader(), new PrincipalCache(new PrincipalCacheProperties()));
+        authenticate(new AuthenticatedUser("jan", "x", AuthorityUtils.createAuthorityList("ROLE_USER"),
+                ModulesCatalog.mask(Set.of("zgloszenia", "Czesci", "nieznany")), 0L));
+
+        assertTrue(guard.has("Zgloszenia"));
+        assertTrue(guard.has("CZESCI"));
+        assertFalse(guard.has("Raporty"));
+        assertFalse(guard.has("nieznany"));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void shouldResolveOtherPrincipalsThroughCache() {
+        UserDetailsService uds = username -> {
+            loads.incrementAndGet();
+            return new AuthenticatedUser(username, "x", AuthorityUtils.createAuthorityList("ROLE_ADMIN"), ModulesCatalog.ALL_MASK, 0L);
+        };
+        ModuleGuard guard = new ModuleGuard(uds, new PrincipalCache(new PrincipalCacheProperties()));
+        authenticate(User.withUsername("admin").password("x").roles("ADMIN").build());
+
+        assertTrue(guard.has("Raporty"));
+        assertTrue(guard.has("Instrukcje"));
+        assertEquals(1, loads.get());
+    }
+
+    private UserDetailsService failingLoader() {
+        return username -> {
+            loads.incrementAndGet();
+            throw new UsernameNotFoundException(username);
+        };
+    }
+
+    private static void authenticate(org.springframework.security.core.userdetails.UserDetails principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
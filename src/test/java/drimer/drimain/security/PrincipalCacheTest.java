@@ -0,0 +1,89 @@
+package drimer.drimain.security;
+
+import drimer.drimain.config.PrincipalCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private PrincipalCacheProperties properties;
+    private PrincipalCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PrincipalCacheProperties();
+        cache = new PrincipalCache(properties);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadOncePerUserUntilInvalidated() {
+        assertEquals("ROLE_USER", roleOf(cache.get("jan", () -> load("jan", "ROLE_USER"))));
+        assertEquals("ROLE_USER", roleOf(cache.get("jan", () -> load("jan", "ROLE_ADMIN"))));
+        assertEquals(1, loads.get());
+
+        cache.invalidate("jan");
+        assertEquals("ROLE_ADMIN", roleOf(cache.get("jan", () -> load("jan", "ROLE_ADMIN"))));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheLoadStartedBeforeInvalidation() {
+        // zmiana ról zatwierdzona w trakcie ładowania starych danych
+        UserDetails stale = cache.get("jan", () -> {
+            UserDetails old = load("jan", "ROLE_USER");
+            cache.invalidate("jan");
+            return old;
+        });
+        assertEquals("ROLE_USER", roleOf(stale));
+        assertEquals("ROLE_ADMIN", roleOf(cache.get("jan", () -> load("jan", "ROLE_ADMIN"))));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        properties.setTtlSeconds(0);
+        cache.get("jan", () -> load("jan", "ROLE_USER"));
+        cache.get("jan", () -> load("jan", "ROLE_USER"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldStayWithinMaxEntries() {
+        properties.setMaxEntries(3);
+        for (int i = 0; i < 10; i++) {
+            String name = "u" + i;
+            cache.get(name, () -> load(name, "ROLE_USER"));
+        }
+        assertTrue(cache.size() <= 3);
+        // najnowszy wpis zostaje
+        cache.get("u9", () -> load("u9", "ROLE_USER"));
+        assertEquals(10, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheMissingUsers() {
+        assertThrows(UsernameNotFoundException.class,
+                () -> cache.get("ghost", () -> { loads.incrementAndGet(); throw new UsernameNotFoundException("x"); }));
+        assertThrows(UsernameNotFoundException.class,
+                () -> cache.get("ghost", () -> { loads.incrementAndGet(); throw new UsernameNotFoundException("x"); }));
+        assertEquals(2, loads.get());
+    }
+
+    private UserDetails load(String username, String role) {
+        loads.incrementAndGet();
+        return User.withUsername(username).password("x").authorities(role).build();
+    }
+
+    private static String roleOf(UserDetails details) {
+        return details.getAuthorities().iterator().next().getAuthority();
+    }
+}
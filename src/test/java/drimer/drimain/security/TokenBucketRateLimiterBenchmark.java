@@ -0,0 +1,64 @@
+package drimer.drimain.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Przepustowość TokenBucketRateLimiter w zależności od liczby wątków (klucze per "klient",
+ * jak w RateLimitInterceptor). Nie jest uruchamiany w zwykłym buildzie:
+ *
+ * mvn test -Dtest=TokenBucketRateLimiterBenchmark -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TokenBucketRateLimiterBenchmark {
+
+    private static final int CLIENTS = 1024;
+    private static final long WARMUP_MS = 1_000;
+    private static final long MEASURE_MS = 2_000;
+
+    @Test
+    void throughputByThreadCount() throws Exception {
+        int maxThreads = Math.max(8, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(threads, WARMUP_MS);
+            double opsPerSec = run(threads, MEASURE_MS) * 1000.0 / MEASURE_MS;
+            System.out.printf("threads=%2d  %,15.0f ops/s  (%,.0f ops/s/thread)%n", threads, opsPerSec, opsPerSec / threads);
+        }
+    }
+
+    private long run(int threads, long durationMs) throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+        String[] keys = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+        long window = TimeUnit.MINUTES.toNanos(1);
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                start.await();
+                long local = 0;
+                int i = seed * 31;
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                    limiter.tryAcquire(keys[i++ & (CLIENTS - 1)], 100, window, now);
+                    local++;
+                }
+                ops.add(local);
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(durationMs + 10_000, TimeUnit.MILLISECONDS);
+        return ops.sum();
+    }
+}
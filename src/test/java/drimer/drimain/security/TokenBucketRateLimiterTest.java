@@ -0,0 +1,72 @@
+package drimer.drimain.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void shouldAllowBurstUpToCapacityThenRefillGradually() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire("ip", 10, MINUTE, now), "request " + i);
+        }
+        long wait = limiter.tryAcquire("ip", 10, MINUTE, now);
+        assertEquals(MINUTE / 10, wait);
+
+        // po 1/10 okna wraca dokładnie jeden token
+        assertEquals(0, limiter.tryAcquire("ip", 10, MINUTE, now + wait));
+        assertTrue(limiter.tryAcquire("ip", 10, MINUTE, now + wait) > 0);
+        // inne klucze mają własne kubełki
+        assertEquals(0, limiter.tryAcquire("other", 10, MINUTE, now));
+    }
+
+    @Test
+    void shouldSweepOnlyFullBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+        long now = 0;
+        limiter.tryAcquire("a", 10, MINUTE, now);
+        limiter.tryAcquire("b", 10, MINUTE, now + MINUTE);
+
+        assertEquals(1, limiter.sweep(now + MINUTE / 10));
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void shouldNeverAdmitMoreThanCapacityUnderContention() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+        int threads = 8;
+        int attemptsPerThread = 10_000;
+        long now = System.nanoTime();
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (limiter.tryAcquire("shared", 500, MINUTE, now) == 0) admitted.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(500, admitted.get());
+    }
+}
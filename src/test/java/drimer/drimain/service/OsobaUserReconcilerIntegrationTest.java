@@ -0,0 +1,81 @@
+package drimer.drimain.service;
+
+import drimer.drimain.events.UserAccountChangedEvent;
+import drimer.drimain.model.Osoba;
+import drimer.drimain.model.User;
+import drimer.drimain.repository.OsobaRepository;
+import drimer.drimain.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false"
+})
+class OsobaUserReconcilerIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    OsobaUserReconciler reconciler;
+    @Autowired
+    ApplicationEventPublisher publisher;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    OsobaRepository osobaRepository;
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void reconcilesUsersWithoutOsobaAndKeepsGetReadOnly() throws Exception {
+        saveUser("rekon_a");
+        saveUser("rekon_b");
+
+        // GET nie tworzy już Osób
+        long before = osobaRepository.count();
+        mockMvc.perform(get("/api/meta/osoby-simple")).andExpect(status().isOk());
+        assertEquals(before, osobaRepository.count());
+        assertFalse(osobaRepository.existsByLogin("rekon_a"));
+
+        assertTrue(reconciler.reconcileAll() >= 2);
+        assertEquals("rekon_a", osobaRepository.findByLogin("rekon_a").orElseThrow().getImieNazwisko());
+        assertTrue(osobaRepository.existsByLogin("rekon_b"));
+        assertEquals(0, reconciler.reconcileAll());
+    }
+
+    @Test
+    void movesOsobaOnRenameAndCreatesOnNewAccount() {
+        saveUser("rekon_new");
+        publisher.publishEvent(new UserAccountChangedEvent(this, "rekon_new", null));
+        Osoba created = osobaRepository.findByLogin("rekon_new").orElseThrow();
+
+        User user = userRepository.findByUsername("rekon_new").orElseThrow();
+        user.setUsername("rekon_renamed");
+        userRepository.save(user);
+        publisher.publishEvent(new UserAccountChangedEvent(this, "rekon_renamed", "rekon_new"));
+
+        Osoba moved = osobaRepository.findByLogin("rekon_renamed").orElseThrow();
+        assertEquals(created.getId(), moved.getId());
+        assertEquals("rekon_renamed", moved.getImieNazwisko());
+        assertFalse(osobaRepository.existsByLogin("rekon_new"));
+    }
+
+    private void saveUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@local");
+        user.setPassword("x");
+        userRepository.save(user);
+    }
+}
@@ -0,0 +1,124 @@
+package drimer.drimain.service;
+
+import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.api.mapper.RaportMapper;
+import drimer.drimain.model.Maszyna;
+import drimer.drimain.model.Osoba;
+import drimer.drimain.model.Part;
+import drimer.drimain.model.PartUsage;
+import drimer.drimain.model.Raport;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.repository.MaszynaRepository;
+import drimer.drimain.repository.OsobaRepository;
+import drimer.drimain.repository.PartRepository;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.spec.RaportSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class RaportQueryServiceIntegrationTest {
+
+    @Autowired RaportQueryService raportQueryService;
+    @Autowired RaportRepository raportRepository;
+    @Autowired RaportMapper raportMapper;
+    @Autowired MaszynaRepository maszynaRepository;
+    @Autowired OsobaRepository osobaRepository;
+    @Autowired PartRepository partRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void pagesInSqlAndBuildsDtosFromProjections() {
+        Maszyna maszyna = new Maszyna();
+        maszyna.setNazwa("Maszyna stronicowanie");
+        maszyna = maszynaRepository.save(maszyna);
+        Osoba osoba = osobaRepository.save(new Osoba("stronicowanie", null, null));
+        Part part = new Part();
+        part.setNazwa("Łożysko");
+        part.setKod("PAGE-TEST-1");
+        part = partRepository.save(part);
+
+        LocalDate base = LocalDate.of(2031, 1, 1);
+        for (int i = 0; i < 23; i++) {
+            Raport r = new Raport();
+            r.setTypNaprawy("Stronicowanie " + i);
+            r.setStatus(RaportStatus.values()[i % RaportStatus.values().length]);
+            r.setDataNaprawy(base.plusDays(i / 3)); // powtarzające się daty - kolejność rozstrzyga id
+            r.setCzasOd(LocalTime.of(8, 0));
+            r.setMaszyna(maszyna);
+            if (i % 2 == 0) r.setOsoba(osoba);
+            r.setZdjecia(new LinkedHashSet<>(Set.of("a" + i + ".jpg", "blob:b" + i + ".jpg")));
+            PartUsage usage = new PartUsage();
+            usage.setPart(part);
+            usage.setRaport(r);
+            usage.setIlosc(i + 1);
+            r.getPartUsages().add(usage);
+            raportRepository.save(r);
+        }
+
+        Specification<Raport> spec = Specification.where(RaportSpecifications.dateFrom(base))
+                .and(RaportSpecifications.hasMaszynaId(maszyna.getId()));
+        Sort sort = Sort.by(Sort.Direction.DESC, "dataNaprawy");
+        List<RaportDTO> expected = transactionTemplate.execute(status -> raportRepository.findAll(spec).stream()
+                .sorted(Comparator.comparing(Raport::getDataNaprawy).reversed()
+                        .thenComparing(Raport::getId, Comparator.reverseOrder()))
+                .map(raportMapper::toDto)
+                .toList());
+        assertEquals(23, expected.size());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<RaportDTO> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            statistics.clear();
+            Page<RaportDTO> result = raportQueryService.page(spec, PageRequest.of(page, 10, sort));
+            assertEquals(23, result.getTotalElements());
+            assertEquals(3, result.getTotalPages());
+            assertEquals(page < 2 ? 10 : 3, result.getNumberOfElements());
+            // id strony + COUNT + wiersze + części + zdjęcia, bez względu na rozmiar strony
+            assertTrue(statistics.getPrepareStatementCount() <= 5, "statements: " + statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityStatistics(Raport.class.getName()).getLoadCount(),
+                    "raport list must not hydrate entities");
+            paged.addAll(result.getContent());
+        }
+
+        assertEquals(expected.size(), paged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameDto(expected.get(i), paged.get(i));
+        }
+        assertSameDto(expected.get(0), raportQueryService.get(expected.get(0).getId()).orElseThrow());
+        assertTrue(raportQueryService.get(-1L).isEmpty());
+    }
+
+    private static void assertSameDto(RaportDTO expected, RaportDTO actual) {
+        // kolejność zdjęć w Set encji nie jest ustalona
+        assertEquals(new HashSet<>(expected.getZdjecia()), new HashSet<>(actual.getZdjecia()));
+        actual.setZdjecia(expected.getZdjecia());
+        assertEquals(expected, actual);
+    }
+}
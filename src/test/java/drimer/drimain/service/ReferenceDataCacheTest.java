@@ -0,0 +1,84 @@
+package drimer.drimain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import drimer.drimain.config.ReferenceCacheProperties;
+import drimer.drimain.service.ReferenceDataCache.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceDataCacheTest {
+
+    private ReferenceCacheProperties properties;
+    private ReferenceDataCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReferenceCacheProperties();
+        cache = new ReferenceDataCache(properties, new ObjectMapper());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadOncePerKeyAndKeepEtagStable() {
+        var first = cache.get(Kind.DZIALY, "", () -> load("A", "B"));
+        var second = cache.get(Kind.DZIALY, "", () -> load("X"));
+        assertEquals(List.of("A", "B"), second.value());
+        assertEquals(first.etag(), second.etag());
+        assertEquals(1, loads.get());
+
+        // ETag zależy tylko od treści
+        var other = new ReferenceDataCache(properties, new ObjectMapper()).get(Kind.DZIALY, "", () -> load("A", "B"));
+        assertEquals(first.etag(), other.etag());
+        assertNotEquals(first.etag(), cache.get(Kind.DZIALY, "dzialId=1", () -> load("A")).etag());
+    }
+
+    @Test
+    void shouldInvalidateOnlyGivenKinds() {
+        cache.get(Kind.MASZYNY, "", () -> load("M1"));
+        cache.get(Kind.OSOBY, "", () -> load("O1"));
+        cache.invalidate(Kind.MASZYNY);
+
+        assertEquals(List.of("M2"), cache.get(Kind.MASZYNY, "", () -> load("M2")).value());
+        assertEquals(List.of("O1"), cache.get(Kind.OSOBY, "", () -> load("O2")).value());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheLoadStartedBeforeInvalidation() {
+        // zapis w panelu admina zatwierdzony w trakcie ładowania starej listy
+        var stale = cache.get(Kind.SEKCJE, "", () -> {
+            List<String> old = load("stara");
+            cache.invalidate(Kind.SEKCJE);
+            return old;
+        });
+        assertEquals(List.of("stara"), stale.value());
+        assertEquals(List.of("nowa"), cache.get(Kind.SEKCJE, "", () -> load("nowa")).value());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldExpireAndStayWithinMaxEntries() {
+        properties.setTtlSeconds(0);
+        cache.get(Kind.DZIALY, "", () -> load("A"));
+        cache.get(Kind.DZIALY, "", () -> load("A"));
+        assertEquals(2, loads.get());
+
+        properties.setTtlSeconds(30);
+        properties.setMaxEntries(3);
+        for (int i = 0; i < 10; i++) {
+            cache.get(Kind.MASZYNY, "dzialId=" + i, () -> load("M"));
+        }
+        assertTrue(cache.size() <= 3);
+    }
+
+    private List<String> load(String... values) {
+        loads.incrementAndGet();
+        return List.of(values);
+    }
+}
@@ -0,0 +1,132 @@
+package drimer.drimain.service.job;
+
+import drimer.drimain.model.Maszyna;
+import drimer.drimain.model.Raport;
+import drimer.drimain.model.User;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.MaszynaRepository;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.UserRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "app.raport-backfill.chunk-size=2"
+})
+class RaportBackfillJobIntegrationTest {
+
+    @Autowired RaportBackfillJob job;
+    @Autowired BatchJobStore jobs;
+    @Autowired ZgloszenieRepository zgloszenieRepository;
+    @Autowired RaportRepository raportRepository;
+    @Autowired MaszynaRepository maszynaRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void resumesFromCheckpointAndBackfillsMissingRaportyInChunks() throws Exception {
+        Maszyna maszyna = new Maszyna();
+        maszyna.setNazwa("Maszyna backfill");
+        maszyna = maszynaRepository.save(maszyna);
+        User autor = new User();
+        autor.setUsername("backfill-autor");
+        autor.setEmail("backfill-autor@example.com");
+        autor.setPassword("x");
+        autor = userRepository.save(autor);
+
+        LocalDateTime completed = LocalDateTime.of(2030, 5, 6, 14, 30);
+        Zgloszenie z1 = zgloszenie(maszyna, autor, ZgloszenieStatus.DONE, completed);
+        Zgloszenie z2 = zgloszenie(maszyna, autor, ZgloszenieStatus.DONE, completed);
+        Zgloszenie z3 = zgloszenie(maszyna, autor, ZgloszenieStatus.DONE, completed);
+        Zgloszenie z4 = zgloszenie(maszyna, autor, ZgloszenieStatus.DONE, completed);
+        Zgloszenie z5 = zgloszenie(maszyna, null, ZgloszenieStatus.DONE, null);
+        Zgloszenie open = zgloszenie(maszyna, autor, ZgloszenieStatus.OPEN, null);
+        Raport existing = new Raport();
+        existing.setZgloszenieId(z2.getId());
+        existing.setTypNaprawy("Istniejący");
+        existing.setStatus(RaportStatus.NOWY);
+        raportRepository.save(existing);
+
+        // przebieg przerwany restartem po paczce kończącej się na z3
+        boolean exists = jobs.find(RaportBackfillJob.JOB_NAME).isPresent();
+        transactionTemplate.executeWithoutResult(status -> {
+            jobs.restart(RaportBackfillJob.JOB_NAME, exists);
+            jobs.checkpoint(RaportBackfillJob.JOB_NAME, z3.getId(), 0);
+        });
+        job.resumeInterrupted();
+        RaportBackfillJob.Progress progress = awaitFinished();
+
+        assertEquals("COMPLETED", progress.status());
+        assertTrue(raportRepository.findByZgloszenieId(z1.getId()).isEmpty(), "before the checkpoint - not rescanned");
+        assertTrue(raportRepository.findByZgloszenieId(z3.getId()).isEmpty());
+        Raport r4 = raportRepository.findByZgloszenieId(z4.getId()).orElseThrow();
+        assertEquals(RaportStatus.ZAKONCZONE, r4.getStatus());
+        assertEquals(z4.getTyp(), r4.getTypNaprawy());
+        assertEquals(z4.getOpis(), r4.getOpis());
+        assertEquals(completed.toLocalDate(), r4.getDataNaprawy());
+        assertEquals(LocalTime.of(9, 15), r4.getCzasOd());
+        assertEquals(LocalTime.of(14, 30), r4.getCzasDo());
+        assertEquals("backfill-autor", r4.getCreatedBy());
+        assertEquals(maszyna.getId(), r4.getMaszyna().getId());
+        Raport r5 = raportRepository.findByZgloszenieId(z5.getId()).orElseThrow();
+        assertNull(r5.getCreatedBy());
+        assertNull(r5.getCzasDo());
+
+        // po zakończeniu nowy przebieg skanuje od początku
+        job.start();
+        progress = awaitFinished();
+        assertEquals("COMPLETED", progress.status());
+        assertEquals(0, progress.missing());
+        assertTrue(progress.created() >= 2);
+        assertTrue(raportRepository.findByZgloszenieId(z1.getId()).isPresent());
+        assertTrue(raportRepository.findByZgloszenieId(z3.getId()).isPresent());
+        assertEquals("Istniejący", raportRepository.findByZgloszenieId(z2.getId()).orElseThrow().getTypNaprawy());
+        assertTrue(raportRepository.findByZgloszenieId(open.getId()).isEmpty());
+
+        long before = raportRepository.count();
+        job.start();
+        progress = awaitFinished();
+        assertEquals(0, progress.created());
+        assertEquals(before, raportRepository.count());
+    }
+
+    private RaportBackfillJob.Progress awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        RaportBackfillJob.Progress progress = job.progress();
+        while ((progress.active() || "RUNNING".equals(progress.status())) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            progress = job.progress();
+        }
+        return progress;
+    }
+
+    private Zgloszenie zgloszenie(Maszyna maszyna, User autor, ZgloszenieStatus status, LocalDateTime completedAt) {
+        Zgloszenie z = new Zgloszenie();
+        z.setTyp("Backfill");
+        z.setImie("Jan");
+        z.setNazwisko("Kowalski");
+        z.setOpis("Zgłoszenie do backfillu");
+        z.setStatus(status);
+        z.setDataGodzina(LocalDateTime.now());
+        z.setMaszyna(maszyna);
+        z.setAutor(autor);
+        if (completedAt != null) {
+            z.setAcceptedAt(completedAt.withHour(9).withMinute(15));
+            z.setCompletedAt(completedAt);
+        }
+        return zgloszenieRepository.save(z);
+    }
+}
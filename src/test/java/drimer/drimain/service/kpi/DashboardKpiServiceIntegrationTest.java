@@ -0,0 +1,175 @@
+package drimer.drimain.service.kpi;
+
+import drimer.drimain.api.dto.DashboardKpiDTO;
+import drimer.drimain.api.dto.RaportDTO;
+import drimer.drimain.events.EventType;
+import drimer.drimain.events.RaportChangedEvent;
+import drimer.drimain.events.ZgloszenieDomainEvent;
+import drimer.drimain.model.Dzial;
+import drimer.drimain.model.Maszyna;
+import drimer.drimain.model.Raport;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.DzialRepository;
+import drimer.drimain.repository.MaszynaRepository;
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.projection.ResolvedKpiGroupRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false"
+})
+class DashboardKpiServiceIntegrationTest {
+
+    @Autowired DashboardKpiService dashboardKpiService;
+    @Autowired KpiAggregationService kpiAggregationService;
+    @Autowired ZgloszenieRepository zgloszenieRepository;
+    @Autowired RaportRepository raportRepository;
+    @Autowired MaszynaRepository maszynaRepository;
+    @Autowired DzialRepository dzialRepository;
+    @Autowired ApplicationEventPublisher publisher;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void aggregatesMatchFullScanAndFollowDomainEvents() {
+        LocalDateTime now = LocalDate.now().atTime(0, 30);
+        Dzial dzial = new Dzial();
+        dzial.setNazwa("KPI-" + UUID.randomUUID());
+        dzial = dzialRepository.save(dzial);
+        Maszyna maszyna = new Maszyna();
+        maszyna.setNazwa("KPI maszyna");
+        maszyna = maszynaRepository.save(maszyna);
+
+        Zgloszenie open = zgloszenie(now, ZgloszenieStatus.OPEN, "Awaria", dzial, maszyna);
+        zgloszenie(now.minusDays(3), ZgloszenieStatus.IN_PROGRESS, "Awaria", dzial, null);
+        zgloszenie(now.minusDays(10), ZgloszenieStatus.REJECTED, "Przegląd", null, maszyna);
+        zgloszenie(now.minusDays(40), ZgloszenieStatus.OPEN, "Inne", null, null);
+        Zgloszenie done = zgloszenie(now.minusDays(5), ZgloszenieStatus.DONE, "Przegląd", dzial, maszyna);
+        done.setAcceptedAt(now.minusDays(5));
+        done.setCompletedAt(now.minusDays(4).plusMinutes(95));
+        zgloszenieRepository.save(done);
+
+        raport(LocalDate.now(), RaportStatus.NOWY);
+        raport(LocalDate.now().minusDays(2), RaportStatus.ZAKONCZONE);
+        Raport stary = raport(LocalDate.now().minusDays(8), null);
+        raport(LocalDate.now().plusDays(3), RaportStatus.W_TOKU);
+
+        kpiAggregationService.reconcile();
+        assertTrue(kpiAggregationService.isReady());
+        assertMatchesLegacy(true);
+        assertEquals(3L, dashboardKpiService.dashboardKpi(7).getZgloszeniaByDzial().get(dzial.getNazwa()));
+
+        // zmiany przez zdarzenia domenowe (bez transakcji - listenery od razu kolejkują odświeżenie w tle)
+        open.setStatus(ZgloszenieStatus.DONE);
+        open.setAcceptedAt(now);
+        open.setCompletedAt(now.plusMinutes(42));
+        open.setTyp("Elektryka");
+        zgloszenieRepository.save(open);
+        publisher.publishEvent(new ZgloszenieDomainEvent(this, EventType.UPDATED, open.getId(), List.of("status", "typ")));
+
+        Raport nowy = raport(LocalDate.now().minusDays(1), RaportStatus.OCZEKUJE_CZESCI);
+        publisher.publishEvent(new RaportChangedEvent(this, dto(nowy), "CREATED"));
+
+        raportRepository.deleteById(stary.getId());
+        publisher.publishEvent(new RaportChangedEvent(this, dto(stary), "DELETED"));
+
+        zgloszenieRepository.delete(done);
+        publisher.publishEvent(new ZgloszenieDomainEvent(this, EventType.DELETED, done.getId()));
+
+        assertTrue(kpiAggregationService.awaitIdle(Duration.ofSeconds(10)));
+        assertMatchesLegacy(true);
+        assertEquals(0, kpiAggregationService.reconcile(), "incremental counters should equal a full rebuild");
+    }
+
+    @Test
+    void groupByQueriesMatchFullScan() {
+        LocalDateTime now = LocalDate.now().atTime(8, 15, 20);
+        Maszyna maszyna = new Maszyna();
+        maszyna.setNazwa("KPI maszyna GROUP BY");
+        maszyna = maszynaRepository.save(maszyna);
+
+        zgloszenie(now, ZgloszenieStatus.ON_HOLD, "Awaria", null, maszyna);
+        zgloszenie(now.minusDays(1), ZgloszenieStatus.OPEN, "Awaria", null, maszyna);
+        zgloszenie(now.minusDays(12), ZgloszenieStatus.IN_PROGRESS, "Elektryka", null, null);
+        zgloszenie(now.minusDays(29), ZgloszenieStatus.OPEN, "Przegląd", null, null);
+        for (int i = 0; i < 3; i++) {
+            Zgloszenie done = zgloszenie(now.minusDays(2 + i), ZgloszenieStatus.DONE, "Hydraulika", null, maszyna);
+            // sekundy i ułamki - minuty liczone jak Duration.toMinutes() (obcięte per zgłoszenie)
+            done.setAcceptedAt(now.minusDays(2 + i).withNano(700_000_000));
+            done.setCompletedAt(now.minusDays(1 + i).plusMinutes(17L * i).withNano(100_000_000));
+            zgloszenieRepository.save(done);
+        }
+        raport(LocalDate.now().minusDays(1), RaportStatus.ANULOWANE);
+        raport(LocalDate.now().minusDays(20), RaportStatus.ZAKONCZONE);
+        raport(null, RaportStatus.NOWY);
+
+        assertMatchesLegacy(false);
+
+        LocalDateTime from = LocalDate.now().minusDays(5).atStartOfDay();
+        long expectedMinutes = zgloszenieRepository.findAll().stream()
+                .filter(z -> z.getStatus() == ZgloszenieStatus.DONE && z.getAcceptedAt() != null
+                        && z.getCompletedAt() != null && !z.getCompletedAt().isBefore(from))
+                .mapToLong(z -> Duration.between(z.getAcceptedAt(), z.getCompletedAt()).toMinutes())
+                .sum();
+        long groupedMinutes = zgloszenieRepository.countResolvedSince(from).stream()
+                .mapToLong(ResolvedKpiGroupRow::getTotalMinutes)
+                .sum();
+        assertEquals(expectedMinutes, groupedMinutes);
+    }
+
+    private void assertMatchesLegacy(boolean fromAggregates) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int days : new int[]{1, 7, 30}) {
+            DashboardKpiDTO expected = tx.execute(s -> LegacyDashboardKpi.compute(days,
+                    zgloszenieRepository.findAll(), raportRepository.findAll(), maszynaRepository.count()));
+            DashboardKpiDTO actual = dashboardKpiService.dashboardKpi(days, fromAggregates);
+            actual.setLastUpdated(null);
+            actual.setZgloszeniaByDzial(expected.getZgloszeniaByDzial());
+            assertEquals(expected, actual, "days=" + days);
+        }
+    }
+
+    private Zgloszenie zgloszenie(LocalDateTime at, ZgloszenieStatus status, String typ, Dzial dzial, Maszyna maszyna) {
+        Zgloszenie z = new Zgloszenie();
+        z.setDataGodzina(at);
+        z.setStatus(status);
+        z.setTyp(typ);
+        z.setImie("Jan");
+        z.setNazwisko("Kowalski");
+        z.setOpis("Zgłoszenie do testu KPI");
+        z.setDzial(dzial);
+        z.setMaszyna(maszyna);
+        return zgloszenieRepository.save(z);
+    }
+
+    private Raport raport(LocalDate data, RaportStatus status) {
+        Raport r = new Raport();
+        r.setTypNaprawy("KPI");
+        r.setDataNaprawy(data);
+        r.setStatus(status);
+        return raportRepository.save(r);
+    }
+
+    private static RaportDTO dto(Raport raport) {
+        RaportDTO dto = new RaportDTO();
+        dto.setId(raport.getId());
+        return dto;
+    }
+}
@@ -0,0 +1,204 @@
+package drimer.drimain.service.kpi;
+
+import drimer.drimain.api.dto.DashboardKpiDTO;
+import drimer.drimain.api.dto.DashboardTrendPointDTO;
+import drimer.drimain.model.Raport;
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.RaportStatus;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Referencja: dawne liczenie KPI w MetaController (pełne listy encji w pamięci), do porównań w testach.
+ * Bez lastUpdated i zgloszeniaByDzial.
+ */
+final class LegacyDashboardKpi {
+
+    private LegacyDashboardKpi() {
+    }
+
+    static DashboardKpiDTO compute(int days, List<Zgloszenie> zgloszenia, List<Raport> raporty, long maszynyRazem) {
+        int normalizedDays = days < 1 ? 1 : Math.min(days, 30);
+        LocalDate today = LocalDate.now();
+        LocalDate periodStart = today.minusDays(normalizedDays - 1L);
+        LocalDate previousPeriodEnd = periodStart.minusDays(1);
+        LocalDate previousPeriodStart = previousPeriodEnd.minusDays(normalizedDays - 1L);
+        LocalDateTime periodStartAt = periodStart.atStartOfDay();
+        LocalDateTime periodEndExclusive = today.plusDays(1).atStartOfDay();
+        LocalDateTime previousStartAt = previousPeriodStart.atStartOfDay();
+        LocalDateTime previousEndExclusive = periodStart.atStartOfDay();
+
+        DashboardKpiDTO dto = new DashboardKpiDTO();
+        dto.setZakresDni(normalizedDays);
+        dto.setOkresOd(periodStart);
+        dto.setOkresDo(today);
+
+        dto.setRaportyWOkresie(raporty.stream()
+                .map(Raport::getDataNaprawy)
+                .filter(d -> isInDateRange(d, periodStart, today))
+                .count());
+
+        dto.setZgloszeniaWOkresieNowe(countByStatusInRange(zgloszenia, periodStartAt, periodEndExclusive, ZgloszenieStatus.OPEN));
+        dto.setZgloszeniaWOkresieWToku(countByStatusInRange(zgloszenia, periodStartAt, periodEndExclusive, ZgloszenieStatus.IN_PROGRESS));
+        dto.setZgloszeniaWOkresieZamkniete(countByStatusInRange(zgloszenia, periodStartAt, periodEndExclusive, ZgloszenieStatus.DONE));
+
+        dto.setZgloszeniaWPoprzednimOkresie(zgloszenia.stream()
+                .filter(z -> isInDateTimeRange(resolveZgloszenieTimestamp(z), previousStartAt, previousEndExclusive))
+                .count());
+
+        dto.setRaportyWPoprzednimOkresie(raporty.stream()
+                .map(Raport::getDataNaprawy)
+                .filter(d -> isInDateRange(d, previousPeriodStart, previousPeriodEnd))
+                .count());
+
+        dto.setZgloszeniaZmianaProcent(percentChange(dto.getZgloszeniaWOkresieNowe(), dto.getZgloszeniaWPoprzednimOkresie()));
+        dto.setRaportyZmianaProcent(percentChange(dto.getRaportyWOkresie(), dto.getRaportyWPoprzednimOkresie()));
+
+        dto.setZgloszeniaTrend(buildZgloszenieTrend(zgloszenia, periodStart, today));
+        dto.setRaportyTrend(buildRaportTrend(raporty, periodStart, today));
+
+        dto.setRaportyDzis(raporty.stream()
+                .map(Raport::getDataNaprawy)
+                .filter(d -> d != null && d.equals(today))
+                .count());
+
+        dto.setRaporty7Dni(raporty.stream()
+                .map(Raport::getDataNaprawy)
+                .filter(d -> d != null && !d.isBefore(today.minusDays(6)))
+                .count());
+
+        dto.setZgloszeniaDzisNowe(countTodayByStatus(zgloszenia, today, ZgloszenieStatus.OPEN));
+        dto.setZgloszeniaDzisWToku(countTodayByStatus(zgloszenia, today, ZgloszenieStatus.IN_PROGRESS));
+        dto.setZgloszeniaDzisZamkniete(countTodayByStatus(zgloszenia, today, ZgloszenieStatus.DONE));
+
+        double avgHours = zgloszenia.stream()
+                .filter(z -> z.getStatus() == ZgloszenieStatus.DONE)
+                .filter(z -> z.getAcceptedAt() != null && z.getCompletedAt() != null)
+                .filter(z -> isInDateTimeRange(z.getCompletedAt(), periodStartAt, periodEndExclusive))
+                .mapToLong(z -> Duration.between(z.getAcceptedAt(), z.getCompletedAt()).toMinutes())
+                .average()
+                .orElse(0.0) / 60.0;
+        dto.setSredniCzasRozwiazaniaGodziny(Math.round(avgHours * 10.0) / 10.0);
+
+        long maszynyWPrzestoju = zgloszenia.stream()
+                .filter(z -> z.getMaszyna() != null && z.getMaszyna().getId() != null)
+                .filter(z -> z.getStatus() != ZgloszenieStatus.DONE && z.getStatus() != ZgloszenieStatus.REJECTED)
+                .map(z -> z.getMaszyna().getId())
+                .distinct()
+                .count();
+        dto.setMaszynyRazem(maszynyRazem);
+        dto.setMaszynyWPrzestoju(maszynyWPrzestoju);
+        dto.setMaszynyWPracy(Math.max(0, maszynyRazem - maszynyWPrzestoju));
+
+        Map<String, Long> topTypy = zgloszenia.stream()
+                .filter(z -> isInDateTimeRange(resolveZgloszenieTimestamp(z), periodStartAt, periodEndExclusive))
+                .map(Zgloszenie::getTyp)
+                .filter(t -> t != null && !t.isBlank())
+                .collect(Collectors.groupingBy(t -> t, Collectors.counting()))
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .limit(3)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        dto.setTopTypyZgloszen(topTypy);
+
+        Map<String, Long> zglByStatus = new LinkedHashMap<>();
+        for (ZgloszenieStatus status : ZgloszenieStatus.values()) {
+            zglByStatus.put(status.name(), zgloszenia.stream()
+                    .filter(z -> z.getStatus() == status)
+                    .filter(z -> isInDateTimeRange(resolveZgloszenieTimestamp(z), periodStartAt, periodEndExclusive))
+                    .count());
+        }
+        dto.setZgloszeniaByStatus(zglByStatus);
+
+        Map<String, Long> raportyByStatus = new LinkedHashMap<>();
+        for (RaportStatus status : RaportStatus.values()) {
+            raportyByStatus.put(status.name(), raporty.stream()
+                    .filter(r -> r.getStatus() == status)
+                    .filter(r -> isInDateRange(r.getDataNaprawy(), periodStart, today))
+                    .count());
+        }
+        dto.setRaportyByStatus(raportyByStatus);
+        return dto;
+    }
+
+    private static long countTodayByStatus(List<Zgloszenie> zgloszenia, LocalDate today, ZgloszenieStatus targetStatus) {
+        return zgloszenia.stream()
+                .filter(z -> z.getStatus() == targetStatus)
+                .filter(z -> {
+                    LocalDateTime ts = resolveZgloszenieTimestamp(z);
+                    return ts != null && ts.toLocalDate().equals(today);
+                })
+                .count();
+    }
+
+    private static long countByStatusInRange(List<Zgloszenie> zgloszenia, LocalDateTime startInclusive,
+                                             LocalDateTime endExclusive, ZgloszenieStatus targetStatus) {
+        return zgloszenia.stream()
+                .filter(z -> z.getStatus() == targetStatus)
+                .filter(z -> isInDateTimeRange(resolveZgloszenieTimestamp(z), startInclusive, endExclusive))
+                .count();
+    }
+
+    private static LocalDateTime resolveZgloszenieTimestamp(Zgloszenie zgloszenie) {
+        return zgloszenie.getDataGodzina() != null ? zgloszenie.getDataGodzina() : zgloszenie.getCreatedAt();
+    }
+
+    private static boolean isInDateRange(LocalDate date, LocalDate startInclusive, LocalDate endInclusive) {
+        return date != null && !date.isBefore(startInclusive) && !date.isAfter(endInclusive);
+    }
+
+    private static boolean isInDateTimeRange(LocalDateTime value, LocalDateTime startInclusive, LocalDateTime endExclusive) {
+        return value != null && !value.isBefore(startInclusive) && value.isBefore(endExclusive);
+    }
+
+    private static List<DashboardTrendPointDTO> buildZgloszenieTrend(List<Zgloszenie> zgloszenia, LocalDate start, LocalDate end) {
+        List<DashboardTrendPointDTO> trend = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            final LocalDate currentDay = day;
+            DashboardTrendPointDTO point = new DashboardTrendPointDTO();
+            point.setDate(currentDay);
+            point.setCount(zgloszenia.stream()
+                    .filter(z -> isInDateTimeRange(resolveZgloszenieTimestamp(z), currentDay.atStartOfDay(), currentDay.plusDays(1).atStartOfDay()))
+                    .count());
+            trend.add(point);
+        }
+        return trend;
+    }
+
+    private static List<DashboardTrendPointDTO> buildRaportTrend(List<Raport> raporty, LocalDate start, LocalDate end) {
+        List<DashboardTrendPointDTO> trend = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            final LocalDate currentDay = day;
+            DashboardTrendPointDTO point = new DashboardTrendPointDTO();
+            point.setDate(currentDay);
+            point.setCount(raporty.stream()
+                    .map(Raport::getDataNaprawy)
+                    .filter(d -> d != null && d.equals(currentDay))
+                    .count());
+            trend.add(point);
+        }
+        return trend;
+    }
+
+    private static double percentChange(long current, long previous) {
+        if (previous == 0) {
+            return current == 0 ? 0.0 : 100.0;
+        }
+        return BigDecimal.valueOf(current - previous)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(previous), 2, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+}
@@ -0,0 +1,61 @@
+package drimer.drimain.service.search;
+
+import drimer.drimain.model.Zgloszenie;
+import drimer.drimain.model.enums.ZgloszenieStatus;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.spec.ZgloszenieQuery;
+import drimer.drimain.service.ZgloszenieQueryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "app.search.engine=ngram",
+        "app.search.max-hits=2"
+})
+class FullTextSearchServiceIntegrationTest {
+
+    @Autowired FullTextSearchService fullTextSearchService;
+    @Autowired NgramFullTextSearch ngramSearch;
+    @Autowired ZgloszenieQueryService zgloszenieQueryService;
+    @Autowired ZgloszenieRepository zgloszenieRepository;
+
+    @Test
+    void truncatedHitListFallsBackToLikeInsteadOfDroppingRows() {
+        for (int i = 0; i < 4; i++) {
+            zgloszenie("Przegladowy", "Kalibracja wrzeciona nr " + i);
+        }
+        Zgloszenie filtered = zgloszenie("Elektryczny", "Kalibracja wrzeciona w szafie");
+        zgloszenie("Elektryczny", "Unikalny hydrozbiornik");
+        ngramSearch.rebuild();
+
+        assertTrue(fullTextSearchService.matchZgloszenia("wrzeciona").isEmpty(), "5 hits > max-hits 2 -> LIKE");
+        assertEquals(5, zgloszenieQueryService.count(ZgloszenieQuery.create().text("wrzeciona")));
+        assertEquals(1, zgloszenieQueryService.count(ZgloszenieQuery.create().text("wrzeciona").typ("Elektryczny")));
+        assertEquals(filtered.getId(), zgloszenieQueryService
+                .list(ZgloszenieQuery.create().text("wrzeciona").typ("Elektryczny")).get(0).getId());
+
+        TextMatch match = fullTextSearchService.matchZgloszenia("hydrozbiornik").orElseThrow();
+        assertNull(match.tsQuery());
+        assertEquals(1, match.ids().size());
+        assertEquals(1, zgloszenieQueryService.count(ZgloszenieQuery.create().text("hydrozbiornik")));
+    }
+
+    private Zgloszenie zgloszenie(String typ, String opis) {
+        Zgloszenie z = new Zgloszenie();
+        z.setTyp(typ);
+        z.setImie("Jan");
+        z.setNazwisko("Kowalski");
+        z.setOpis(opis);
+        z.setStatus(ZgloszenieStatus.OPEN);
+        z.setDataGodzina(LocalDateTime.now());
+        return zgloszenieRepository.save(z);
+    }
+}
@@ -0,0 +1,60 @@
+package drimer.drimain.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NgramIndexTest {
+
+    private NgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NgramIndex();
+        long seq = index.beginRebuild();
+        index.replace(new NgramIndex.Builder()
+                .add(1L, "Wymiana łożyska na prasie")
+                .add(2L, "Awaria silnika - łożysko, łożysko wału")
+                .add(3L, "Przegląd okresowy")
+                .build(), seq);
+    }
+
+    @Test
+    void shouldFoldPolishDiacritics() {
+        assertEquals(List.of(2L, 1L), index.search("lozysk", 10));
+        assertEquals(List.of(2L, 1L), index.search("ŁOŻYSK", 10));
+    }
+
+    @Test
+    void shouldRequireAllTokens() {
+        assertEquals(List.of(2L), index.search("lozysko silnik", 10));
+        assertTrue(index.search("lozysko hydraulika", 10).isEmpty());
+    }
+
+    @Test
+    void shouldApplyPendingChangesOverSnapshot() {
+        index.put(3L, "Przegląd łożyska");
+        index.remove(1L);
+        index.put(4L, "Nowe łożysko");
+
+        assertEquals(List.of(2L, 4L, 3L), index.search("lozysk", 10));
+    }
+
+    @Test
+    void shouldKeepChangesNewerThanRebuild() {
+        index.put(5L, "Uszczelka");
+        long seq = index.beginRebuild();
+        index.put(6L, "Uszczelka pompy");
+        index.replace(new NgramIndex.Builder().add(5L, "Uszczelka").build(), seq);
+
+        assertEquals(List.of(6L, 5L), index.search("uszczelka", 10));
+    }
+
+    @Test
+    void shouldHandleShortTokensWithScan() {
+        assertEquals(List.of(1L), index.search("na", 10));
+    }
+}
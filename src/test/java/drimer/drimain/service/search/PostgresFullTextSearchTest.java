@@ -0,0 +1,93 @@
+package drimer.drimain.service.search;
+
+import drimer.drimain.repository.RaportRepository;
+import drimer.drimain.repository.ZgloszenieRepository;
+import drimer.drimain.repository.spec.RaportSpecifications;
+import drimer.drimain.repository.spec.ZgloszenieSpecifications;
+import drimer.drimain.util.PolishTextNormalizer;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ścieżka PostgreSQL bez bazy PostgreSQL: SQL generowany z funkcji fts_match_* (rejestracja przez
+ * META-INF/services) i tsquery budowane z zapytania. Wykonanie na H2 się nie udaje (brak search_vector),
+ * sprawdzany jest tylko wyrenderowany SQL.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "drimer.drimain.service.search.PostgresFullTextSearchTest$RecordingInspector"
+})
+class PostgresFullTextSearchTest {
+
+    @Autowired ZgloszenieRepository zgloszenieRepository;
+    @Autowired RaportRepository raportRepository;
+
+    @Test
+    void buildsPrefixTsQueryFromFoldedTokens() {
+        assertEquals("lozys:* & wal:* & 2:*", PostgresFullTextSearch.toTsQuery("Łożys  WAŁ-2"));
+        assertEquals("a:* & b:*", PostgresFullTextSearch.toTsQuery("a' | !b & (:*"), "no tsquery operators pass through");
+        assertEquals("", PostgresFullTextSearch.toTsQuery(" - "));
+    }
+
+    @Test
+    void queryFoldingMatchesIndexedFoldingFromMigration() throws Exception {
+        String migration = new ClassPathResource("db/migration/V34__add_full_text_search.sql")
+                .getContentAsString(StandardCharsets.UTF_8);
+        Matcher translate = Pattern.compile("translate\\(lower\\(coalesce\\(txt, ''\\)\\), '([^']+)', '([^']+)'\\)")
+                .matcher(migration);
+        assertTrue(translate.find(), "f_fold_pl translate() not found in V34");
+
+        assertEquals(translate.group(2), PolishTextNormalizer.fold(translate.group(1)));
+        assertTrue(migration.contains("to_tsvector('simple', f_fold_pl(opis))"));
+    }
+
+    @Test
+    void rendersZgloszeniaMatchAsSemiJoinOnSearchVector() {
+        String sql = renderedSql(() -> zgloszenieRepository.findAll(ZgloszenieSpecifications.matchesTsQuery("lozys:*")));
+
+        assertTrue(sql.matches("(?s).*\\.id in \\(select fts\\.id from zgloszenia fts "
+                + "where fts\\.search_vector @@ to_tsquery\\('simple', ?(\\?|'lozys:\\*')\\)\\).*"), sql);
+    }
+
+    @Test
+    void rendersRaportyMatchAsSemiJoinOnSearchVector() {
+        String sql = renderedSql(() -> raportRepository.findAll(RaportSpecifications.matchesTsQuery("wal:*")));
+
+        assertTrue(sql.matches("(?s).*\\.id in \\(select fts\\.id from raporty fts "
+                + "where fts\\.search_vector @@ to_tsquery\\('simple', ?(\\?|'wal:\\*')\\)\\).*"), sql);
+    }
+
+    private static String renderedSql(Runnable query) {
+        RecordingInspector.SQL.clear();
+        assertThrows(RuntimeException.class, query::run, "H2 has no search_vector column");
+        return RecordingInspector.SQL.stream()
+                .filter(s -> s.contains("search_vector"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no full-text SQL rendered: " + RecordingInspector.SQL));
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package drimer.drimain.service.sse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseClientTest {
+
+    @Test
+    void shouldDropOldestWhenQueueIsFull() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseClient client = client(emitter, 2);
+
+        assertEquals(SseClient.Offer.QUEUED, client.offer(frame("A", null), true));
+        assertEquals(SseClient.Offer.QUEUED, client.offer(frame("B", null), true));
+        assertEquals(SseClient.Offer.DROPPED_OLDEST, client.offer(frame("C", null), true));
+        assertEquals(2, client.queueDepth());
+        assertEquals(1, client.dropped());
+
+        assertTrue(client.drain(10, () -> {}));
+        assertEquals(List.of("B", "C"), emitter.sent);
+    }
+
+    @Test
+    void shouldReportDroppedEventAndReplaceQueueWithResync() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseClient client = client(emitter, 2);
+
+        client.offer(frame("E1", 1L, null), true);
+        client.offer(frame("E2", 2L, "UPDATED:2"), true);
+        assertEquals(SseClient.Offer.DROPPED_EVENT, client.offer(frame("E3", 3L, null), true));
+
+        assertEquals(2, client.resync(frame("RESYNC", 3L, null)));
+        assertEquals(1, client.queueDepth());
+        assertEquals(3, client.dropped());
+        assertEquals(SseClient.Offer.QUEUED, client.offer(frame("U2", 4L, "UPDATED:2"), true),
+                "superseded frames no longer coalesce");
+
+        assertTrue(client.drain(10, () -> {}));
+        assertEquals(List.of("RESYNC", "U2"), emitter.sent);
+    }
+
+    @Test
+    void shouldReportOverflowWithoutQueueingWhenDropIsNotAllowed() {
+        SseClient client = client(new RecordingEmitter(), 1);
+
+        client.offer(frame("A", null), false);
+        assertEquals(SseClient.Offer.OVERFLOW, client.offer(frame("B", null), false));
+        assertEquals(1, client.queueDepth());
+    }
+
+    @Test
+    void shouldCoalesceQueuedFrameWithSameKeyInPlace() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseClient client = new SseClient("c", emitter, null, null, null, false, 10,
+                (older, newer) -> frame(older.name() + "+" + newer.name(), newer.coalesceKey()));
+
+        client.offer(frame("U1", "UPDATED:1"), true);
+        client.offer(frame("X", null), true);
+        assertEquals(SseClient.Offer.COALESCED, client.offer(frame("U2", "UPDATED:1"), true));
+        assertEquals(2, client.queueDepth());
+
+        client.drain(10, () -> {});
+        assertEquals(List.of("U1+U2", "X"), emitter.sent);
+
+        // po wysłaniu klucz nie jest już w kolejce - kolejne zdarzenie trafia normalnie
+        assertEquals(SseClient.Offer.QUEUED, client.offer(frame("U3", "UPDATED:1"), true));
+    }
+
+    @Test
+    void shouldScheduleSingleDrainAndReleaseWhenEmpty() {
+        SseClient client = client(new RecordingEmitter(), 10);
+        assertFalse(client.tryScheduleDrain(), "empty queue needs no drain");
+
+        client.offer(frame("A", null), true);
+        assertTrue(client.tryScheduleDrain());
+        client.offer(frame("B", null), true);
+        assertFalse(client.tryScheduleDrain(), "drain already scheduled");
+
+        client.drain(1, () -> {});
+        assertTrue(client.releaseDrain(), "one frame left - drain keeps the flag");
+        client.drain(1, () -> {});
+        assertFalse(client.releaseDrain());
+        client.offer(frame("C", null), true);
+        assertTrue(client.tryScheduleDrain());
+    }
+
+    @Test
+    void shouldStopDrainOnSendFailure() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failAfter = 1;
+        SseClient client = client(emitter, 10);
+        client.offer(frame("A", null), true);
+        client.offer(frame("B", null), true);
+
+        List<String> counted = new ArrayList<>();
+        assertFalse(client.drain(10, () -> counted.add("x")));
+        assertEquals(List.of("A"), emitter.sent);
+        assertEquals(1, counted.size());
+    }
+
+    private static SseClient client(SseEmitter emitter, int capacity) {
+        return new SseClient("c", emitter, null, null, null, false, capacity, (older, newer) -> newer);
+    }
+
+    private static SseFrame frame(String name, String key) {
+        return frame(name, null, key);
+    }
+
+    private static SseFrame frame(String name, Long id, String key) {
+        return new SseFrame(name, id, key, null, SseEmitter.event().name(name).data(name).build());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> sent = new ArrayList<>();
+        int failAfter = Integer.MAX_VALUE;
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            if (sent.size() >= failAfter) throw new IOException("Broken pipe");
+            String text = items.iterator().next().getData().toString();
+            sent.add(text.substring("event:".length(), text.indexOf('\n')));
+        }
+    }
+}
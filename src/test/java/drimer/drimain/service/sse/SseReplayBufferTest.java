@@ -0,0 +1,90 @@
+package drimer.drimain.service.sse;
+
+import drimer.drimain.api.dto.ZgloszenieEventDTO;
+import drimer.drimain.events.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseReplayBufferTest {
+
+    private static final long BATCH = 1_000_000L; // ClusterEventBatch.EVENT_IDS_PER_BATCH
+
+    @Test
+    void shouldReplayMissedEventsAcrossSparseOutboxIds() {
+        SseReplayBuffer buffer = new SseReplayBuffer(10);
+        append(buffer, 7 * BATCH);
+        append(buffer, 7 * BATCH + 1);
+        append(buffer, 9 * BATCH);      // wiersz 8 bez zdarzeń zgłoszeń
+        append(buffer, 12 * BATCH);
+
+        assertEquals(12 * BATCH, buffer.lastId());
+        Optional<List<SseReplayBuffer.Entry>> missed = buffer.since(7 * BATCH + 1);
+        assertTrue(missed.isPresent());
+        assertEquals(List.of(9 * BATCH, 12 * BATCH), ids(missed.get()));
+        assertEquals(List.of(), buffer.since(12 * BATCH).orElseThrow());
+    }
+
+    @Test
+    void shouldRequireResyncWhenGapExceedsBuffer() {
+        SseReplayBuffer buffer = new SseReplayBuffer(3);
+        for (long row = 1; row <= 5; row++) append(buffer, row * BATCH); // w buforze wiersze 3..5
+
+        assertEquals(List.of(3 * BATCH, 4 * BATCH, 5 * BATCH), ids(buffer.since(2 * BATCH).orElseThrow()),
+                "event right before the oldest still replays");
+        assertTrue(buffer.since(BATCH).isEmpty(), "event from row 2 was overwritten");
+        assertTrue(buffer.since(6 * BATCH).isEmpty(), "event this node has not received yet needs resync");
+    }
+
+    @Test
+    void shouldRequireResyncForIdsFromBeforeFirstReceivedEvent() {
+        // instancja po restarcie (albo nowa) nie wie, co było przed pierwszym odebranym zdarzeniem
+        SseReplayBuffer buffer = new SseReplayBuffer(10);
+        assertTrue(buffer.since(3 * BATCH).isEmpty());
+
+        append(buffer, 5 * BATCH);
+        assertTrue(buffer.since(3 * BATCH).isEmpty());
+        assertEquals(List.of(), buffer.since(5 * BATCH).orElseThrow());
+    }
+
+    @Test
+    void shouldGiveSameReplayOnEveryNode() {
+        SseReplayBuffer nodeA = new SseReplayBuffer(10);
+        SseReplayBuffer nodeB = new SseReplayBuffer(10);
+        for (long row = 1; row <= 4; row++) {
+            append(nodeA, row * BATCH);
+            append(nodeB, row * BATCH);
+        }
+
+        // klient widział wiersz 2 na A i łączy się ponownie z B
+        long seenOnA = nodeA.since(BATCH).orElseThrow().get(0).id();
+        assertEquals(List.of(3 * BATCH, 4 * BATCH), ids(nodeB.since(seenOnA).orElseThrow()));
+    }
+
+    @Test
+    void shouldNotBufferEventsWithoutOutboxId() {
+        SseReplayBuffer buffer = new SseReplayBuffer(10);
+        append(buffer, 2 * BATCH);
+        SseReplayBuffer.Entry entry = buffer.append(null, EventType.UPDATED, dto(1L), null, null);
+
+        assertNull(entry.id());
+        assertEquals(2 * BATCH, buffer.lastId());
+        assertEquals(List.of(), buffer.since(2 * BATCH).orElseThrow());
+    }
+
+    private static void append(SseReplayBuffer buffer, long id) {
+        buffer.append(id, EventType.UPDATED, dto(id), null, null);
+    }
+
+    private static ZgloszenieEventDTO dto(long zgloszenieId) {
+        return new ZgloszenieEventDTO(EventType.UPDATED, zgloszenieId, LocalDateTime.now(), List.of("status"), null);
+    }
+
+    private static List<Long> ids(List<SseReplayBuffer.Entry> entries) {
+        return entries.stream().map(SseReplayBuffer.Entry::id).toList();
+    }
+}
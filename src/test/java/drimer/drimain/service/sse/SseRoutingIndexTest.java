@@ -0,0 +1,50 @@
+package drimer.drimain.service.sse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseRoutingIndexTest {
+
+    private final SseRoutingIndex index = new SseRoutingIndex();
+
+    private final SseClient all = client("all", null, null);
+    private final SseClient dzial1 = client("dzial1", 1L, null);
+    private final SseClient dzial2 = client("dzial2", 2L, null);
+    private final SseClient autor7 = client("autor7", null, 7L);
+    private final SseClient dzial1Autor8 = client("dzial1autor8", 1L, 8L);
+
+    @Test
+    void shouldMatchOnlyClientsOfEventDzialAndAutor() {
+        List.of(all, dzial1, dzial2, autor7, dzial1Autor8).forEach(index::add);
+
+        assertEquals(Set.of(all, dzial1, autor7), index.match(List.of(new SseRoutingIndex.Key(1L, 7L))));
+        assertEquals(Set.of(all, dzial1, dzial1Autor8), index.match(List.of(new SseRoutingIndex.Key(1L, 8L))));
+        assertEquals(Set.of(all, dzial2), index.match(List.of(new SseRoutingIndex.Key(2L, null))));
+    }
+
+    @Test
+    void shouldNotifyPreviousDzialWhenZgloszenieMoves() {
+        List.of(all, dzial1, dzial2).forEach(index::add);
+
+        Set<SseClient> matched = index.match(List.of(new SseRoutingIndex.Key(2L, null), new SseRoutingIndex.Key(1L, null)));
+        assertEquals(Set.of(all, dzial1, dzial2), matched);
+    }
+
+    @Test
+    void shouldForgetRemovedClients() {
+        List.of(all, dzial1, autor7).forEach(index::add);
+        index.remove(dzial1);
+        index.remove(autor7);
+
+        assertEquals(Set.of(all), index.match(List.of(new SseRoutingIndex.Key(1L, 7L))));
+    }
+
+    private static SseClient client(String id, Long dzialId, Long autorId) {
+        return new SseClient(id, new SseEmitter(), null, dzialId, autorId, false, 4, (older, newer) -> newer);
+    }
+}
@@ -0,0 +1,101 @@
+package drimer.drimain.service.storage;
+
+import drimer.drimain.api.dto.InstructionAttachmentDTO;
+import drimer.drimain.model.Instruction;
+import drimer.drimain.model.InstructionAttachment;
+import drimer.drimain.model.Maszyna;
+import drimer.drimain.repository.InstructionAttachmentRepository;
+import drimer.drimain.repository.InstructionRepository;
+import drimer.drimain.repository.MaszynaRepository;
+import drimer.drimain.service.InstructionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "app.attachments.content-gc-grace-minutes=0"
+})
+class ContentStoreIntegrationTest {
+
+    @Autowired InstructionRepository instructionRepository;
+    @Autowired InstructionAttachmentRepository attachmentRepository;
+    @Autowired MaszynaRepository maszynaRepository;
+    @Autowired InstructionService instructionService;
+    @Autowired ContentStore contentStore;
+
+    @Test
+    void sameContentIsStoredOnceAndCollectedWhenUnreferenced() throws Exception {
+        byte[] pdf = ("%PDF-1.4 manual " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        ContentStore.Report before = contentStore.report();
+
+        Instruction first = newInstruction();
+        Instruction second = newInstruction();
+        InstructionAttachmentDTO a = upload(first, pdf);
+        InstructionAttachmentDTO b = upload(second, pdf);
+
+        InstructionAttachment stored = attachmentRepository.findById(a.id).orElseThrow();
+        assertThat(attachmentRepository.findById(b.id).orElseThrow().getBlobSha256()).isEqualTo(stored.getBlobSha256());
+        Path blob = contentStore.path(stored.getBlobSha256());
+        assertThat(Files.readAllBytes(blob)).isEqualTo(pdf);
+        assertThat(contentStore.referenceCount(stored.getBlobSha256())).isEqualTo(2);
+
+        ContentStore.Report after = contentStore.report();
+        assertThat(after.references() - before.references()).isEqualTo(2);
+        assertThat(after.blobs() - before.blobs()).isEqualTo(1);
+        assertThat(after.savedBytes() - before.savedBytes()).isEqualTo(pdf.length);
+
+        // still referenced by the second instruction
+        instructionService.delete(first.getId());
+        contentStore.collectGarbage();
+        assertThat(Files.exists(blob)).isTrue();
+
+        instructionService.delete(second.getId());
+        contentStore.collectGarbage();
+        assertThat(Files.exists(blob)).isFalse();
+    }
+
+    @Test
+    void uploadWithContentNotMatchingDeclaredTypeIsRejected() {
+        byte[] notPdf = ("MZ fake manual " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        Instruction ins = newInstruction();
+        ContentStore.Report before = contentStore.report();
+
+        assertThatThrownBy(() -> upload(ins, notPdf))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("application/pdf");
+
+        assertThat(contentStore.report().blobs()).isEqualTo(before.blobs());
+        assertThat(attachmentRepository.findByInstruction_IdOrderByCreatedAtDesc(ins.getId())).isEmpty();
+    }
+
+    private InstructionAttachmentDTO upload(Instruction ins, byte[] content) {
+        List<InstructionAttachmentDTO> result = instructionService.upload(ins.getId(),
+                List.of(new MockMultipartFile("files", "manual.pdf", "application/pdf", content)), "test");
+        return result.get(0);
+    }
+
+    private Instruction newInstruction() {
+        Maszyna m = new Maszyna();
+        m.setNazwa("Maszyna " + UUID.randomUUID());
+        m = maszynaRepository.save(m);
+        Instruction ins = new Instruction();
+        ins.setTitle("Instrukcja");
+        ins.setMaszyna(m);
+        ins.setCreatedAt(LocalDateTime.now());
+        return instructionRepository.save(ins);
+    }
+}
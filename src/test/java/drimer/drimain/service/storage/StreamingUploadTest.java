@@ -0,0 +1,76 @@
+package drimer.drimain.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingUploadTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldHashAndStoreInOnePass() throws Exception {
+        byte[] data = new byte[StreamingUpload.BUFFER_SIZE * 3 + 17];
+        new Random(7).nextBytes(data);
+        AtomicReference<byte[]> header = new AtomicReference<>();
+
+        Path target = dir.resolve("file.bin");
+        StreamingUpload.Result result = StreamingUpload.writeTemp(new ByteArrayInputStream(data), target, 0, header::set);
+
+        assertEquals(data.length, result.size());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data)), result.sha256());
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(StreamingUpload.BUFFER_SIZE, header.get().length);
+        assertEquals(data[0], header.get()[0]);
+    }
+
+    @Test
+    void shouldRejectOversizedStreamWhileReadingAndLeaveNoFiles() throws Exception {
+        byte[] data = new byte[StreamingUpload.BUFFER_SIZE * 10];
+        long limit = StreamingUpload.BUFFER_SIZE * 2L;
+        CountingInputStream in = new CountingInputStream(data);
+        Path target = dir.resolve("big.bin");
+
+        assertThrows(IllegalArgumentException.class, () -> StreamingUpload.writeTemp(in, target, limit, null));
+        assertTrue(in.count <= limit + StreamingUpload.BUFFER_SIZE,
+                "stream must be rejected while reading, read " + in.count + " bytes");
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void shouldRejectWhenHeaderValidationFails() throws Exception {
+        Path target = dir.resolve("x.pdf");
+        assertThrows(IllegalArgumentException.class,
+                () -> StreamingUpload.writeTemp(new ByteArrayInputStream(new byte[]{1, 2, 3}), target, 0,
+                        h -> { throw new IllegalArgumentException("bad signature"); }));
+        assertFalse(Files.exists(target));
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+
+        long count;
+
+        CountingInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}